@@ -0,0 +1,40 @@
+package org.showcontrol4j.benchmarks;
+
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.transport.Transport;
+import org.showcontrol4j.trigger.ShowTrigger;
+
+import java.io.IOException;
+
+/**
+ * A {@link ShowTrigger} for benchmarks that publishes a GO command on demand instead of listening for an input.
+ *
+ * @author James Hare
+ */
+public class BenchmarkShowTrigger extends ShowTrigger {
+
+    public BenchmarkShowTrigger(final MessageExchange messageExchange,
+                                final BrokerConnectionFactory brokerConnectionFactory) {
+        super("Benchmark Trigger", 1L, 0L, messageExchange, brokerConnectionFactory);
+    }
+
+    public BenchmarkShowTrigger(final Transport transport) {
+        super("Benchmark Trigger", 1L, 0L, transport);
+    }
+
+    /**
+     * Publishes a GO command to start immediately.
+     *
+     * @throws IOException if the command could not be published.
+     */
+    public void go() throws IOException {
+        sendGoMessage();
+    }
+
+    @Override
+    protected void startListener() {
+        // commands are sent by the benchmark.
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.showcontrol4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.showcontrol4j.message.CommandTemplate;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.message.ShowCommand;
+import org.showcontrol4j.message.codec.MessageCodec;
+import org.showcontrol4j.message.codec.MessageCodecs;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding and decoding a {@link SCFJMessage} with each {@link MessageCodec}.
+ *
+ * @author James Hare
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark {
+
+    @Param({"BINARY", "JSON"})
+    private String codec;
+
+    private MessageCodec messageCodec;
+    private SCFJMessage message;
+    private byte[] encoded;
+    private CommandTemplate template;
+
+    @Setup
+    public void setup() throws IOException {
+        messageCodec = "JSON".equals(codec) ? MessageCodecs.JSON : MessageCodecs.BINARY;
+        message = ShowCommand.GO(500L);
+        encoded = message.serialize(messageCodec);
+        template = CommandTemplate.of(messageCodec, Instruction.GO, null, null, null);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return message.serialize(messageCodec);
+    }
+
+    /**
+     * Fires the message from a {@link CommandTemplate} as a Show Trigger does, or encodes it for codecs that cannot
+     * patch templates.
+     */
+    @Benchmark
+    public byte[] stampTemplate() throws IOException {
+        return template != null ? template.stamp(message.getStartTime()) : message.serialize(messageCodec);
+    }
+
+    @Benchmark
+    public SCFJMessage deserialize() throws IOException {
+        return SCFJMessage.deserialize(encoded);
+    }
+
+}
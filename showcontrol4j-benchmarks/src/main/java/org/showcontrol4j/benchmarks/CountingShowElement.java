@@ -0,0 +1,81 @@
+package org.showcontrol4j.benchmarks;
+
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.element.ShowElement;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.idle.IdleStrategies;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.transport.Transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ShowElement} for benchmarks that counts how many times its show sequence has started, so a benchmark can
+ * spin until a command it sent has taken effect. The idle loop backs off so it does not compete with the benchmark
+ * thread for a core.
+ *
+ * @author James Hare
+ */
+public class CountingShowElement extends ShowElement {
+
+    private final AtomicLong showCount = new AtomicLong();
+
+    public CountingShowElement(final MessageExchange messageExchange,
+                               final BrokerConnectionFactory brokerConnectionFactory) {
+        super("Benchmark Element", 1L, messageExchange, brokerConnectionFactory);
+        setIdleStrategy(IdleStrategies.backoff());
+    }
+
+    public CountingShowElement(final Transport transport) {
+        super("Benchmark Element", 1L, transport);
+        setIdleStrategy(IdleStrategies.backoff());
+    }
+
+    /**
+     * Hands a message to the element as if it had been received from the broker.
+     *
+     * @param message the message to handle.
+     */
+    public void receive(final SCFJMessage message) {
+        handleMessage(message);
+    }
+
+    /**
+     * Returns the number of times the show sequence has started.
+     *
+     * @return the show count.
+     */
+    public long getShowCount() {
+        return showCount.get();
+    }
+
+    /**
+     * Spins until the show sequence has started more than the given number of times.
+     *
+     * @param previousShowCount the show count before the command was sent.
+     * @return the new show count.
+     */
+    public long awaitShowAfter(final long previousShowCount) {
+        long count;
+        while ((count = showCount.get()) <= previousShowCount) {
+            Thread.onSpinWait();
+        }
+        return count;
+    }
+
+    @Override
+    protected void showSequence() {
+        showCount.incrementAndGet();
+    }
+
+    @Override
+    protected void idleLoop() throws InterruptedException {
+        pause(1);
+    }
+
+    @Override
+    protected void shutdownProcedure() {
+        // nothing to release.
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.showcontrol4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link org.showcontrol4j.element.ShowElement} side of a command: how long handling a message blocks
+ * the thread that delivered it, and how long it takes from a message being handled to its show sequence starting.
+ * The second is reported as a latency distribution.
+ *
+ * @author James Hare
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    private final SCFJMessage goMessage = SCFJMessage.builder().instruction(Instruction.GO).build();
+    private InProcessBroker broker;
+    private CountingShowElement element;
+
+    @Setup
+    public void setup() {
+        broker = new InProcessBroker();
+        element = new CountingShowElement(MessageExchange.builder().name("benchmark").build(),
+                broker.newBrokerConnectionFactory());
+    }
+
+    @TearDown
+    public void tearDown() {
+        broker.close();
+    }
+
+    /**
+     * The time the delivering thread is held by handling a message.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void handleMessage() {
+        element.receive(goMessage);
+    }
+
+    /**
+     * The time from handling a message to its show sequence starting.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public long handleMessageToShowStart() {
+        final long showCount = element.getShowCount();
+        element.receive(goMessage);
+        return element.awaitShowAfter(showCount);
+    }
+
+}
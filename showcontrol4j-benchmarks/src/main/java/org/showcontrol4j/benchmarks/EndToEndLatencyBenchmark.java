@@ -0,0 +1,79 @@
+package org.showcontrol4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.transport.InJvmTransport;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of a command from a {@link BenchmarkShowTrigger} publishing it to the show sequence of a
+ * {@link CountingShowElement} starting, either through an {@link InProcessBroker} standing in for RabbitMQ or
+ * through an {@link InJvmTransport}. Either way the result covers encoding, delivery, decoding, deadline scheduling
+ * and dispatch but not the network. JMH reports the latency percentiles.
+ *
+ * @author James Hare
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndLatencyBenchmark {
+
+    @Param({"broker", "in-jvm"})
+    private String transport;
+
+    private InProcessBroker broker;
+    private InJvmTransport inJvmTransport;
+    private BenchmarkShowTrigger trigger;
+    private CountingShowElement element;
+
+    @Setup
+    public void setup() {
+        if ("in-jvm".equals(transport)) {
+            inJvmTransport = new InJvmTransport("benchmark");
+            element = new CountingShowElement(inJvmTransport);
+            trigger = new BenchmarkShowTrigger(inJvmTransport);
+        } else {
+            broker = new InProcessBroker();
+            final BrokerConnectionFactory brokerConnectionFactory = broker.newBrokerConnectionFactory();
+            final MessageExchange messageExchange = MessageExchange.builder().name("benchmark").build();
+            element = new CountingShowElement(messageExchange, brokerConnectionFactory);
+            trigger = new BenchmarkShowTrigger(messageExchange, brokerConnectionFactory);
+        }
+        element.init();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (inJvmTransport != null) {
+            inJvmTransport.close();
+        }
+        if (broker != null) {
+            broker.close();
+        }
+    }
+
+    @Benchmark
+    public long triggerToShowStart() throws IOException {
+        final long showCount = element.getShowCount();
+        trigger.go();
+        return element.awaitShowAfter(showCount);
+    }
+
+}
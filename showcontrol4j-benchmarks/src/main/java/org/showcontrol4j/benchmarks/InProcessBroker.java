@@ -0,0 +1,284 @@
+package org.showcontrol4j.benchmarks;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves as an in-process stand-in for the RabbitMQ broker, so that Show Triggers and Show Elements can be wired
+ * together in one JVM without a network or a broker install. It implements just enough of the AMQP model for the
+ * library: fanout exchanges, server-named and named queues, the default exchange, push consumers and publisher
+ * confirms. A channel in confirm mode acks each message on the dispatch thread once it has been routed.
+ * <p>
+ * Deliveries are handed to consumers on a single dispatch thread, as the RabbitMQ client does for a channel, so the
+ * thread hop from publisher to consumer is part of what is measured. Every channel method the stand-in does not
+ * implement does nothing and returns a default value.
+ *
+ * @author James Hare
+ */
+public class InProcessBroker implements AutoCloseable {
+
+    private final Map<String, Set<String>> bindings = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, DeliverCallback>> consumers = new ConcurrentHashMap<>();
+    private final AtomicLong queueCounter = new AtomicLong();
+    private final AtomicLong tagCounter = new AtomicLong();
+    private final AtomicLong deliveryCounter = new AtomicLong();
+    private final AtomicInteger channelCounter = new AtomicInteger();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "showcontrol4j-in-process-broker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Returns a {@link BrokerConnectionFactory} whose connections and channels are served by this broker.
+     *
+     * @return a new {@link BrokerConnectionFactory}.
+     */
+    public BrokerConnectionFactory newBrokerConnectionFactory() {
+        return new BrokerConnectionFactory.Builder()
+                .connectionFactory(new InProcessConnectionFactory())
+                .build();
+    }
+
+    /**
+     * Returns a new channel on this broker.
+     *
+     * @return a new {@link Channel}.
+     */
+    public Channel newChannel() {
+        return proxy(Channel.class, new ChannelHandler(channelCounter.incrementAndGet()));
+    }
+
+    /**
+     * Returns the number of queues bound to the exchange.
+     *
+     * @param exchange the name of the exchange.
+     * @return the number of bound queues.
+     */
+    public int getBindingCount(final String exchange) {
+        final Set<String> queues = bindings.get(exchange);
+        return queues == null ? 0 : queues.size();
+    }
+
+    /**
+     * Stops the dispatch thread. Messages published afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        dispatcher.shutdownNow();
+    }
+
+    private void publish(final String exchange, final String routingKey, final AMQP.BasicProperties properties,
+                         final byte[] body) {
+        if (exchange.isEmpty()) {
+            deliver(routingKey, exchange, routingKey, properties, body);
+            return;
+        }
+        final Set<String> queues = bindings.get(exchange);
+        if (queues != null) {
+            for (final String queue : queues) {
+                deliver(queue, exchange, routingKey, properties, body);
+            }
+        }
+    }
+
+    private void deliver(final String queue, final String exchange, final String routingKey,
+                         final AMQP.BasicProperties properties, final byte[] body) {
+        final Map<String, DeliverCallback> queueConsumers = consumers.get(queue);
+        if (queueConsumers == null || dispatcher.isShutdown()) {
+            return;
+        }
+        for (final Map.Entry<String, DeliverCallback> consumer : queueConsumers.entrySet()) {
+            final Envelope envelope = new Envelope(deliveryCounter.incrementAndGet(), false, exchange, routingKey);
+            dispatcher.execute(() -> {
+                try {
+                    consumer.getValue().handle(consumer.getKey(), new Delivery(envelope, properties, body));
+                } catch (final IOException e) {
+                    throw new IllegalStateException("A consumer of queue=" + queue + " has failed.", e);
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InProcessBroker.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(final Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type.isPrimitive() && type != void.class) {
+            return 0;
+        }
+        return null;
+    }
+
+    private class InProcessConnectionFactory extends ConnectionFactory {
+
+        @Override
+        public Connection newConnection() {
+            return proxy(Connection.class, new ConnectionHandler());
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private volatile boolean open = true;
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "createChannel":
+                    return newChannel();
+                case "isOpen":
+                    return open;
+                case "close":
+                case "abort":
+                    open = false;
+                    return null;
+                case "toString":
+                    return "InProcessConnection";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    private class ChannelHandler implements InvocationHandler {
+
+        private final int channelNumber;
+        private final AtomicLong nextPublishSeqNo = new AtomicLong(1L);
+        private final List<ConfirmCallback> ackCallbacks = new CopyOnWriteArrayList<>();
+        private volatile boolean open = true;
+        private volatile boolean confirming;
+
+        private ChannelHandler(final int channelNumber) {
+            this.channelNumber = channelNumber;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            final int argumentCount = args == null ? 0 : args.length;
+            switch (method.getName()) {
+                case "exchangeDeclare":
+                    bindings.computeIfAbsent((String) args[0], exchange -> new CopyOnWriteArraySet<>());
+                    return null;
+                case "queueDeclare":
+                    final String queue = argumentCount == 0 || ((String) args[0]).isEmpty()
+                            ? "amq.gen-" + queueCounter.incrementAndGet() : (String) args[0];
+                    consumers.computeIfAbsent(queue, name -> new ConcurrentHashMap<>());
+                    return new AMQImpl.Queue.DeclareOk(queue, 0, 0);
+                case "queueBind":
+                    bindings.computeIfAbsent((String) args[1], exchange -> new CopyOnWriteArraySet<>()).add((String) args[0]);
+                    return new AMQImpl.Queue.BindOk();
+                case "basicConsume":
+                    return consume(args);
+                case "basicCancel":
+                    for (final Map<String, DeliverCallback> queueConsumers : consumers.values()) {
+                        queueConsumers.remove((String) args[0]);
+                    }
+                    return null;
+                case "basicPublish":
+                    publish((String) args[0], (String) args[1], (AMQP.BasicProperties) args[argumentCount - 2],
+                            (byte[]) args[argumentCount - 1]);
+                    if (confirming) {
+                        ack(nextPublishSeqNo.getAndIncrement());
+                    }
+                    return null;
+                case "confirmSelect":
+                    confirming = true;
+                    return new AMQImpl.Confirm.SelectOk();
+                case "getNextPublishSeqNo":
+                    return confirming ? nextPublishSeqNo.get() : 0L;
+                case "addConfirmListener":
+                    if (args[0] instanceof ConfirmListener) {
+                        final ConfirmListener listener = (ConfirmListener) args[0];
+                        ackCallbacks.add(listener::handleAck);
+                        return null;
+                    }
+                    ackCallbacks.add((ConfirmCallback) args[0]);
+                    return null;
+                case "getChannelNumber":
+                    return channelNumber;
+                case "isOpen":
+                    return open;
+                case "close":
+                case "abort":
+                    open = false;
+                    return null;
+                case "toString":
+                    return "InProcessChannel(" + channelNumber + ")";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private void ack(final long deliveryTag) {
+            if (dispatcher.isShutdown()) {
+                return;
+            }
+            dispatcher.execute(() -> {
+                for (final ConfirmCallback ackCallback : ackCallbacks) {
+                    try {
+                        ackCallback.handle(deliveryTag, false);
+                    } catch (final IOException e) {
+                        throw new IllegalStateException("A confirm listener on channel=" + channelNumber + " has failed.", e);
+                    }
+                }
+            });
+        }
+
+        private String consume(final Object[] args) {
+            DeliverCallback deliverCallback = null;
+            for (final Object arg : args) {
+                if (arg instanceof DeliverCallback) {
+                    deliverCallback = (DeliverCallback) arg;
+                }
+            }
+            if (deliverCallback == null) {
+                throw new UnsupportedOperationException("The in-process broker only supports DeliverCallback consumers.");
+            }
+            final String consumerTag = "amq.ctag-" + tagCounter.incrementAndGet();
+            consumers.computeIfAbsent((String) args[0], name -> new ConcurrentHashMap<>()).put(consumerTag, deliverCallback);
+            return consumerTag;
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.showcontrol4j.benchmarks;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Delivery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link InProcessBroker} class.
+ *
+ * @author James Hare
+ */
+public class InProcessBrokerTest {
+
+    private InProcessBroker broker;
+
+    @Before
+    public void init() {
+        broker = new InProcessBroker();
+    }
+
+    @After
+    public void tearDown() {
+        broker.close();
+    }
+
+    @Test
+    public void testFanoutExchange() throws Exception {
+        final Channel publisher = broker.newChannel();
+        final Channel consumer = broker.newChannel();
+        final BlockingQueue<Delivery> deliveries = new ArrayBlockingQueue<>(4);
+
+        publisher.exchangeDeclare("test", "fanout");
+        for (int i = 0; i < 2; i++) {
+            final String queue = consumer.queueDeclare().getQueue();
+            consumer.queueBind(queue, "test", "");
+            consumer.basicConsume(queue, true, (tag, delivery) -> deliveries.add(delivery), tag -> {
+            });
+        }
+        publisher.basicPublish("test", "", null, new byte[]{42});
+
+        assertEquals(42, deliveries.poll(1, TimeUnit.SECONDS).getBody()[0]);
+        assertEquals(42, deliveries.poll(1, TimeUnit.SECONDS).getBody()[0]);
+        assertEquals(2, broker.getBindingCount("test"));
+    }
+
+    @Test
+    public void testDefaultExchange() throws Exception {
+        final Channel channel = broker.newChannel();
+        final BlockingQueue<Delivery> deliveries = new ArrayBlockingQueue<>(1);
+
+        channel.queueDeclare("named", false, false, true, null);
+        final String tag = channel.basicConsume("named", true, (consumerTag, delivery) -> deliveries.add(delivery),
+                consumerTag -> {
+                });
+        channel.basicPublish("", "named", null, new byte[]{7});
+        assertEquals(7, deliveries.poll(1, TimeUnit.SECONDS).getBody()[0]);
+
+        channel.basicCancel(tag);
+        channel.basicPublish("", "named", null, new byte[]{8});
+        assertNull(deliveries.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testPublisherConfirms() throws Exception {
+        final Channel channel = broker.newChannel();
+        final BlockingQueue<Long> acks = new ArrayBlockingQueue<>(2);
+
+        channel.exchangeDeclare("test", "fanout");
+        assertEquals(0L, channel.getNextPublishSeqNo());
+        channel.confirmSelect();
+        channel.addConfirmListener((deliveryTag, multiple) -> acks.add(deliveryTag), (deliveryTag, multiple) -> {
+        });
+        assertEquals(1L, channel.getNextPublishSeqNo());
+        channel.basicPublish("test", "", null, new byte[]{1});
+        channel.basicPublish("test", "", null, new byte[]{2});
+
+        assertEquals(Long.valueOf(1L), acks.poll(1, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(2L), acks.poll(1, TimeUnit.SECONDS));
+        assertEquals(3L, channel.getNextPublishSeqNo());
+    }
+
+    @Test
+    public void testTriggerToElement() throws Exception {
+        final BrokerConnectionFactory brokerConnectionFactory = broker.newBrokerConnectionFactory();
+        final MessageExchange messageExchange = MessageExchange.builder().name("test").build();
+        final CountingShowElement element = new CountingShowElement(messageExchange, brokerConnectionFactory);
+        element.init();
+        final BenchmarkShowTrigger trigger = new BenchmarkShowTrigger(messageExchange, brokerConnectionFactory);
+
+        final long showCount = element.getShowCount();
+        trigger.go();
+
+        assertEquals(showCount + 1, element.awaitShowAfter(showCount));
+        assertEquals(1, brokerConnectionFactory.getPooledConnectionCount());
+        element.getRunningFuture().cancel(true);
+    }
+
+}
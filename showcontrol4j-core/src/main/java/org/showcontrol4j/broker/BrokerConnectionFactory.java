@@ -1,29 +1,74 @@
 package org.showcontrol4j.broker;
 
+import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Serves as a wrapper for the {@link ConnectionFactory} RabbitMQ object. Lombok was not used for
  * this class because we need to exclude the connectionFactory member and initialize it in the constructor.
+ * <p>
+ * Connections are pooled: every Show Trigger and Show Element built from the same factory shares a bounded set of
+ * connections and opens its own channels on them, so a JVM hosting hundreds of elements holds a handful of sockets
+ * rather than one per object. Channels are spread across the pooled connections by load. Connections are made outside
+ * the factory's lock, so a connect to a broker that is down never holds up callers that have a pooled connection to
+ * use. Closing the factory closes every pooled connection along with the channels opened on them.
  *
  * @author James Hare
  */
-public class BrokerConnectionFactory {
+@Slf4j
+public class BrokerConnectionFactory implements AutoCloseable {
+
+  /**
+   * The default maximum number of pooled connections.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS = 1;
+  /**
+   * The default maximum number of channels opened on each pooled connection.
+   */
+  public static final int DEFAULT_MAX_CHANNELS_PER_CONNECTION = 512;
 
   private final ConnectionFactory connectionFactory;
+  private final int maxConnections;
+  private final int maxChannelsPerConnection;
+  private final List<PooledConnection> pool = new ArrayList<>();
+  private CompletableFuture<PooledConnection> pendingConnection;
+  private final ThreadLocal<Map<String, Channel>> roleChannels = ThreadLocal.withInitial(HashMap::new);
+  private volatile boolean closed;
 
   private BrokerConnectionFactory(final Builder builder) {
-    connectionFactory = new ConnectionFactory();
-    connectionFactory.setHost(builder.host);
-    connectionFactory.setUsername(builder.user);
-    connectionFactory.setPassword(builder.password);
+    if (builder.connectionFactory != null) {
+      connectionFactory = builder.connectionFactory;
+      if (builder.host != null) {
+        connectionFactory.setHost(builder.host);
+      }
+      if (builder.user != null) {
+        connectionFactory.setUsername(builder.user);
+        connectionFactory.setPassword(builder.password);
+      }
+    } else {
+      connectionFactory = new ConnectionFactory();
+      connectionFactory.setHost(builder.host);
+      connectionFactory.setUsername(builder.user);
+      connectionFactory.setPassword(builder.password);
+    }
+    maxConnections = builder.maxConnections;
+    maxChannelsPerConnection = builder.maxChannelsPerConnection;
   }
 
   /**
-   * Returns a new connection from the Broker Connection Factory.
+   * Returns a new connection from the Broker Connection Factory. The connection is not pooled and must be closed
+   * by the caller; prefer {@link #openChannel()} unless a dedicated connection is really needed.
    *
    * @return {@link Connection} a new connection from the Broker Connection Factory.
    * @throws IOException
@@ -33,6 +78,213 @@ public class BrokerConnectionFactory {
     return connectionFactory.newConnection();
   }
 
+  /**
+   * Opens a new channel on the least loaded pooled connection, opening a new connection if every pooled connection
+   * is at its channel limit and the pool is not yet full. The caller owns the channel.
+   *
+   * @return a new {@link Channel}.
+   * @throws IOException if the channel could not be opened, or if every pooled connection is at its channel limit.
+   * @throws TimeoutException if a new connection could not be made in time.
+   */
+  public Channel openChannel() throws IOException, TimeoutException {
+    final PooledConnection pooledConnection = acquire();
+    final Channel channel;
+    try {
+      channel = pooledConnection.connection.createChannel();
+    } catch (final IOException e) {
+      pooledConnection.channels.decrementAndGet();
+      throw e;
+    }
+    if (channel == null) {
+      pooledConnection.channels.decrementAndGet();
+      throw new IOException("The broker refused to open another channel.");
+    }
+    channel.addShutdownListener(cause -> pooledConnection.channels.decrementAndGet());
+    return channel;
+  }
+
+  /**
+   * Returns the channel for the given role on the calling thread, opening it on first use or if it has been closed.
+   * Channels must not be shared between threads for publishing, so each thread gets its own channel per role; use
+   * this for publishers that fire from a known thread.
+   *
+   * @param role the name of the role, for example "publish" or "control".
+   * @return the {@link Channel} for the role on the calling thread.
+   * @throws IOException if the channel could not be opened.
+   * @throws TimeoutException if a new connection could not be made in time.
+   */
+  public Channel getChannel(final String role) throws IOException, TimeoutException {
+    final Map<String, Channel> channels = roleChannels.get();
+    Channel channel = channels.get(role);
+    if (channel == null || !channel.isOpen()) {
+      channel = openChannel();
+      channels.put(role, channel);
+    }
+    return channel;
+  }
+
+  /**
+   * Returns the number of connections currently in the pool.
+   *
+   * @return the number of pooled connections.
+   */
+  public synchronized int getPooledConnectionCount() {
+    return pool.size();
+  }
+
+  /**
+   * Returns the number of open channels on all pooled connections.
+   *
+   * @return the number of open channels.
+   */
+  public synchronized int getOpenChannelCount() {
+    int count = 0;
+    for (final PooledConnection pooledConnection : pool) {
+      count += pooledConnection.channels.get();
+    }
+    return count;
+  }
+
+  /**
+   * Returns true if the factory has been closed.
+   *
+   * @return true if the factory has been closed.
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Closes every pooled connection and the channels opened on them. The factory cannot be used afterwards.
+   */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    for (final PooledConnection pooledConnection : pool) {
+      try {
+        if (pooledConnection.connection.isOpen()) {
+          pooledConnection.connection.close();
+        }
+      } catch (final IOException e) {
+        log.warn("An error occurred while closing a pooled broker connection. {}", e.getMessage());
+      }
+    }
+    pool.clear();
+  }
+
+  /**
+   * Takes a channel slot on the least loaded pooled connection. A new connection is made outside the factory's lock,
+   * so callers that can use a pooled connection never wait behind a connect to a broker that is down. Only one
+   * connection is made at a time: callers that need one while it is being made wait for it, and fail with it.
+   */
+  private PooledConnection acquire() throws IOException, TimeoutException {
+    while (true) {
+      final CompletableFuture<PooledConnection> connecting;
+      final boolean connectHere;
+      synchronized (this) {
+        if (closed) {
+          throw new IllegalStateException("The broker connection factory has been closed.");
+        }
+        pool.removeIf(pooledConnection -> !pooledConnection.connection.isOpen());
+        PooledConnection leastLoaded = null;
+        for (final PooledConnection pooledConnection : pool) {
+          if (leastLoaded == null || pooledConnection.channels.get() < leastLoaded.channels.get()) {
+            leastLoaded = pooledConnection;
+          }
+        }
+        if (leastLoaded != null && leastLoaded.channels.get() < maxChannelsPerConnection) {
+          leastLoaded.channels.incrementAndGet();
+          return leastLoaded;
+        }
+        if (pendingConnection == null && pool.size() >= maxConnections) {
+          throw new IOException("All " + maxConnections + " pooled broker connections are at their limit of "
+              + maxChannelsPerConnection + " channels.");
+        }
+        connectHere = pendingConnection == null;
+        if (connectHere) {
+          pendingConnection = new CompletableFuture<>();
+        }
+        connecting = pendingConnection;
+      }
+      if (connectHere) {
+        return connect(connecting);
+      }
+      awaitConnection(connecting);
+    }
+  }
+
+  /**
+   * Makes a new pooled connection for a reserved slot and takes a channel slot on it, completing the future other
+   * callers are waiting on.
+   */
+  private PooledConnection connect(final CompletableFuture<PooledConnection> connecting)
+      throws IOException, TimeoutException {
+    final PooledConnection pooledConnection;
+    try {
+      pooledConnection = new PooledConnection(connectionFactory.newConnection());
+    } catch (final IOException | TimeoutException | RuntimeException e) {
+      synchronized (this) {
+        pendingConnection = null;
+      }
+      connecting.completeExceptionally(e);
+      throw e;
+    }
+    final boolean pooled;
+    synchronized (this) {
+      pendingConnection = null;
+      pooled = !closed;
+      if (pooled) {
+        pool.add(pooledConnection);
+        pooledConnection.channels.incrementAndGet();
+      }
+    }
+    if (!pooled) {
+      final IllegalStateException e = new IllegalStateException("The broker connection factory has been closed.");
+      connecting.completeExceptionally(e);
+      try {
+        pooledConnection.connection.close();
+      } catch (final IOException | RuntimeException closeFailure) {
+        log.warn("An error occurred while closing a broker connection. {}", closeFailure.getMessage());
+      }
+      throw e;
+    }
+    connecting.complete(pooledConnection);
+    return pooledConnection;
+  }
+
+  /**
+   * Waits for the connection another caller is making, rethrowing its failure.
+   */
+  private static void awaitConnection(final CompletableFuture<PooledConnection> connecting)
+      throws IOException, TimeoutException {
+    try {
+      connecting.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a broker connection.", e);
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof TimeoutException) {
+        throw (TimeoutException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private static final class PooledConnection {
+
+    private final Connection connection;
+    private final AtomicInteger channels = new AtomicInteger();
+
+    private PooledConnection(final Connection connection) {
+      this.connection = connection;
+    }
+  }
+
   /**
    * Serves as a static builder class to build a {@link BrokerConnectionFactory} object.
    */
@@ -41,6 +293,9 @@ public class BrokerConnectionFactory {
     private String host;
     private String user;
     private String password;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxChannelsPerConnection = DEFAULT_MAX_CHANNELS_PER_CONNECTION;
+    private ConnectionFactory connectionFactory;
 
     /**
      * Constructor
@@ -72,6 +327,46 @@ public class BrokerConnectionFactory {
       return this;
     }
 
+    /**
+     * Sets the maximum number of connections the {@link BrokerConnectionFactory} pools.
+     *
+     * @param maxConnections the maximum number of pooled connections.
+     * @return the Builder object.
+     */
+    public Builder maxConnections(final int maxConnections) {
+      if (maxConnections < 1) {
+        throw new IllegalArgumentException("The maximum number of connections must be at least one.");
+      }
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of channels opened on each pooled connection before another connection is opened.
+     *
+     * @param maxChannelsPerConnection the maximum number of channels per connection.
+     * @return the Builder object.
+     */
+    public Builder maxChannelsPerConnection(final int maxChannelsPerConnection) {
+      if (maxChannelsPerConnection < 1) {
+        throw new IllegalArgumentException("The maximum number of channels per connection must be at least one.");
+      }
+      this.maxChannelsPerConnection = maxChannelsPerConnection;
+      return this;
+    }
+
+    /**
+     * Sets the RabbitMQ {@link ConnectionFactory} connections are made with, for example one already configured for
+     * TLS or an in-process stand-in for the broker. The host and credentials are applied to it only if they are set.
+     *
+     * @param connectionFactory the {@link ConnectionFactory} to make connections with.
+     * @return the Builder object.
+     */
+    public Builder connectionFactory(final ConnectionFactory connectionFactory) {
+      this.connectionFactory = connectionFactory;
+      return this;
+    }
+
     /**
      * Builds the {@link BrokerConnectionFactory} object with the builder.
      *
@@ -0,0 +1,207 @@
+package org.showcontrol4j.clock;
+
+/**
+ * Serves as an NTP style estimator of the offset and drift between the local wall clock and a reference clock.
+ * Each probe produces four timestamps, all in epoch nanoseconds:
+ *
+ * <pre>
+ *   t0  local time the request was sent
+ *   t1  reference time the request was received
+ *   t2  reference time the response was sent
+ *   t3  local time the response was received
+ * </pre>
+ * <p>
+ * The offset of a probe is {@code ((t1 - t0) + (t2 - t3)) / 2} and its round trip delay is
+ * {@code (t3 - t0) - (t2 - t1)}. Only the probe with the smallest delay in a small window is trusted, as queueing in
+ * the broker inflates the delay and skews the offset of the others. The trusted offsets then feed an alpha-beta
+ * filter that tracks both the offset and the drift rate of the local clock. The trusted probe may be several probes
+ * old, so each is fed to the filter at the time it was taken, and only once.
+ * <p>
+ * The residual offset is the difference between the latest trusted measurement and what the filter predicted for
+ * that instant. It is the error the corrected clock actually had, and is the value to alarm on.
+ *
+ * @author James Hare
+ */
+public class ClockOffsetEstimator {
+
+    /**
+     * The default number of probes the minimum delay filter looks back over.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 8;
+
+    private static final double OFFSET_GAIN = 0.25;
+    private static final double DRIFT_GAIN = 0.05;
+
+    private final long[] windowOffsets;
+    private final long[] windowDelays;
+    private final long[] windowTimes;
+    private int windowCount;
+    private int windowIndex;
+    private long sampleCount;
+    private long lastSampleTimeNanos;
+    private volatile Estimate estimate;
+
+    /**
+     * Creates an estimator with the default window size.
+     */
+    public ClockOffsetEstimator() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates an estimator.
+     *
+     * @param windowSize the number of probes the minimum delay filter looks back over.
+     */
+    public ClockOffsetEstimator(final int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("The window size must be at least one.");
+        }
+        windowOffsets = new long[windowSize];
+        windowDelays = new long[windowSize];
+        windowTimes = new long[windowSize];
+    }
+
+    /**
+     * Adds the timestamps of a completed probe.
+     *
+     * @param t0 local time the request was sent, in epoch nanoseconds.
+     * @param t1 reference time the request was received, in epoch nanoseconds.
+     * @param t2 reference time the response was sent, in epoch nanoseconds.
+     * @param t3 local time the response was received, in epoch nanoseconds.
+     */
+    public synchronized void addSample(final long t0, final long t1, final long t2, final long t3) {
+        final long offset = ((t1 - t0) + (t2 - t3)) / 2;
+        final long delay = Math.max(0L, (t3 - t0) - (t2 - t1));
+        windowOffsets[windowIndex] = offset;
+        windowDelays[windowIndex] = delay;
+        windowTimes[windowIndex] = t3;
+        windowIndex = (windowIndex + 1) % windowOffsets.length;
+        windowCount = Math.min(windowCount + 1, windowOffsets.length);
+        sampleCount++;
+
+        int best = 0;
+        for (int i = 1; i < windowCount; i++) {
+            if (windowDelays[i] < windowDelays[best]) {
+                best = i;
+            }
+        }
+        final long measuredOffset = windowOffsets[best];
+        final long measuredDelay = windowDelays[best];
+        final long measuredTime = windowTimes[best];
+
+        final Estimate previous = estimate;
+        if (previous == null) {
+            estimate = new Estimate(measuredOffset, 0.0, measuredTime, 0L, measuredDelay);
+        } else if (measuredTime - previous.timeNanos > 0L) {
+            final long elapsed = measuredTime - previous.timeNanos;
+            final double predicted = previous.offsetNanos + previous.drift * elapsed;
+            final double residual = measuredOffset - predicted;
+            final double corrected = predicted + OFFSET_GAIN * residual;
+            final double drift = previous.drift + DRIFT_GAIN * residual / elapsed;
+            estimate = new Estimate(Math.round(corrected), drift, measuredTime, Math.round(residual), measuredDelay);
+        }
+        lastSampleTimeNanos = t3;
+    }
+
+    /**
+     * Returns true once at least one probe has completed.
+     *
+     * @return true if an offset is available.
+     */
+    public boolean hasEstimate() {
+        return estimate != null;
+    }
+
+    /**
+     * Returns the estimated offset of the reference clock from the local clock at the given local time, extrapolated
+     * with the estimated drift. Add it to a local time to obtain reference time.
+     *
+     * @param localTimeNanos the local time in epoch nanoseconds.
+     * @return the offset in nanoseconds, or zero if no probe has completed.
+     */
+    public long getOffsetNanos(final long localTimeNanos) {
+        final Estimate current = estimate;
+        if (current == null) {
+            return 0L;
+        }
+        return current.offsetNanos + Math.round(current.drift * (localTimeNanos - current.timeNanos));
+    }
+
+    /**
+     * Returns the filtered offset as of the most recent trusted probe.
+     *
+     * @return the offset in nanoseconds, or zero if no probe has completed.
+     */
+    public long getOffsetNanos() {
+        final Estimate current = estimate;
+        return current == null ? 0L : current.offsetNanos;
+    }
+
+    /**
+     * Returns the estimated drift of the local clock relative to the reference clock in parts per million.
+     *
+     * @return the drift in parts per million.
+     */
+    public double getDriftPpm() {
+        final Estimate current = estimate;
+        return current == null ? 0.0 : current.drift * 1_000_000.0;
+    }
+
+    /**
+     * Returns the residual offset, which is the error of the corrected clock at the most recent trusted probe.
+     *
+     * @return the residual offset in nanoseconds.
+     */
+    public long getResidualOffsetNanos() {
+        final Estimate current = estimate;
+        return current == null ? 0L : current.residualNanos;
+    }
+
+    /**
+     * Returns the round trip delay of the probe the current offset is based on.
+     *
+     * @return the round trip delay in nanoseconds.
+     */
+    public long getRoundTripNanos() {
+        final Estimate current = estimate;
+        return current == null ? 0L : current.roundTripNanos;
+    }
+
+    /**
+     * Returns the number of probes that have completed.
+     *
+     * @return the number of probes.
+     */
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Returns the local time of the most recent probe in epoch nanoseconds.
+     *
+     * @return the local time of the most recent probe.
+     */
+    public synchronized long getLastSampleTimeNanos() {
+        return lastSampleTimeNanos;
+    }
+
+    private static final class Estimate {
+
+        private final long offsetNanos;
+        private final double drift;
+        private final long timeNanos;
+        private final long residualNanos;
+        private final long roundTripNanos;
+
+        private Estimate(final long offsetNanos, final double drift, final long timeNanos, final long residualNanos,
+                         final long roundTripNanos) {
+            this.offsetNanos = offsetNanos;
+            this.drift = drift;
+            this.timeNanos = timeNanos;
+            this.residualNanos = residualNanos;
+            this.roundTripNanos = roundTripNanos;
+        }
+    }
+
+}
@@ -0,0 +1,194 @@
+package org.showcontrol4j.clock;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ShowClock} that follows the reference clock of a {@link ClockSyncServer}. Probes are sent over the broker
+ * at a fixed interval and fed into a {@link ClockOffsetEstimator}; show time is then the local wall clock corrected by
+ * the estimated offset and drift. Until the first probe completes the clock reads the same as the local wall clock.
+ * <p>
+ * The residual offset of every probe is compared against the alarm threshold and a warning is logged when it is
+ * exceeded, so a node that has drifted away from the rest of the show is visible in its logs.
+ *
+ * @author James Hare
+ */
+@Slf4j
+public class ClockSyncClient implements ShowClock, AutoCloseable {
+
+    /**
+     * The default interval between probes in milliseconds.
+     */
+    public static final long DEFAULT_PROBE_INTERVAL_MILLIS = 1000L;
+    /**
+     * The default residual offset above which a warning is logged, in nanoseconds.
+     */
+    public static final long DEFAULT_ALARM_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final Channel channel;
+    private final String serverQueueName;
+    private final ClockOffsetEstimator estimator;
+    private final long probeIntervalMillis;
+    private final ScheduledExecutorService prober;
+    private long alarmThresholdNanos = DEFAULT_ALARM_THRESHOLD_NANOS;
+    private String replyQueueName;
+    private String consumerTag;
+    private ScheduledFuture<?> probeFuture;
+
+    /**
+     * Creates a client with the default probe interval.
+     *
+     * @param channel         the channel to send probes and receive responses on.
+     * @param messageExchange the exchange the show runs on.
+     */
+    public ClockSyncClient(final Channel channel, final MessageExchange messageExchange) {
+        this(channel, messageExchange, new ClockOffsetEstimator(), DEFAULT_PROBE_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a client.
+     *
+     * @param channel             the channel to send probes and receive responses on.
+     * @param messageExchange     the exchange the show runs on.
+     * @param estimator           the estimator to feed the probes into.
+     * @param probeIntervalMillis the interval between probes in milliseconds.
+     */
+    public ClockSyncClient(final Channel channel, final MessageExchange messageExchange,
+                           final ClockOffsetEstimator estimator, final long probeIntervalMillis) {
+        this.channel = channel;
+        this.serverQueueName = ClockSyncServer.queueName(messageExchange);
+        this.estimator = estimator;
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "showcontrol4j-clock-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Declares the reply queue and starts probing the reference clock.
+     *
+     * @throws IOException if the reply queue could not be declared or consumed.
+     */
+    public void start() throws IOException {
+        replyQueueName = channel.queueDeclare().getQueue();
+        final DeliverCallback deliverCallback = (tag, delivery) -> onResponse(delivery.getBody());
+        consumerTag = channel.basicConsume(replyQueueName, true, deliverCallback, tag -> {
+        });
+        probeFuture = prober.scheduleAtFixedRate(this::probe, 0L, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends a single probe to the reference clock.
+     */
+    void probe() {
+        try {
+            final byte[] request = ByteBuffer.allocate(ClockSyncServer.REQUEST_LENGTH)
+                    .putLong(SystemShowClock.INSTANCE.currentTimeNanos())
+                    .array();
+            channel.basicPublish("", serverQueueName, ClockSyncServer.requestProperties(replyQueueName), request);
+        } catch (final IOException e) {
+            log.warn("Unable to send a clock probe to queue={}. {}", serverQueueName, e.getMessage());
+        }
+    }
+
+    /**
+     * Handles the response to a probe.
+     *
+     * @param body the response body.
+     */
+    void onResponse(final byte[] body) {
+        final long t3 = SystemShowClock.INSTANCE.currentTimeNanos();
+        if (body == null || body.length < ClockSyncServer.RESPONSE_LENGTH) {
+            log.warn("Ignoring a malformed clock probe response.");
+            return;
+        }
+        final ByteBuffer response = ByteBuffer.wrap(body);
+        estimator.addSample(response.getLong(), response.getLong(), response.getLong(), t3);
+        final long residual = estimator.getResidualOffsetNanos();
+        if (Math.abs(residual) > alarmThresholdNanos) {
+            log.warn("Clock residual offset of {} us exceeds the alarm threshold of {} us.",
+                    TimeUnit.NANOSECONDS.toMicros(residual), TimeUnit.NANOSECONDS.toMicros(alarmThresholdNanos));
+        }
+    }
+
+    @Override
+    public long currentTimeNanos() {
+        final long local = SystemShowClock.INSTANCE.currentTimeNanos();
+        return local + estimator.getOffsetNanos(local);
+    }
+
+    /**
+     * Returns the estimator backing this clock, which exposes the offset, drift and residual offset metrics.
+     *
+     * @return the {@link ClockOffsetEstimator}.
+     */
+    public ClockOffsetEstimator getEstimator() {
+        return estimator;
+    }
+
+    /**
+     * Returns the residual offset of the most recent probe.
+     *
+     * @return the residual offset in nanoseconds.
+     */
+    public long getResidualOffsetNanos() {
+        return estimator.getResidualOffsetNanos();
+    }
+
+    /**
+     * Returns true if at least one probe has completed and the residual offset is within the given tolerance.
+     *
+     * @param toleranceNanos the tolerance in nanoseconds.
+     * @return true if the clock is synchronized within the tolerance.
+     */
+    public boolean isSynchronized(final long toleranceNanos) {
+        return estimator.hasEstimate() && Math.abs(estimator.getResidualOffsetNanos()) <= toleranceNanos;
+    }
+
+    /**
+     * Sets the residual offset above which a warning is logged.
+     *
+     * @param alarmThresholdNanos the threshold in nanoseconds.
+     */
+    public void setAlarmThresholdNanos(final long alarmThresholdNanos) {
+        this.alarmThresholdNanos = alarmThresholdNanos;
+    }
+
+    /**
+     * Returns the residual offset above which a warning is logged.
+     *
+     * @return the threshold in nanoseconds.
+     */
+    public long getAlarmThresholdNanos() {
+        return alarmThresholdNanos;
+    }
+
+    /**
+     * Stops probing the reference clock. The last estimate stays in effect.
+     *
+     * @throws IOException if the consumer could not be cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        if (probeFuture != null) {
+            probeFuture.cancel(false);
+        }
+        prober.shutdownNow();
+        if (consumerTag != null) {
+            channel.basicCancel(consumerTag);
+            consumerTag = null;
+        }
+    }
+
+}
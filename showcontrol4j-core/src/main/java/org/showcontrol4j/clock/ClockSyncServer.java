@@ -0,0 +1,119 @@
+package org.showcontrol4j.clock;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Serves as the reference clock for a {@link MessageExchange}. Answers the probes sent by every
+ * {@link ClockSyncClient} on the same exchange with the reference time at which each probe was received and at which
+ * the response was sent. Exactly one node per show should run a server, normally the host of the Show Trigger, as
+ * that is the clock the start times are stamped with.
+ *
+ * @author James Hare
+ */
+@Slf4j
+public class ClockSyncServer implements AutoCloseable {
+
+    /**
+     * The length of a probe request: the client send time.
+     */
+    static final int REQUEST_LENGTH = 8;
+    /**
+     * The length of a probe response: the client send time followed by the server receive and send times.
+     */
+    static final int RESPONSE_LENGTH = 24;
+
+    private final Channel channel;
+    private final String queueName;
+    private final ShowClock referenceClock;
+    private String consumerTag;
+
+    /**
+     * Creates a server that answers with the local system clock.
+     *
+     * @param channel         the channel to consume probes on.
+     * @param messageExchange the exchange the show runs on.
+     */
+    public ClockSyncServer(final Channel channel, final MessageExchange messageExchange) {
+        this(channel, messageExchange, SystemShowClock.INSTANCE);
+    }
+
+    /**
+     * Creates a server.
+     *
+     * @param channel         the channel to consume probes on.
+     * @param messageExchange the exchange the show runs on.
+     * @param referenceClock  the clock to answer with.
+     */
+    public ClockSyncServer(final Channel channel, final MessageExchange messageExchange, final ShowClock referenceClock) {
+        this.channel = channel;
+        this.queueName = queueName(messageExchange);
+        this.referenceClock = referenceClock;
+    }
+
+    /**
+     * Returns the name of the queue probes are sent to for the given exchange.
+     *
+     * @param messageExchange the exchange the show runs on.
+     * @return the name of the clock probe queue.
+     */
+    public static String queueName(final MessageExchange messageExchange) {
+        return messageExchange.getName() + ".clock";
+    }
+
+    /**
+     * Declares the probe queue and starts answering probes.
+     *
+     * @throws IOException if the queue could not be declared or consumed.
+     */
+    public void start() throws IOException {
+        channel.queueDeclare(queueName, false, false, true, null);
+        final DeliverCallback deliverCallback = (tag, delivery) -> {
+            final long received = referenceClock.currentTimeNanos();
+            final String replyTo = delivery.getProperties() != null ? delivery.getProperties().getReplyTo() : null;
+            final byte[] body = delivery.getBody();
+            if (replyTo == null || body == null || body.length < REQUEST_LENGTH) {
+                log.warn("Ignoring a malformed clock probe on queue={}", queueName);
+                return;
+            }
+            final ByteBuffer response = ByteBuffer.allocate(RESPONSE_LENGTH);
+            response.put(body, 0, REQUEST_LENGTH);
+            response.putLong(received);
+            response.putLong(referenceClock.currentTimeNanos());
+            channel.basicPublish("", replyTo, null, response.array());
+        };
+        consumerTag = channel.basicConsume(queueName, true, deliverCallback, tag -> {
+        });
+        log.info("Clock reference is answering probes on queue={}", queueName);
+    }
+
+    /**
+     * Stops answering probes.
+     *
+     * @throws IOException if the consumer could not be cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        if (consumerTag != null) {
+            channel.basicCancel(consumerTag);
+            consumerTag = null;
+        }
+    }
+
+    /**
+     * Builds the properties of a probe request.
+     *
+     * @param replyTo the queue the response should be sent to.
+     * @return the request properties.
+     */
+    static AMQP.BasicProperties requestProperties(final String replyTo) {
+        return new AMQP.BasicProperties.Builder().replyTo(replyTo).build();
+    }
+
+}
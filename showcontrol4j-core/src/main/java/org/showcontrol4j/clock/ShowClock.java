@@ -0,0 +1,42 @@
+package org.showcontrol4j.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves as the source of show time. Start times in a {@link org.showcontrol4j.message.SCFJMessage} are stamped in
+ * show time by the Show Trigger and converted back into a local {@link System#nanoTime()} deadline by each Show
+ * Element, so every node that shares a show clock agrees on the instant a command starts.
+ *
+ * @author James Hare
+ */
+public interface ShowClock {
+
+    /**
+     * Returns the current show time in nanoseconds since the epoch.
+     *
+     * @return the current show time in epoch nanoseconds.
+     */
+    long currentTimeNanos();
+
+    /**
+     * Returns the current show time in milliseconds since the epoch.
+     *
+     * @return the current show time in epoch milliseconds.
+     */
+    default long currentTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(currentTimeNanos());
+    }
+
+    /**
+     * Converts a show time in epoch milliseconds into the equivalent local {@link System#nanoTime()} value.
+     *
+     * @param epochMillis the show time in epoch milliseconds.
+     * @return the equivalent {@link System#nanoTime()} value.
+     */
+    default long toNanoTime(final long epochMillis) {
+        final long showNanosNow = currentTimeNanos();
+        final long nanoNow = System.nanoTime();
+        return nanoNow + (TimeUnit.MILLISECONDS.toNanos(epochMillis) - showNanosNow);
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.showcontrol4j.clock;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ShowClock} backed by the local wall clock, read through {@link Instant#now()} for microsecond resolution.
+ * This is the clock used by every Show Trigger and Show Element that has not been given a synchronized one.
+ *
+ * @author James Hare
+ */
+public final class SystemShowClock implements ShowClock {
+
+    /**
+     * The single instance of the system show clock.
+     */
+    public static final SystemShowClock INSTANCE = new SystemShowClock();
+
+    private SystemShowClock() {
+    }
+
+    @Override
+    public long currentTimeNanos() {
+        final Instant now = Instant.now();
+        return TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.showcontrol4j.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Serves as a bounded, lock free ring buffer that any number of threads may offer to and a single thread polls from.
+ * Each slot carries a sequence number: producers claim a position with a compare-and-set on the tail and publish the
+ * element by advancing the slot's sequence, and the consumer frees the slot by advancing it again a lap ahead. Neither
+ * side ever blocks or takes a lock, and elements are passed by reference without being copied.
+ * <p>
+ * The capacity is rounded up to the next power of two.
+ *
+ * @param <E> the type of the elements.
+ * @author James Hare
+ */
+public class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity the minimum number of elements the ring buffer holds.
+     */
+    public MpscRingBuffer(final int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("The capacity must be between one and 2^30.");
+        }
+        int powerOfTwo = 1;
+        while (powerOfTwo < capacity) {
+            powerOfTwo <<= 1;
+        }
+        this.capacity = powerOfTwo;
+        this.mask = this.capacity - 1;
+        this.buffer = new Object[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element to the ring buffer. Safe to call from any thread.
+     *
+     * @param element the element to add, which cannot be null.
+     * @return false if the ring buffer is full.
+     */
+    public boolean offer(final E element) {
+        if (element == null) {
+            throw new NullPointerException("The ring buffer cannot hold null elements.");
+        }
+        long position = tail.get();
+        while (true) {
+            final int index = (int) (position & mask);
+            final long difference = sequences.get(index) - position;
+            if (difference == 0L) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0L) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element from the ring buffer. Must only be called from the single consumer thread.
+     *
+     * @return the oldest element, or null if the ring buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final long position = head;
+        final int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        final E element = (E) buffer[index];
+        buffer[index] = null;
+        sequences.set(index, position + capacity);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Returns true if there is nothing for the consumer to poll.
+     *
+     * @return true if the ring buffer is empty.
+     */
+    public boolean isEmpty() {
+        final long position = head;
+        return sequences.get((int) (position & mask)) != position + 1;
+    }
+
+    /**
+     * Returns the number of elements in the ring buffer. Only an estimate while producers are offering.
+     *
+     * @return the number of elements.
+     */
+    public int size() {
+        final long size = tail.get() - head;
+        return (int) Math.max(0L, Math.min(size, capacity));
+    }
+
+    /**
+     * Returns the number of elements the ring buffer holds.
+     *
+     * @return the capacity.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+}
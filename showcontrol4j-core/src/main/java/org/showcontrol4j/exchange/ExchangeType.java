@@ -0,0 +1,59 @@
+package org.showcontrol4j.exchange;
+
+/**
+ * The kinds of broker exchange a show can run on.
+ *
+ * @author James Hare
+ */
+public enum ExchangeType {
+
+  /**
+   * Every command is delivered to every Show Element, and elements ignore the ones not addressed to them.
+   */
+  FANOUT("fanout"),
+  /**
+   * Commands are routed by the exact routing key of their address.
+   */
+  DIRECT("direct"),
+  /**
+   * Commands are routed by the routing key of their address, and monitoring tools may bind with wildcards such as
+   * {@code zone.north.#}.
+   */
+  TOPIC("topic");
+
+  private final String amqpName;
+
+  ExchangeType(final String amqpName) {
+    this.amqpName = amqpName;
+  }
+
+  /**
+   * Returns the name of the exchange type as the broker knows it.
+   *
+   * @return the AMQP exchange type.
+   */
+  public String getAmqpName() {
+    return amqpName;
+  }
+
+  /**
+   * Returns true if the exchange routes commands by routing key.
+   *
+   * @return true for DIRECT and TOPIC.
+   */
+  public boolean isRouted() {
+    return this != FANOUT;
+  }
+
+  /**
+   * Returns the type of the exchange, treating an exchange with no type as a fanout exchange.
+   *
+   * @param messageExchange the exchange.
+   * @return the {@link ExchangeType}.
+   */
+  public static ExchangeType of(final MessageExchange messageExchange) {
+    final ExchangeType type = messageExchange.getType();
+    return type != null ? type : FANOUT;
+  }
+
+}
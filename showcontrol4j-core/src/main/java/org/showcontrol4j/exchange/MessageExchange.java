@@ -3,10 +3,19 @@ package org.showcontrol4j.exchange;
 import lombok.Builder;
 import lombok.Data;
 
+/**
+ * Describes the exchange a show runs on. A {@link ExchangeType#FANOUT} exchange, the default, delivers every command
+ * to every Show Element. A {@link ExchangeType#DIRECT} or {@link ExchangeType#TOPIC} exchange routes each command by
+ * its address, as laid out by {@link RoutingKeys}, so elements only receive the commands meant for them.
+ *
+ * @author James Hare
+ */
 @Builder
 @Data
 public class MessageExchange {
 
   private final String name;
+  @Builder.Default
+  private final ExchangeType type = ExchangeType.FANOUT;
 
 }
@@ -0,0 +1,86 @@
+package org.showcontrol4j.exchange;
+
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves as the layout of the routing keys commands are published with on a routed exchange. Every key has the form
+ * {@code zone.<zone>.group.<group>.element.<id>}, where a part of the address that is not set is written as
+ * {@link #ALL}. An element binds one key for each combination of its own zone, group and id with {@link #ALL}, so it
+ * receives exactly the commands addressed to it, to its group, to its zone or to everyone.
+ * <p>
+ * Zone and group names are single routing key words, so they cannot contain dots or the wildcards {@code *} and
+ * {@code #}, and cannot be {@link #ALL}.
+ *
+ * @author James Hare
+ */
+public final class RoutingKeys {
+
+  /**
+   * The word that stands for every zone, group or element.
+   */
+  public static final String ALL = "all";
+
+  // private constructor so that the class cannot be instantiated.
+  private RoutingKeys() {
+  }
+
+  /**
+   * Returns the routing key to publish the message with.
+   *
+   * @param message the message.
+   * @return the routing key of the message's address.
+   */
+  public static String forMessage(final SCFJMessage message) {
+    return of(message.getZone(), message.getGroup(), message.getElementId());
+  }
+
+  /**
+   * Returns the routing key of an address.
+   *
+   * @param zone the zone, or null for every zone.
+   * @param group the group, or null for every group.
+   * @param elementId the element id, or null for every element.
+   * @return the routing key.
+   */
+  public static String of(final String zone, final String group, final Long elementId) {
+    return "zone." + word(zone) + ".group." + word(group) + ".element." + (elementId != null ? elementId : ALL);
+  }
+
+  /**
+   * Returns every routing key an element must bind to receive the commands addressed to it.
+   *
+   * @param zone the zone of the element, or null if it is in no zone.
+   * @param group the group of the element, or null if it is in no group.
+   * @param elementId the id of the element.
+   * @return the binding keys of the element.
+   */
+  public static List<String> forElement(final String zone, final String group, final Long elementId) {
+    final String[] zones = zone != null ? new String[]{zone, null} : new String[]{null};
+    final String[] groups = group != null ? new String[]{group, null} : new String[]{null};
+    final Long[] ids = elementId != null ? new Long[]{elementId, null} : new Long[]{null};
+    final List<String> keys = new ArrayList<>(zones.length * groups.length * ids.length);
+    for (final String z : zones) {
+      for (final String g : groups) {
+        for (final Long id : ids) {
+          keys.add(of(z, g, id));
+        }
+      }
+    }
+    return keys;
+  }
+
+  private static String word(final String name) {
+    if (name == null) {
+      return ALL;
+    }
+    if (name.isEmpty() || ALL.equals(name) || name.indexOf('.') >= 0 || name.indexOf('*') >= 0
+        || name.indexOf('#') >= 0) {
+      throw new IllegalArgumentException("The zone or group name \"" + name + "\" is not a valid routing key word.");
+    }
+    return name;
+  }
+
+}
@@ -0,0 +1,316 @@
+package org.showcontrol4j.execution;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves as the execution engine that show elements run their show and idle loops on. An element only ever has one
+ * loop running at a time, so rather than each element owning a thread pool, every element in the JVM shares one
+ * engine and holds on to nothing but the {@link Future} of its current loop.
+ * <p>
+ * Two modes are available. In platform mode the engine is a pool of daemon threads that grows with the number of
+ * loops running at the same time and shrinks again once threads have been idle for a minute, up to a
+ * bounded maximum. In virtual mode, which requires JDK 21 or later, every loop runs on its own virtual thread.
+ * <p>
+ * Idle loops do not hold a thread of their own in either mode. Each iteration is a short task given to
+ * {@link #schedule(Runnable, long)}, which runs it on a small, fixed pool of tick threads shared by every element once
+ * its delay has passed, so the number of threads stays flat however many elements are idle. The engine's timer
+ * thread waits out the delays and watches the tick threads: a tick that has run for longer than
+ * {@value #BLOCKED_TICK_MILLIS} milliseconds, such as an idle loop that blocks or never returns, is given a tick thread
+ * of its own until it returns so that it cannot starve the idle loops of other elements.
+ * <p>
+ * The shared engine is configured with the {@value #MODE_PROPERTY} and {@value #MAX_THREADS_PROPERTY} system
+ * properties. Virtual mode falls back to platform mode, with a warning, on JDKs without virtual threads.
+ *
+ * @author James Hare
+ */
+@Slf4j
+public final class ExecutionEngine {
+
+    /**
+     * The system property that selects the mode of the shared engine, either "platform" or "virtual".
+     */
+    public static final String MODE_PROPERTY = "showcontrol4j.execution.mode";
+    /**
+     * The system property that sets the maximum number of threads of the shared engine in platform mode.
+     */
+    public static final String MAX_THREADS_PROPERTY = "showcontrol4j.execution.maxThreads";
+    /**
+     * The default maximum number of threads in platform mode.
+     */
+    public static final int DEFAULT_MAX_THREADS = 1024;
+
+    /**
+     * The number of tick threads that idle loop iterations share.
+     */
+    public static final int DEFAULT_TICK_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    /**
+     * The time after which a running tick is considered blocked and the tick pool grows to make up for it.
+     */
+    public static final long BLOCKED_TICK_MILLIS = 50L;
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+    private static final long COMPENSATION_PERIOD_MILLIS = 20L;
+    private static final AtomicLong THREAD_COUNTER = new AtomicLong();
+    private static volatile ExecutionEngine shared;
+
+    private final Mode mode;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ThreadPoolExecutor ticker;
+    private final Set<Tick> runningTicks = ConcurrentHashMap.newKeySet();
+
+    private ExecutionEngine(final Mode mode, final ExecutorService executor) {
+        this.mode = mode;
+        this.executor = executor;
+        this.timer = new ScheduledThreadPoolExecutor(1, daemonThreads("showcontrol4j-timer-"));
+        this.ticker = new ThreadPoolExecutor(DEFAULT_TICK_THREADS, DEFAULT_TICK_THREADS, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreads("showcontrol4j-tick-"));
+        timer.scheduleWithFixedDelay(this::compensate, COMPENSATION_PERIOD_MILLIS, COMPENSATION_PERIOD_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the engine shared by every show element that has not been given its own.
+     *
+     * @return the shared {@link ExecutionEngine}.
+     */
+    public static ExecutionEngine shared() {
+        ExecutionEngine engine = shared;
+        if (engine == null) {
+            synchronized (ExecutionEngine.class) {
+                engine = shared;
+                if (engine == null) {
+                    engine = fromSystemProperties();
+                    shared = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Creates an engine backed by a bounded pool of daemon platform threads.
+     *
+     * @param maxThreads the maximum number of loops that can run at the same time.
+     * @return a new platform {@link ExecutionEngine}.
+     */
+    public static ExecutionEngine platform(final int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("The maximum number of threads must be at least one.");
+        }
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(0, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("showcontrol4j-element-"));
+        return new ExecutionEngine(Mode.PLATFORM, pool);
+    }
+
+    /**
+     * Creates an engine that runs every loop on its own virtual thread.
+     *
+     * @return a new virtual {@link ExecutionEngine}.
+     * @throws UnsupportedOperationException if the running JDK does not support virtual threads.
+     */
+    public static ExecutionEngine virtual() {
+        try {
+            final ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            return new ExecutionEngine(Mode.VIRTUAL, executor);
+        } catch (final ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later.", e);
+        }
+    }
+
+    /**
+     * Returns true if the running JDK supports virtual threads.
+     *
+     * @return true if {@link #virtual()} can be used.
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a factory of daemon threads whose names start with the prefix.
+     */
+    private static ThreadFactory daemonThreads(final String prefix) {
+        return runnable -> {
+            final Thread thread = new Thread(runnable, prefix + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutionEngine fromSystemProperties() {
+        final String mode = System.getProperty(MODE_PROPERTY, Mode.PLATFORM.name());
+        if (Mode.VIRTUAL.name().equalsIgnoreCase(mode)) {
+            if (isVirtualThreadSupported()) {
+                return virtual();
+            }
+            log.warn("Virtual threads are not supported by this JDK, falling back to platform threads.");
+        }
+        return platform(Integer.getInteger(MAX_THREADS_PROPERTY, DEFAULT_MAX_THREADS));
+    }
+
+    /**
+     * Submits a loop to the engine.
+     *
+     * @param task the loop to run.
+     * @return the {@link Future} of the loop, which is cancelled to preempt it.
+     * @throws RejectedExecutionException if the engine is at its thread limit or shut down.
+     */
+    public Future<?> submit(final Runnable task) {
+        return executor.submit(task);
+    }
+
+    /**
+     * Runs a short task, such as one iteration of an idle loop, on the engine's shared tick threads once the delay has
+     * passed. No thread is held while the task waits: the engine's timer thread hands it to the tick threads when it
+     * is due. A task that is cancelled before it is due never runs.
+     *
+     * @param task       the task to run.
+     * @param delayNanos the time to wait before running it, in nanoseconds.
+     * @return the {@link Future} of the task, which is cancelled to preempt it.
+     * @throws RejectedExecutionException if the engine is shut down.
+     */
+    public Future<?> schedule(final Runnable task, final long delayNanos) {
+        final Tick tick = new Tick(task);
+        if (delayNanos <= 0L) {
+            ticker.execute(tick);
+            return tick;
+        }
+        timer.schedule(() -> {
+            if (tick.isDone()) {
+                return;
+            }
+            try {
+                ticker.execute(tick);
+            } catch (final RejectedExecutionException e) {
+                log.error("Unable to run a scheduled task on the execution engine. {}", e.getMessage());
+                tick.cancel(false);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+        return tick;
+    }
+
+    /**
+     * Grows the tick pool by one thread for every tick that has been running for longer than
+     * {@value #BLOCKED_TICK_MILLIS} milliseconds, and shrinks it back once those ticks return.
+     */
+    private void compensate() {
+        final long now = System.nanoTime();
+        final long blockedNanos = TimeUnit.MILLISECONDS.toNanos(BLOCKED_TICK_MILLIS);
+        int blocked = 0;
+        for (final Tick tick : runningTicks) {
+            if (now - tick.startedNanos > blockedNanos) {
+                blocked++;
+            }
+        }
+        final int target = DEFAULT_TICK_THREADS + blocked;
+        if (target > ticker.getMaximumPoolSize()) {
+            ticker.setMaximumPoolSize(target);
+            ticker.setCorePoolSize(target);
+        } else if (target < ticker.getCorePoolSize()) {
+            ticker.setCorePoolSize(target);
+            ticker.setMaximumPoolSize(target);
+        }
+    }
+
+    /**
+     * Returns the mode of the engine.
+     *
+     * @return the {@link Mode}.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of platform threads the engine currently holds for loops, not counting its timer and tick
+     * threads. Always zero in virtual mode.
+     *
+     * @return the number of platform threads.
+     */
+    public int getThreadCount() {
+        return executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getPoolSize() : 0;
+    }
+
+    /**
+     * Returns the number of tick threads the engine currently holds for idle loop iterations.
+     *
+     * @return the number of tick threads.
+     */
+    public int getTickThreadCount() {
+        return ticker.getPoolSize();
+    }
+
+    /**
+     * Interrupts every running loop and stops the engine. The shared engine should never be shut down.
+     */
+    public void shutdownNow() {
+        executor.shutdownNow();
+        ticker.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Returns true if the engine has been shut down.
+     *
+     * @return true if the engine has been shut down.
+     */
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * A task run on the tick threads, which records when it started running so that blocked ticks can be spotted.
+     */
+    private final class Tick extends FutureTask<Void> {
+
+        private volatile long startedNanos;
+
+        private Tick(final Runnable task) {
+            super(task, null);
+        }
+
+        @Override
+        public void run() {
+            startedNanos = System.nanoTime();
+            runningTicks.add(this);
+            try {
+                super.run();
+            } finally {
+                runningTicks.remove(this);
+            }
+        }
+
+    }
+
+    /**
+     * The kind of threads an {@link ExecutionEngine} runs loops on.
+     */
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+}
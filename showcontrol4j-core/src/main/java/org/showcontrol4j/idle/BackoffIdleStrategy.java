@@ -0,0 +1,130 @@
+package org.showcontrol4j.idle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link IdleStrategy} that backs off the longer the idle loop runs: it first spins, then yields, then parks for a
+ * period that doubles on every iteration up to a maximum. Once backed off, the thread sleeps for the maximum park
+ * period between iterations, which keeps the core cool while bounding both the idle loop rate and the time it takes
+ * a new Show Command to preempt the loop.
+ *
+ * @author James Hare
+ */
+public class BackoffIdleStrategy implements IdleStrategy {
+
+    /**
+     * The default number of iterations spent spinning.
+     */
+    public static final int DEFAULT_MAX_SPINS = 10;
+    /**
+     * The default number of iterations spent yielding.
+     */
+    public static final int DEFAULT_MAX_YIELDS = 5;
+    /**
+     * The default first park period.
+     */
+    public static final long DEFAULT_MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+    /**
+     * The default longest park period.
+     */
+    public static final long DEFAULT_MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int maxSpins;
+    private final int maxYields;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+    private int spins;
+    private int yields;
+    private long parkNanos;
+
+    /**
+     * Creates a strategy with the default limits.
+     */
+    public BackoffIdleStrategy() {
+        this(DEFAULT_MAX_SPINS, DEFAULT_MAX_YIELDS, DEFAULT_MIN_PARK_NANOS, DEFAULT_MAX_PARK_NANOS);
+    }
+
+    /**
+     * Creates a strategy.
+     *
+     * @param maxSpins     the number of iterations spent spinning.
+     * @param maxYields    the number of iterations spent yielding.
+     * @param minParkNanos the first park period in nanoseconds.
+     * @param maxParkNanos the longest park period in nanoseconds.
+     */
+    public BackoffIdleStrategy(final int maxSpins, final int maxYields, final long minParkNanos,
+                               final long maxParkNanos) {
+        if (maxSpins < 0 || maxYields < 0) {
+            throw new IllegalArgumentException("The number of spins and yields cannot be negative.");
+        }
+        if (minParkNanos < 1 || maxParkNanos < minParkNanos) {
+            throw new IllegalArgumentException("The park periods must be positive and the minimum cannot exceed the maximum.");
+        }
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkNanos = minParkNanos;
+        this.maxParkNanos = maxParkNanos;
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        spins = 0;
+        yields = 0;
+        parkNanos = minParkNanos;
+    }
+
+    @Override
+    public void idle() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (spins < maxSpins) {
+            spins++;
+            Thread.onSpinWait();
+        } else if (yields < maxYields) {
+            yields++;
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(this, parkNanos);
+            parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Spins or yields and returns zero while the strategy would spin or yield, and returns the park period after,
+     * doubling it up to the maximum.
+     *
+     * @return the time to wait in nanoseconds.
+     */
+    @Override
+    public long nextDelayNanos() {
+        if (spins < maxSpins) {
+            spins++;
+            Thread.onSpinWait();
+            return 0L;
+        }
+        if (yields < maxYields) {
+            yields++;
+            Thread.yield();
+            return 0L;
+        }
+        final long delayNanos = parkNanos;
+        parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+        return delayNanos;
+    }
+
+    /**
+     * Returns the period the next park will last, once spinning and yielding are done.
+     *
+     * @return the park period in nanoseconds.
+     */
+    public long getParkNanos() {
+        return parkNanos;
+    }
+
+}
@@ -0,0 +1,31 @@
+package org.showcontrol4j.idle;
+
+/**
+ * An {@link IdleStrategy} that does not wait at all, beyond hinting to the processor that the thread is spinning.
+ * It gives the lowest latency between idle loop iterations at the cost of a whole core, and is the default so that
+ * existing idle loops keep their timing.
+ *
+ * @author James Hare
+ */
+public class BusySpinIdleStrategy implements IdleStrategy {
+
+    @Override
+    public void reset() {
+        // no state to reset.
+    }
+
+    @Override
+    public void idle() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Thread.onSpinWait();
+    }
+
+    @Override
+    public long nextDelayNanos() {
+        Thread.onSpinWait();
+        return 0L;
+    }
+
+}
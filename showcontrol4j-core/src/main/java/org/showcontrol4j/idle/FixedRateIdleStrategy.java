@@ -0,0 +1,83 @@
+package org.showcontrol4j.idle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link IdleStrategy} that runs the idle loop at a fixed rate, parking until the next tick after every
+ * iteration. Ticks are measured from the start of the loop rather than from the end of each iteration, so the rate
+ * does not drift with the time the iteration takes. An iteration that overruns one or more ticks is followed straight
+ * away by the next one, and the missed ticks are skipped rather than run back to back.
+ *
+ * @author James Hare
+ */
+public class FixedRateIdleStrategy implements IdleStrategy {
+
+    private final long periodNanos;
+    private long nextTickNanos;
+
+    /**
+     * Creates a strategy.
+     *
+     * @param hertz the number of idle loop iterations per second.
+     */
+    public FixedRateIdleStrategy(final double hertz) {
+        if (!(hertz > 0.0) || Double.isInfinite(hertz)) {
+            throw new IllegalArgumentException("The rate must be a positive number of hertz.");
+        }
+        this.periodNanos = Math.max(1L, Math.round(TimeUnit.SECONDS.toNanos(1) / hertz));
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        nextTickNanos = System.nanoTime() + periodNanos;
+    }
+
+    @Override
+    public void idle() throws InterruptedException {
+        long remaining;
+        while ((remaining = nextTickNanos - System.nanoTime()) > 0L) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(this, remaining);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        nextTickNanos += periodNanos;
+        final long now = System.nanoTime();
+        if (nextTickNanos - now <= 0L) {
+            nextTickNanos += ((now - nextTickNanos) / periodNanos + 1) * periodNanos;
+        }
+    }
+
+    /**
+     * Returns the time left to the next tick, skipping the ticks an overrunning iteration missed as {@link #idle()}
+     * does.
+     *
+     * @return the time to wait in nanoseconds.
+     */
+    @Override
+    public long nextDelayNanos() {
+        final long now = System.nanoTime();
+        final long delayNanos = Math.max(0L, nextTickNanos - now);
+        final long tickNanos = now + delayNanos;
+        nextTickNanos += periodNanos;
+        if (nextTickNanos - tickNanos <= 0L) {
+            nextTickNanos += ((tickNanos - nextTickNanos) / periodNanos + 1) * periodNanos;
+        }
+        return delayNanos;
+    }
+
+    /**
+     * Returns the period between ticks.
+     *
+     * @return the period in nanoseconds.
+     */
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+}
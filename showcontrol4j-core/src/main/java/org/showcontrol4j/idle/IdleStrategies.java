@@ -0,0 +1,52 @@
+package org.showcontrol4j.idle;
+
+/**
+ * Serves as the factory of the available {@link IdleStrategy} implementations. Each call returns a new strategy,
+ * as strategies keep state and must not be shared between show elements.
+ *
+ * @author James Hare
+ */
+public class IdleStrategies {
+
+    // private constructor so that the class cannot be instantiated.
+    private IdleStrategies() {
+    }
+
+    /**
+     * Returns a strategy that spins between iterations. This is the default.
+     *
+     * @return a new {@link BusySpinIdleStrategy}.
+     */
+    public static IdleStrategy busySpin() {
+        return new BusySpinIdleStrategy();
+    }
+
+    /**
+     * Returns a strategy that yields the processor between iterations.
+     *
+     * @return a new {@link YieldingIdleStrategy}.
+     */
+    public static IdleStrategy yielding() {
+        return new YieldingIdleStrategy();
+    }
+
+    /**
+     * Returns a strategy that spins, yields and then parks for up to a millisecond between iterations.
+     *
+     * @return a new {@link BackoffIdleStrategy}.
+     */
+    public static IdleStrategy backoff() {
+        return new BackoffIdleStrategy();
+    }
+
+    /**
+     * Returns a strategy that runs the idle loop at a fixed rate.
+     *
+     * @param hertz the number of idle loop iterations per second.
+     * @return a new {@link FixedRateIdleStrategy}.
+     */
+    public static IdleStrategy fixedRate(final double hertz) {
+        return new FixedRateIdleStrategy(hertz);
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.showcontrol4j.idle;
+
+/**
+ * Serves as the strategy a show element uses to wait between iterations of its idle loop. Without one, an idle loop
+ * that returns quickly runs flat out and pins a core, which on a Raspberry Pi is enough to make it throttle.
+ * <p>
+ * A show element does not call {@link #idle()} itself: it runs each iteration of its idle loop as a task on its
+ * {@link org.showcontrol4j.execution.ExecutionEngine} and asks {@link #nextDelayNanos()} when to run the next one, so
+ * an element holds no thread while its strategy waits.
+ * <p>
+ * Every strategy throws {@link InterruptedException} as soon as the idling thread is interrupted, so a new Show
+ * Command preempts the idle loop within one wait, whichever strategy is in use. Strategies keep state between calls
+ * and must not be shared between show elements.
+ *
+ * @author James Hare
+ */
+public interface IdleStrategy {
+
+    /**
+     * Resets the strategy. Called each time an idle loop starts.
+     */
+    void reset();
+
+    /**
+     * Waits after an iteration of the idle loop.
+     *
+     * @throws InterruptedException if the idling thread is interrupted.
+     */
+    void idle() throws InterruptedException;
+
+    /**
+     * Returns how long to wait before the next iteration of an idle loop that runs as scheduled tasks rather than on a
+     * thread of its own, moving the strategy on as {@link #idle()} would. A strategy that would spin or yield does so
+     * here and returns zero, and the next iteration runs on the same thread. The default returns zero straight away.
+     *
+     * @return the time to wait in nanoseconds, zero or greater.
+     */
+    default long nextDelayNanos() {
+        return 0L;
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.showcontrol4j.idle;
+
+/**
+ * An {@link IdleStrategy} that yields the processor after every idle loop iteration. Other runnable threads get the
+ * core, but with nothing else to run the thread still spins.
+ *
+ * @author James Hare
+ */
+public class YieldingIdleStrategy implements IdleStrategy {
+
+    @Override
+    public void reset() {
+        // no state to reset.
+    }
+
+    @Override
+    public void idle() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        Thread.yield();
+    }
+
+    @Override
+    public long nextDelayNanos() {
+        Thread.yield();
+        return 0L;
+    }
+
+}
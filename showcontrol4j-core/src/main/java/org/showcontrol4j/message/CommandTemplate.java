@@ -0,0 +1,96 @@
+package org.showcontrol4j.message;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import org.showcontrol4j.exchange.RoutingKeys;
+import org.showcontrol4j.message.codec.MessageCodec;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Serves as a Show Command encoded ahead of time. A trigger fires the same few commands to the same address over and
+ * over, with only the start time changing, so the command is encoded once and every cue just copies the encoded bytes
+ * and patches the start time in. Firing from a template builds no {@link SCFJMessage}, runs no codec and computes no
+ * routing key; the only allocation left is the copy handed to the transport, which must not be reused because
+ * transports may pass it on to subscribers as it is.
+ * <p>
+ * Templates can only be made with a {@link MessageCodec} that can patch the start time in place, such as the binary
+ * codec. Templates are immutable and thread safe.
+ *
+ * @author James Hare
+ */
+@Getter
+@ToString(exclude = "encoded")
+public final class CommandTemplate {
+
+    private final MessageCodec codec;
+    private final Instruction instruction;
+    private final String zone;
+    private final String group;
+    private final Long elementId;
+    private final String routingKey;
+    @Getter(AccessLevel.NONE)
+    private final byte[] encoded;
+
+    private CommandTemplate(final MessageCodec codec, final Instruction instruction, final String zone,
+                            final String group, final Long elementId) throws IOException {
+        this.codec = codec;
+        this.instruction = instruction;
+        this.zone = zone;
+        this.group = group;
+        this.elementId = elementId;
+        final SCFJMessage message = new SCFJMessage(instruction, 0L, zone, group, elementId);
+        this.routingKey = RoutingKeys.forMessage(message);
+        this.encoded = message.serialize(codec);
+    }
+
+    /**
+     * Encodes a template for the command sent to the given address.
+     *
+     * @param codec       the codec to encode the command with.
+     * @param instruction the instruction of the command.
+     * @param zone        the zone the command is addressed to, or null for every zone.
+     * @param group       the group the command is addressed to, or null for every group.
+     * @param elementId   the element the command is addressed to, or null for every element.
+     * @return the template, or null if the codec cannot patch the start time of an encoded command.
+     * @throws IOException if the command could not be encoded.
+     */
+    public static CommandTemplate of(final MessageCodec codec, final Instruction instruction, final String zone,
+                                     final String group, final Long elementId) throws IOException {
+        if (!codec.canPatchStartTime()) {
+            return null;
+        }
+        return new CommandTemplate(codec, instruction, zone, group, elementId);
+    }
+
+    /**
+     * Returns true if this template encodes its command with the codec and to the address given, so it can be fired
+     * in place of encoding a new command.
+     *
+     * @param otherCodec     the codec.
+     * @param otherZone      the zone, or null for every zone.
+     * @param otherGroup     the group, or null for every group.
+     * @param otherElementId the element id, or null for every element.
+     * @return true if the template matches.
+     */
+    public boolean matches(final MessageCodec otherCodec, final String otherZone, final String otherGroup,
+                           final Long otherElementId) {
+        return codec == otherCodec && Objects.equals(zone, otherZone) && Objects.equals(group, otherGroup)
+                && Objects.equals(elementId, otherElementId);
+    }
+
+    /**
+     * Returns a copy of the encoded command with the given start time.
+     *
+     * @param startTime the start time in show time epoch milliseconds.
+     * @return the encoded command, ready to be published.
+     */
+    public byte[] stamp(final long startTime) {
+        final byte[] body = encoded.clone();
+        codec.patchStartTime(body, startTime);
+        return body;
+    }
+
+}
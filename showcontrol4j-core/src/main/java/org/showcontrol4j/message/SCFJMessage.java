@@ -1,17 +1,21 @@
 package org.showcontrol4j.message;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.showcontrol4j.message.codec.MessageCodec;
+import org.showcontrol4j.message.codec.MessageCodecs;
 
 import java.io.IOException;
 import java.io.Serializable;
 
 /**
  * Serves as a class for a SCFJMessage POJO.
+ * <p>
+ * A message may be addressed to a zone, a group and a single element. Each part left null matches every element, so
+ * a message with no address at all reaches the whole show.
  *
  * @author James Hare
  */
@@ -23,13 +27,76 @@ public class SCFJMessage implements Serializable {
 
   private Instruction instruction;
   private long startTime;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String zone;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String group;
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long elementId;
 
-  public byte[] serialize() throws JsonProcessingException {
-    return new ObjectMapper().writeValueAsBytes(this);
+  /**
+   * Creates an unaddressed message.
+   *
+   * @param instruction the instruction.
+   * @param startTime the start time in show time epoch milliseconds.
+   */
+  public SCFJMessage(final Instruction instruction, final long startTime) {
+    this(instruction, startTime, null, null, null);
   }
 
+  /**
+   * Returns true if the message has a zone, group or element address.
+   *
+   * @return true if the message is addressed.
+   */
+  public boolean hasAddress() {
+    return zone != null || group != null || elementId != null;
+  }
+
+  /**
+   * Returns true if an element in the given zone and group, with the given id, should act on the message.
+   *
+   * @param elementZone the zone of the element, or null if it is in no zone.
+   * @param elementGroup the group of the element, or null if it is in no group.
+   * @param id the id of the element.
+   * @return true if every part of the message's address matches the element.
+   */
+  public boolean isAddressedTo(final String elementZone, final String elementGroup, final Long id) {
+    return (zone == null || zone.equals(elementZone))
+        && (group == null || group.equals(elementGroup))
+        && (elementId == null || elementId.equals(id));
+  }
+
+  /**
+   * Serializes the message with the default {@link MessageCodec}.
+   *
+   * @return the encoded message.
+   * @throws IOException if the message could not be encoded.
+   */
+  public byte[] serialize() throws IOException {
+    return serialize(MessageCodecs.getDefault());
+  }
+
+  /**
+   * Serializes the message with the given {@link MessageCodec}.
+   *
+   * @param codec the codec to encode the message with.
+   * @return the encoded message.
+   * @throws IOException if the message could not be encoded.
+   */
+  public byte[] serialize(final MessageCodec codec) throws IOException {
+    return codec.encode(this);
+  }
+
+  /**
+   * Deserializes a message, detecting the codec it was encoded with.
+   *
+   * @param input the encoded message.
+   * @return the decoded message.
+   * @throws IOException if the message could not be decoded.
+   */
   public static SCFJMessage deserialize(final byte[] input) throws IOException {
-    return new ObjectMapper().readValue(input, SCFJMessage.class);
+    return MessageCodecs.decode(input);
   }
 
 }
@@ -1,5 +1,8 @@
 package org.showcontrol4j.message;
 
+import org.showcontrol4j.clock.ShowClock;
+import org.showcontrol4j.clock.SystemShowClock;
+
 /**
  * Serves as a helper class to create standard {@link SCFJMessage} objects.
  *
@@ -21,9 +24,21 @@ public class ShowCommand {
      * @return a {@link SCFJMessage} with the GO show command.
      */
     public static SCFJMessage GO(final Long syncTimeout) {
+        return GO(syncTimeout, SystemShowClock.INSTANCE);
+    }
+
+    /**
+     * Creates a {@link SCFJMessage} object with the GO show command, stamping the start time with the given
+     * {@link ShowClock}.
+     *
+     * @param syncTimeout milliseconds to wait before starting show loop.
+     * @param showClock   the clock to stamp the start time with.
+     * @return a {@link SCFJMessage} with the GO show command.
+     */
+    public static SCFJMessage GO(final Long syncTimeout, final ShowClock showClock) {
         return SCFJMessage.builder()
                 .instruction(Instruction.GO)
-                .startTime(System.currentTimeMillis() + (syncTimeout != null ? syncTimeout : 0L))
+                .startTime(showClock.currentTimeMillis() + (syncTimeout != null ? syncTimeout : 0L))
                 .build();
     }
 
@@ -37,9 +52,21 @@ public class ShowCommand {
      * @return a {@link SCFJMessage} String with the IDLE show command.
      */
     public static SCFJMessage IDLE(final Long syncTimeout) {
+        return IDLE(syncTimeout, SystemShowClock.INSTANCE);
+    }
+
+    /**
+     * Creates a {@link SCFJMessage} object with the IDLE show command, stamping the start time with the given
+     * {@link ShowClock}.
+     *
+     * @param syncTimeout milliseconds to wait before starting show loop.
+     * @param showClock   the clock to stamp the start time with.
+     * @return a {@link SCFJMessage} with the IDLE show command.
+     */
+    public static SCFJMessage IDLE(final Long syncTimeout, final ShowClock showClock) {
         return SCFJMessage.builder()
                 .instruction(Instruction.IDLE)
-                .startTime(System.currentTimeMillis() + (syncTimeout != null ? syncTimeout : 0L))
+                .startTime(showClock.currentTimeMillis() + (syncTimeout != null ? syncTimeout : 0L))
                 .build();
     }
 
@@ -49,9 +76,20 @@ public class ShowCommand {
      * @return a {@link SCFJMessage} object with the SHUTDOWN show command.
      */
     public static SCFJMessage SHUTDOWN() {
+        return SHUTDOWN(SystemShowClock.INSTANCE);
+    }
+
+    /**
+     * Creates a {@link SCFJMessage} object with the SHUTDOWN show command, stamping the start time with the given
+     * {@link ShowClock}.
+     *
+     * @param showClock the clock to stamp the start time with.
+     * @return a {@link SCFJMessage} object with the SHUTDOWN show command.
+     */
+    public static SCFJMessage SHUTDOWN(final ShowClock showClock) {
         return SCFJMessage.builder()
                 .instruction(Instruction.SHUTDOWN)
-                .startTime(System.currentTimeMillis())
+                .startTime(showClock.currentTimeMillis())
                 .build();
     }
 
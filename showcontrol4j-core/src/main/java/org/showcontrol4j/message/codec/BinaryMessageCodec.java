@@ -0,0 +1,224 @@
+package org.showcontrol4j.message.codec;
+
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A compact binary {@link MessageCodec}. A message with no address is written as version 1, which is always 10 bytes
+ * long:
+ *
+ * <pre>
+ *   offset 0  version byte (0x01)
+ *   offset 1  instruction ordinal
+ *   offset 2  start time in epoch milliseconds, 8 bytes, big endian
+ * </pre>
+ * <p>
+ * An addressed message is written as version 2, which has the same first 10 bytes followed by the address:
+ *
+ * <pre>
+ *   offset 0   version byte (0x02)
+ *   offset 1   instruction ordinal
+ *   offset 2   start time in epoch milliseconds, 8 bytes, big endian
+ *   offset 10  address flags: 0x01 element id, 0x02 zone, 0x04 group
+ *   then       the element id, 8 bytes, big endian, if flagged
+ *   then       the zone, one length byte and up to 255 bytes of UTF-8, if flagged
+ *   then       the group, one length byte and up to 255 bytes of UTF-8, if flagged
+ * </pre>
+ * <p>
+ * Unaddressed messages stay on version 1 so older Show Elements keep decoding them, and both versions are decoded.
+ * The start time is at the same offset in both. The version byte can never be the first byte of a JSON document, which lets {@link MessageCodecs} tell the two
+ * formats apart without any extra framing.
+ *
+ * @author James Hare
+ */
+public final class BinaryMessageCodec implements MessageCodec {
+
+    /**
+     * The version byte written at the start of every version 1 message.
+     */
+    public static final byte VERSION_1 = 0x01;
+    /**
+     * The version byte written at the start of every version 2 message.
+     */
+    public static final byte VERSION_2 = 0x02;
+    /**
+     * The offset of the instruction ordinal in an encoded message.
+     */
+    public static final int INSTRUCTION_OFFSET = 1;
+    /**
+     * The offset of the start time in an encoded message.
+     */
+    public static final int START_TIME_OFFSET = 2;
+    /**
+     * The length of an encoded version 1 message.
+     */
+    public static final int VERSION_1_LENGTH = 10;
+    /**
+     * The offset of the address flags in an encoded version 2 message.
+     */
+    public static final int ADDRESS_FLAGS_OFFSET = 10;
+
+    private static final int ELEMENT_ID_FLAG = 0x01;
+    private static final int ZONE_FLAG = 0x02;
+    private static final int GROUP_FLAG = 0x04;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final Instruction[] INSTRUCTIONS = Instruction.values();
+
+    BinaryMessageCodec() {
+    }
+
+    @Override
+    public byte[] encode(final SCFJMessage message) throws IOException {
+        if (!message.hasAddress()) {
+            final byte[] output = new byte[VERSION_1_LENGTH];
+            putHeader(output, VERSION_1, message);
+            return output;
+        }
+        final byte[] zone = name(message.getZone());
+        final byte[] group = name(message.getGroup());
+        final int length = ADDRESS_FLAGS_OFFSET + 1 + (message.getElementId() != null ? 8 : 0)
+                + (zone != null ? 1 + zone.length : 0) + (group != null ? 1 + group.length : 0);
+        final byte[] output = new byte[length];
+        putHeader(output, VERSION_2, message);
+        int offset = ADDRESS_FLAGS_OFFSET + 1;
+        int flags = 0;
+        if (message.getElementId() != null) {
+            flags |= ELEMENT_ID_FLAG;
+            putLong(output, offset, message.getElementId());
+            offset += 8;
+        }
+        if (zone != null) {
+            flags |= ZONE_FLAG;
+            offset = putName(output, offset, zone);
+        }
+        if (group != null) {
+            flags |= GROUP_FLAG;
+            putName(output, offset, group);
+        }
+        output[ADDRESS_FLAGS_OFFSET] = (byte) flags;
+        return output;
+    }
+
+    @Override
+    public SCFJMessage decode(final byte[] input) throws IOException {
+        if (!canDecode(input)) {
+            throw new IOException("The payload is not a version 1 or 2 binary SCFJMessage.");
+        }
+        final int minimumLength = input[0] == VERSION_1 ? VERSION_1_LENGTH : ADDRESS_FLAGS_OFFSET + 1;
+        if (input.length < minimumLength) {
+            throw truncated(minimumLength, input.length);
+        }
+        final int ordinal = input[INSTRUCTION_OFFSET];
+        if (ordinal >= INSTRUCTIONS.length) {
+            throw new IOException("Unknown instruction ordinal " + ordinal + " in binary SCFJMessage.");
+        }
+        final SCFJMessage message = new SCFJMessage(ordinal < 0 ? null : INSTRUCTIONS[ordinal],
+                getLong(input, START_TIME_OFFSET));
+        if (input[0] == VERSION_2) {
+            decodeAddress(input, message);
+        }
+        return message;
+    }
+
+    @Override
+    public boolean canDecode(final byte[] input) {
+        return input != null && input.length > 0 && (input[0] == VERSION_1 || input[0] == VERSION_2);
+    }
+
+    @Override
+    public boolean canPatchStartTime() {
+        return true;
+    }
+
+    @Override
+    public void patchStartTime(final byte[] encoded, final long startTime) {
+        putLong(encoded, START_TIME_OFFSET, startTime);
+    }
+
+    private static void putHeader(final byte[] output, final byte version, final SCFJMessage message) {
+        output[0] = version;
+        output[INSTRUCTION_OFFSET] = (byte) (message.getInstruction() != null ? message.getInstruction().ordinal() : -1);
+        putLong(output, START_TIME_OFFSET, message.getStartTime());
+    }
+
+    private static void decodeAddress(final byte[] input, final SCFJMessage message) throws IOException {
+        final int flags = input[ADDRESS_FLAGS_OFFSET];
+        int offset = ADDRESS_FLAGS_OFFSET + 1;
+        if ((flags & ELEMENT_ID_FLAG) != 0) {
+            if (input.length < offset + 8) {
+                throw truncated(offset + 8, input.length);
+            }
+            message.setElementId(getLong(input, offset));
+            offset += 8;
+        }
+        if ((flags & ZONE_FLAG) != 0) {
+            message.setZone(getName(input, offset));
+            offset += 1 + (input[offset] & 0xFF);
+        }
+        if ((flags & GROUP_FLAG) != 0) {
+            message.setGroup(getName(input, offset));
+        }
+    }
+
+    private static byte[] name(final String name) throws IOException {
+        if (name == null) {
+            return null;
+        }
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_NAME_LENGTH) {
+            throw new IOException("The address name " + name + " is longer than " + MAX_NAME_LENGTH + " bytes.");
+        }
+        return bytes;
+    }
+
+    private static int putName(final byte[] output, final int offset, final byte[] name) {
+        output[offset] = (byte) name.length;
+        System.arraycopy(name, 0, output, offset + 1, name.length);
+        return offset + 1 + name.length;
+    }
+
+    private static String getName(final byte[] input, final int offset) throws IOException {
+        if (input.length < offset + 1 || input.length < offset + 1 + (input[offset] & 0xFF)) {
+            throw truncated(offset + 1 + (input.length > offset ? input[offset] & 0xFF : 0), input.length);
+        }
+        return new String(input, offset + 1, input[offset] & 0xFF, StandardCharsets.UTF_8);
+    }
+
+    private static IOException truncated(final int expected, final int actual) {
+        return new IOException("The binary SCFJMessage is truncated. Expected " + expected
+                + " bytes but received " + actual + ".");
+    }
+
+    /**
+     * Writes a long into the given array in big endian order.
+     *
+     * @param output the array to write to.
+     * @param offset the offset to start writing at.
+     * @param value  the value to write.
+     */
+    static void putLong(final byte[] output, final int offset, final long value) {
+        for (int i = 7; i >= 0; i--) {
+            output[offset + 7 - i] = (byte) (value >>> (i * 8));
+        }
+    }
+
+    /**
+     * Reads a big endian long from the given array.
+     *
+     * @param input  the array to read from.
+     * @param offset the offset to start reading at.
+     * @return the value read.
+     */
+    static long getLong(final byte[] input, final int offset) {
+        long value = 0L;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (input[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.showcontrol4j.message.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+
+/**
+ * A JSON {@link MessageCodec} backed by Jackson. This was the only wire format before the binary codec was
+ * introduced and is kept for interoperability with older Show Elements and with tooling that expects text.
+ * The reader and writer are created once and shared, as both are immutable and thread safe.
+ *
+ * @author James Hare
+ */
+public final class JsonMessageCodec implements MessageCodec {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectReader READER = OBJECT_MAPPER.readerFor(SCFJMessage.class);
+    private static final ObjectWriter WRITER = OBJECT_MAPPER.writerFor(SCFJMessage.class);
+
+    JsonMessageCodec() {
+    }
+
+    @Override
+    public byte[] encode(final SCFJMessage message) throws IOException {
+        return WRITER.writeValueAsBytes(message);
+    }
+
+    @Override
+    public SCFJMessage decode(final byte[] input) throws IOException {
+        return READER.readValue(input);
+    }
+
+    @Override
+    public boolean canDecode(final byte[] input) {
+        if (input == null) {
+            return false;
+        }
+        for (final byte b : input) {
+            if (b == '{') {
+                return true;
+            } else if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+}
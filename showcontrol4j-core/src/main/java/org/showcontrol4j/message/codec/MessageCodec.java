@@ -0,0 +1,64 @@
+package org.showcontrol4j.message.codec;
+
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+
+/**
+ * Serves as the service provider interface for encoding and decoding {@link SCFJMessage} objects to and from the
+ * wire. Implementations must be thread safe, as a single codec is shared by every Show Trigger and Show Element in
+ * the JVM.
+ *
+ * @author James Hare
+ */
+public interface MessageCodec {
+
+    /**
+     * Encodes the given message into a byte array ready to be published.
+     *
+     * @param message the message to encode.
+     * @return the encoded message.
+     * @throws IOException if the message could not be encoded.
+     */
+    byte[] encode(SCFJMessage message) throws IOException;
+
+    /**
+     * Decodes the given byte array into a message.
+     *
+     * @param input the encoded message.
+     * @return the decoded {@link SCFJMessage}.
+     * @throws IOException if the input is not a valid message for this codec.
+     */
+    SCFJMessage decode(byte[] input) throws IOException;
+
+    /**
+     * Returns true if the given payload looks like it was produced by this codec. Used by
+     * {@link MessageCodecs#decode(byte[])} to auto-detect the format of an incoming message.
+     *
+     * @param input the encoded message.
+     * @return true if this codec is able to decode the payload.
+     */
+    boolean canDecode(byte[] input);
+
+    /**
+     * Returns true if this codec writes the start time of every message at a fixed place, so that an encoded message
+     * can be re-stamped with {@link #patchStartTime(byte[], long)} instead of being encoded again.
+     *
+     * @return true if the start time can be patched in place.
+     */
+    default boolean canPatchStartTime() {
+        return false;
+    }
+
+    /**
+     * Overwrites the start time of a message this codec encoded, leaving the rest of it untouched.
+     *
+     * @param encoded   the encoded message to patch.
+     * @param startTime the new start time in show time epoch milliseconds.
+     * @throws UnsupportedOperationException if {@link #canPatchStartTime()} is false.
+     */
+    default void patchStartTime(final byte[] encoded, final long startTime) {
+        throw new UnsupportedOperationException("This codec cannot patch the start time of an encoded message.");
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.showcontrol4j.message.codec;
+
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+
+/**
+ * Serves as the registry of the available {@link MessageCodec} implementations. Show Triggers encode with the
+ * default codec unless told otherwise, while Show Elements always decode through {@link #decode(byte[])} so that a
+ * fleet running a mix of binary and JSON publishers keeps working.
+ *
+ * @author James Hare
+ */
+public class MessageCodecs {
+
+    /**
+     * The compact binary codec. This is the default.
+     */
+    public static final MessageCodec BINARY = new BinaryMessageCodec();
+    /**
+     * The JSON codec.
+     */
+    public static final MessageCodec JSON = new JsonMessageCodec();
+
+    private static volatile MessageCodec defaultCodec = BINARY;
+
+    // private constructor so that the class cannot be instantiated.
+    private MessageCodecs() {
+    }
+
+    /**
+     * Returns the codec used when no codec is specified.
+     *
+     * @return the default {@link MessageCodec}.
+     */
+    public static MessageCodec getDefault() {
+        return defaultCodec;
+    }
+
+    /**
+     * Sets the codec used when no codec is specified, for example to keep publishing JSON while older Show Elements
+     * are still in the field.
+     *
+     * @param codec the new default {@link MessageCodec}.
+     */
+    public static void setDefault(final MessageCodec codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("The default codec cannot be null.");
+        }
+        defaultCodec = codec;
+    }
+
+    /**
+     * Returns the codec that is able to decode the given payload.
+     *
+     * @param input the encoded message.
+     * @return the matching {@link MessageCodec}.
+     * @throws IOException if no codec recognizes the payload.
+     */
+    public static MessageCodec detect(final byte[] input) throws IOException {
+        if (BINARY.canDecode(input)) {
+            return BINARY;
+        } else if (JSON.canDecode(input)) {
+            return JSON;
+        }
+        throw new IOException("Unable to detect the format of the received SCFJMessage.");
+    }
+
+    /**
+     * Decodes the given payload, detecting whether it was encoded with the binary or the JSON codec.
+     *
+     * @param input the encoded message.
+     * @return the decoded {@link SCFJMessage}.
+     * @throws IOException if the payload could not be decoded.
+     */
+    public static SCFJMessage decode(final byte[] input) throws IOException {
+        return detect(input).decode(input);
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.showcontrol4j.state;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * Serves as the client side of the show state kept by a {@link ShowStateServer}. A Show Element that starts or
+ * reconnects mid-show asks for the snapshot once and joins the show from the newest command addressed to it, rather
+ * than waiting for the next cue.
+ *
+ * @author James Hare
+ */
+public class ShowStateClient {
+
+    /**
+     * How long to wait for the snapshot by default, in milliseconds.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 1000L;
+
+    private final Channel channel;
+    private final String serverQueueName;
+
+    /**
+     * Creates a client.
+     *
+     * @param channel         the channel to send the request and receive the response on.
+     * @param messageExchange the exchange the show runs on.
+     */
+    public ShowStateClient(final Channel channel, final MessageExchange messageExchange) {
+        this.channel = channel;
+        this.serverQueueName = ShowStateServer.queueName(messageExchange);
+    }
+
+    /**
+     * Asks the server for the last command published to every routing key.
+     *
+     * @param timeoutMillis how long to wait for the response in milliseconds.
+     * @return the commands, in no particular order.
+     * @throws IOException          if the request could not be sent or the response could not be decoded.
+     * @throws TimeoutException     if no response arrived in time, as when no server is running.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public List<SCFJMessage> fetch(final long timeoutMillis) throws IOException, TimeoutException, InterruptedException {
+        final String replyQueueName = channel.queueDeclare().getQueue();
+        final CompletableFuture<byte[]> response = new CompletableFuture<>();
+        final DeliverCallback deliverCallback = (tag, delivery) -> response.complete(delivery.getBody());
+        final String consumerTag = channel.basicConsume(replyQueueName, true, deliverCallback, tag -> {
+        });
+        try {
+            channel.basicPublish("", serverQueueName, ShowStateServer.requestProperties(replyQueueName), new byte[0]);
+            return decode(response.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (final ExecutionException e) {
+            throw new IOException("The show state request failed.", e.getCause());
+        } finally {
+            channel.basicCancel(consumerTag);
+        }
+    }
+
+    /**
+     * Asks the server for the show state and returns the newest command accepted by the filter.
+     *
+     * @param filter        the commands to consider, typically those addressed to the asking element.
+     * @param timeoutMillis how long to wait for the response in milliseconds.
+     * @return the command with the latest start time, or null if there is none.
+     * @throws IOException          if the request could not be sent or the response could not be decoded.
+     * @throws TimeoutException     if no response arrived in time, as when no server is running.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public SCFJMessage fetchLatest(final Predicate<SCFJMessage> filter, final long timeoutMillis)
+            throws IOException, TimeoutException, InterruptedException {
+        SCFJMessage latest = null;
+        for (final SCFJMessage command : fetch(timeoutMillis)) {
+            if (filter.test(command) && (latest == null || command.getStartTime() > latest.getStartTime())) {
+                latest = command;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Decodes a snapshot encoded by {@link ShowStateServer#snapshot()}.
+     *
+     * @param body the encoded snapshot.
+     * @return the commands in it.
+     * @throws IOException if the snapshot is malformed.
+     */
+    static List<SCFJMessage> decode(final byte[] body) throws IOException {
+        try {
+            final ByteBuffer snapshot = ByteBuffer.wrap(body);
+            final int count = snapshot.getInt();
+            if (count < 0) {
+                throw new IOException("The show state snapshot has a negative command count.");
+            }
+            final List<SCFJMessage> commands = new ArrayList<>(Math.min(count, 64));
+            for (int i = 0; i < count; i++) {
+                final byte[] command = new byte[snapshot.getInt()];
+                snapshot.get(command);
+                commands.add(SCFJMessage.deserialize(command));
+            }
+            return commands;
+        } catch (final BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("The show state snapshot is truncated.", e);
+        }
+    }
+
+}
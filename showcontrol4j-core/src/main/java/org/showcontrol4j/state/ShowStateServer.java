@@ -0,0 +1,165 @@
+package org.showcontrol4j.state;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.exchange.RoutingKeys;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves as the keeper of the show state for a {@link MessageExchange}. The Show Trigger records every GO and IDLE it
+ * publishes, and the server answers the requests of every {@link ShowStateClient} on the same exchange with the last
+ * command published to each routing key, exactly as it was encoded. A GO keeps the start time it was published with,
+ * which is the show's epoch, so an element that joins mid-show can work out how far into the show it is.
+ * <p>
+ * SHUTDOWN is not part of the show state and is never recorded. It ends the show for the elements it reaches, so it
+ * clears the commands recorded for them instead, see {@link #clear(String)}; an element restarted afterwards does not
+ * run the last GO again. A response is an int count followed by each encoded
+ * command as an int length and its bytes.
+ *
+ * @author James Hare
+ */
+@Slf4j
+public class ShowStateServer implements AutoCloseable {
+
+    private final Channel channel;
+    private final String queueName;
+    private final Map<String, byte[]> lastCommands = new ConcurrentHashMap<>();
+    private String consumerTag;
+
+    /**
+     * Creates a server.
+     *
+     * @param channel         the channel to consume requests on.
+     * @param messageExchange the exchange the show runs on.
+     */
+    public ShowStateServer(final Channel channel, final MessageExchange messageExchange) {
+        this.channel = channel;
+        this.queueName = queueName(messageExchange);
+    }
+
+    /**
+     * Returns the name of the queue show state requests are sent to for the given exchange.
+     *
+     * @param messageExchange the exchange the show runs on.
+     * @return the name of the show state queue.
+     */
+    public static String queueName(final MessageExchange messageExchange) {
+        return messageExchange.getName() + ".state";
+    }
+
+    /**
+     * Declares the request queue and starts answering requests.
+     *
+     * @throws IOException if the queue could not be declared or consumed.
+     */
+    public void start() throws IOException {
+        channel.queueDeclare(queueName, false, false, true, null);
+        final DeliverCallback deliverCallback = (tag, delivery) -> {
+            final String replyTo = delivery.getProperties() != null ? delivery.getProperties().getReplyTo() : null;
+            if (replyTo == null) {
+                log.warn("Ignoring a show state request without a reply queue on queue={}", queueName);
+                return;
+            }
+            channel.basicPublish("", replyTo, null, snapshot());
+        };
+        consumerTag = channel.basicConsume(queueName, true, deliverCallback, tag -> {
+        });
+        log.info("Show state is answering requests on queue={}", queueName);
+    }
+
+    /**
+     * Records a command as the last one published to its routing key. The body must not be changed afterwards.
+     *
+     * @param routingKey the routing key the command was published with.
+     * @param body       the encoded command.
+     */
+    public void record(final String routingKey, final byte[] body) {
+        lastCommands.put(routingKey, body);
+    }
+
+    /**
+     * Forgets every recorded command, as at the end of a show.
+     */
+    public void clear() {
+        lastCommands.clear();
+    }
+
+    /**
+     * Forgets the commands recorded for every routing key a SHUTDOWN published with the given routing key reaches, so
+     * a SHUTDOWN to a zone clears that zone's commands and leaves the other zones' alone.
+     *
+     * @param routingKey the routing key the SHUTDOWN was published with.
+     */
+    public void clear(final String routingKey) {
+        final String[] address = routingKey.split("\\.");
+        lastCommands.keySet().removeIf(key -> reaches(address, key.split("\\.")));
+    }
+
+    /**
+     * Returns whether a command published to the first address reaches every element the second address does: each
+     * zone, group and id word is either {@link RoutingKeys#ALL} or the same in both.
+     */
+    private static boolean reaches(final String[] address, final String[] key) {
+        if (address.length != key.length) {
+            return false;
+        }
+        for (int i = 1; i < address.length; i += 2) {
+            if (!RoutingKeys.ALL.equals(address[i]) && !address[i].equals(key[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the last command published to every routing key.
+     *
+     * @return the encoded snapshot.
+     */
+    byte[] snapshot() {
+        final List<byte[]> commands = new ArrayList<>(lastCommands.values());
+        int length = 4;
+        for (final byte[] command : commands) {
+            length += 4 + command.length;
+        }
+        final ByteBuffer snapshot = ByteBuffer.allocate(length);
+        snapshot.putInt(commands.size());
+        for (final byte[] command : commands) {
+            snapshot.putInt(command.length).put(command);
+        }
+        return snapshot.array();
+    }
+
+    /**
+     * Stops answering requests. Recorded commands are kept.
+     *
+     * @throws IOException if the consumer could not be cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        if (consumerTag != null) {
+            channel.basicCancel(consumerTag);
+            consumerTag = null;
+        }
+    }
+
+    /**
+     * Builds the properties of a show state request.
+     *
+     * @param replyTo the queue the response should be sent to.
+     * @return the request properties.
+     */
+    static AMQP.BasicProperties requestProperties(final String replyTo) {
+        return new AMQP.BasicProperties.Builder().replyTo(replyTo).build();
+    }
+
+}
@@ -0,0 +1,268 @@
+package org.showcontrol4j.timing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves as a timer that runs tasks at absolute {@link System#nanoTime()} deadlines on a single dedicated thread.
+ * The timer thread parks until the earliest deadline is within the spin threshold and then spins until it is due,
+ * so tasks fire with sub-millisecond accuracy. The difference between each deadline and the time its task actually
+ * fired is recorded in {@link #getJitter()}.
+ * <p>
+ * Tasks run on the timer thread and must therefore be short, typically handing work off to an executor.
+ *
+ * @author James Hare
+ */
+@Slf4j
+public class DeadlineScheduler implements AutoCloseable {
+
+    private static final AtomicLong THREAD_COUNTER = new AtomicLong();
+    private static volatile DeadlineScheduler shared;
+
+    private final long spinThresholdNanos;
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LatencyStatistics jitter = new LatencyStatistics();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Thread timerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a scheduler with the default spin threshold.
+     */
+    public DeadlineScheduler() {
+        this(PreciseSleeper.DEFAULT_SPIN_THRESHOLD_NANOS);
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param spinThresholdNanos the time before a deadline at which the timer thread stops parking and starts spinning.
+     */
+    public DeadlineScheduler(final long spinThresholdNanos) {
+        this.spinThresholdNanos = spinThresholdNanos;
+        timerThread = new Thread(this::runTimer, "showcontrol4j-deadline-" + THREAD_COUNTER.incrementAndGet());
+        timerThread.setDaemon(true);
+        timerThread.setPriority(Thread.MAX_PRIORITY);
+        timerThread.start();
+    }
+
+    /**
+     * Returns the scheduler shared by everything in the JVM that has not been given its own.
+     *
+     * @return the shared {@link DeadlineScheduler}.
+     */
+    public static DeadlineScheduler shared() {
+        DeadlineScheduler scheduler = shared;
+        if (scheduler == null) {
+            synchronized (DeadlineScheduler.class) {
+                scheduler = shared;
+                if (scheduler == null) {
+                    scheduler = new DeadlineScheduler();
+                    shared = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Schedules a task to run at the given wall clock time.
+     *
+     * @param epochMillis the wall clock time in epoch milliseconds.
+     * @param task        the task to run.
+     * @return the {@link Deadline} that was armed.
+     */
+    public Deadline scheduleAt(final long epochMillis, final Runnable task) {
+        return schedule(PreciseSleeper.toNanoTime(epochMillis), task);
+    }
+
+    /**
+     * Schedules a task to run at the given {@link System#nanoTime()} deadline. Deadlines in the past fire immediately.
+     *
+     * @param deadlineNanos the deadline as a {@link System#nanoTime()} value.
+     * @param task          the task to run.
+     * @return the {@link Deadline} that was armed.
+     */
+    public Deadline schedule(final long deadlineNanos, final Runnable task) {
+        if (!running) {
+            throw new IllegalStateException("The deadline scheduler has been closed.");
+        }
+        final Deadline deadline = new Deadline(deadlineNanos, sequence.getAndIncrement(), task);
+        final boolean newHead;
+        lock.lock();
+        try {
+            queue.add(deadline);
+            newHead = queue.peek() == deadline;
+        } finally {
+            lock.unlock();
+        }
+        if (newHead) {
+            LockSupport.unpark(timerThread);
+        }
+        return deadline;
+    }
+
+    /**
+     * Returns the number of deadlines that are armed and have not fired yet.
+     *
+     * @return the number of pending deadlines.
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the statistics of how late each task fired relative to its deadline.
+     *
+     * @return the jitter {@link LatencyStatistics}.
+     */
+    public LatencyStatistics getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Stops the timer thread. Pending deadlines are discarded.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(timerThread);
+    }
+
+    private void runTimer() {
+        while (running) {
+            Deadline due = null;
+            long parkNanos = 0L;
+            lock.lock();
+            try {
+                Deadline head;
+                while ((head = queue.peek()) != null && head.cancelled) {
+                    queue.poll();
+                }
+                if (head != null) {
+                    final long remaining = head.deadlineNanos - System.nanoTime();
+                    if (remaining > spinThresholdNanos) {
+                        parkNanos = remaining - spinThresholdNanos;
+                    } else {
+                        due = queue.poll();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (due != null) {
+                fire(due);
+            } else if (parkNanos > 0L) {
+                LockSupport.parkNanos(this, parkNanos);
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        lock.lock();
+        try {
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fire(final Deadline deadline) {
+        long now;
+        while ((now = System.nanoTime()) - deadline.deadlineNanos < 0) {
+            Thread.onSpinWait();
+        }
+        if (deadline.cancelled) {
+            return;
+        }
+        deadline.firedNanos = now;
+        deadline.fired = true;
+        jitter.record(now - deadline.deadlineNanos);
+        try {
+            deadline.task.run();
+        } catch (final Throwable t) {
+            log.error("A task scheduled by the deadline scheduler has failed.", t);
+        }
+    }
+
+    /**
+     * Serves as the handle of a task armed on a {@link DeadlineScheduler}.
+     */
+    public static final class Deadline implements Comparable<Deadline> {
+
+        private final long deadlineNanos;
+        private final long sequence;
+        private final Runnable task;
+        private volatile boolean cancelled;
+        private volatile boolean fired;
+        private volatile long firedNanos;
+
+        private Deadline(final long deadlineNanos, final long sequence, final Runnable task) {
+            this.deadlineNanos = deadlineNanos;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        /**
+         * Cancels the task if it has not fired yet.
+         *
+         * @return true if the task will not fire.
+         */
+        public boolean cancel() {
+            cancelled = true;
+            return !fired;
+        }
+
+        /**
+         * Returns true if the task has been cancelled.
+         *
+         * @return true if the task has been cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Returns true if the task has fired.
+         *
+         * @return true if the task has fired.
+         */
+        public boolean isFired() {
+            return fired;
+        }
+
+        /**
+         * Returns the deadline as a {@link System#nanoTime()} value.
+         *
+         * @return the deadline in nanoseconds.
+         */
+        public long getDeadlineNanos() {
+            return deadlineNanos;
+        }
+
+        /**
+         * Returns the {@link System#nanoTime()} at which the task fired. Only meaningful once {@link #isFired()} is true.
+         *
+         * @return the fire time in nanoseconds.
+         */
+        public long getFiredNanos() {
+            return firedNanos;
+        }
+
+        @Override
+        public int compareTo(final Deadline other) {
+            final int byDeadline = Long.compare(deadlineNanos - other.deadlineNanos, 0L);
+            return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
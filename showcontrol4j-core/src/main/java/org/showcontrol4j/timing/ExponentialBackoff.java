@@ -0,0 +1,82 @@
+package org.showcontrol4j.timing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Serves as the delay schedule for retrying an operation that keeps failing, such as reconnecting to the broker. The
+ * delay starts at a minimum and doubles after every failed attempt up to a maximum, and each delay is spread by up to
+ * a quarter either way so that many clients cut off by the same outage do not all retry at the same instant. Not
+ * safe for use from more than one thread.
+ *
+ * @author James Hare
+ */
+public class ExponentialBackoff {
+
+    /**
+     * The default first delay, in milliseconds.
+     */
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 100L;
+    /**
+     * The default longest delay, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 10_000L;
+
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private long delayMillis;
+    private int attempts;
+
+    /**
+     * Creates a backoff with the default delays.
+     */
+    public ExponentialBackoff() {
+        this(DEFAULT_MIN_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates a backoff.
+     *
+     * @param minDelayMillis the first delay in milliseconds.
+     * @param maxDelayMillis the longest delay in milliseconds.
+     */
+    public ExponentialBackoff(final long minDelayMillis, final long maxDelayMillis) {
+        if (minDelayMillis < 1 || maxDelayMillis < minDelayMillis) {
+            throw new IllegalArgumentException("The delays must be positive and the minimum cannot exceed the maximum.");
+        }
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        reset();
+    }
+
+    /**
+     * Returns how long to wait before the next attempt and doubles the delay for the one after.
+     *
+     * @return the delay in milliseconds.
+     */
+    public long nextDelayMillis() {
+        final long base = delayMillis;
+        delayMillis = Math.min(maxDelayMillis, delayMillis * 2);
+        attempts++;
+        final long spread = base / 4;
+        final long jitter = spread == 0 ? 0L : ThreadLocalRandom.current().nextLong(-spread, spread + 1);
+        return Math.max(1L, base + jitter);
+    }
+
+    /**
+     * Returns the number of delays handed out since the last reset.
+     *
+     * @return the number of attempts.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Starts the schedule again from the minimum delay, typically once the operation has succeeded.
+     */
+    public void reset() {
+        delayMillis = minDelayMillis;
+        attempts = 0;
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.showcontrol4j.timing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves as a lock free accumulator of latency samples in nanoseconds, such as the difference between the time a
+ * deadline was due and the time it actually fired. Safe to record into from any number of threads.
+ *
+ * @author James Hare
+ */
+public class LatencyStatistics {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+    private volatile long last;
+
+    /**
+     * Records a sample.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(final long nanos) {
+        count.increment();
+        sum.add(nanos);
+        last = nanos;
+        long current;
+        while (nanos < (current = min.get()) && !min.compareAndSet(current, nanos)) {
+            // retry until the minimum is published.
+        }
+        while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+            // retry until the maximum is published.
+        }
+    }
+
+    /**
+     * Returns the number of samples recorded.
+     *
+     * @return the number of samples recorded.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the mean of all samples in nanoseconds, or zero if no samples have been recorded.
+     *
+     * @return the mean in nanoseconds.
+     */
+    public long getMeanNanos() {
+        final long samples = count.sum();
+        return samples == 0 ? 0L : sum.sum() / samples;
+    }
+
+    /**
+     * Returns the smallest sample in nanoseconds, or zero if no samples have been recorded.
+     *
+     * @return the minimum in nanoseconds.
+     */
+    public long getMinNanos() {
+        final long value = min.get();
+        return value == Long.MAX_VALUE ? 0L : value;
+    }
+
+    /**
+     * Returns the largest sample in nanoseconds, or zero if no samples have been recorded.
+     *
+     * @return the maximum in nanoseconds.
+     */
+    public long getMaxNanos() {
+        final long value = max.get();
+        return value == Long.MIN_VALUE ? 0L : value;
+    }
+
+    /**
+     * Returns the most recent sample in nanoseconds.
+     *
+     * @return the most recent sample in nanoseconds.
+     */
+    public long getLastNanos() {
+        return last;
+    }
+
+    /**
+     * Clears all recorded samples.
+     */
+    public void reset() {
+        count.reset();
+        sum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+        last = 0L;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyStatistics(count=" + getCount()
+                + ", meanMicros=" + TimeUnit.NANOSECONDS.toMicros(getMeanNanos())
+                + ", minMicros=" + TimeUnit.NANOSECONDS.toMicros(getMinNanos())
+                + ", maxMicros=" + TimeUnit.NANOSECONDS.toMicros(getMaxNanos()) + ")";
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.showcontrol4j.timing;
+
+import org.showcontrol4j.clock.SystemShowClock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves as a helper class for waiting until an absolute {@link System#nanoTime()} deadline. The thread is parked
+ * until the deadline is within the spin threshold and then spins for the remainder, which avoids the scheduler
+ * wake up overshoot of {@link Thread#sleep(long)} without burning a core for the whole wait.
+ *
+ * @author James Hare
+ */
+public class PreciseSleeper {
+
+    /**
+     * The default spin threshold in nanoseconds. Parking on a Raspberry Pi typically overshoots by 60 to 150
+     * microseconds, so the last quarter of a millisecond is spun.
+     */
+    public static final long DEFAULT_SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(250);
+
+    // private constructor so that the class cannot be instantiated.
+    private PreciseSleeper() {
+    }
+
+    /**
+     * Waits until the given deadline using the default spin threshold.
+     *
+     * @param deadlineNanos the deadline as a {@link System#nanoTime()} value.
+     * @return the overshoot in nanoseconds, zero or greater.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public static long sleepUntil(final long deadlineNanos) throws InterruptedException {
+        return sleepUntil(deadlineNanos, DEFAULT_SPIN_THRESHOLD_NANOS);
+    }
+
+    /**
+     * Waits until the given deadline, parking until the deadline is within the spin threshold and spinning after.
+     *
+     * @param deadlineNanos      the deadline as a {@link System#nanoTime()} value.
+     * @param spinThresholdNanos the time before the deadline at which parking stops and spinning starts.
+     * @return the overshoot in nanoseconds, zero or greater.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public static long sleepUntil(final long deadlineNanos, final long spinThresholdNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > spinThresholdNanos) {
+            LockSupport.parkNanos(remaining - spinThresholdNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        long now;
+        while ((now = System.nanoTime()) - deadlineNanos < 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.onSpinWait();
+        }
+        return now - deadlineNanos;
+    }
+
+    /**
+     * Converts a local wall clock time in epoch milliseconds into the equivalent {@link System#nanoTime()} value.
+     *
+     * @param epochMillis the wall clock time in epoch milliseconds.
+     * @return the equivalent {@link System#nanoTime()} value.
+     * @see SystemShowClock#toNanoTime(long)
+     */
+    public static long toNanoTime(final long epochMillis) {
+        return SystemShowClock.INSTANCE.toNanoTime(epochMillis);
+    }
+
+}
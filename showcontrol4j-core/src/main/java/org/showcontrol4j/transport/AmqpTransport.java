@@ -0,0 +1,391 @@
+package org.showcontrol4j.transport;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.ShutdownSignalException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.ExchangeType;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves as the {@link Transport} over a RabbitMQ exchange. Publishing goes through a single channel opened and
+ * declared on first use, and each subscription declares an exclusive server-named queue bound to the exchange with a
+ * consumer of its own. On a fanout exchange routing keys are ignored; on a direct or topic exchange a subscription's
+ * queue is bound once for each of its routing keys.
+ * <p>
+ * Stop-class instructions travel on a control lane of their own: a second exchange, named after the show exchange
+ * with {@link #CONTROL_SUFFIX} appended, with its own publishing channel, queues and consumers. Nothing published on
+ * the show exchange can hold them up. See {@link #controlLane(BrokerConnectionFactory, MessageExchange)}.
+ * <p>
+ * With publisher confirms turned on, the publishing channel is put in confirm mode and every message is tracked by
+ * its publish sequence number in a lock free map until the broker acknowledges it. The broker's acknowledgements are
+ * handled in batches, as one ack may confirm every message up to its sequence number, and each message's
+ * {@link CompletableFuture} from {@link #publishAsync(String, byte[])} completes when it is confirmed. A message the
+ * broker rejects, or does not confirm within the confirm timeout, fails its future, so a lost message is never
+ * silent. Publishing never waits for a confirm. The confirm timeouts are kept by one daemon timer thread owned by the
+ * transport, which lets go of the thread once no timeout has been pending for a minute, and each timeout is cancelled
+ * as soon as its message's confirm lands.
+ * <p>
+ * A publishing channel that dies is dropped and a new one is opened on the next publish, unless it is a channel of a
+ * connection RabbitMQ is recovering by itself, which comes back on its own once the connection does. Messages that
+ * could not be published fail with an {@link IOException}; it is up to the publisher to retry them.
+ *
+ * @author James Hare
+ */
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public class AmqpTransport implements Transport {
+
+    /**
+     * The suffix appended to the show exchange's name to name its control exchange.
+     */
+    public static final String CONTROL_SUFFIX = ".control";
+
+    /**
+     * How long the broker has to confirm a message by default before it is reported as lost, in milliseconds.
+     */
+    public static final long DEFAULT_CONFIRM_TIMEOUT_MILLIS = 500L;
+
+    private static final long CONFIRM_TIMER_KEEP_ALIVE_SECONDS = 60L;
+
+    @ToString.Include
+    private final MessageExchange messageExchange;
+    private final BrokerConnectionFactory brokerConnectionFactory;
+    @ToString.Include
+    private final String exchangeSuffix;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ConcurrentNavigableMap<Long, CompletableFuture<Void>> outstandingConfirms = new ConcurrentSkipListMap<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ScheduledThreadPoolExecutor confirmTimer;
+    private Channel channel;
+    private boolean publisherConfirms;
+    private long confirmTimeoutMillis = DEFAULT_CONFIRM_TIMEOUT_MILLIS;
+
+    public AmqpTransport(final BrokerConnectionFactory brokerConnectionFactory, final MessageExchange messageExchange) {
+        this(brokerConnectionFactory, messageExchange, "");
+    }
+
+    private AmqpTransport(final BrokerConnectionFactory brokerConnectionFactory, final MessageExchange messageExchange,
+                          final String exchangeSuffix) {
+        this.brokerConnectionFactory = brokerConnectionFactory;
+        this.messageExchange = messageExchange;
+        this.exchangeSuffix = exchangeSuffix;
+    }
+
+    /**
+     * Creates the transport for the control lane of a show exchange. It publishes to and consumes from the show
+     * exchange's control exchange, of the same type, on channels of its own, so stop-class instructions are never
+     * queued behind show commands.
+     *
+     * @param brokerConnectionFactory the factory to open channels with.
+     * @param messageExchange         the show exchange.
+     * @return the control lane {@link AmqpTransport}.
+     */
+    public static AmqpTransport controlLane(final BrokerConnectionFactory brokerConnectionFactory,
+                                            final MessageExchange messageExchange) {
+        return new AmqpTransport(brokerConnectionFactory, messageExchange, CONTROL_SUFFIX);
+    }
+
+    /**
+     * Returns the name of the exchange this transport publishes to and consumes from.
+     *
+     * @return the exchange name.
+     */
+    public String getExchangeName() {
+        return messageExchange.getName() + exchangeSuffix;
+    }
+
+    /**
+     * Opens the publishing channel and declares the exchange, if that has not been done already. With publisher
+     * confirms turned on, the channel is put in confirm mode.
+     *
+     * @throws IOException      if the exchange could not be declared.
+     * @throws TimeoutException if a connection to the broker could not be made in time.
+     */
+    public synchronized void declare() throws IOException, TimeoutException {
+        if (channel == null) {
+            final Channel publishChannel = brokerConnectionFactory.openChannel();
+            publishChannel.exchangeDeclare(getExchangeName(), ExchangeType.of(messageExchange).getAmqpName());
+            if (publisherConfirms) {
+                publishChannel.confirmSelect();
+                publishChannel.addConfirmListener((deliveryTag, multiple) -> confirm(deliveryTag, multiple, true),
+                        (deliveryTag, multiple) -> confirm(deliveryTag, multiple, false));
+                publishChannel.addShutdownListener(cause -> failOutstandingConfirms(cause));
+            }
+            publishChannel.addShutdownListener(cause -> discardIfDead(publishChannel));
+            channel = publishChannel;
+        }
+    }
+
+    @Override
+    public void publish(final byte[] body) throws IOException, TimeoutException {
+        publish("", body);
+    }
+
+    /**
+     * Publishes a message without waiting for it to be confirmed. With publisher confirms turned on, a message that
+     * is not confirmed is logged as lost.
+     */
+    @Override
+    public void publish(final String routingKey, final byte[] body) throws IOException, TimeoutException {
+        if (!publisherConfirms) {
+            final Channel publishChannel = openPublishChannel();
+            try {
+                publishChannel.basicPublish(getExchangeName(), routingKeyFor(routingKey), null, body);
+            } catch (final IOException | ShutdownSignalException e) {
+                throw publishFailed(publishChannel, e);
+            }
+            return;
+        }
+        publishTracked(routingKey, body).whenComplete((confirmed, failure) -> {
+            if (failure != null) {
+                log.error("A message published to {} with routing key={} was lost. {}", getExchangeName(), routingKey,
+                        failure.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Publishes a message and returns a future completed when the broker confirms it, without waiting for the
+     * confirm. Without publisher confirms the future completes once the message has been handed to the channel.
+     */
+    @Override
+    public CompletableFuture<Void> publishAsync(final String routingKey, final byte[] body) {
+        if (!publisherConfirms) {
+            return Transport.super.publishAsync(routingKey, body);
+        }
+        try {
+            return publishTracked(routingKey, body);
+        } catch (final IOException | TimeoutException | RuntimeException e) {
+            final CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * Returns the number of published messages the broker has not confirmed or rejected yet.
+     *
+     * @return the number of outstanding confirms.
+     */
+    public int getOutstandingConfirmCount() {
+        return outstandingConfirms.size();
+    }
+
+    private CompletableFuture<Void> publishTracked(final String routingKey, final byte[] body)
+            throws IOException, TimeoutException {
+        final CompletableFuture<Void> confirmation = new CompletableFuture<>();
+        final long sequenceNumber;
+        final ScheduledThreadPoolExecutor timer;
+        // the sequence number is only known to belong to this message if nothing else publishes in between.
+        synchronized (this) {
+            final Channel publishChannel = openPublishChannel();
+            timer = confirmTimer();
+            sequenceNumber = publishChannel.getNextPublishSeqNo();
+            outstandingConfirms.put(sequenceNumber, confirmation);
+            try {
+                publishChannel.basicPublish(getExchangeName(), routingKeyFor(routingKey), null, body);
+            } catch (final IOException | ShutdownSignalException e) {
+                outstandingConfirms.remove(sequenceNumber, confirmation);
+                throw publishFailed(publishChannel, e);
+            }
+        }
+        final ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (outstandingConfirms.remove(sequenceNumber, confirmation)) {
+                confirmation.completeExceptionally(new TimeoutException("The broker did not confirm message "
+                        + sequenceNumber + " published to " + getExchangeName() + " within " + confirmTimeoutMillis + " ms"));
+            }
+        }, confirmTimeoutMillis, TimeUnit.MILLISECONDS);
+        confirmation.whenComplete((confirmed, failure) -> timeout.cancel(false));
+        return confirmation;
+    }
+
+    /**
+     * Returns the timer that keeps the confirm timeouts, creating it on first use. Its one daemon thread exits once it
+     * has had nothing to time for a minute, and cancelled timeouts are removed from it straight away.
+     */
+    private synchronized ScheduledThreadPoolExecutor confirmTimer() {
+        if (confirmTimer == null) {
+            final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                final Thread thread = new Thread(runnable, "showcontrol4j-confirm-timer-" + getExchangeName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            timer.setKeepAliveTime(CONFIRM_TIMER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            timer.allowCoreThreadTimeOut(true);
+            confirmTimer = timer;
+        }
+        return confirmTimer;
+    }
+
+    /**
+     * Returns the number of confirm timeouts still pending on the transport's timer.
+     */
+    synchronized int getPendingConfirmTimeoutCount() {
+        return confirmTimer == null ? 0 : confirmTimer.getQueue().size();
+    }
+
+    private Channel openPublishChannel() throws IOException, TimeoutException {
+        Channel publishChannel = channel;
+        if (publishChannel == null) {
+            declare();
+            publishChannel = channel;
+        }
+        return publishChannel;
+    }
+
+    private IOException publishFailed(final Channel publishChannel, final Exception cause) {
+        discardIfDead(publishChannel);
+        return cause instanceof IOException ? (IOException) cause
+                : new TransportClosedException("The channel to " + getExchangeName() + " is closed.", cause);
+    }
+
+    /**
+     * Drops the publishing channel if it has closed for good, so the next publish opens a new one. A channel RabbitMQ
+     * recovers along with its connection is kept, as it comes back by itself.
+     */
+    private synchronized void discardIfDead(final Channel publishChannel) {
+        if (channel != publishChannel || publishChannel.isOpen()) {
+            return;
+        }
+        final ShutdownSignalException reason = publishChannel.getCloseReason();
+        if (publishChannel instanceof Recoverable && reason != null && reason.isHardError()
+                && !reason.isInitiatedByApplication()) {
+            return;
+        }
+        channel = null;
+    }
+
+    private String routingKeyFor(final String routingKey) {
+        return ExchangeType.of(messageExchange).isRouted() ? routingKey : "";
+    }
+
+    /**
+     * Completes the futures of the messages an ack or nack from the broker covers: the one with the delivery tag, or
+     * with multiple set, every outstanding message up to and including it.
+     */
+    private void confirm(final long deliveryTag, final boolean multiple, final boolean ack) {
+        if (!multiple) {
+            final CompletableFuture<Void> confirmation = outstandingConfirms.remove(deliveryTag);
+            if (confirmation != null) {
+                complete(confirmation, deliveryTag, ack);
+            }
+            return;
+        }
+        Map.Entry<Long, CompletableFuture<Void>> entry;
+        while ((entry = outstandingConfirms.firstEntry()) != null && entry.getKey() <= deliveryTag) {
+            if (outstandingConfirms.remove(entry.getKey(), entry.getValue())) {
+                complete(entry.getValue(), entry.getKey(), ack);
+            }
+        }
+    }
+
+    private void complete(final CompletableFuture<Void> confirmation, final long deliveryTag, final boolean ack) {
+        if (ack) {
+            confirmation.complete(null);
+        } else {
+            confirmation.completeExceptionally(
+                    new IOException("The broker rejected message " + deliveryTag + " published to " + getExchangeName()));
+        }
+    }
+
+    private void failOutstandingConfirms(final Exception cause) {
+        Map.Entry<Long, CompletableFuture<Void>> entry;
+        while ((entry = outstandingConfirms.pollFirstEntry()) != null) {
+            entry.getValue().completeExceptionally(
+                    new TransportClosedException("The channel to " + getExchangeName() + " closed before message " + entry.getKey()
+                            + " was confirmed", cause));
+        }
+    }
+
+    @Override
+    public Subscription subscribe(final MessageHandler handler) throws IOException, TimeoutException {
+        return subscribe(Collections.singletonList(""), handler);
+    }
+
+    @Override
+    public Subscription subscribe(final Collection<String> routingKeys, final MessageHandler handler)
+            throws IOException, TimeoutException {
+        final String exchangeName = getExchangeName();
+        final ExchangeType type = ExchangeType.of(messageExchange);
+        final Channel consumeChannel = brokerConnectionFactory.openChannel();
+        consumeChannel.exchangeDeclare(exchangeName, type.getAmqpName());
+        final String queueName = consumeChannel.queueDeclare().getQueue();
+        if (type.isRouted()) {
+            for (final String routingKey : routingKeys) {
+                consumeChannel.queueBind(queueName, exchangeName, routingKey);
+            }
+        } else {
+            consumeChannel.queueBind(queueName, exchangeName, "");
+        }
+
+        final DeliverCallback deliverCallback = (consumerTag, delivery) -> handler.onMessage(delivery.getBody());
+        final String consumerTag = consumeChannel.basicConsume(queueName, true, deliverCallback, tag -> {
+        });
+        return new AmqpSubscription(consumeChannel, queueName, type.isRouted(), consumerTag);
+    }
+
+    /**
+     * Leaves the channels open, as they belong to the {@link BrokerConnectionFactory}'s pooled connections and are
+     * closed with it.
+     */
+    @Override
+    public void close() {
+        channel = null;
+    }
+
+    private final class AmqpSubscription implements Subscription {
+
+        private final Channel channel;
+        private final String queueName;
+        private final boolean routed;
+        private String consumerTag;
+
+        private AmqpSubscription(final Channel channel, final String queueName, final boolean routed,
+                                 final String consumerTag) {
+            this.channel = channel;
+            this.queueName = queueName;
+            this.routed = routed;
+            this.consumerTag = consumerTag;
+        }
+
+        @Override
+        public void bind(final String routingKey) throws IOException {
+            if (routed) {
+                channel.queueBind(queueName, getExchangeName(), routingKey);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (consumerTag != null) {
+                channel.basicCancel(consumerTag);
+                consumerTag = null;
+            }
+        }
+    }
+
+}
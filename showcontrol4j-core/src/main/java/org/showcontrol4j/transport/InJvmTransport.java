@@ -0,0 +1,172 @@
+package org.showcontrol4j.transport;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.concurrent.MpscRingBuffer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves as a {@link Transport} between Show Triggers and Show Elements in the same JVM, so a show can run without a
+ * broker. Published arrays are passed to subscribers by reference, never copied or re-encoded.
+ * <p>
+ * Each subscription has its own {@link MpscRingBuffer} and delivery thread. Publishing is lock free: the publisher
+ * offers the message to every subscription's ring buffer and only unparks a delivery thread that has gone to sleep
+ * waiting for work, so a busy subscription costs the publisher no more than a compare-and-set. When a ring buffer is
+ * full the publisher waits for room rather than dropping the message.
+ *
+ * @author James Hare
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public class InJvmTransport implements Transport {
+
+    /**
+     * The number of messages each subscription buffers by default.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The longest a delivery thread parks before checking its ring buffer again, as a guard against a missed wakeup.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @ToString.Include
+    private final String name;
+    private final int capacity;
+    @Getter(AccessLevel.NONE)
+    private final List<InJvmSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * Creates a transport whose subscriptions buffer {@link #DEFAULT_CAPACITY} messages.
+     *
+     * @param name the name of the transport, used to name its delivery threads.
+     */
+    public InJvmTransport(final String name) {
+        this(name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a transport.
+     *
+     * @param name     the name of the transport, used to name its delivery threads.
+     * @param capacity the number of messages each subscription buffers.
+     */
+    public InJvmTransport(final String name, final int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void publish(final byte[] body) throws IOException {
+        if (closed) {
+            throw new IOException("In-JVM Transport=" + name + " is closed.");
+        }
+        for (final InJvmSubscription subscription : subscriptions) {
+            subscription.offer(body);
+        }
+    }
+
+    @Override
+    public Subscription subscribe(final MessageHandler handler) throws IOException {
+        if (closed) {
+            throw new IOException("In-JVM Transport=" + name + " is closed.");
+        }
+        final InJvmSubscription subscription = new InJvmSubscription(handler);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     *
+     * @return the number of subscriptions.
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Closes every subscription. Messages still buffered are not delivered.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (final InJvmSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private final class InJvmSubscription implements Subscription, Runnable {
+
+        private final MessageHandler handler;
+        private final MpscRingBuffer<byte[]> ringBuffer = new MpscRingBuffer<>(capacity);
+        private final Thread thread;
+        private volatile boolean waiting;
+        private volatile boolean open = true;
+
+        private InJvmSubscription(final MessageHandler handler) {
+            this.handler = handler;
+            this.thread = new Thread(this, "showcontrol4j-in-jvm-" + name + "-" + threadCounter.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        private void offer(final byte[] body) {
+            while (!ringBuffer.offer(body)) {
+                if (!open) {
+                    return;
+                }
+                Thread.yield();
+            }
+            if (waiting) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (open) {
+                final byte[] body = ringBuffer.poll();
+                if (body != null) {
+                    deliver(body);
+                    continue;
+                }
+                waiting = true;
+                if (ringBuffer.isEmpty() && open) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                waiting = false;
+            }
+        }
+
+        private void deliver(final byte[] body) {
+            try {
+                handler.onMessage(body);
+            } catch (final IOException | RuntimeException e) {
+                log.error("A subscriber to In-JVM Transport={} failed to handle a message. {}", name, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                open = false;
+                subscriptions.remove(this);
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+}
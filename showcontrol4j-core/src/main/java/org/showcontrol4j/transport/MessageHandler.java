@@ -0,0 +1,21 @@
+package org.showcontrol4j.transport;
+
+import java.io.IOException;
+
+/**
+ * Receives the messages delivered by a {@link Transport}.
+ *
+ * @author James Hare
+ */
+@FunctionalInterface
+public interface MessageHandler {
+
+    /**
+     * Handles a single message. Called on a thread owned by the transport, so it should return quickly.
+     *
+     * @param body the encoded message, which must not be modified.
+     * @throws IOException if the message could not be decoded.
+     */
+    void onMessage(byte[] body) throws IOException;
+
+}
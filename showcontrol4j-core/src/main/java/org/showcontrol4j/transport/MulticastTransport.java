@@ -0,0 +1,653 @@
+package org.showcontrol4j.transport;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves as a {@link Transport} over UDP multicast, so a single datagram reaches every Show Element on a flat show
+ * LAN without a broker in between.
+ * <p>
+ * Every datagram carries the publisher's id and a sequence number. Each message is sent {@code redundancy} times, and
+ * subscribers drop the copies they have already seen. A subscriber that sees a gap in the sequence holds the messages
+ * after it and sends a NACK for the missing ones straight back to the publisher, which re-sends them from the last
+ * {@code repairWindow} messages it published. Messages are always delivered in order; a gap that has not been repaired
+ * within the repair timeout is given up on, so one lost datagram cannot stall the show.
+ * <p>
+ * A gap is normally noticed when the next message arrives, which could be minutes after a lone GO. So every
+ * {@code heartbeatInterval} a publisher also announces the last sequence number it has published, and a subscriber
+ * that is behind NACKs the messages it missed while they are still in the repair window.
+ * <p>
+ * A subscriber starts at whatever sequence number it first hears from a publisher, so a late joiner does not ask for
+ * history. A publisher that has not been heard from for the sender timeout is forgotten.
+ *
+ * @author James Hare
+ */
+@Getter
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public class MulticastTransport implements Transport {
+
+    static final byte DATA = 1;
+    static final byte NACK = 2;
+    static final byte HEARTBEAT = 3;
+    static final int HEADER_LENGTH = 17;
+
+    /**
+     * The number of times each message is sent by default.
+     */
+    public static final int DEFAULT_REDUNDANCY = 2;
+    /**
+     * The number of recently published messages kept for repair by default.
+     */
+    public static final int DEFAULT_REPAIR_WINDOW = 256;
+    /**
+     * How long a subscriber waits by default for a gap to be repaired before skipping it, in milliseconds.
+     */
+    public static final long DEFAULT_REPAIR_TIMEOUT_MILLIS = 50;
+    /**
+     * How often a publisher announces its last sequence number by default, in milliseconds.
+     */
+    public static final long DEFAULT_HEARTBEAT_INTERVAL_MILLIS = 100;
+    /**
+     * How long a subscriber remembers a publisher it has stopped hearing from by default, in milliseconds.
+     */
+    public static final long DEFAULT_SENDER_TIMEOUT_MILLIS = 10_000;
+    /**
+     * The largest message body that fits in a single datagram.
+     */
+    public static final int MAX_BODY_LENGTH = 65507 - HEADER_LENGTH;
+
+    private static final int NACK_LENGTH = 21;
+    private static final int RECEIVE_TIMEOUT_MILLIS = 5;
+
+    @ToString.Include
+    private final InetAddress group;
+    @ToString.Include
+    private final int port;
+    private final NetworkInterface networkInterface;
+    private final int timeToLive;
+    private final int redundancy;
+    private final int repairWindow;
+    private final long repairTimeoutNanos;
+    private final long heartbeatIntervalNanos;
+    private final long senderTimeoutNanos;
+    private final long senderId = ThreadLocalRandom.current().nextLong();
+    private final AtomicLong repairCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final List<MulticastSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final long[] windowSequences;
+    @Getter(AccessLevel.NONE)
+    private final byte[][] windowDatagrams;
+    @Getter(AccessLevel.NONE)
+    private MulticastSocket sendSocket;
+    @Getter(AccessLevel.NONE)
+    private long nextSequence;
+    private volatile boolean closed;
+
+    private MulticastTransport(final Builder builder) {
+        this.group = builder.group;
+        this.port = builder.port;
+        this.networkInterface = builder.networkInterface;
+        this.timeToLive = builder.timeToLive;
+        this.redundancy = builder.redundancy;
+        this.repairWindow = builder.repairWindow;
+        this.repairTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.repairTimeoutMillis);
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(builder.heartbeatIntervalMillis);
+        this.senderTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.senderTimeoutMillis);
+        this.windowSequences = new long[repairWindow];
+        this.windowDatagrams = new byte[repairWindow][];
+        Arrays.fill(windowSequences, -1L);
+    }
+
+    /**
+     * Sends the message to the multicast group {@code redundancy} times, keeping it for repair.
+     *
+     * @param body the encoded message.
+     * @throws IOException if the message is too large or could not be sent.
+     */
+    @Override
+    public synchronized void publish(final byte[] body) throws IOException {
+        if (closed) {
+            throw new IOException("Multicast Transport=" + this + " is closed.");
+        }
+        if (body.length > MAX_BODY_LENGTH) {
+            throw new IOException("A message of " + body.length + " bytes does not fit in a datagram.");
+        }
+        final MulticastSocket socket = openSendSocket();
+        final long sequence = nextSequence++;
+        final byte[] datagram = encodeData(senderId, sequence, body);
+        final int slot = (int) (sequence % repairWindow);
+        windowSequences[slot] = sequence;
+        windowDatagrams[slot] = datagram;
+        final DatagramPacket packet = new DatagramPacket(datagram, datagram.length, group, port);
+        for (int i = 0; i < redundancy; i++) {
+            socket.send(packet);
+        }
+    }
+
+    @Override
+    public Subscription subscribe(final MessageHandler handler) throws IOException {
+        if (closed) {
+            throw new IOException("Multicast Transport=" + this + " is closed.");
+        }
+        final MulticastSocket socket = new MulticastSocket(port);
+        if (networkInterface != null) {
+            socket.joinGroup(new InetSocketAddress(group, port), networkInterface);
+        } else {
+            socket.joinGroup(group);
+        }
+        socket.setSoTimeout(RECEIVE_TIMEOUT_MILLIS);
+        final MulticastSubscription subscription = new MulticastSubscription(socket, handler);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Returns the number of messages this publisher has re-sent in answer to NACKs.
+     *
+     * @return the repair count.
+     */
+    public long getRepairCount() {
+        return repairCount.get();
+    }
+
+    /**
+     * Closes every subscription and the publishing socket.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (final MulticastSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+        synchronized (this) {
+            if (sendSocket != null) {
+                sendSocket.close();
+            }
+        }
+    }
+
+    private MulticastSocket openSendSocket() throws IOException {
+        if (sendSocket == null) {
+            final MulticastSocket socket = new MulticastSocket();
+            if (networkInterface != null) {
+                socket.setNetworkInterface(networkInterface);
+            }
+            socket.setTimeToLive(timeToLive);
+            socket.setSoTimeout((int) Math.max(1L, TimeUnit.NANOSECONDS.toMillis(heartbeatIntervalNanos)));
+            sendSocket = socket;
+            final Thread repairThread = new Thread(() -> answerNacks(socket),
+                    "showcontrol4j-multicast-repair-" + threadCounter.incrementAndGet());
+            repairThread.setDaemon(true);
+            repairThread.start();
+        }
+        return sendSocket;
+    }
+
+    /**
+     * Re-sends the messages subscribers NACK, for as long as they are still in the repair window, and announces the
+     * last sequence number published every heartbeat interval in between.
+     */
+    private void answerNacks(final MulticastSocket socket) {
+        final DatagramPacket packet = new DatagramPacket(new byte[NACK_LENGTH], NACK_LENGTH);
+        long lastHeartbeatNanos = System.nanoTime();
+        while (!socket.isClosed()) {
+            try {
+                if (System.nanoTime() - lastHeartbeatNanos >= heartbeatIntervalNanos) {
+                    lastHeartbeatNanos = System.nanoTime();
+                    sendHeartbeat(socket);
+                }
+                socket.receive(packet);
+                final ByteBuffer nack = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+                if (packet.getLength() != NACK_LENGTH || nack.get() != NACK || nack.getLong() != senderId) {
+                    continue;
+                }
+                final long from = nack.getLong();
+                final int count = Math.min(nack.getInt(), repairWindow);
+                for (long sequence = from; sequence < from + count; sequence++) {
+                    resend(socket, sequence);
+                }
+            } catch (final SocketTimeoutException e) {
+                // fall through to the next heartbeat.
+            } catch (final SocketException e) {
+                if (!socket.isClosed()) {
+                    log.error("The repair listener of Multicast Transport={} has failed. {}", this, e.getMessage());
+                }
+                return;
+            } catch (final IOException e) {
+                log.error("Unable to answer a NACK on Multicast Transport={}. {}", this, e.getMessage());
+            }
+        }
+    }
+
+    private void resend(final MulticastSocket socket, final long sequence) throws IOException {
+        final byte[] datagram;
+        synchronized (this) {
+            final int slot = (int) (sequence % repairWindow);
+            if (sequence < 0 || windowSequences[slot] != sequence) {
+                return;
+            }
+            datagram = windowDatagrams[slot];
+        }
+        socket.send(new DatagramPacket(datagram, datagram.length, group, port));
+        repairCount.incrementAndGet();
+    }
+
+    private void sendHeartbeat(final MulticastSocket socket) throws IOException {
+        final long last;
+        synchronized (this) {
+            last = nextSequence - 1;
+        }
+        if (last < 0) {
+            return;
+        }
+        final byte[] heartbeat = encodeHeartbeat(senderId, last);
+        socket.send(new DatagramPacket(heartbeat, heartbeat.length, group, port));
+    }
+
+    static byte[] encodeData(final long senderId, final long sequence, final byte[] body) {
+        return ByteBuffer.allocate(HEADER_LENGTH + body.length)
+                .put(DATA)
+                .putLong(senderId)
+                .putLong(sequence)
+                .put(body)
+                .array();
+    }
+
+    static byte[] encodeHeartbeat(final long senderId, final long lastSequence) {
+        return ByteBuffer.allocate(HEADER_LENGTH)
+                .put(HEARTBEAT)
+                .putLong(senderId)
+                .putLong(lastSequence)
+                .array();
+    }
+
+    static byte[] encodeNack(final long senderId, final long from, final int count) {
+        return ByteBuffer.allocate(NACK_LENGTH)
+                .put(NACK)
+                .putLong(senderId)
+                .putLong(from)
+                .putInt(count)
+                .array();
+    }
+
+    /**
+     * The in-order delivery state of one publisher as seen by one subscriber.
+     */
+    private static final class Stream {
+
+        private final TreeMap<Long, byte[]> pending = new TreeMap<>();
+        private SocketAddress source;
+        private long expected;
+        private long known;
+        private long gapSinceNanos;
+        private long lastNackNanos;
+        private long lastHeardNanos;
+
+        private Stream(final long expected) {
+            this.expected = expected;
+            this.known = expected;
+        }
+
+        /**
+         * Returns the sequence number the current gap ends at, either the first message held or the end of what the
+         * publisher has announced.
+         */
+        private long gapEnd() {
+            return pending.isEmpty() ? known : pending.firstKey();
+        }
+    }
+
+    private final class MulticastSubscription implements Subscription, Runnable {
+
+        private final MulticastSocket socket;
+        private final MessageHandler handler;
+        private final Thread thread;
+        private final Map<Long, Stream> streams = new HashMap<>();
+        private volatile boolean open = true;
+
+        private MulticastSubscription(final MulticastSocket socket, final MessageHandler handler) {
+            this.socket = socket;
+            this.handler = handler;
+            this.thread = new Thread(this, "showcontrol4j-multicast-" + threadCounter.incrementAndGet());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            final DatagramPacket packet = new DatagramPacket(new byte[65507], 65507);
+            while (open) {
+                try {
+                    socket.receive(packet);
+                    receive(packet);
+                } catch (final SocketTimeoutException e) {
+                    // fall through to check for gaps.
+                } catch (final IOException e) {
+                    if (open) {
+                        log.error("Unable to receive on Multicast Transport={}. {}", MulticastTransport.this, e.getMessage());
+                    }
+                }
+                checkGaps();
+            }
+        }
+
+        private void receive(final DatagramPacket packet) throws IOException {
+            if (packet.getLength() < HEADER_LENGTH) {
+                return;
+            }
+            final ByteBuffer datagram = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+            final byte type = datagram.get();
+            if (type != DATA && type != HEARTBEAT) {
+                return;
+            }
+            final long sender = datagram.getLong();
+            final long sequence = datagram.getLong();
+            if (type == HEARTBEAT) {
+                heartbeat(sender, sequence, packet.getSocketAddress());
+                return;
+            }
+            final Stream stream = streams.computeIfAbsent(sender, id -> new Stream(sequence));
+            stream.source = packet.getSocketAddress();
+            stream.lastHeardNanos = System.nanoTime();
+            stream.known = Math.max(stream.known, sequence + 1);
+            if (sequence < stream.expected || stream.pending.containsKey(sequence)) {
+                return;
+            }
+            final byte[] body = Arrays.copyOfRange(packet.getData(), HEADER_LENGTH, packet.getLength());
+            if (sequence == stream.expected) {
+                deliver(body);
+                stream.expected++;
+                drain(stream);
+                return;
+            }
+            if (sequence - stream.expected > repairWindow) {
+                skipTo(stream, sequence);
+                deliver(body);
+                stream.expected = sequence + 1;
+                drain(stream);
+                return;
+            }
+            stream.pending.put(sequence, body);
+            openGap(sender, stream);
+        }
+
+        /**
+         * Learns the last sequence number a publisher has sent, and NACKs whatever of it has not arrived.
+         */
+        private void heartbeat(final long sender, final long lastSequence, final SocketAddress source) {
+            final Stream stream = streams.computeIfAbsent(sender, id -> new Stream(lastSequence + 1));
+            stream.source = source;
+            stream.lastHeardNanos = System.nanoTime();
+            if (lastSequence < stream.known) {
+                return;
+            }
+            stream.known = lastSequence + 1;
+            if (stream.known - stream.expected > repairWindow) {
+                skipTo(stream, stream.known - repairWindow);
+            }
+            if (stream.expected < stream.known) {
+                openGap(sender, stream);
+            }
+        }
+
+        private void openGap(final long sender, final Stream stream) {
+            if (stream.gapSinceNanos == 0L) {
+                stream.gapSinceNanos = System.nanoTime();
+                sendNack(sender, stream);
+            }
+        }
+
+        private void checkGaps() {
+            final long now = System.nanoTime();
+            final Iterator<Map.Entry<Long, Stream>> iterator = streams.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<Long, Stream> entry = iterator.next();
+                final Stream stream = entry.getValue();
+                if (stream.expected >= stream.known) {
+                    stream.gapSinceNanos = 0L;
+                    if (now - stream.lastHeardNanos > senderTimeoutNanos) {
+                        iterator.remove();
+                    }
+                    continue;
+                }
+                if (now - stream.gapSinceNanos > repairTimeoutNanos) {
+                    skipTo(stream, stream.gapEnd());
+                } else if (now - stream.lastNackNanos > TimeUnit.MILLISECONDS.toNanos(RECEIVE_TIMEOUT_MILLIS)) {
+                    sendNack(entry.getKey(), stream);
+                }
+            }
+        }
+
+        /**
+         * Gives up on the messages before the given sequence number and delivers what is held after them.
+         */
+        private void skipTo(final Stream stream, final long sequence) {
+            log.warn("Skipping {} lost messages on Multicast Transport={}", sequence - stream.expected, MulticastTransport.this);
+            while (!stream.pending.isEmpty() && stream.pending.firstKey() < sequence) {
+                deliver(stream.pending.pollFirstEntry().getValue());
+            }
+            stream.expected = sequence;
+            drain(stream);
+        }
+
+        private void drain(final Stream stream) {
+            byte[] body;
+            while ((body = stream.pending.remove(stream.expected)) != null) {
+                deliver(body);
+                stream.expected++;
+            }
+            stream.gapSinceNanos = stream.expected < stream.known ? System.nanoTime() : 0L;
+        }
+
+        private void sendNack(final long sender, final Stream stream) {
+            final byte[] nack = encodeNack(sender, stream.expected, (int) (stream.gapEnd() - stream.expected));
+            stream.lastNackNanos = System.nanoTime();
+            try {
+                socket.send(new DatagramPacket(nack, nack.length, stream.source));
+            } catch (final IOException e) {
+                log.error("Unable to send a NACK on Multicast Transport={}. {}", MulticastTransport.this, e.getMessage());
+            }
+        }
+
+        private void deliver(final byte[] body) {
+            try {
+                handler.onMessage(body);
+            } catch (final IOException | RuntimeException e) {
+                log.error("A subscriber to Multicast Transport={} failed to handle a message. {}",
+                        MulticastTransport.this, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                open = false;
+                subscriptions.remove(this);
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Serves as a static builder class to build a {@link MulticastTransport} object.
+     */
+    public static class Builder {
+
+        private InetAddress group;
+        private int port;
+        private NetworkInterface networkInterface;
+        private int timeToLive = 1;
+        private int redundancy = DEFAULT_REDUNDANCY;
+        private int repairWindow = DEFAULT_REPAIR_WINDOW;
+        private long repairTimeoutMillis = DEFAULT_REPAIR_TIMEOUT_MILLIS;
+        private long heartbeatIntervalMillis = DEFAULT_HEARTBEAT_INTERVAL_MILLIS;
+        private long senderTimeoutMillis = DEFAULT_SENDER_TIMEOUT_MILLIS;
+
+        /**
+         * Constructor
+         */
+        public Builder() {
+        }
+
+        /**
+         * Sets the multicast group and port messages are sent to.
+         *
+         * @param group the multicast group address, for example {@code 239.255.42.99}.
+         * @param port  the UDP port.
+         * @return the Builder object.
+         * @throws IOException if the group is not a multicast address.
+         */
+        public Builder group(final String group, final int port) throws IOException {
+            final InetAddress address = InetAddress.getByName(group);
+            if (!address.isMulticastAddress()) {
+                throw new IOException(group + " is not a multicast address.");
+            }
+            this.group = address;
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the network interface to send and join the group on, by name. The default is chosen by the system.
+         *
+         * @param name the name of the network interface, for example {@code eth0}.
+         * @return the Builder object.
+         * @throws IOException if there is no such interface.
+         */
+        public Builder networkInterface(final String name) throws IOException {
+            final NetworkInterface found = NetworkInterface.getByName(name);
+            if (found == null) {
+                throw new IOException("There is no network interface named " + name + ".");
+            }
+            this.networkInterface = found;
+            return this;
+        }
+
+        /**
+         * Sets the number of router hops datagrams may cross. The default of one keeps them on the local network.
+         *
+         * @param timeToLive the multicast time to live.
+         * @return the Builder object.
+         */
+        public Builder timeToLive(final int timeToLive) {
+            if (timeToLive < 0 || timeToLive > 255) {
+                throw new IllegalArgumentException("The time to live must be between zero and 255.");
+            }
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * Sets the number of times each message is sent.
+         *
+         * @param redundancy the number of copies of each message.
+         * @return the Builder object.
+         */
+        public Builder redundancy(final int redundancy) {
+            if (redundancy < 1) {
+                throw new IllegalArgumentException("Each message must be sent at least once.");
+            }
+            this.redundancy = redundancy;
+            return this;
+        }
+
+        /**
+         * Sets the number of recently published messages kept for repair. Gaps larger than this are skipped at once.
+         *
+         * @param repairWindow the number of messages kept for repair.
+         * @return the Builder object.
+         */
+        public Builder repairWindow(final int repairWindow) {
+            if (repairWindow < 1) {
+                throw new IllegalArgumentException("The repair window must hold at least one message.");
+            }
+            this.repairWindow = repairWindow;
+            return this;
+        }
+
+        /**
+         * Sets how long a subscriber waits for a gap to be repaired before skipping it.
+         *
+         * @param repairTimeoutMillis the repair timeout in milliseconds.
+         * @return the Builder object.
+         */
+        public Builder repairTimeoutMillis(final long repairTimeoutMillis) {
+            if (repairTimeoutMillis < 0) {
+                throw new IllegalArgumentException("The repair timeout cannot be negative.");
+            }
+            this.repairTimeoutMillis = repairTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Sets how often a publisher announces the last sequence number it has published, so subscribers notice a
+         * lost message with nothing after it.
+         *
+         * @param heartbeatIntervalMillis the heartbeat interval in milliseconds.
+         * @return the Builder object.
+         */
+        public Builder heartbeatIntervalMillis(final long heartbeatIntervalMillis) {
+            if (heartbeatIntervalMillis < 1) {
+                throw new IllegalArgumentException("The heartbeat interval must be at least one millisecond.");
+            }
+            this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Sets how long a subscriber remembers a publisher it has stopped hearing from.
+         *
+         * @param senderTimeoutMillis the sender timeout in milliseconds.
+         * @return the Builder object.
+         */
+        public Builder senderTimeoutMillis(final long senderTimeoutMillis) {
+            if (senderTimeoutMillis < 0) {
+                throw new IllegalArgumentException("The sender timeout cannot be negative.");
+            }
+            this.senderTimeoutMillis = senderTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Builds the {@link MulticastTransport} object with the builder.
+         *
+         * @return the {@link MulticastTransport} object.
+         */
+        public MulticastTransport build() {
+            if (group == null) {
+                throw new IllegalStateException("A multicast group must be set.");
+            }
+            return new MulticastTransport(this);
+        }
+
+    }
+
+}
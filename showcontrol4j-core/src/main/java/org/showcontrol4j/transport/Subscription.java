@@ -0,0 +1,30 @@
+package org.showcontrol4j.transport;
+
+import java.io.IOException;
+
+/**
+ * A handler's subscription to a {@link Transport}.
+ *
+ * @author James Hare
+ */
+public interface Subscription extends AutoCloseable {
+
+    /**
+     * Adds a routing key to the subscription. Does nothing on transports that do not route, as those already deliver
+     * every message.
+     *
+     * @param routingKey the routing key to bind.
+     * @throws IOException if the routing key could not be bound.
+     */
+    default void bind(final String routingKey) throws IOException {
+    }
+
+    /**
+     * Stops delivering messages to the handler. Closing a subscription more than once does nothing.
+     *
+     * @throws IOException if the subscription could not be cancelled.
+     */
+    @Override
+    void close() throws IOException;
+
+}
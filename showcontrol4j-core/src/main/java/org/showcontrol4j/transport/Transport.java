@@ -0,0 +1,101 @@
+package org.showcontrol4j.transport;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Carries encoded Show Commands from Show Triggers to Show Elements. Every message published on a transport is
+ * delivered to every subscription open on it, in the order it was published. Transports move bytes only; encoding and
+ * decoding stays with the trigger and the element, so any {@link org.showcontrol4j.message.codec.MessageCodec} works
+ * with any transport.
+ * <p>
+ * Transports that can route, such as {@link AmqpTransport} on a direct or topic exchange, only deliver a message to
+ * the subscriptions bound to its routing key. Every other transport ignores routing keys and delivers everything, and
+ * subscribers filter by the address in the message instead.
+ *
+ * @author James Hare
+ * @see AmqpTransport
+ * @see InJvmTransport
+ */
+public interface Transport extends AutoCloseable {
+
+    /**
+     * Publishes a message to every subscription.
+     *
+     * @param body the encoded message. The transport may hand the same array to subscribers, so it must not be
+     *             modified after it is published.
+     * @throws IOException      if the message could not be published.
+     * @throws TimeoutException if a connection could not be made in time.
+     */
+    void publish(byte[] body) throws IOException, TimeoutException;
+
+    /**
+     * Publishes a message to the subscriptions bound to its routing key. Transports that do not route publish it to
+     * every subscription.
+     *
+     * @param routingKey the routing key of the message.
+     * @param body       the encoded message, which must not be modified after it is published.
+     * @throws IOException      if the message could not be published.
+     * @throws TimeoutException if a connection could not be made in time.
+     */
+    default void publish(final String routingKey, final byte[] body) throws IOException, TimeoutException {
+        publish(body);
+    }
+
+    /**
+     * Publishes a message without waiting to learn whether it landed. The returned future completes once the
+     * transport knows the message was accepted, or completes exceptionally if it was not. Transports without
+     * acknowledgements complete it as soon as the message has been handed over, as {@link #publish(String, byte[])}
+     * would have returned.
+     *
+     * @param routingKey the routing key of the message.
+     * @param body       the encoded message, which must not be modified after it is published.
+     * @return a future completed when the message is known to have been accepted.
+     */
+    default CompletableFuture<Void> publishAsync(final String routingKey, final byte[] body) {
+        final CompletableFuture<Void> accepted = new CompletableFuture<>();
+        try {
+            publish(routingKey, body);
+            accepted.complete(null);
+        } catch (final IOException | TimeoutException | RuntimeException e) {
+            accepted.completeExceptionally(e);
+        }
+        return accepted;
+    }
+
+    /**
+     * Starts delivering every message published from now on to the handler.
+     *
+     * @param handler the handler to deliver messages to.
+     * @return the {@link Subscription}, which stops delivery when it is closed.
+     * @throws IOException      if the subscription could not be made.
+     * @throws TimeoutException if a connection could not be made in time.
+     */
+    Subscription subscribe(MessageHandler handler) throws IOException, TimeoutException;
+
+    /**
+     * Starts delivering the messages published from now on with any of the routing keys to the handler. Transports
+     * that do not route deliver every message.
+     *
+     * @param routingKeys the routing keys to bind.
+     * @param handler     the handler to deliver messages to.
+     * @return the {@link Subscription}, which stops delivery when it is closed.
+     * @throws IOException      if the subscription could not be made.
+     * @throws TimeoutException if a connection could not be made in time.
+     */
+    default Subscription subscribe(final Collection<String> routingKeys, final MessageHandler handler)
+            throws IOException, TimeoutException {
+        return subscribe(handler);
+    }
+
+    /**
+     * Closes the transport and every subscription open on it.
+     *
+     * @throws IOException if the transport could not be closed cleanly.
+     */
+    @Override
+    void close() throws IOException;
+
+}
@@ -0,0 +1,24 @@
+package org.showcontrol4j.transport;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a message could not be published, or was not confirmed, because the connection or channel underneath
+ * the {@link Transport} closed. Unlike a message the broker rejected, the message may go through if it is published
+ * again once the transport has reconnected.
+ *
+ * @author James Hare
+ */
+public class TransportClosedException extends IOException {
+
+    /**
+     * Creates the exception.
+     *
+     * @param message the detail message.
+     * @param cause   the failure that closed the transport.
+     */
+    public TransportClosedException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+
+}
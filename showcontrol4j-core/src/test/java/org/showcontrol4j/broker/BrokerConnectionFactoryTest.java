@@ -3,11 +3,21 @@ package org.showcontrol4j.broker;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -75,4 +85,230 @@ public class BrokerConnectionFactoryTest {
     assertThat(testConnection, instanceOf(Connection.class));
   }
 
+  @Test
+  public void testOpenChannel_sharesConnection() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection);
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+
+    final Channel first = testBrokerConnectionFactory.openChannel();
+    final Channel second = testBrokerConnectionFactory.openChannel();
+
+    assertNotSame(first, second);
+    verify(mockConnectionFactory, times(1)).newConnection();
+    assertEquals(1, testBrokerConnectionFactory.getPooledConnectionCount());
+    assertEquals(2, testBrokerConnectionFactory.getOpenChannelCount());
+  }
+
+  @Test
+  public void testOpenChannel_spreadsAcrossConnections() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder()
+        .maxConnections(2)
+        .maxChannelsPerConnection(1));
+    final Connection secondConnection = mock(Connection.class);
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection, secondConnection);
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(secondConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+    when(secondConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+
+    testBrokerConnectionFactory.openChannel();
+    testBrokerConnectionFactory.openChannel();
+
+    verify(mockConnection, times(1)).createChannel();
+    verify(secondConnection, times(1)).createChannel();
+    assertEquals(2, testBrokerConnectionFactory.getPooledConnectionCount());
+  }
+
+  @Test(expected = IOException.class)
+  public void testOpenChannel_poolExhausted() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder()
+        .maxConnections(1)
+        .maxChannelsPerConnection(1));
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection);
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+
+    testBrokerConnectionFactory.openChannel();
+    testBrokerConnectionFactory.openChannel();
+  }
+
+  @Test
+  public void testOpenChannel_replacesClosedConnection() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    final Connection secondConnection = mock(Connection.class);
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection, secondConnection);
+    when(mockConnection.isOpen()).thenReturn(false);
+    when(secondConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+    when(secondConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+
+    testBrokerConnectionFactory.openChannel();
+    testBrokerConnectionFactory.openChannel();
+
+    verify(secondConnection, times(1)).createChannel();
+    assertEquals(1, testBrokerConnectionFactory.getPooledConnectionCount());
+  }
+
+  @Test
+  public void testOpenChannel_connectsOutsideLock() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    final CountDownLatch connecting = new CountDownLatch(1);
+    final CountDownLatch connected = new CountDownLatch(1);
+    when(mockConnectionFactory.newConnection()).thenAnswer(invocation -> {
+      connecting.countDown();
+      connected.await();
+      return mockConnection;
+    });
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+
+    final Thread[] openers = new Thread[2];
+    for (int i = 0; i < openers.length; i++) {
+      openers[i] = new Thread(() -> {
+        try {
+          testBrokerConnectionFactory.openChannel();
+        } catch (final Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      openers[i].start();
+    }
+    assertTrue(connecting.await(1, TimeUnit.SECONDS));
+
+    // a connect in progress does not hold the factory's lock.
+    assertEquals(0, testBrokerConnectionFactory.getPooledConnectionCount());
+    connected.countDown();
+    for (final Thread opener : openers) {
+      opener.join(1000L);
+    }
+
+    verify(mockConnectionFactory, times(1)).newConnection();
+    assertEquals(2, testBrokerConnectionFactory.getOpenChannelCount());
+  }
+
+  @Test
+  public void testOpenChannel_waitersShareConnectFailure() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    final CountDownLatch connecting = new CountDownLatch(1);
+    final CountDownLatch failed = new CountDownLatch(1);
+    when(mockConnectionFactory.newConnection()).thenAnswer(invocation -> {
+      connecting.countDown();
+      failed.await();
+      throw new IOException("Connection refused");
+    });
+
+    final Exception[] failures = new Exception[2];
+    final Thread[] openers = new Thread[2];
+    for (int i = 0; i < openers.length; i++) {
+      final int opener = i;
+      openers[i] = new Thread(() -> {
+        try {
+          testBrokerConnectionFactory.openChannel();
+        } catch (final Exception e) {
+          failures[opener] = e;
+        }
+      });
+      openers[i].start();
+      assertTrue(connecting.await(1, TimeUnit.SECONDS));
+    }
+    TimeUnit.MILLISECONDS.sleep(50);
+    failed.countDown();
+    for (final Thread opener : openers) {
+      opener.join(1000L);
+    }
+
+    verify(mockConnectionFactory, times(1)).newConnection();
+    assertThat(failures[0], instanceOf(IOException.class));
+    assertThat(failures[1], instanceOf(IOException.class));
+    assertEquals(0, testBrokerConnectionFactory.getPooledConnectionCount());
+  }
+
+  @Test
+  public void testGetChannel_perThreadAndRole() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection);
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> {
+      final Channel channel = mock(Channel.class);
+      when(channel.isOpen()).thenReturn(true);
+      return channel;
+    });
+
+    final Channel publish = testBrokerConnectionFactory.getChannel("publish");
+    assertSame(publish, testBrokerConnectionFactory.getChannel("publish"));
+    assertNotSame(publish, testBrokerConnectionFactory.getChannel("control"));
+
+    final Channel[] otherThread = new Channel[1];
+    final Thread thread = new Thread(() -> {
+      try {
+        otherThread[0] = testBrokerConnectionFactory.getChannel("publish");
+      } catch (final Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    thread.start();
+    thread.join();
+    assertNotSame(publish, otherThread[0]);
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection);
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenAnswer(invocation -> mock(Channel.class));
+
+    testBrokerConnectionFactory.openChannel();
+    testBrokerConnectionFactory.close();
+
+    verify(mockConnection, times(1)).close();
+    assertTrue(testBrokerConnectionFactory.isClosed());
+    assertEquals(0, testBrokerConnectionFactory.getPooledConnectionCount());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testOpenChannel_closed() throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = pooledFactory(new BrokerConnectionFactory.Builder());
+    testBrokerConnectionFactory.close();
+    testBrokerConnectionFactory.openChannel();
+  }
+
+  @Test
+  public void testBuilder_connectionFactory() throws Exception {
+    final Channel mockChannel = mock(Channel.class);
+    when(mockConnectionFactory.newConnection()).thenReturn(mockConnection);
+    when(mockConnection.isOpen()).thenReturn(true);
+    when(mockConnection.createChannel()).thenReturn(mockChannel);
+
+    final BrokerConnectionFactory testBrokerConnectionFactory = new BrokerConnectionFactory.Builder()
+        .connectionFactory(mockConnectionFactory)
+        .host(host)
+        .build();
+
+    assertSame(mockChannel, testBrokerConnectionFactory.openChannel());
+    verify(mockConnectionFactory, times(1)).setHost(host);
+    verify(mockConnectionFactory, times(0)).setUsername(user);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilder_invalidMaxConnections() {
+    new BrokerConnectionFactory.Builder().maxConnections(0);
+  }
+
+  //------------------------------------ HELPER METHODS ------------------------------------//
+
+  private BrokerConnectionFactory pooledFactory(final BrokerConnectionFactory.Builder builder) throws Exception {
+    final BrokerConnectionFactory testBrokerConnectionFactory = builder
+        .host(host)
+        .withCredentials(user, password)
+        .build();
+
+    Field connectionFactoryField = testBrokerConnectionFactory.getClass().getDeclaredField("connectionFactory");
+    connectionFactoryField.setAccessible(true);
+    connectionFactoryField.set(testBrokerConnectionFactory, mockConnectionFactory);
+    return testBrokerConnectionFactory;
+  }
+
 }
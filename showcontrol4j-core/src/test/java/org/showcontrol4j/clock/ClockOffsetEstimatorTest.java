@@ -0,0 +1,109 @@
+package org.showcontrol4j.clock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link ClockOffsetEstimator} class.
+ *
+ * @author James Hare
+ */
+public class ClockOffsetEstimatorTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long START = TimeUnit.SECONDS.toNanos(1_600_000_000L);
+
+    @Test
+    public void testNoEstimate() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+        assertFalse(estimator.hasEstimate());
+        assertEquals(0L, estimator.getOffsetNanos());
+        assertEquals(0L, estimator.getOffsetNanos(START));
+        assertEquals(0L, estimator.getResidualOffsetNanos());
+    }
+
+    @Test
+    public void testSymmetricProbe() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+        // reference clock is 5ms ahead, 1ms each way on the wire, 100us of processing at the reference.
+        final long offset = 5 * MILLIS;
+        final long t0 = START;
+        final long t1 = t0 + MILLIS + offset;
+        final long t2 = t1 + MILLIS / 10;
+        final long t3 = t2 - offset + MILLIS;
+        estimator.addSample(t0, t1, t2, t3);
+
+        assertTrue(estimator.hasEstimate());
+        assertEquals(offset, estimator.getOffsetNanos());
+        assertEquals(2 * MILLIS, estimator.getRoundTripNanos());
+        assertEquals(1L, estimator.getSampleCount());
+    }
+
+    @Test
+    public void testMinimumDelayFilter() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+        final long offset = 5 * MILLIS;
+        addProbe(estimator, START, offset, MILLIS, MILLIS);
+        // a probe that was queued in the broker on the way out skews the offset, but has a larger delay.
+        addProbe(estimator, START + 1000 * MILLIS, offset, 40 * MILLIS, MILLIS);
+
+        assertEquals(offset, estimator.getOffsetNanos());
+        assertEquals(0L, estimator.getResidualOffsetNanos());
+    }
+
+    @Test
+    public void testTracksDrift() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator(1);
+        // the local clock runs 50ppm slow, so the offset grows by 50us every second.
+        final long driftPerSecond = TimeUnit.MICROSECONDS.toNanos(50);
+        for (int second = 0; second < 600; second++) {
+            addProbe(estimator, START + TimeUnit.SECONDS.toNanos(second), second * driftPerSecond, MILLIS, MILLIS);
+        }
+
+        assertEquals(50.0, estimator.getDriftPpm(), 2.0);
+        assertTrue(Math.abs(estimator.getResidualOffsetNanos()) < TimeUnit.MICROSECONDS.toNanos(10));
+        final long nextSecond = START + TimeUnit.SECONDS.toNanos(600) + 2 * MILLIS;
+        assertEquals(600 * driftPerSecond, estimator.getOffsetNanos(nextSecond), TimeUnit.MICROSECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testTracksDrift_withStaleMinimumDelaySample() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator();
+        final long driftPerSecond = TimeUnit.MICROSECONDS.toNanos(50);
+        // only every eighth probe gets a fast trip, so the trusted sample is usually several probes old.
+        for (int second = 0; second < 2400; second++) {
+            final long delay = second % 8 == 0 ? MILLIS : 3 * MILLIS;
+            addProbe(estimator, START + TimeUnit.SECONDS.toNanos(second), second * driftPerSecond, delay, delay);
+        }
+
+        assertEquals(50.0, estimator.getDriftPpm(), 2.0);
+        assertTrue(Math.abs(estimator.getResidualOffsetNanos()) < TimeUnit.MICROSECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testResidualOffsetOnStep() {
+        final ClockOffsetEstimator estimator = new ClockOffsetEstimator(1);
+        addProbe(estimator, START, 0L, MILLIS, MILLIS);
+        addProbe(estimator, START + TimeUnit.SECONDS.toNanos(1), 4 * MILLIS, MILLIS, MILLIS);
+
+        assertEquals(4 * MILLIS, estimator.getResidualOffsetNanos());
+        assertEquals(MILLIS, estimator.getOffsetNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidWindow() {
+        new ClockOffsetEstimator(0);
+    }
+
+    private static void addProbe(final ClockOffsetEstimator estimator, final long t0, final long offset,
+                                 final long outboundDelay, final long returnDelay) {
+        final long t1 = t0 + outboundDelay + offset;
+        final long t2 = t1;
+        final long t3 = t2 - offset + returnDelay;
+        estimator.addSample(t0, t1, t2, t3);
+    }
+
+}
@@ -0,0 +1,94 @@
+package org.showcontrol4j.clock;
+
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link ClockSyncClient} class.
+ *
+ * @author James Hare
+ */
+public class ClockSyncClientTest {
+
+    private final MessageExchange messageExchange = MessageExchange.builder().name("test").build();
+
+    @Mock
+    private Channel mockChannel;
+    @Mock
+    private AMQImpl.Queue.DeclareOk mockQueueDeclareOk;
+
+    @Before
+    public void init() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
+        when(mockQueueDeclareOk.getQueue()).thenReturn("reply");
+        when(mockChannel.basicConsume(anyString(), anyBoolean(), any(DeliverCallback.class), any(CancelCallback.class)))
+                .thenReturn("tag");
+    }
+
+    @Test
+    public void testStartSendsProbes() throws Exception {
+        final ClockSyncClient clockSyncClient = new ClockSyncClient(mockChannel, messageExchange,
+                new ClockOffsetEstimator(), 50L);
+        clockSyncClient.start();
+        TimeUnit.MILLISECONDS.sleep(200);
+        clockSyncClient.close();
+
+        final ArgumentCaptor<byte[]> requestCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockChannel, atLeast(2)).basicPublish(eq(""), eq("test.clock"), any(), requestCaptor.capture());
+        assertEquals(ClockSyncServer.REQUEST_LENGTH, requestCaptor.getValue().length);
+        verify(mockChannel, times(1)).basicCancel("tag");
+    }
+
+    @Test
+    public void testCorrectedTime() {
+        final ClockSyncClient clockSyncClient = new ClockSyncClient(mockChannel, messageExchange);
+        assertFalse(clockSyncClient.isSynchronized(TimeUnit.MILLISECONDS.toNanos(1)));
+
+        // the reference clock is ten seconds ahead of the local clock.
+        final long offset = TimeUnit.SECONDS.toNanos(10);
+        final long t0 = SystemShowClock.INSTANCE.currentTimeNanos();
+        clockSyncClient.onResponse(ByteBuffer.allocate(ClockSyncServer.RESPONSE_LENGTH)
+                .putLong(t0).putLong(t0 + offset).putLong(t0 + offset).array());
+
+        assertTrue(clockSyncClient.isSynchronized(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertEquals(System.currentTimeMillis() + 10_000L, clockSyncClient.currentTimeMillis(), 100);
+        final long expectedDeadline = System.nanoTime() - offset;
+        assertEquals(expectedDeadline, clockSyncClient.toNanoTime(System.currentTimeMillis()),
+                TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testIgnoresMalformedResponse() {
+        final ClockSyncClient clockSyncClient = new ClockSyncClient(mockChannel, messageExchange);
+        clockSyncClient.onResponse(new byte[4]);
+        assertFalse(clockSyncClient.getEstimator().hasEstimate());
+    }
+
+    @Test
+    public void testAlarmThreshold() {
+        final ClockSyncClient clockSyncClient = new ClockSyncClient(mockChannel, messageExchange);
+        assertEquals(ClockSyncClient.DEFAULT_ALARM_THRESHOLD_NANOS, clockSyncClient.getAlarmThresholdNanos());
+        clockSyncClient.setAlarmThresholdNanos(5L);
+        assertEquals(5L, clockSyncClient.getAlarmThresholdNanos());
+    }
+
+}
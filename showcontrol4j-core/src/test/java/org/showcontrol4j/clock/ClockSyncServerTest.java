@@ -0,0 +1,87 @@
+package org.showcontrol4j.clock;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link ClockSyncServer} class.
+ *
+ * @author James Hare
+ */
+public class ClockSyncServerTest {
+
+    private final MessageExchange messageExchange = MessageExchange.builder().name("test").build();
+
+    @Mock
+    private Channel mockChannel;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testQueueName() {
+        assertEquals("test.clock", ClockSyncServer.queueName(messageExchange));
+    }
+
+    @Test
+    public void testStart() throws Exception {
+        final ClockSyncServer clockSyncServer = new ClockSyncServer(mockChannel, messageExchange);
+        clockSyncServer.start();
+
+        verify(mockChannel, times(1)).queueDeclare("test.clock", false, false, true, null);
+        verify(mockChannel, times(1)).basicConsume(eq("test.clock"), anyBoolean(), any(DeliverCallback.class), any(CancelCallback.class));
+    }
+
+    @Test
+    public void testAnswersProbe() throws Exception {
+        final ShowClock fixedClock = () -> 5000L;
+        final ClockSyncServer clockSyncServer = new ClockSyncServer(mockChannel, messageExchange, fixedClock);
+        clockSyncServer.start();
+
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel).basicConsume(eq("test.clock"), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class));
+
+        final AMQP.BasicProperties properties = ClockSyncServer.requestProperties("reply");
+        final byte[] request = ByteBuffer.allocate(8).putLong(1234L).array();
+        callbackCaptor.getValue().handle("tag", new Delivery(null, properties, request));
+
+        final ArgumentCaptor<byte[]> responseCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockChannel).basicPublish(eq(""), eq("reply"), any(), responseCaptor.capture());
+        final ByteBuffer response = ByteBuffer.wrap(responseCaptor.getValue());
+        assertEquals(1234L, response.getLong());
+        assertEquals(5000L, response.getLong());
+        assertEquals(5000L, response.getLong());
+    }
+
+    @Test
+    public void testIgnoresMalformedProbe() throws Exception {
+        final ClockSyncServer clockSyncServer = new ClockSyncServer(mockChannel, messageExchange);
+        clockSyncServer.start();
+
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel).basicConsume(eq("test.clock"), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class));
+        callbackCaptor.getValue().handle("tag", new Delivery(null, null, new byte[8]));
+
+        verify(mockChannel, never()).basicPublish(any(), any(), any(), any());
+    }
+
+}
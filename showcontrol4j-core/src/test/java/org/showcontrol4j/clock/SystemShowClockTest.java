@@ -0,0 +1,38 @@
+package org.showcontrol4j.clock;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link SystemShowClock} class.
+ *
+ * @author James Hare
+ */
+public class SystemShowClockTest {
+
+    @Test
+    public void testCurrentTime() {
+        final long millis = System.currentTimeMillis();
+        assertTrue(Math.abs(SystemShowClock.INSTANCE.currentTimeMillis() - millis) < 100);
+        assertTrue(Math.abs(TimeUnit.NANOSECONDS.toMillis(SystemShowClock.INSTANCE.currentTimeNanos()) - millis) < 100);
+    }
+
+    @Test
+    public void testToNanoTime() {
+        final long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        final long actual = SystemShowClock.INSTANCE.toNanoTime(System.currentTimeMillis() + 500);
+        assertTrue(Math.abs(expected - actual) < TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testToNanoTime_offsetClock() {
+        final ShowClock aheadClock = () -> SystemShowClock.INSTANCE.currentTimeNanos() + TimeUnit.SECONDS.toNanos(10);
+        final long expected = System.nanoTime() - TimeUnit.SECONDS.toNanos(10);
+        final long actual = aheadClock.toNanoTime(System.currentTimeMillis());
+        assertTrue(Math.abs(expected - actual) < TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+}
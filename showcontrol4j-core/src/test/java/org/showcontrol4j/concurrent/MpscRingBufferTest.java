@@ -0,0 +1,117 @@
+package org.showcontrol4j.concurrent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link MpscRingBuffer} class.
+ *
+ * @author James Hare
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    public void testCapacity_roundsUpToPowerOfTwo() {
+        assertEquals(1, new MpscRingBuffer<>(1).capacity());
+        assertEquals(8, new MpscRingBuffer<>(5).capacity());
+        assertEquals(16, new MpscRingBuffer<>(16).capacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacity_invalid() {
+        new MpscRingBuffer<>(0);
+    }
+
+    @Test
+    public void testOfferAndPoll_inOrder() {
+        final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(4);
+
+        assertTrue(ringBuffer.isEmpty());
+        assertNull(ringBuffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ringBuffer.offer(i));
+        }
+        assertFalse(ringBuffer.offer(4));
+        assertEquals(4, ringBuffer.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Integer.valueOf(i), ringBuffer.poll());
+        }
+        assertTrue(ringBuffer.isEmpty());
+    }
+
+    @Test
+    public void testOfferAndPoll_wrapsAround() {
+        final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(2);
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(ringBuffer.offer(i));
+            assertEquals(Integer.valueOf(i), ringBuffer.poll());
+        }
+        assertEquals(0, ringBuffer.size());
+    }
+
+    @Test
+    public void testOfferAndPoll_passesReference() {
+        final MpscRingBuffer<byte[]> ringBuffer = new MpscRingBuffer<>(2);
+        final byte[] body = {1, 2, 3};
+
+        ringBuffer.offer(body);
+
+        assertSame(body, ringBuffer.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOffer_null() {
+        new MpscRingBuffer<>(2).offer(null);
+    }
+
+    @Test
+    public void testOffer_manyProducers() throws Exception {
+        final int producers = 4;
+        final int perProducer = 10_000;
+        final MpscRingBuffer<Integer> ringBuffer = new MpscRingBuffer<>(64);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ringBuffer.offer(producer * perProducer + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+
+        final int[] lastSeen = new int[producers];
+        Arrays.fill(lastSeen, -1);
+        int received = 0;
+        while (received < producers * perProducer) {
+            final Integer value = ringBuffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            final int producer = value / perProducer;
+            assertTrue("Messages from one producer must stay in order", value % perProducer > lastSeen[producer]);
+            lastSeen[producer] = value % perProducer;
+            received++;
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(ringBuffer.isEmpty());
+    }
+
+}
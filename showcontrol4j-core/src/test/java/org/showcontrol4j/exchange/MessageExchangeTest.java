@@ -18,10 +18,18 @@ public class MessageExchangeTest {
         assertEquals(name, messageExchange.getName());
     }
 
+    @Test
+    public void testBuilder_type() {
+        assertEquals(ExchangeType.FANOUT, MessageExchange.builder().name("test_name").build().getType());
+        final MessageExchange messageExchange = MessageExchange.builder().name("test_name").type(ExchangeType.TOPIC).build();
+        assertEquals(ExchangeType.TOPIC, messageExchange.getType());
+        assertEquals("topic", messageExchange.getType().getAmqpName());
+    }
+
     @Test
     public void testToString() {
         final MessageExchange messageExchange = MessageExchange.builder().name("test_name").build();
-        assertEquals("MessageExchange(name=test_name)", messageExchange.toString());
+        assertEquals("MessageExchange(name=test_name, type=FANOUT)", messageExchange.toString());
     }
 
 }
@@ -0,0 +1,73 @@
+package org.showcontrol4j.exchange;
+
+import org.junit.Test;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link RoutingKeys} class.
+ *
+ * @author James Hare
+ */
+public class RoutingKeysTest {
+
+    @Test
+    public void testForMessage() {
+        assertEquals("zone.all.group.all.element.all",
+                RoutingKeys.forMessage(SCFJMessage.builder().instruction(Instruction.GO).build()));
+        assertEquals("zone.north.group.all.element.7",
+                RoutingKeys.forMessage(SCFJMessage.builder().instruction(Instruction.GO).zone("north").elementId(7L).build()));
+    }
+
+    @Test
+    public void testForElement() {
+        final List<String> keys = RoutingKeys.forElement("north", "lifts", 7L);
+
+        assertEquals(8, keys.size());
+        assertTrue(keys.contains("zone.all.group.all.element.all"));
+        assertTrue(keys.contains("zone.north.group.all.element.all"));
+        assertTrue(keys.contains("zone.all.group.lifts.element.all"));
+        assertTrue(keys.contains("zone.north.group.lifts.element.7"));
+        assertTrue(keys.contains("zone.all.group.all.element.7"));
+    }
+
+    @Test
+    public void testForElement_noZoneOrGroup() {
+        final List<String> keys = RoutingKeys.forElement(null, null, 7L);
+
+        assertEquals(2, keys.size());
+        assertFalse(keys.contains("zone.north.group.all.element.all"));
+    }
+
+    @Test
+    public void testForElement_matchesEveryAddressedMessage() {
+        final List<String> keys = RoutingKeys.forElement("north", "lifts", 7L);
+        final String[] zones = {null, "north", "south"};
+        final String[] groups = {null, "lifts", "doors"};
+        final Long[] ids = {null, 7L, 8L};
+        for (final String zone : zones) {
+            for (final String group : groups) {
+                for (final Long id : ids) {
+                    final SCFJMessage message = SCFJMessage.builder().zone(zone).group(group).elementId(id).build();
+                    assertEquals(message.toString(), message.isAddressedTo("north", "lifts", 7L),
+                            keys.contains(RoutingKeys.forMessage(message)));
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOf_invalidWord() {
+        RoutingKeys.of("north.east", null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOf_reservedWord() {
+        RoutingKeys.of(null, RoutingKeys.ALL, null);
+    }
+
+}
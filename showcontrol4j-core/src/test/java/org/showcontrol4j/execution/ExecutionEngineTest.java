@@ -0,0 +1,201 @@
+package org.showcontrol4j.execution;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link ExecutionEngine} class.
+ *
+ * @author James Hare
+ */
+public class ExecutionEngineTest {
+
+    private ExecutionEngine executionEngine;
+
+    @Before
+    public void init() {
+        executionEngine = ExecutionEngine.platform(2);
+    }
+
+    @After
+    public void tearDown() {
+        executionEngine.shutdownNow();
+    }
+
+    @Test
+    public void testShared() {
+        final ExecutionEngine shared = ExecutionEngine.shared();
+
+        assertSame(shared, ExecutionEngine.shared());
+        assertEquals(ExecutionEngine.Mode.PLATFORM, shared.getMode());
+        assertFalse(shared.isShutdown());
+    }
+
+    @Test
+    public void testSubmit() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final boolean[] daemon = {false};
+
+        executionEngine.submit(() -> {
+            daemon[0] = Thread.currentThread().isDaemon();
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(daemon[0]);
+    }
+
+    @Test
+    public void testSubmit_reusesThreadsOnceLoopsEnd() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            executionEngine.submit(() -> {
+                // do nothing
+            }).get(1, TimeUnit.SECONDS);
+            // the future completes just before the thread goes back to the pool, so give it a moment to get there.
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+
+        assertTrue(executionEngine.getThreadCount() <= 1);
+    }
+
+    @Test
+    public void testCancel_interruptsOnlyThatLoop() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Runnable loop = () -> {
+            started.countDown();
+            try {
+                TimeUnit.SECONDS.sleep(10);
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+        };
+        final Future<?> first = executionEngine.submit(loop);
+        final Future<?> second = executionEngine.submit(loop);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        first.cancel(true);
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertFalse(second.isDone());
+        assertFalse(executionEngine.isShutdown());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testSubmit_boundedByMaxThreads() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final Runnable loop = () -> {
+            started.countDown();
+            try {
+                TimeUnit.SECONDS.sleep(10);
+            } catch (final InterruptedException e) {
+                // stop
+            }
+        };
+        executionEngine.submit(loop);
+        executionEngine.submit(loop);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        executionEngine.submit(loop);
+    }
+
+    @Test
+    public void testSchedule_holdsNoThreadWhileWaiting() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final boolean[] daemon = {false};
+
+        executionEngine.schedule(() -> {
+            daemon[0] = Thread.currentThread().isDaemon();
+            ran.countDown();
+        }, TimeUnit.MILLISECONDS.toNanos(200));
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertEquals(0, executionEngine.getThreadCount());
+        assertEquals(0, executionEngine.getTickThreadCount());
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+        assertTrue(daemon[0]);
+    }
+
+    @Test
+    public void testSchedule_sharesBoundedTickThreads() throws Exception {
+        final int taskCount = 500;
+        final CountDownLatch ran = new CountDownLatch(taskCount);
+
+        for (int i = 0; i < taskCount; i++) {
+            executionEngine.schedule(ran::countDown, TimeUnit.MILLISECONDS.toNanos(i % 10));
+        }
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executionEngine.getThreadCount());
+        assertTrue(executionEngine.getTickThreadCount() <= ExecutionEngine.DEFAULT_TICK_THREADS);
+    }
+
+    @Test
+    public void testSchedule_blockedTicksDoNotStarveOthers() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch ran = new CountDownLatch(1);
+
+        for (int i = 0; i < ExecutionEngine.DEFAULT_TICK_THREADS + 1; i++) {
+            executionEngine.schedule(() -> {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 0L);
+        }
+        executionEngine.schedule(ran::countDown, 0L);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(executionEngine.getTickThreadCount() > ExecutionEngine.DEFAULT_TICK_THREADS);
+        release.countDown();
+    }
+
+    @Test
+    public void testSchedule_cancelledBeforeItRuns() throws Exception {
+        final boolean[] ran = {false};
+        final Future<?> tick = executionEngine.schedule(() -> ran[0] = true, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertTrue(tick.cancel(false));
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertFalse(ran[0]);
+        assertEquals(0, executionEngine.getThreadCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPlatform_invalidMaxThreads() {
+        ExecutionEngine.platform(0);
+    }
+
+    @Test
+    public void testVirtual() throws Exception {
+        if (!ExecutionEngine.isVirtualThreadSupported()) {
+            try {
+                ExecutionEngine.virtual();
+                fail("Expected virtual threads to be unsupported.");
+            } catch (final UnsupportedOperationException e) {
+                return;
+            }
+        }
+        final ExecutionEngine virtual = ExecutionEngine.virtual();
+        try {
+            assertEquals(ExecutionEngine.Mode.VIRTUAL, virtual.getMode());
+            virtual.submit(() -> {
+                // do nothing
+            }).get(1, TimeUnit.SECONDS);
+            assertEquals(0, virtual.getThreadCount());
+        } finally {
+            virtual.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package org.showcontrol4j.idle;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link BackoffIdleStrategy} class.
+ *
+ * @author James Hare
+ */
+public class BackoffIdleStrategyTest {
+
+    @After
+    public void tearDown() {
+        Thread.interrupted();
+    }
+
+    @Test
+    public void testIdle_backsOffToMaxPark() throws Exception {
+        final BackoffIdleStrategy idleStrategy = new BackoffIdleStrategy(2, 2, 1_000L, 8_000L);
+
+        for (int i = 0; i < 4; i++) {
+            idleStrategy.idle();
+        }
+        assertEquals(1_000L, idleStrategy.getParkNanos());
+
+        idleStrategy.idle();
+        assertEquals(2_000L, idleStrategy.getParkNanos());
+        idleStrategy.idle();
+        idleStrategy.idle();
+        idleStrategy.idle();
+        assertEquals(8_000L, idleStrategy.getParkNanos());
+
+        idleStrategy.reset();
+        assertEquals(1_000L, idleStrategy.getParkNanos());
+    }
+
+    @Test
+    public void testNextDelayNanos_backsOffToMaxPark() {
+        final BackoffIdleStrategy idleStrategy = new BackoffIdleStrategy(2, 2, 1_000L, 4_000L);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0L, idleStrategy.nextDelayNanos());
+        }
+        assertEquals(1_000L, idleStrategy.nextDelayNanos());
+        assertEquals(2_000L, idleStrategy.nextDelayNanos());
+        assertEquals(4_000L, idleStrategy.nextDelayNanos());
+        assertEquals(4_000L, idleStrategy.nextDelayNanos());
+
+        idleStrategy.reset();
+        assertEquals(0L, idleStrategy.nextDelayNanos());
+    }
+
+    @Test
+    public void testIdle_limitsIterationRate() throws Exception {
+        final IdleStrategy idleStrategy = new BackoffIdleStrategy(0, 0, TimeUnit.MILLISECONDS.toNanos(1),
+                TimeUnit.MILLISECONDS.toNanos(1));
+        int iterations = 0;
+
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        while (System.nanoTime() < end) {
+            idleStrategy.idle();
+            iterations++;
+        }
+
+        assertTrue(iterations <= 100);
+    }
+
+    @Test
+    public void testIdle_interruptedWhileParked() throws Exception {
+        final IdleStrategy idleStrategy = new BackoffIdleStrategy(0, 0, TimeUnit.SECONDS.toNanos(10),
+                TimeUnit.SECONDS.toNanos(10));
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                idleStrategy.idle();
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        thread.start();
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        final long start = System.nanoTime();
+        thread.interrupt();
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void testIdle_interrupted() throws Exception {
+        final IdleStrategy idleStrategy = new BackoffIdleStrategy();
+
+        Thread.currentThread().interrupt();
+        idleStrategy.idle();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidParkPeriods() {
+        new BackoffIdleStrategy(1, 1, 10L, 5L);
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.showcontrol4j.idle;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link BusySpinIdleStrategy} class.
+ *
+ * @author James Hare
+ */
+public class BusySpinIdleStrategyTest {
+
+    @After
+    public void tearDown() {
+        Thread.interrupted();
+    }
+
+    @Test
+    public void testIdle() throws Exception {
+        final IdleStrategy idleStrategy = new BusySpinIdleStrategy();
+        idleStrategy.reset();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            idleStrategy.idle();
+        }
+
+        assertTrue(System.nanoTime() - start < 50_000_000L);
+    }
+
+    @Test
+    public void testNextDelayNanos() {
+        assertEquals(0L, new BusySpinIdleStrategy().nextDelayNanos());
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void testIdle_interrupted() throws Exception {
+        final IdleStrategy idleStrategy = new BusySpinIdleStrategy();
+
+        Thread.currentThread().interrupt();
+        idleStrategy.idle();
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.showcontrol4j.idle;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link FixedRateIdleStrategy} class.
+ *
+ * @author James Hare
+ */
+public class FixedRateIdleStrategyTest {
+
+    @After
+    public void tearDown() {
+        Thread.interrupted();
+    }
+
+    @Test
+    public void testIdle_ticksAtRate() throws Exception {
+        final FixedRateIdleStrategy idleStrategy = new FixedRateIdleStrategy(100.0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), idleStrategy.getPeriodNanos());
+
+        final long start = System.nanoTime();
+        idleStrategy.reset();
+        for (int i = 0; i < 20; i++) {
+            idleStrategy.idle();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    public void testIdle_skipsMissedTicks() throws Exception {
+        final FixedRateIdleStrategy idleStrategy = new FixedRateIdleStrategy(100.0);
+        idleStrategy.reset();
+
+        TimeUnit.MILLISECONDS.sleep(55);
+        final long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            idleStrategy.idle();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(60));
+    }
+
+    @Test
+    public void testIdle_interruptedWhileWaitingForTick() throws Exception {
+        final IdleStrategy idleStrategy = new FixedRateIdleStrategy(0.1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                idleStrategy.idle();
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        thread.start();
+        TimeUnit.MILLISECONDS.sleep(50);
+
+        final long start = System.nanoTime();
+        thread.interrupt();
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testNextDelayNanos_waitsForNextTick() throws Exception {
+        final FixedRateIdleStrategy idleStrategy = new FixedRateIdleStrategy(100.0);
+        idleStrategy.reset();
+
+        final long first = idleStrategy.nextDelayNanos();
+        assertTrue(first > 0L);
+        assertTrue(first <= TimeUnit.MILLISECONDS.toNanos(10));
+        // the next tick is a period after the first, not a period after now.
+        assertTrue(idleStrategy.nextDelayNanos() > TimeUnit.MILLISECONDS.toNanos(10));
+
+        idleStrategy.reset();
+        TimeUnit.MILLISECONDS.sleep(55);
+        assertEquals(0L, idleStrategy.nextDelayNanos());
+        assertTrue(idleStrategy.nextDelayNanos() <= TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidRate() {
+        new FixedRateIdleStrategy(0.0);
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.showcontrol4j.idle;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * Tests for the {@link IdleStrategies} class.
+ *
+ * @author James Hare
+ */
+public class IdleStrategiesTest {
+
+    @Test
+    public void testFactories() {
+        assertThat(IdleStrategies.busySpin(), instanceOf(BusySpinIdleStrategy.class));
+        assertThat(IdleStrategies.yielding(), instanceOf(YieldingIdleStrategy.class));
+        assertThat(IdleStrategies.backoff(), instanceOf(BackoffIdleStrategy.class));
+        assertThat(IdleStrategies.fixedRate(30.0), instanceOf(FixedRateIdleStrategy.class));
+    }
+
+    @Test
+    public void testFactories_returnNewInstances() {
+        assertNotSame(IdleStrategies.backoff(), IdleStrategies.backoff());
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.showcontrol4j.idle;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link YieldingIdleStrategy} class.
+ *
+ * @author James Hare
+ */
+public class YieldingIdleStrategyTest {
+
+    @After
+    public void tearDown() {
+        Thread.interrupted();
+    }
+
+    @Test
+    public void testIdle() throws Exception {
+        final IdleStrategy idleStrategy = new YieldingIdleStrategy();
+        idleStrategy.reset();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            idleStrategy.idle();
+        }
+
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void testIdle_interrupted() throws Exception {
+        final IdleStrategy idleStrategy = new YieldingIdleStrategy();
+
+        Thread.currentThread().interrupt();
+        idleStrategy.idle();
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.showcontrol4j.message;
+
+import org.junit.Test;
+import org.showcontrol4j.message.codec.MessageCodecs;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link CommandTemplate} class.
+ *
+ * @author James Hare
+ */
+public class CommandTemplateTest {
+
+    @Test
+    public void testStamp() throws Exception {
+        final CommandTemplate template = CommandTemplate.of(MessageCodecs.BINARY, Instruction.GO, "north", null, 7L);
+
+        final byte[] first = template.stamp(1234567891234L);
+        final byte[] second = template.stamp(42L);
+
+        assertNotSame(first, second);
+        assertEquals(new SCFJMessage(Instruction.GO, 1234567891234L, "north", null, 7L),
+                MessageCodecs.BINARY.decode(first));
+        assertEquals(new SCFJMessage(Instruction.GO, 42L, "north", null, 7L), MessageCodecs.BINARY.decode(second));
+        assertEquals("zone.north.group.all.element.7", template.getRoutingKey());
+    }
+
+    @Test
+    public void testStamp_matchesEncoding() throws Exception {
+        final CommandTemplate template = CommandTemplate.of(MessageCodecs.BINARY, Instruction.IDLE, null, null, null);
+
+        assertArrayEquals(new SCFJMessage(Instruction.IDLE, 99L).serialize(MessageCodecs.BINARY), template.stamp(99L));
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        final CommandTemplate template = CommandTemplate.of(MessageCodecs.BINARY, Instruction.GO, "north", "lifts", null);
+
+        assertTrue(template.matches(MessageCodecs.BINARY, "north", "lifts", null));
+        assertFalse(template.matches(MessageCodecs.BINARY, "south", "lifts", null));
+        assertFalse(template.matches(MessageCodecs.BINARY, "north", "lifts", 7L));
+        assertFalse(template.matches(MessageCodecs.JSON, "north", "lifts", null));
+    }
+
+    @Test
+    public void testOf_codecCannotPatch() throws Exception {
+        assertNull(CommandTemplate.of(MessageCodecs.JSON, Instruction.GO, null, null, null));
+    }
+
+}
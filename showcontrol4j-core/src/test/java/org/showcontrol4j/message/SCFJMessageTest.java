@@ -1,12 +1,15 @@
 package org.showcontrol4j.message;
 
 import org.junit.Test;
+import org.showcontrol4j.message.codec.MessageCodecs;
 
 import java.io.IOException;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests for the {@link SCFJMessage} class.
@@ -43,10 +46,37 @@ public class SCFJMessageTest {
         assertEquals(testTime, deserialized.getStartTime());
     }
 
+    @Test
+    public void testSerialization_json() throws IOException {
+        final long testTime = 1234567891234L;
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.IDLE).startTime(testTime).build();
+        final byte[] serialized = scfjMessage.serialize(MessageCodecs.JSON);
+        final SCFJMessage deserialized = SCFJMessage.deserialize(serialized);
+
+        assertEquals(Instruction.IDLE, deserialized.getInstruction());
+        assertEquals(testTime, deserialized.getStartTime());
+    }
+
+    @Test
+    public void testIsAddressedTo() {
+        final SCFJMessage everyone = SCFJMessage.builder().instruction(Instruction.GO).build();
+        final SCFJMessage zone = SCFJMessage.builder().instruction(Instruction.GO).zone("north").build();
+        final SCFJMessage element = SCFJMessage.builder().instruction(Instruction.GO).zone("north").elementId(7L).build();
+
+        assertFalse(everyone.hasAddress());
+        assertTrue(everyone.isAddressedTo(null, null, 1L));
+        assertTrue(zone.hasAddress());
+        assertTrue(zone.isAddressedTo("north", "lifts", 1L));
+        assertFalse(zone.isAddressedTo("south", "lifts", 1L));
+        assertFalse(zone.isAddressedTo(null, null, 1L));
+        assertTrue(element.isAddressedTo("north", null, 7L));
+        assertFalse(element.isAddressedTo("north", null, 8L));
+    }
+
     @Test
     public void testToString() throws IOException {
         final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.GO).startTime(1234567891234L).build();
-        assertEquals("SCFJMessage(instruction=GO, startTime=1234567891234)", scfjMessage.toString());
+        assertEquals("SCFJMessage(instruction=GO, startTime=1234567891234, zone=null, group=null, elementId=null)", scfjMessage.toString());
     }
 
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package org.showcontrol4j.message;
 
 import org.junit.Test;
+import org.showcontrol4j.clock.ShowClock;
+
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -57,4 +60,26 @@ public class ShowCommandTest {
         assertTrue(testCommand.getStartTime() < currentTime + 100);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGo_showClock() {
+        final ShowClock aheadClock = () -> TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() + 60000L);
+        final long expectedTime = System.currentTimeMillis() + 60000L + 10000L;
+        final SCFJMessage testCommand = ShowCommand.GO(10000L, aheadClock);
+        assertEquals(Instruction.GO, testCommand.getInstruction());
+        assertTrue(testCommand.getStartTime() > expectedTime - 100);
+        assertTrue(testCommand.getStartTime() < expectedTime + 100);
+    }
+
+    @Test
+    public void testIdle_showClock() {
+        final ShowClock fixedClock = () -> TimeUnit.MILLISECONDS.toNanos(1000L);
+        assertEquals(1500L, ShowCommand.IDLE(500L, fixedClock).getStartTime());
+    }
+
+    @Test
+    public void testShutdown_showClock() {
+        final ShowClock fixedClock = () -> TimeUnit.MILLISECONDS.toNanos(1000L);
+        assertEquals(1000L, ShowCommand.SHUTDOWN(fixedClock).getStartTime());
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.showcontrol4j.message.codec;
+
+import org.junit.Test;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link BinaryMessageCodec} class.
+ *
+ * @author James Hare
+ */
+public class BinaryMessageCodecTest {
+
+    private final MessageCodec codec = MessageCodecs.BINARY;
+
+    @Test
+    public void testEncode() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.IDLE).startTime(0x0102030405060708L).build();
+        final byte[] encoded = codec.encode(scfjMessage);
+
+        assertArrayEquals(new byte[]{0x01, 0x01, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08}, encoded);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (final Instruction instruction : Instruction.values()) {
+            final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(instruction).startTime(1234567891234L).build();
+            assertEquals(scfjMessage, codec.decode(codec.encode(scfjMessage)));
+        }
+    }
+
+    @Test
+    public void testEncode_addressedUsesVersion2() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.GO).startTime(5L).elementId(9L).build();
+        final byte[] encoded = codec.encode(scfjMessage);
+
+        assertEquals(BinaryMessageCodec.VERSION_2, encoded[0]);
+        assertEquals(0x01, encoded[BinaryMessageCodec.ADDRESS_FLAGS_OFFSET]);
+        assertEquals(BinaryMessageCodec.ADDRESS_FLAGS_OFFSET + 1 + 8, encoded.length);
+    }
+
+    @Test
+    public void testPatchStartTime() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.GO).startTime(5L).zone("north").build();
+        final byte[] encoded = codec.encode(scfjMessage);
+
+        assertTrue(codec.canPatchStartTime());
+        codec.patchStartTime(encoded, 1234567891234L);
+        scfjMessage.setStartTime(1234567891234L);
+        assertEquals(scfjMessage, codec.decode(encoded));
+    }
+
+    @Test
+    public void testRoundTrip_address() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder()
+                .instruction(Instruction.GO)
+                .startTime(1234567891234L)
+                .zone("north")
+                .group("lifts")
+                .elementId(42L)
+                .build();
+        assertEquals(scfjMessage, codec.decode(codec.encode(scfjMessage)));
+
+        final SCFJMessage groupOnly = SCFJMessage.builder().instruction(Instruction.IDLE).group("zoné").build();
+        assertEquals(groupOnly, codec.decode(codec.encode(groupOnly)));
+    }
+
+    @Test
+    public void testDecode_version1() throws IOException {
+        final SCFJMessage decoded = codec.decode(new byte[]{0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x07});
+
+        assertEquals(Instruction.values()[0], decoded.getInstruction());
+        assertEquals(7L, decoded.getStartTime());
+        assertFalse(decoded.hasAddress());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecode_truncatedAddress() throws IOException {
+        final byte[] encoded = codec.encode(SCFJMessage.builder().instruction(Instruction.GO).zone("north").build());
+        codec.decode(Arrays.copyOf(encoded, encoded.length - 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testEncode_nameTooLong() throws IOException {
+        final StringBuilder zone = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            zone.append('z');
+        }
+        codec.encode(SCFJMessage.builder().instruction(Instruction.GO).zone(zone.toString()).build());
+    }
+
+    @Test
+    public void testRoundTrip_nullInstruction() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().startTime(-1L).build();
+        assertEquals(scfjMessage, codec.decode(codec.encode(scfjMessage)));
+    }
+
+    @Test
+    public void testCanDecode() throws IOException {
+        assertTrue(codec.canDecode(codec.encode(SCFJMessage.builder().instruction(Instruction.GO).build())));
+        assertFalse(codec.canDecode(MessageCodecs.JSON.encode(SCFJMessage.builder().instruction(Instruction.GO).build())));
+        assertFalse(codec.canDecode(new byte[0]));
+        assertFalse(codec.canDecode(null));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecode_truncated() throws IOException {
+        codec.decode(new byte[]{BinaryMessageCodec.VERSION_1, 0x00, 0x00});
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecode_unknownInstruction() throws IOException {
+        final byte[] encoded = codec.encode(SCFJMessage.builder().instruction(Instruction.GO).build());
+        encoded[BinaryMessageCodec.INSTRUCTION_OFFSET] = 42;
+        codec.decode(encoded);
+    }
+
+}
@@ -0,0 +1,52 @@
+package org.showcontrol4j.message.codec;
+
+import org.junit.Test;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link JsonMessageCodec} class.
+ *
+ * @author James Hare
+ */
+public class JsonMessageCodecTest {
+
+    private final MessageCodec codec = MessageCodecs.JSON;
+
+    @Test
+    public void testEncode() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.GO).startTime(1234567891234L).build();
+        assertEquals("{\"instruction\":\"GO\",\"startTime\":1234567891234}",
+                new String(codec.encode(scfjMessage), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.SHUTDOWN).startTime(1234567891234L).build();
+        assertEquals(scfjMessage, codec.decode(codec.encode(scfjMessage)));
+    }
+
+    @Test
+    public void testRoundTrip_address() throws IOException {
+        final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.GO).zone("north").elementId(3L).build();
+        final String json = new String(codec.encode(scfjMessage), StandardCharsets.UTF_8);
+
+        assertFalse(json.contains("group"));
+        assertEquals(scfjMessage, codec.decode(codec.encode(scfjMessage)));
+    }
+
+    @Test
+    public void testCanDecode() {
+        assertTrue(codec.canDecode("{\"instruction\":\"GO\"}".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(codec.canDecode(" \n{\"instruction\":\"GO\"}".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(codec.canDecode(new byte[]{BinaryMessageCodec.VERSION_1}));
+        assertFalse(codec.canDecode(new byte[0]));
+        assertFalse(codec.canDecode(null));
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.showcontrol4j.message.codec;
+
+import org.junit.After;
+import org.junit.Test;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the {@link MessageCodecs} class.
+ *
+ * @author James Hare
+ */
+public class MessageCodecsTest {
+
+    private final SCFJMessage scfjMessage = SCFJMessage.builder().instruction(Instruction.GO).startTime(1234567891234L).build();
+
+    @After
+    public void tearDown() {
+        MessageCodecs.setDefault(MessageCodecs.BINARY);
+    }
+
+    @Test
+    public void testDefault() {
+        assertSame(MessageCodecs.BINARY, MessageCodecs.getDefault());
+        MessageCodecs.setDefault(MessageCodecs.JSON);
+        assertSame(MessageCodecs.JSON, MessageCodecs.getDefault());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetDefault_null() {
+        MessageCodecs.setDefault(null);
+    }
+
+    @Test
+    public void testDetect() throws IOException {
+        assertSame(MessageCodecs.BINARY, MessageCodecs.detect(MessageCodecs.BINARY.encode(scfjMessage)));
+        assertSame(MessageCodecs.JSON, MessageCodecs.detect(MessageCodecs.JSON.encode(scfjMessage)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDetect_unknownFormat() throws IOException {
+        MessageCodecs.detect(new byte[]{0x7F, 0x00});
+    }
+
+    @Test
+    public void testDecode_mixedFormats() throws IOException {
+        assertEquals(scfjMessage, MessageCodecs.decode(MessageCodecs.BINARY.encode(scfjMessage)));
+        assertEquals(scfjMessage, MessageCodecs.decode(MessageCodecs.JSON.encode(scfjMessage)));
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.showcontrol4j.state;
+
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link ShowStateClient} class.
+ *
+ * @author James Hare
+ */
+public class ShowStateClientTest {
+
+    private final MessageExchange messageExchange = MessageExchange.builder().name("test").build();
+
+    @Mock
+    private Channel mockChannel;
+    @Mock
+    private AMQImpl.Queue.DeclareOk mockQueueDeclareOk;
+
+    @Before
+    public void init() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
+        when(mockQueueDeclareOk.getQueue()).thenReturn("reply");
+        when(mockChannel.basicConsume(eq("reply"), anyBoolean(), any(DeliverCallback.class), any(CancelCallback.class)))
+                .thenReturn("consumer");
+    }
+
+    @Test
+    public void testFetchLatest_newestAddressedCommand() throws Exception {
+        final ShowStateServer server = new ShowStateServer(mockChannel, messageExchange);
+        server.record("a", new SCFJMessage(Instruction.GO, 100L).serialize());
+        server.record("b", new SCFJMessage(Instruction.IDLE, 300L, "south", null, null).serialize());
+        server.record("c", new SCFJMessage(Instruction.GO, 200L, "north", null, null).serialize());
+        answerWith(server.snapshot());
+
+        final SCFJMessage latest = new ShowStateClient(mockChannel, messageExchange)
+                .fetchLatest(message -> message.isAddressedTo("north", null, 7L), 1000L);
+
+        assertEquals(new SCFJMessage(Instruction.GO, 200L, "north", null, null), latest);
+        verify(mockChannel).basicPublish(eq(""), eq("test.state"), any(), any());
+        verify(mockChannel).basicCancel("consumer");
+    }
+
+    @Test
+    public void testFetchLatest_nothingAddressed() throws Exception {
+        answerWith(new ShowStateServer(mockChannel, messageExchange).snapshot());
+
+        assertNull(new ShowStateClient(mockChannel, messageExchange).fetchLatest(message -> true, 1000L));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testFetch_noServer() throws Exception {
+        new ShowStateClient(mockChannel, messageExchange).fetch(50L);
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecode_truncated() throws Exception {
+        ShowStateClient.decode(new byte[]{0, 0, 0, 1, 0, 0, 0, 10, 1});
+    }
+
+    private void answerWith(final byte[] snapshot) throws Exception {
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        doAnswer(invocation -> {
+            verify(mockChannel).basicConsume(eq("reply"), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class));
+            callbackCaptor.getValue().handle("consumer", new Delivery(null, null, snapshot));
+            return null;
+        }).when(mockChannel).basicPublish(eq(""), eq("test.state"), any(), any());
+    }
+
+}
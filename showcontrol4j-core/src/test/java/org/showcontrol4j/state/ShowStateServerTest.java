@@ -0,0 +1,114 @@
+package org.showcontrol4j.state;
+
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link ShowStateServer} class.
+ *
+ * @author James Hare
+ */
+public class ShowStateServerTest {
+
+    private final MessageExchange messageExchange = MessageExchange.builder().name("test").build();
+
+    @Mock
+    private Channel mockChannel;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testQueueName() {
+        assertEquals("test.state", ShowStateServer.queueName(messageExchange));
+    }
+
+    @Test
+    public void testAnswersRequest_lastCommandPerRoutingKey() throws Exception {
+        final ShowStateServer showStateServer = new ShowStateServer(mockChannel, messageExchange);
+        showStateServer.start();
+        verify(mockChannel, times(1)).queueDeclare("test.state", false, false, true, null);
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel).basicConsume(eq("test.state"), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class));
+
+        showStateServer.record("zone.all.group.all.element.all", new SCFJMessage(Instruction.GO, 100L).serialize());
+        showStateServer.record("zone.all.group.all.element.all", new SCFJMessage(Instruction.IDLE, 200L).serialize());
+        showStateServer.record("zone.north.group.all.element.all",
+                new SCFJMessage(Instruction.GO, 300L, "north", null, null).serialize());
+        callbackCaptor.getValue().handle("tag", new Delivery(null, ShowStateServer.requestProperties("reply"), new byte[0]));
+
+        final ArgumentCaptor<byte[]> responseCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockChannel).basicPublish(eq(""), eq("reply"), any(), responseCaptor.capture());
+        final List<SCFJMessage> commands = ShowStateClient.decode(responseCaptor.getValue());
+        assertEquals(2, commands.size());
+        assertTrue(commands.contains(new SCFJMessage(Instruction.IDLE, 200L)));
+        assertTrue(commands.contains(new SCFJMessage(Instruction.GO, 300L, "north", null, null)));
+    }
+
+    @Test
+    public void testIgnoresRequestWithoutReplyQueue() throws Exception {
+        final ShowStateServer showStateServer = new ShowStateServer(mockChannel, messageExchange);
+        showStateServer.start();
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel).basicConsume(eq("test.state"), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class));
+
+        callbackCaptor.getValue().handle("tag", new Delivery(null, null, new byte[0]));
+
+        verify(mockChannel, never()).basicPublish(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        final ShowStateServer showStateServer = new ShowStateServer(mockChannel, messageExchange);
+        showStateServer.record("zone.all.group.all.element.all", new SCFJMessage(Instruction.GO, 100L).serialize());
+
+        showStateServer.clear();
+
+        assertTrue(ShowStateClient.decode(showStateServer.snapshot()).isEmpty());
+    }
+
+    @Test
+    public void testClear_routingKey() throws Exception {
+        final ShowStateServer showStateServer = new ShowStateServer(mockChannel, messageExchange);
+        final SCFJMessage all = new SCFJMessage(Instruction.GO, 100L);
+        final SCFJMessage south = new SCFJMessage(Instruction.GO, 200L, "south", null, null);
+        showStateServer.record("zone.all.group.all.element.all", all.serialize());
+        showStateServer.record("zone.north.group.all.element.all",
+                new SCFJMessage(Instruction.GO, 300L, "north", null, null).serialize());
+        showStateServer.record("zone.north.group.lifts.element.7",
+                new SCFJMessage(Instruction.GO, 400L, "north", "lifts", 7L).serialize());
+        showStateServer.record("zone.south.group.all.element.all", south.serialize());
+
+        showStateServer.clear("zone.north.group.all.element.all");
+
+        final List<SCFJMessage> commands = ShowStateClient.decode(showStateServer.snapshot());
+        assertEquals(2, commands.size());
+        assertTrue(commands.contains(all));
+        assertTrue(commands.contains(south));
+
+        showStateServer.clear("zone.all.group.all.element.all");
+
+        assertTrue(ShowStateClient.decode(showStateServer.snapshot()).isEmpty());
+    }
+
+}
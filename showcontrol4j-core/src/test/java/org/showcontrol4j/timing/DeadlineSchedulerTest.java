@@ -0,0 +1,106 @@
+package org.showcontrol4j.timing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link DeadlineScheduler} class.
+ *
+ * @author James Hare
+ */
+public class DeadlineSchedulerTest {
+
+    private DeadlineScheduler deadlineScheduler;
+
+    @Before
+    public void init() {
+        deadlineScheduler = new DeadlineScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        deadlineScheduler.close();
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long[] firedAt = {0L};
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+
+        final DeadlineScheduler.Deadline handle = deadlineScheduler.schedule(deadline, () -> {
+            firedAt[0] = System.nanoTime();
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertTrue(firedAt[0] >= deadline);
+        assertTrue(handle.isFired());
+        assertEquals(1L, deadlineScheduler.getJitter().getCount());
+        assertTrue(deadlineScheduler.getJitter().getMaxNanos() < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testSchedule_ordersByDeadline() throws Exception {
+        final List<Integer> order = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final long now = System.nanoTime();
+
+        deadlineScheduler.schedule(now + TimeUnit.MILLISECONDS.toNanos(90), () -> {
+            order.add(3);
+            latch.countDown();
+        });
+        deadlineScheduler.schedule(now + TimeUnit.MILLISECONDS.toNanos(30), () -> {
+            order.add(1);
+            latch.countDown();
+        });
+        deadlineScheduler.schedule(now + TimeUnit.MILLISECONDS.toNanos(60), () -> {
+            order.add(2);
+            latch.countDown();
+        });
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 2, 3), order);
+    }
+
+    @Test
+    public void testScheduleAt_pastDeadline() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        deadlineScheduler.scheduleAt(System.currentTimeMillis() - 1000, latch::countDown);
+        assertTrue(latch.await(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final boolean[] fired = {false};
+        final DeadlineScheduler.Deadline handle = deadlineScheduler.schedule(
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50), () -> fired[0] = true);
+
+        assertTrue(handle.cancel());
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(fired[0]);
+        assertTrue(handle.isCancelled());
+        assertEquals(0, deadlineScheduler.getPendingCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSchedule_closed() {
+        deadlineScheduler.close();
+        deadlineScheduler.schedule(System.nanoTime(), () -> {
+        });
+    }
+
+    @Test
+    public void testShared() {
+        assertSame(DeadlineScheduler.shared(), DeadlineScheduler.shared());
+    }
+
+}
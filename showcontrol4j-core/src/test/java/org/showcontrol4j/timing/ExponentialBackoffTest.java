@@ -0,0 +1,53 @@
+package org.showcontrol4j.timing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link ExponentialBackoff} class.
+ *
+ * @author James Hare
+ */
+public class ExponentialBackoffTest {
+
+    @Test
+    public void testNextDelayMillis_doublesUpToMax() {
+        final ExponentialBackoff backoff = new ExponentialBackoff(100L, 800L);
+        final long[] bases = {100L, 200L, 400L, 800L, 800L};
+
+        for (final long base : bases) {
+            final long delay = backoff.nextDelayMillis();
+            assertTrue(delay >= base - base / 4);
+            assertTrue(delay <= base + base / 4);
+        }
+        assertEquals(5, backoff.getAttempts());
+    }
+
+    @Test
+    public void testReset() {
+        final ExponentialBackoff backoff = new ExponentialBackoff(4L, 1_000L);
+        for (int i = 0; i < 5; i++) {
+            backoff.nextDelayMillis();
+        }
+
+        backoff.reset();
+        assertEquals(0, backoff.getAttempts());
+        final long delay = backoff.nextDelayMillis();
+        assertTrue(delay >= 3L && delay <= 5L);
+    }
+
+    @Test
+    public void testNextDelayMillis_neverBelowOne() {
+        final ExponentialBackoff backoff = new ExponentialBackoff(1L, 1L);
+
+        assertEquals(1L, backoff.nextDelayMillis());
+        assertEquals(1L, backoff.nextDelayMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidDelays() {
+        new ExponentialBackoff(100L, 10L);
+    }
+
+}
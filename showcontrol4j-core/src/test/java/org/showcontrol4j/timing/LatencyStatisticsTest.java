@@ -0,0 +1,54 @@
+package org.showcontrol4j.timing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link LatencyStatistics} class.
+ *
+ * @author James Hare
+ */
+public class LatencyStatisticsTest {
+
+    @Test
+    public void testEmpty() {
+        final LatencyStatistics statistics = new LatencyStatistics();
+        assertEquals(0L, statistics.getCount());
+        assertEquals(0L, statistics.getMeanNanos());
+        assertEquals(0L, statistics.getMinNanos());
+        assertEquals(0L, statistics.getMaxNanos());
+    }
+
+    @Test
+    public void testRecord() {
+        final LatencyStatistics statistics = new LatencyStatistics();
+        statistics.record(3000L);
+        statistics.record(1000L);
+        statistics.record(2000L);
+
+        assertEquals(3L, statistics.getCount());
+        assertEquals(2000L, statistics.getMeanNanos());
+        assertEquals(1000L, statistics.getMinNanos());
+        assertEquals(3000L, statistics.getMaxNanos());
+        assertEquals(2000L, statistics.getLastNanos());
+    }
+
+    @Test
+    public void testReset() {
+        final LatencyStatistics statistics = new LatencyStatistics();
+        statistics.record(3000L);
+        statistics.reset();
+
+        assertEquals(0L, statistics.getCount());
+        assertEquals(0L, statistics.getMaxNanos());
+    }
+
+    @Test
+    public void testToString() {
+        final LatencyStatistics statistics = new LatencyStatistics();
+        statistics.record(2000L);
+        assertEquals("LatencyStatistics(count=1, meanMicros=2, minMicros=2, maxMicros=2)", statistics.toString());
+    }
+
+}
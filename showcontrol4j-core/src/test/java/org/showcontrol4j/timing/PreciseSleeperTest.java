@@ -0,0 +1,45 @@
+package org.showcontrol4j.timing;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link PreciseSleeper} class.
+ *
+ * @author James Hare
+ */
+public class PreciseSleeperTest {
+
+    @Test
+    public void testSleepUntil() throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20);
+        final long overshoot = PreciseSleeper.sleepUntil(deadline);
+
+        assertTrue(System.nanoTime() >= deadline);
+        assertTrue(overshoot >= 0L);
+        assertTrue(overshoot < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void testSleepUntil_pastDeadline() throws Exception {
+        final long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20);
+        assertTrue(PreciseSleeper.sleepUntil(deadline) >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void testSleepUntil_interrupted() throws Exception {
+        Thread.currentThread().interrupt();
+        PreciseSleeper.sleepUntil(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testToNanoTime() {
+        final long expected = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000);
+        final long actual = PreciseSleeper.toNanoTime(System.currentTimeMillis() + 1000);
+        assertTrue(Math.abs(expected - actual) < TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+}
@@ -0,0 +1,223 @@
+package org.showcontrol4j.transport;
+
+import com.rabbitmq.client.AlreadyClosedException;
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.ShutdownSignalException;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.ExchangeType;
+import org.showcontrol4j.exchange.MessageExchange;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link AmqpTransport} class.
+ *
+ * @author James Hare
+ */
+public class AmqpTransportTest {
+
+    @Mock
+    private BrokerConnectionFactory mockBrokerConnectionFactory;
+    @Mock
+    private Channel mockChannel;
+    @Mock
+    private AMQImpl.Queue.DeclareOk mockQueueDeclareOk;
+
+    private AmqpTransport transport;
+
+    @Before
+    public void init() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(mockBrokerConnectionFactory.openChannel()).thenReturn(mockChannel);
+        when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
+        when(mockQueueDeclareOk.getQueue()).thenReturn("queue");
+        when(mockChannel.basicConsume(anyString(), anyBoolean(), any(DeliverCallback.class), any(CancelCallback.class)))
+                .thenReturn("tag");
+        transport = new AmqpTransport(mockBrokerConnectionFactory, MessageExchange.builder().name("test").build());
+    }
+
+    @Test
+    public void testPublish_declaresOnce() throws Exception {
+        final byte[] body = {1};
+
+        transport.publish(body);
+        transport.publish(body);
+
+        verify(mockBrokerConnectionFactory, times(1)).openChannel();
+        verify(mockChannel, times(1)).exchangeDeclare("test", "fanout");
+        verify(mockChannel, times(2)).basicPublish("test", "", null, body);
+        assertSame(mockChannel, transport.getChannel());
+    }
+
+    @Test
+    public void testSubscribe() throws Exception {
+        final AtomicReference<byte[]> received = new AtomicReference<>();
+        final Subscription subscription = transport.subscribe(received::set);
+
+        final ArgumentCaptor<DeliverCallback> deliverCallback = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel).queueBind("queue", "test", "");
+        verify(mockChannel).basicConsume(eq("queue"), eq(true), deliverCallback.capture(), any(CancelCallback.class));
+        final byte[] body = {7};
+        deliverCallback.getValue().handle("tag", new Delivery(null, null, body));
+        assertSame(body, received.get());
+
+        subscription.close();
+        subscription.close();
+        verify(mockChannel, times(1)).basicCancel("tag");
+    }
+
+    @Test
+    public void testFanout_ignoresRoutingKeys() throws Exception {
+        transport.subscribe(Arrays.asList("a", "b"), body -> {
+        }).bind("c");
+        transport.publish("a", new byte[]{1});
+
+        verify(mockChannel, times(1)).queueBind("queue", "test", "");
+        verify(mockChannel, times(1)).basicPublish(eq("test"), eq(""), eq(null), any());
+    }
+
+    @Test
+    public void testTopic_bindsAndPublishesRoutingKeys() throws Exception {
+        final AmqpTransport topicTransport = new AmqpTransport(mockBrokerConnectionFactory,
+                MessageExchange.builder().name("test").type(ExchangeType.TOPIC).build());
+
+        topicTransport.subscribe(Arrays.asList("a", "b"), body -> {
+        }).bind("c");
+        topicTransport.publish("a", new byte[]{1});
+
+        verify(mockChannel, times(2)).exchangeDeclare("test", "topic");
+        verify(mockChannel, times(1)).queueBind("queue", "test", "a");
+        verify(mockChannel, times(1)).queueBind("queue", "test", "b");
+        verify(mockChannel, times(1)).queueBind("queue", "test", "c");
+        verify(mockChannel, times(0)).queueBind("queue", "test", "");
+        verify(mockChannel, times(1)).basicPublish(eq("test"), eq("a"), eq(null), any());
+    }
+
+    @Test
+    public void testControlLane_usesControlExchange() throws Exception {
+        final AmqpTransport controlTransport = AmqpTransport.controlLane(mockBrokerConnectionFactory,
+                MessageExchange.builder().name("test").type(ExchangeType.TOPIC).build());
+
+        controlTransport.subscribe(Arrays.asList("a"), body -> {
+        });
+        controlTransport.publish("a", new byte[]{1});
+
+        assertEquals("test.control", controlTransport.getExchangeName());
+        verify(mockChannel, times(2)).exchangeDeclare("test.control", "topic");
+        verify(mockChannel, times(1)).queueBind("queue", "test.control", "a");
+        verify(mockChannel, times(1)).basicPublish(eq("test.control"), eq("a"), eq(null), any());
+        verify(mockChannel, never()).basicPublish(eq("test"), anyString(), any(), any());
+    }
+
+    @Test
+    public void testPublish_reopensClosedChannel() throws Exception {
+        doThrow(new AlreadyClosedException(new ShutdownSignalException(true, false, null, mockChannel)))
+                .doNothing()
+                .when(mockChannel).basicPublish(anyString(), anyString(), any(), any());
+
+        try {
+            transport.publish(new byte[]{1});
+            fail("The publish on a closed channel should have failed.");
+        } catch (final TransportClosedException e) {
+            assertNull(transport.getChannel());
+        }
+        transport.publish(new byte[]{2});
+
+        verify(mockBrokerConnectionFactory, times(2)).openChannel();
+        verify(mockChannel, times(2)).basicPublish(eq("test"), eq(""), eq(null), any());
+        assertSame(mockChannel, transport.getChannel());
+    }
+
+    @Test
+    public void testPublishAsync_completesOnConfirms() throws Exception {
+        when(mockChannel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L, 4L);
+        transport.setPublisherConfirms(true);
+
+        final CompletableFuture<Void> first = transport.publishAsync("", new byte[]{1});
+        final CompletableFuture<Void> second = transport.publishAsync("", new byte[]{2});
+        final CompletableFuture<Void> third = transport.publishAsync("", new byte[]{3});
+        final CompletableFuture<Void> fourth = transport.publishAsync("", new byte[]{4});
+        assertEquals(4, transport.getOutstandingConfirmCount());
+
+        final ArgumentCaptor<ConfirmCallback> ackCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        final ArgumentCaptor<ConfirmCallback> nackCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        verify(mockChannel, times(1)).confirmSelect();
+        verify(mockChannel).addConfirmListener(ackCallback.capture(), nackCallback.capture());
+
+        ackCallback.getValue().handle(2L, true);
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+        assertFalse(third.isDone());
+
+        nackCallback.getValue().handle(3L, false);
+        assertTrue(third.isCompletedExceptionally());
+        ackCallback.getValue().handle(4L, false);
+        assertTrue(fourth.isDone() && !fourth.isCompletedExceptionally());
+        assertEquals(0, transport.getOutstandingConfirmCount());
+    }
+
+    @Test
+    public void testPublishAsync_failsWhenNotConfirmedInTime() throws Exception {
+        when(mockChannel.getNextPublishSeqNo()).thenReturn(1L);
+        transport.setPublisherConfirms(true);
+        transport.setConfirmTimeoutMillis(50L);
+
+        final CompletableFuture<Void> confirmation = transport.publishAsync("", new byte[]{1});
+
+        try {
+            confirmation.get(1, TimeUnit.SECONDS);
+            fail("The confirmation should have timed out.");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof java.util.concurrent.TimeoutException);
+        }
+        assertEquals(0, transport.getOutstandingConfirmCount());
+    }
+
+    @Test
+    public void testPublishAsync_confirmCancelsTimeout() throws Exception {
+        when(mockChannel.getNextPublishSeqNo()).thenReturn(1L, 2L);
+        transport.setPublisherConfirms(true);
+        transport.setConfirmTimeoutMillis(50L);
+
+        final CompletableFuture<Void> first = transport.publishAsync("", new byte[]{1});
+        final CompletableFuture<Void> second = transport.publishAsync("", new byte[]{2});
+        assertEquals(2, transport.getPendingConfirmTimeoutCount());
+
+        final ArgumentCaptor<ConfirmCallback> ackCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        verify(mockChannel).addConfirmListener(ackCallback.capture(), any(ConfirmCallback.class));
+        ackCallback.getValue().handle(2L, true);
+        assertEquals(0, transport.getPendingConfirmTimeoutCount());
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testPublishAsync_withoutConfirms() throws Exception {
+        final CompletableFuture<Void> confirmation = transport.publishAsync("", new byte[]{1});
+
+        assertTrue(confirmation.isDone() && !confirmation.isCompletedExceptionally());
+        verify(mockChannel, never()).confirmSelect();
+        assertEquals(0, transport.getOutstandingConfirmCount());
+    }
+
+}
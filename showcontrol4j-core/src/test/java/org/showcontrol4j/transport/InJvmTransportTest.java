@@ -0,0 +1,110 @@
+package org.showcontrol4j.transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link InJvmTransport} class.
+ *
+ * @author James Hare
+ */
+public class InJvmTransportTest {
+
+    private InJvmTransport transport;
+
+    @Before
+    public void init() {
+        transport = new InJvmTransport("test", 4);
+    }
+
+    @After
+    public void tearDown() {
+        transport.close();
+    }
+
+    @Test
+    public void testPublish_deliversSameArrayToEverySubscriber() throws Exception {
+        final BlockingQueue<byte[]> first = new ArrayBlockingQueue<>(1);
+        final BlockingQueue<byte[]> second = new ArrayBlockingQueue<>(1);
+        transport.subscribe(first::add);
+        transport.subscribe(second::add);
+        final byte[] body = {42};
+
+        transport.publish(body);
+
+        assertSame(body, first.poll(1, TimeUnit.SECONDS));
+        assertSame(body, second.poll(1, TimeUnit.SECONDS));
+        assertEquals(2, transport.getSubscriptionCount());
+    }
+
+    @Test
+    public void testPublish_inOrderBeyondCapacity() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(100);
+        transport.subscribe(received::add);
+
+        for (int i = 0; i < 100; i++) {
+            transport.publish(new byte[]{(byte) i});
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals((byte) i, received.poll(1, TimeUnit.SECONDS)[0]);
+        }
+    }
+
+    @Test
+    public void testPublish_afterIdleWakesSubscriber() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(2);
+        transport.subscribe(received::add);
+        transport.publish(new byte[]{1});
+        assertNotNull(received.poll(1, TimeUnit.SECONDS));
+
+        Thread.sleep(50);
+        transport.publish(new byte[]{2});
+
+        assertEquals(2, received.poll(1, TimeUnit.SECONDS)[0]);
+    }
+
+    @Test
+    public void testSubscribe_failingHandlerKeepsDelivering() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(2);
+        transport.subscribe(body -> {
+            if (body[0] == 0) {
+                throw new IllegalStateException("test");
+            }
+            received.add(body);
+        });
+
+        transport.publish(new byte[]{0});
+        transport.publish(new byte[]{1});
+
+        assertEquals(1, received.poll(1, TimeUnit.SECONDS)[0]);
+    }
+
+    @Test
+    public void testSubscription_close() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(1);
+        final Subscription subscription = transport.subscribe(received::add);
+
+        subscription.close();
+        subscription.close();
+        transport.publish(new byte[]{1});
+
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(0, transport.getSubscriptionCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testPublish_closed() throws Exception {
+        transport.close();
+        transport.publish(new byte[]{1});
+    }
+
+}
@@ -0,0 +1,231 @@
+package org.showcontrol4j.transport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link MulticastTransport} class. Every test runs on the loopback interface.
+ *
+ * @author James Hare
+ */
+public class MulticastTransportTest {
+
+    private static final String GROUP = "239.255.42.99";
+    private static final AtomicInteger PORTS = new AtomicInteger(47100);
+
+    private int port;
+    private MulticastTransport transport;
+    private MulticastSocket rawSocket;
+
+    @Before
+    public void init() throws Exception {
+        port = PORTS.incrementAndGet();
+        transport = new MulticastTransport.Builder()
+                .group(GROUP, port)
+                .networkInterface("lo")
+                .redundancy(3)
+                .repairTimeoutMillis(200)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        transport.close();
+        if (rawSocket != null) {
+            rawSocket.close();
+        }
+    }
+
+    @Test
+    public void testPublish_deliversEachMessageOnceInOrder() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(100);
+        transport.subscribe(received::add);
+
+        for (int i = 0; i < 10; i++) {
+            transport.publish(new byte[]{(byte) i});
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals((byte) i, received.poll(1, TimeUnit.SECONDS)[0]);
+        }
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testSubscribe_nacksGapAndDeliversRepairInOrder() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(10);
+        transport.subscribe(received::add);
+        rawSocket = rawSocket(false);
+
+        assertEquals(0, sendRawUntilReceived(MulticastTransport.encodeData(7L, 0L, new byte[]{0}), received)[0]);
+        sendRaw(MulticastTransport.encodeData(7L, 2L, new byte[]{2}));
+
+        final ByteBuffer nack = receiveRaw(21).getValue();
+        assertEquals(MulticastTransport.NACK, nack.get());
+        assertEquals(7L, nack.getLong());
+        assertEquals(1L, nack.getLong());
+        assertEquals(1, nack.getInt());
+        assertNull(received.poll(50, TimeUnit.MILLISECONDS));
+
+        sendRaw(MulticastTransport.encodeData(7L, 1L, new byte[]{1}));
+        assertEquals(1, received.poll(1, TimeUnit.SECONDS)[0]);
+        assertEquals(2, received.poll(1, TimeUnit.SECONDS)[0]);
+    }
+
+    @Test
+    public void testSubscribe_skipsGapAfterRepairTimeout() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(10);
+        transport.subscribe(received::add);
+        rawSocket = rawSocket(false);
+
+        assertEquals(0, sendRawUntilReceived(MulticastTransport.encodeData(7L, 0L, new byte[]{0}), received)[0]);
+        sendRaw(MulticastTransport.encodeData(7L, 2L, new byte[]{2}));
+
+        assertEquals(2, received.poll(1, TimeUnit.SECONDS)[0]);
+    }
+
+    @Test
+    public void testSubscribe_nacksTailLossAnnouncedByHeartbeat() throws Exception {
+        final BlockingQueue<byte[]> received = new ArrayBlockingQueue<>(10);
+        transport.subscribe(received::add);
+        rawSocket = rawSocket(false);
+
+        assertEquals(0, sendRawUntilReceived(MulticastTransport.encodeData(7L, 0L, new byte[]{0}), received)[0]);
+        // the only copy of message 1 is lost, and nothing is published after it.
+        sendRaw(MulticastTransport.encodeHeartbeat(7L, 1L));
+
+        final ByteBuffer nack = receiveRaw(21).getValue();
+        assertEquals(MulticastTransport.NACK, nack.get());
+        assertEquals(7L, nack.getLong());
+        assertEquals(1L, nack.getLong());
+        assertEquals(1, nack.getInt());
+
+        sendRaw(MulticastTransport.encodeData(7L, 1L, new byte[]{1}));
+        assertEquals(1, received.poll(1, TimeUnit.SECONDS)[0]);
+    }
+
+    @Test
+    public void testPublish_sendsHeartbeat() throws Exception {
+        rawSocket = rawSocket(true);
+        transport.publish(new byte[]{42});
+        transport.publish(new byte[]{43});
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (System.nanoTime() < deadline) {
+            final ByteBuffer datagram = receiveRaw(MulticastTransport.HEADER_LENGTH + 1).getValue();
+            if (datagram.get() == MulticastTransport.HEARTBEAT) {
+                assertEquals(transport.getSenderId(), datagram.getLong());
+                assertEquals(1L, datagram.getLong());
+                return;
+            }
+        }
+        fail("No heartbeat was sent.");
+    }
+
+    @Test
+    public void testPublish_answersNack() throws Exception {
+        rawSocket = rawSocket(true);
+        transport.publish(new byte[]{42});
+
+        final Received original = receiveRaw(MulticastTransport.HEADER_LENGTH + 1);
+        final ByteBuffer data = original.getValue();
+        assertEquals(MulticastTransport.DATA, data.get());
+        assertEquals(transport.getSenderId(), data.getLong());
+        assertEquals(0L, data.getLong());
+
+        final byte[] nack = MulticastTransport.encodeNack(transport.getSenderId(), 0L, 1);
+        rawSocket.send(new DatagramPacket(nack, nack.length, original.source));
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (transport.getRepairCount() == 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(1, transport.getRepairCount());
+    }
+
+    @Test(expected = IOException.class)
+    public void testPublish_closed() throws Exception {
+        transport.close();
+        transport.publish(new byte[]{1});
+    }
+
+    @Test(expected = IOException.class)
+    public void testBuilder_notMulticast() throws Exception {
+        new MulticastTransport.Builder().group("127.0.0.1", 47000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilder_invalidRedundancy() {
+        new MulticastTransport.Builder().redundancy(0);
+    }
+
+    //------------------------------------ HELPER METHODS ------------------------------------//
+
+    private MulticastSocket rawSocket(final boolean joinGroup) throws IOException {
+        final MulticastSocket socket = joinGroup ? new MulticastSocket(port) : new MulticastSocket();
+        final NetworkInterface loopback = NetworkInterface.getByName("lo");
+        socket.setNetworkInterface(loopback);
+        if (joinGroup) {
+            socket.joinGroup(new InetSocketAddress(InetAddress.getByName(GROUP), port), loopback);
+        }
+        socket.setSoTimeout(1000);
+        return socket;
+    }
+
+    private void sendRaw(final byte[] datagram) throws IOException {
+        rawSocket.send(new DatagramPacket(datagram, datagram.length, InetAddress.getByName(GROUP), port));
+    }
+
+    /**
+     * Sends the first datagram of a stream until it is delivered, as the subscriber dedupes the copies and the first
+     * datagram sent on a fresh socket is occasionally lost on a loaded loopback.
+     */
+    private byte[] sendRawUntilReceived(final byte[] datagram, final BlockingQueue<byte[]> received) throws Exception {
+        for (int i = 0; i < 10; i++) {
+            sendRaw(datagram);
+            final byte[] body = received.poll(100, TimeUnit.MILLISECONDS);
+            if (body != null) {
+                return body;
+            }
+        }
+        throw new AssertionError("The datagram was never delivered.");
+    }
+
+    private Received receiveRaw(final int length) throws IOException {
+        final DatagramPacket packet = new DatagramPacket(new byte[length], length);
+        rawSocket.receive(packet);
+        return new Received(packet.getSocketAddress(), ByteBuffer.wrap(packet.getData(), 0, packet.getLength()));
+    }
+
+    private static final class Received {
+
+        private final SocketAddress source;
+        private final ByteBuffer value;
+
+        private Received(final SocketAddress source, final ByteBuffer value) {
+            this.source = source;
+            this.value = value;
+        }
+
+        private ByteBuffer getValue() {
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package org.showcontrol4j.element;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.clock.ShowClock;
+import org.showcontrol4j.clock.SystemShowClock;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.timing.DeadlineScheduler;
+import org.showcontrol4j.transport.AmqpTransport;
+import org.showcontrol4j.transport.Subscription;
+import org.showcontrol4j.transport.Transport;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves as a host for many {@link ShowElement}s in one JVM. The host holds a single subscription to the
+ * {@link Transport}, which over RabbitMQ is a single queue and a single consumer on the exchange, decodes each message
+ * once and arms a single deadline for it on the shared {@link DeadlineScheduler}. When the deadline fires the message
+ * is dispatched to every hosted element. Elements registered with a host must not be initialized with
+ * {@link ShowElement#init()}, as that would give them a subscription of their own.
+ * <p>
+ * The host subscribes to the routing keys of every hosted element and only dispatches a message to the elements it
+ * is addressed to. A SHUTDOWN instruction runs the shutdown procedure of each element it is addressed to, and the JVM
+ * exits once every hosted element has shut down.
+ * <p>
+ * SHUTDOWN arrives on a control transport with a subscription of its own, so it is never queued behind show
+ * commands, and it is acted on as soon as it arrives rather than at its start time.
+ *
+ * @author James Hare
+ */
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public class ElementHost implements AutoCloseable {
+
+    @ToString.Include
+    private final String name;
+    private final MessageExchange messageExchange;
+    private final BrokerConnectionFactory brokerConnectionFactory;
+    private final Transport transport;
+    private final Transport controlTransport;
+    private final List<ShowElement> elements = new CopyOnWriteArrayList<>();
+    private DeadlineScheduler deadlineScheduler = DeadlineScheduler.shared();
+    private ShowClock showClock = SystemShowClock.INSTANCE;
+    private Subscription subscription;
+    private Subscription controlSubscription;
+    private boolean initialized;
+
+    public ElementHost(final String name, final MessageExchange messageExchange,
+                       final BrokerConnectionFactory brokerConnectionFactory) {
+        this(name, messageExchange, brokerConnectionFactory, new AmqpTransport(brokerConnectionFactory, messageExchange),
+                AmqpTransport.controlLane(brokerConnectionFactory, messageExchange));
+    }
+
+    public ElementHost(final String name, final Transport transport) {
+        this(name, transport, transport);
+    }
+
+    public ElementHost(final String name, final Transport transport, final Transport controlTransport) {
+        this(name, null, null, transport, controlTransport);
+    }
+
+    private ElementHost(final String name, final MessageExchange messageExchange,
+                        final BrokerConnectionFactory brokerConnectionFactory, final Transport transport,
+                        final Transport controlTransport) {
+        this.name = name;
+        this.messageExchange = messageExchange;
+        this.brokerConnectionFactory = brokerConnectionFactory;
+        this.transport = transport;
+        this.controlTransport = controlTransport;
+    }
+
+    /**
+     * Registers an element with the host. Elements registered after {@link #init()} start idling straight away.
+     *
+     * @param element the element to host.
+     */
+    public void register(final ShowElement element) {
+        if (element.getHost() != null) {
+            throw new IllegalStateException("Show Element=" + element + " is already hosted by " + element.getHost());
+        }
+        elements.add(element);
+        if (initialized) {
+            bindRoutingKeys(element);
+            element.initHosted(this);
+        }
+    }
+
+    /**
+     * Subscribes the host to the transport and starts every registered element idling.
+     */
+    public void init() {
+        try {
+            registerElementHost();
+        } catch (final IOException | TimeoutException e) {
+            log.error("An error occurred while registering the Element Host={}. {}", this.toString(), e.getStackTrace());
+        }
+        initialized = true;
+        for (final ShowElement element : elements) {
+            element.initHosted(this);
+        }
+        log.info("Initialized Element Host={} with {} Show Elements", this.toString(), elements.size());
+    }
+
+    private void registerElementHost() throws IOException, TimeoutException {
+        final Set<String> routingKeys = new LinkedHashSet<>();
+        for (final ShowElement element : elements) {
+            routingKeys.addAll(element.getRoutingKeys());
+        }
+        subscription = transport.subscribe(routingKeys, body -> {
+            final SCFJMessage message = SCFJMessage.deserialize(body);
+            log.trace("The following message has been received=" + message.toString());
+            handleMessage(message);
+        });
+        if (controlTransport != transport) {
+            controlSubscription = controlTransport.subscribe(routingKeys, body -> {
+                final SCFJMessage message = SCFJMessage.deserialize(body);
+                log.trace("The following control message has been received=" + message.toString());
+                if (message.getInstruction() == Instruction.SHUTDOWN) {
+                    handleMessage(message);
+                } else {
+                    log.warn("Ignoring message={} on the control transport of Element Host={}", message, this.toString());
+                }
+            });
+        }
+    }
+
+    private void bindRoutingKeys(final ShowElement element) {
+        if (subscription == null) {
+            return;
+        }
+        try {
+            for (final String routingKey : element.getRoutingKeys()) {
+                subscription.bind(routingKey);
+                if (controlSubscription != null) {
+                    controlSubscription.bind(routingKey);
+                }
+            }
+        } catch (final IOException e) {
+            log.error("An error occurred while binding Show Element={} on Element Host={}. {}", element.toString(),
+                    this.toString(), e.getStackTrace());
+        }
+    }
+
+    /**
+     * Arms a single deadline for the message's start time and dispatches the message to every hosted element it is
+     * addressed to when it fires, with the show's origin at the start time even if the message arrived late. A GO arms
+     * the addressed elements as soon as it arrives. SHUTDOWN is not scheduled; the addressed elements are shut down at
+     * once on the delivering thread.
+     *
+     * @param message the message to handle.
+     */
+    protected void handleMessage(final SCFJMessage message) {
+        if (message.getInstruction() == Instruction.SHUTDOWN) {
+            runShutdown(message, System.nanoTime());
+        } else {
+            if (message.getInstruction() == Instruction.GO) {
+                for (final ShowElement element : elements) {
+                    if (element.isAddressedBy(message)) {
+                        element.arm();
+                    }
+                }
+            }
+            final long now = System.nanoTime();
+            final long originNanos = message.getStartTime() > 0L ? showClock.toNanoTime(message.getStartTime()) : now;
+            final long deadlineNanos = Math.max(originNanos, now);
+            deadlineScheduler.schedule(deadlineNanos, () -> {
+                for (final ShowElement element : elements) {
+                    if (element.isAddressedBy(message)) {
+                        element.dispatch(message, deadlineNanos, originNanos);
+                    }
+                }
+            });
+        }
+    }
+
+    private void runShutdown(final SCFJMessage message, final long receivedNanos) {
+        boolean allShutdown = true;
+        for (final ShowElement element : elements) {
+            if (element.isAddressedBy(message)) {
+                try {
+                    element.shutdown(receivedNanos);
+                } catch (final RuntimeException e) {
+                    log.error("An error occurred while shutting down Show Element={}. {}", element.toString(), e.getStackTrace());
+                }
+            }
+            allShutdown &= element.getState() == ElementState.SHUTDOWN;
+        }
+        if (allShutdown) {
+            log.info("Shutdown was completed for Element Host={}", this.toString());
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Closes the host's subscriptions. Hosted elements keep running whatever they were running.
+     *
+     * @throws IOException if a subscription could not be cancelled.
+     */
+    @Override
+    public void close() throws IOException {
+        if (subscription != null) {
+            subscription.close();
+        }
+        if (controlSubscription != null) {
+            controlSubscription.close();
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.showcontrol4j.element;
+
+/**
+ * The lifecycle states of a {@link ShowElement}.
+ *
+ * <pre>
+ *   IDLE  --GO armed-->  ARMED  --start time-->  RUNNING  --sequence done-->  IDLE
+ *   any state other than SHUTDOWN  --SHUTDOWN-->  STOPPING  --procedure done-->  SHUTDOWN
+ * </pre>
+ * <p>
+ * A command arriving while the element is RUNNING preempts the running sequence without leaving RUNNING. Once the
+ * element is STOPPING, every further command is dropped.
+ *
+ * @author James Hare
+ */
+public enum ElementState {
+
+    /**
+     * Nothing is armed and the element is running its idle loop, or has not started yet.
+     */
+    IDLE,
+    /**
+     * A GO command is waiting for its start time.
+     */
+    ARMED,
+    /**
+     * The show sequence is driving the element.
+     */
+    RUNNING,
+    /**
+     * The running sequence is being stopped and the shutdown procedure is running.
+     */
+    STOPPING,
+    /**
+     * The element has shut down and ignores every command.
+     */
+    SHUTDOWN;
+
+    /**
+     * Returns true if the element no longer accepts commands.
+     *
+     * @return true for STOPPING and SHUTDOWN.
+     */
+    public boolean isTerminating() {
+        return this == STOPPING || this == SHUTDOWN;
+    }
+
+}
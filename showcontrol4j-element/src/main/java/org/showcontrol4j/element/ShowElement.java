@@ -1,24 +1,87 @@
 package org.showcontrol4j.element;
 
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.DeliverCallback;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.clock.ClockSyncClient;
+import org.showcontrol4j.clock.ShowClock;
+import org.showcontrol4j.clock.SystemShowClock;
+import org.showcontrol4j.element.timeline.Timeline;
 import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.exchange.RoutingKeys;
+import org.showcontrol4j.execution.ExecutionEngine;
+import org.showcontrol4j.idle.IdleStrategies;
+import org.showcontrol4j.idle.IdleStrategy;
 import org.showcontrol4j.message.Instruction;
 import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.state.ShowStateClient;
+import org.showcontrol4j.timing.DeadlineScheduler;
+import org.showcontrol4j.timing.LatencyStatistics;
+import org.showcontrol4j.timing.PreciseSleeper;
+import org.showcontrol4j.transport.AmqpTransport;
+import org.showcontrol4j.transport.Subscription;
+import org.showcontrol4j.transport.Transport;
 
 import java.io.IOException;
-import java.util.concurrent.*;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Serves as a standard implementation of the {@link ShowElement} interface. It is recommended that
  * all show elements extend the ShowElementBase class and implement data members and function members
  * to interact with that particular show element. The loop and idle methods should remain abstract so
  * that they can be implemented at the time of instantiation.
+ * <p>
+ * Elements do not own any threads. Their loops run on an {@link ExecutionEngine}, by default the one shared by every
+ * element in the JVM, and an element only holds the {@link Future} of the loop it is currently running. A show
+ * sequence holds an engine thread while it runs. An idle sequence holds none: each iteration of the idle loop is a
+ * tick {@linkplain ExecutionEngine#schedule(Runnable, long) scheduled} on the engine's small pool of shared tick
+ * threads, and the {@link IdleStrategy} decides how long after it the next one runs, so idle elements whose idle loops
+ * return quickly and leave the waiting to their strategy share those few threads however many of them there are.
+ * <p>
+ * Commands are started through a mailbox that any number of threads may post to but only one thread at a time
+ * drains, so there is a single writer of the running sequence. A new sequence preempts the one before it and does not
+ * start until that one has exited, so at most one sequence ever drives the hardware. A loop that ignores the
+ * interrupt, or is stuck in uninterruptible I/O, is only waited for up to the exit timeout; after that the next
+ * sequence, or the shutdown procedure, goes ahead regardless. The lifecycle of the element is tracked as an
+ * {@link ElementState} that only changes by compare-and-set. A GO waiting for its start time holds the element ARMED
+ * until it starts or is dropped.
+ * <p>
+ * Commands that pile up, for example after a broker outage, are coalesced so the element recovers with one command
+ * rather than a run of restarts. A GO or IDLE whose start time is older than the command TTL is dropped on arrival,
+ * only the newest of the commands waiting in the mailbox is started, and a sequence that has been superseded while
+ * waiting for the one before it to exit never starts. SHUTDOWN never enters the mailbox.
+ * <p>
+ * Messages arrive over a {@link Transport}: the RabbitMQ exchange when the element is built with a
+ * {@link MessageExchange} and a {@link BrokerConnectionFactory}, or any other transport given to the constructor.
+ * An element may be placed in a zone and a group before it is initialized. It only subscribes to the routing keys of
+ * its own address and ignores any command addressed to another zone, group or element.
+ * <p>
+ * SHUTDOWN arrives on a control transport with a consumer of its own, the show exchange's control lane over
+ * RabbitMQ, so it is never queued behind show commands. It ignores its start time: the running sequence is preempted
+ * and the shutdown procedure run straight away on the delivering thread. The time from its arrival to the shutdown
+ * procedure completing is recorded in the stop latency statistics.
+ * <p>
+ * A GO's start time is the origin of the show. An element that starts or reconnects mid-show can
+ * {@link #joinShow()}: it fetches the newest command addressed to it from the show state kept by the Show Trigger and
+ * starts the sequence with its origin in the past, so timelines and absolute pauses fast-forward into step with the
+ * rest of the show rather than starting from the top. Timeline cues due more than the join tolerance before the join
+ * are skipped rather than fired back to back, and nothing due before the join is recorded in the cue lateness or
+ * pause overshoot statistics.
  *
  * @author James Hare
  */
@@ -28,22 +91,109 @@ import java.util.concurrent.*;
 @Slf4j
 public abstract class ShowElement {
 
+    /**
+     * How long after its start time a GO or IDLE command is still acted on by default, in milliseconds.
+     */
+    public static final long DEFAULT_COMMAND_TTL_MILLIS = 5000L;
+    /**
+     * How long a new sequence or the shutdown procedure waits for a preempted loop to exit by default, in
+     * milliseconds.
+     */
+    public static final long DEFAULT_EXIT_TIMEOUT_MILLIS = 250L;
+    /**
+     * How long before an element joined the show a timeline cue may have been due and still run by default, in
+     * milliseconds.
+     */
+    public static final long DEFAULT_JOIN_TOLERANCE_MILLIS = 500L;
+
     @ToString.Include
     protected final String name;
     @ToString.Include
     protected final Long id;
     private final MessageExchange messageExchange;
     private final BrokerConnectionFactory brokerConnectionFactory;
-    private final ExecutorService executor;
-    private Future runningFuture;
+    private final Transport transport;
+    private final Transport controlTransport;
+    private final ExecutionEngine executionEngine;
+    private final LatencyStatistics startJitter = new LatencyStatistics();
+    private final LatencyStatistics stopLatency = new LatencyStatistics();
+    private final LatencyStatistics cueLateness = new LatencyStatistics();
+    private final LatencyStatistics pauseOvershoot = new LatencyStatistics();
+    private long spinThresholdNanos = PreciseSleeper.DEFAULT_SPIN_THRESHOLD_NANOS;
+    private long joinTimeoutMillis = ShowStateClient.DEFAULT_TIMEOUT_MILLIS;
+    private long joinToleranceMillis = DEFAULT_JOIN_TOLERANCE_MILLIS;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong expiredCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private long commandTtlMillis = DEFAULT_COMMAND_TTL_MILLIS;
+    private long exitTimeoutMillis = DEFAULT_EXIT_TIMEOUT_MILLIS;
+    private DeadlineScheduler deadlineScheduler = DeadlineScheduler.shared();
+    private ShowClock showClock = SystemShowClock.INSTANCE;
+    private IdleStrategy idleStrategy = IdleStrategies.busySpin();
+    private String zone;
+    private String group;
+    private ElementHost host;
+    @Setter(AccessLevel.NONE)
+    private Subscription subscription;
+    @Setter(AccessLevel.NONE)
+    private Subscription controlSubscription;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<ElementState> state = new AtomicReference<>(ElementState.IDLE);
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger armedCount = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    private final Queue<Sequence> mailbox = new ConcurrentLinkedQueue<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger mailboxWip = new AtomicInteger();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Sequence current;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long showOriginNanos;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long showJoinedNanos;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long stepDeadlineNanos;
 
     public ShowElement(final String name, final Long id, final MessageExchange messageExchange,
                        final BrokerConnectionFactory brokerConnectionFactory) {
+        this(name, id, messageExchange, brokerConnectionFactory, ExecutionEngine.shared());
+    }
+
+    public ShowElement(final String name, final Long id, final MessageExchange messageExchange,
+                       final BrokerConnectionFactory brokerConnectionFactory, final ExecutionEngine executionEngine) {
+        this(name, id, messageExchange, brokerConnectionFactory,
+                new AmqpTransport(brokerConnectionFactory, messageExchange),
+                AmqpTransport.controlLane(brokerConnectionFactory, messageExchange), executionEngine);
+    }
+
+    public ShowElement(final String name, final Long id, final Transport transport) {
+        this(name, id, transport, ExecutionEngine.shared());
+    }
+
+    public ShowElement(final String name, final Long id, final Transport transport, final ExecutionEngine executionEngine) {
+        this(name, id, transport, transport, executionEngine);
+    }
+
+    public ShowElement(final String name, final Long id, final Transport transport, final Transport controlTransport,
+                       final ExecutionEngine executionEngine) {
+        this(name, id, null, null, transport, controlTransport, executionEngine);
+    }
+
+    private ShowElement(final String name, final Long id, final MessageExchange messageExchange,
+                        final BrokerConnectionFactory brokerConnectionFactory, final Transport transport,
+                        final Transport controlTransport, final ExecutionEngine executionEngine) {
         this.name = name;
         this.id = id;
         this.messageExchange = messageExchange;
         this.brokerConnectionFactory = brokerConnectionFactory;
-        executor = Executors.newFixedThreadPool(5);
+        this.transport = transport;
+        this.controlTransport = controlTransport;
+        this.executionEngine = executionEngine;
     }
 
     public void init() {
@@ -56,73 +206,421 @@ public abstract class ShowElement {
         handleMessage(SCFJMessage.builder().instruction(Instruction.IDLE).build());
     }
 
-    private void registerShowElement() throws IOException, TimeoutException {
-        final Channel channel = brokerConnectionFactory.newConnection().createChannel();
-        channel.exchangeDeclare(messageExchange.getName(), "fanout");
-        final String queueName = channel.queueDeclare().getQueue();
-        channel.queueBind(queueName, messageExchange.getName(), "");
+    /**
+     * Initializes the element as one of many hosted by an {@link ElementHost}. The host owns the queue and consumer,
+     * so the element does not register with the broker itself.
+     *
+     * @param elementHost the host the element is registered with.
+     */
+    void initHosted(final ElementHost elementHost) {
+        host = elementHost;
+        log.info("Initialized Show Element={} on Element Host={}", this.toString(), elementHost.toString());
+        handleMessage(SCFJMessage.builder().instruction(Instruction.IDLE).build());
+    }
 
-        final DeliverCallback deliverCallback = (consumerTag, delivery) -> {
-            final SCFJMessage message = SCFJMessage.deserialize(delivery.getBody());
+    private void registerShowElement() throws IOException, TimeoutException {
+        subscription = transport.subscribe(getRoutingKeys(), body -> {
+            final SCFJMessage message = SCFJMessage.deserialize(body);
             log.trace("The following message has been received=" + message.toString());
             handleMessage(message);
-        };
-
-        channel.basicConsume(queueName, true, deliverCallback, consumerTag -> {
         });
+        if (controlTransport != transport) {
+            controlSubscription = controlTransport.subscribe(getRoutingKeys(), body -> {
+                final SCFJMessage message = SCFJMessage.deserialize(body);
+                log.trace("The following control message has been received=" + message.toString());
+                handleControlMessage(message);
+            });
+        }
+    }
+
+    /**
+     * Acts on a message from the control transport. Only stop-class instructions are accepted there.
+     *
+     * @param message the message to handle.
+     */
+    protected void handleControlMessage(final SCFJMessage message) {
+        if (message.getInstruction() != Instruction.SHUTDOWN) {
+            log.warn("Ignoring message={} on the control transport of Show Element={}", message, this.toString());
+            return;
+        }
+        handleMessage(message);
+    }
+
+    /**
+     * Returns the routing keys of every command addressed to this element.
+     *
+     * @return the routing keys to bind.
+     */
+    public List<String> getRoutingKeys() {
+        return RoutingKeys.forElement(zone, group, id);
+    }
+
+    /**
+     * Returns true if the message is addressed to this element's zone, group and id.
+     *
+     * @param message the message.
+     * @return true if the element should act on the message.
+     */
+    public boolean isAddressedBy(final SCFJMessage message) {
+        return message.isAddressedTo(zone, group, id);
+    }
+
+    /**
+     * Synchronizes this element's {@link ShowClock} with the clock reference of the exchange, so start times are
+     * scheduled against the reference clock rather than the local wall clock. The clock offset, drift and residual
+     * offset are available from the returned client. Clock sync runs over the broker, so it needs an element built
+     * with a {@link BrokerConnectionFactory}.
+     *
+     * @return the {@link ClockSyncClient} now used as this element's show clock.
+     * @throws IOException      if the probe reply queue could not be declared.
+     * @throws TimeoutException if a connection to the broker could not be made in time.
+     */
+    public ClockSyncClient enableClockSync() throws IOException, TimeoutException {
+        if (brokerConnectionFactory == null) {
+            throw new IllegalStateException("Clock sync needs a broker, but Show Element=" + this + " has none.");
+        }
+        final ClockSyncClient clockSyncClient = new ClockSyncClient(brokerConnectionFactory.openChannel(), messageExchange);
+        clockSyncClient.start();
+        showClock = clockSyncClient;
+        return clockSyncClient;
     }
 
+    /**
+     * Arms a deadline for the message's start time on the {@link DeadlineScheduler} and returns immediately, so the
+     * thread delivering the message is never blocked waiting for the start time. Start times that have already passed
+     * fire straight away. Start times are read in show time, as given by this element's {@link ShowClock}. How late
+     * each message actually started is recorded in the start jitter statistics.
+     * <p>
+     * SHUTDOWN is not scheduled. It stops the element on the calling thread as soon as it arrives.
+     *
+     * @param message the message to handle.
+     */
     protected void handleMessage(final SCFJMessage message) {
-        while (message.getStartTime() > System.currentTimeMillis()) {
-            try {
-                pause(100);
-            } catch (final InterruptedException e) {
-                log.error("Sleeping was interrupted while handling message on Show Element={}. {}", this.toString(), e.getStackTrace());
+        if (state.get().isTerminating()) {
+            log.trace("Ignoring message={} because Show Element={} is shutting down", message, this.toString());
+            return;
+        }
+        if (!isAddressedBy(message)) {
+            log.trace("Ignoring message={} because it is not addressed to Show Element={}", message, this.toString());
+            return;
+        }
+        if (message.getInstruction() == Instruction.SHUTDOWN) {
+            shutdown(System.nanoTime());
+            System.exit(0);
+            return;
+        }
+        if (isExpired(message)) {
+            expiredCount.incrementAndGet();
+            log.debug("Dropping expired message={} on Show Element={}", message, this.toString());
+            return;
+        }
+        if (message.getInstruction() == Instruction.GO) {
+            arm();
+        }
+        final long now = System.nanoTime();
+        final long originNanos = message.getStartTime() > 0L ? showClock.toNanoTime(message.getStartTime()) : now;
+        final long deadlineNanos = Math.max(originNanos, now);
+        deadlineScheduler.schedule(deadlineNanos, () -> dispatch(message, deadlineNanos, originNanos));
+    }
+
+    /**
+     * Asks the Show Trigger keeping the show state for the newest command addressed to this element and joins the
+     * show from it, as {@link #join(SCFJMessage)} does. Meant for an element that starts or reconnects mid-show, after
+     * {@link #init()}. Needs an element built with a {@link BrokerConnectionFactory} and a trigger that has started
+     * keeping the show state.
+     *
+     * @return the command joined, or null if no command has been published to this element yet.
+     * @throws IOException          if the show state could not be requested.
+     * @throws TimeoutException     if the show state did not arrive within the join timeout.
+     * @throws InterruptedException if the thread is interrupted while waiting for the show state.
+     */
+    public SCFJMessage joinShow() throws IOException, TimeoutException, InterruptedException {
+        if (brokerConnectionFactory == null) {
+            throw new IllegalStateException("Joining a show needs a broker, but Show Element=" + this + " has none.");
+        }
+        final SCFJMessage snapshot;
+        try (final Channel channel = brokerConnectionFactory.openChannel()) {
+            snapshot = new ShowStateClient(channel, messageExchange).fetchLatest(this::isAddressedBy, joinTimeoutMillis);
+        }
+        if (snapshot != null) {
+            join(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Joins a show from a command that may have started some time ago, bypassing the command TTL. A GO whose start
+     * time has passed starts its sequence straight away with the show's origin at that start time, so
+     * {@link #play(Timeline)}, {@link #pauseUntil(long)} and {@link #pauseStep(long)} fast-forward to where the rest of
+     * the show is; a GO still in the future is scheduled as usual. Timeline cues due more than the join tolerance
+     * before now are skipped. SHUTDOWN is never joined.
+     *
+     * @param message the command to join.
+     */
+    protected void join(final SCFJMessage message) {
+        if (state.get().isTerminating() || !isAddressedBy(message) || message.getInstruction() == Instruction.SHUTDOWN) {
+            log.trace("Not joining message={} on Show Element={}", message, this.toString());
+            return;
+        }
+        final long now = System.nanoTime();
+        final long originNanos = message.getStartTime() > 0L ? showClock.toNanoTime(message.getStartTime()) : now;
+        if (originNanos - now > 0L) {
+            handleMessage(message);
+            return;
+        }
+        if (message.getInstruction() == Instruction.GO) {
+            arm();
+        }
+        log.info("Show Element={} joining message={} {} ms after it started", this.toString(), message,
+                TimeUnit.NANOSECONDS.toMillis(now - originNanos));
+        post(new Sequence(message, now, originNanos, now));
+    }
+
+    /**
+     * Posts the message to the element's mailbox once its start time has arrived. Whichever thread finds the mailbox
+     * idle drains it, preempting the running sequence and starting the newest command waiting; every other thread
+     * returns as soon as its message is posted.
+     *
+     * @param message       the message to handle.
+     * @param deadlineNanos the {@link System#nanoTime()} the message was due to start at.
+     */
+    void dispatch(final SCFJMessage message, final long deadlineNanos) {
+        dispatch(message, deadlineNanos, deadlineNanos);
+    }
+
+    /**
+     * Posts the message to the element's mailbox as {@link #dispatch(SCFJMessage, long)} does, with the show's origin
+     * at the given time rather than at the deadline, as when the message arrived after its start time.
+     *
+     * @param message       the message to handle.
+     * @param deadlineNanos the {@link System#nanoTime()} the message was due to start at.
+     * @param originNanos   the {@link System#nanoTime()} of the message's start time.
+     */
+    void dispatch(final SCFJMessage message, final long deadlineNanos, final long originNanos) {
+        if (isExpired(message)) {
+            if (message.getInstruction() == Instruction.GO) {
+                disarm();
+            }
+            expiredCount.incrementAndGet();
+            log.debug("Dropping expired message={} on Show Element={}", message, this.toString());
+            return;
+        }
+        post(new Sequence(message, deadlineNanos, originNanos, originNanos));
+    }
+
+    private void post(final Sequence sequence) {
+        mailbox.offer(sequence);
+        if (mailboxWip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Sequence newest = null;
+            Sequence next;
+            while ((next = mailbox.poll()) != null) {
+                if (newest != null) {
+                    coalescedCount.incrementAndGet();
+                    newest.release();
+                }
+                newest = next;
+            }
+            if (newest != null) {
+                start(newest);
+            }
+            missed = mailboxWip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Holds the element ARMED until the GO that armed it starts or is dropped. Every GO handed to
+     * {@link #dispatch(SCFJMessage, long, long)} must have armed the element first.
+     */
+    void arm() {
+        armedCount.incrementAndGet();
+        state.compareAndSet(ElementState.IDLE, ElementState.ARMED);
+    }
+
+    /**
+     * Releases a GO that armed the element. Once no armed GO is left, an element still ARMED goes back to IDLE.
+     */
+    private void disarm() {
+        if (armedCount.updateAndGet(count -> Math.max(0, count - 1)) == 0) {
+            state.compareAndSet(ElementState.ARMED, ElementState.IDLE);
+        }
+    }
+
+    /**
+     * Returns true if the message is a GO or IDLE whose start time is further in the past than the command TTL.
+     * Messages without a start time never expire.
+     */
+    private boolean isExpired(final SCFJMessage message) {
+        return commandTtlMillis > 0L
+                && message.getStartTime() > 0L
+                && showClock.currentTimeMillis() - message.getStartTime() > commandTtlMillis;
+    }
+
+    /**
+     * Returns the number of commands dropped because they arrived after their TTL.
+     *
+     * @return the expired command count.
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Returns the number of commands skipped because a newer command superseded them before they started.
+     *
+     * @return the coalesced command count.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Preempts the running sequence and submits the next one. Only ever called by the thread draining the mailbox.
+     */
+    private void start(final Sequence next) {
+        if (state.get().isTerminating()) {
+            next.release();
+            log.trace("Dropping message={} because Show Element={} is shutting down", next.message, this.toString());
+            return;
+        }
+        final Sequence previous = current;
+        if (previous != null) {
+            // a sequence that never started has nothing to wait for, so wait for whatever it would have waited for.
+            if (previous.preempt()) {
+                coalescedCount.incrementAndGet();
+                previous.release();
+                next.previous = previous.previous;
+            } else {
+                next.previous = previous;
             }
         }
-        if (runningFuture != null) {
-            runningFuture.cancel(true);
+        current = next;
+        try {
+            // an idle sequence only ever runs ticks, so it starts on the tick threads rather than taking a loop thread.
+            next.loop = next.message.getInstruction() == Instruction.IDLE
+                    ? executionEngine.schedule(next, 0L)
+                    : executionEngine.submit(next);
+        } catch (final RejectedExecutionException e) {
+            next.preempt();
+            next.release();
+            log.error("Unable to start message={} on Show Element={}. {}", next.message, this.toString(), e.getMessage());
         }
-        runningFuture = executor.submit(new MessageTask(message));
     }
 
-    private void analyzeMessage(final SCFJMessage message) {
+    /**
+     * Returns the current lifecycle state of the element.
+     *
+     * @return the {@link ElementState}.
+     */
+    public ElementState getState() {
+        return state.get();
+    }
+
+    /**
+     * Returns the {@link Future} of the sequence the element is running, or most recently started, including the idle
+     * loop that follows it. Cancelling it preempts the sequence; it is done once the sequence has exited.
+     *
+     * @return the running {@link Future}, or null if nothing has been started.
+     */
+    public Future getRunningFuture() {
+        return current;
+    }
+
+    private void analyzeMessage(final Sequence sequence) {
+        final SCFJMessage message = sequence.message;
         if (message.getInstruction() == Instruction.GO) {
-            runShowLoop();
+            final boolean running = advance(ElementState.RUNNING);
+            sequence.release();
+            if (running) {
+                showOriginNanos = sequence.originNanos;
+                showJoinedNanos = sequence.joinedNanos;
+                stepDeadlineNanos = sequence.originNanos;
+                runShowLoop(sequence);
+            }
         } else if (message.getInstruction() == Instruction.IDLE) {
-            runIdleLoop();
-        } else if (message.getInstruction() == Instruction.SHUTDOWN) {
-            runShutdown();
+            runIdleLoop(sequence);
         }
     }
 
-    private void runShowLoop() {
+    private void runShowLoop(final Sequence sequence) {
         log.info("Starting show loop for Show Element={}", this.toString());
         try {
             showSequence();
-            runIdleLoop();
+            runIdleLoop(sequence);
         } catch (final InterruptedException e) {
             log.trace("Thread is complete because a new Show Command was received for Show Element={}", this.toString());
         }
     }
 
-    private void runIdleLoop() {
+    /**
+     * Hands the idle loop of the sequence over to ticks scheduled on the engine, waiting between iterations as the
+     * element's {@link IdleStrategy} dictates. The default strategy runs the next iteration straight away; elements
+     * whose idle loop returns quickly should be given a backoff or fixed rate strategy so they do not hold a core flat
+     * out.
+     */
+    private void runIdleLoop(final Sequence sequence) {
         log.info("Starting idle loop for Show Element={}", this.toString());
-        try {
-            while (true) {
-                idleLoop();
-            }
-        } catch (final InterruptedException e) {
-            log.trace("Thread is complete because a new Show Command was received for Show Element={}", this.toString());
+        if (!state.compareAndSet(ElementState.RUNNING, ElementState.IDLE) && armedCount.get() == 0) {
+            state.compareAndSet(ElementState.ARMED, ElementState.IDLE);
         }
+        final IdleStrategy strategy = idleStrategy;
+        strategy.reset();
+        sequence.startIdling(strategy);
     }
 
-    private void runShutdown() {
-        runningFuture = null;
-        executor.shutdownNow();
+    /**
+     * Stops the element's running loop, waits up to the exit timeout for it to exit and runs its shutdown procedure
+     * without exiting the JVM, whether or not the loop has exited. Only this element's loop is cancelled; the
+     * {@link ExecutionEngine} it runs on is left alone for the other elements. An {@link ElementHost} calls this for
+     * each of its elements before exiting once. Does nothing if the element is already stopping.
+     */
+    void shutdown() {
+        shutdown(System.nanoTime());
+    }
+
+    /**
+     * Shuts the element down as {@link #shutdown()} does, recording the time from the given arrival of the SHUTDOWN to
+     * the shutdown procedure completing in the stop latency statistics.
+     *
+     * @param receivedNanos the {@link System#nanoTime()} the SHUTDOWN arrived at.
+     */
+    void shutdown(final long receivedNanos) {
+        if (!advance(ElementState.STOPPING)) {
+            return;
+        }
+        Sequence sequence = current;
+        if (sequence != null && sequence.runner != Thread.currentThread()) {
+            while (sequence != null && sequence.preempt()) {
+                sequence = sequence.previous;
+            }
+            if (sequence != null && !sequence.awaitExitUninterruptibly()) {
+                log.warn("The loop of Show Element={} did not exit within {} ms, running the shutdown procedure anyway",
+                        this.toString(), exitTimeoutMillis);
+            }
+        }
         shutdownProcedure();
-        log.info("Shutdown was completed for Show Element={}", this.toString());
-        System.exit(0);
+        final long latencyNanos = System.nanoTime() - receivedNanos;
+        stopLatency.record(latencyNanos);
+        state.set(ElementState.SHUTDOWN);
+        log.info("Shutdown was completed for Show Element={} in {} us", this.toString(),
+                TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Moves the element to the given state unless it is already stopping or shut down.
+     */
+    private boolean advance(final ElementState next) {
+        ElementState currentState;
+        do {
+            currentState = state.get();
+            if (currentState.isTerminating()) {
+                return false;
+            }
+        } while (!state.compareAndSet(currentState, next));
+        return true;
     }
 
     /**
@@ -130,22 +628,350 @@ public abstract class ShowElement {
      *
      * @param milliseconds the time to sleep in milliseconds
      * @throws InterruptedException
+     * @see #pauseStep(long)
      */
     protected final void pause(final long milliseconds) throws InterruptedException {
         TimeUnit.MILLISECONDS.sleep(milliseconds);
     }
 
-    private class MessageTask implements Runnable {
+    /**
+     * Pauses the show sequence until the given offset from the start time of the GO command being run. Offsets are
+     * absolute, so a sequence of calls does not drift however many there are. The thread parks until the deadline is
+     * within the element's spin threshold and spins after; the overshoot of every call is recorded in the pause
+     * overshoot statistics. Returns straight away if the offset has already passed.
+     *
+     * @param offsetMillis the offset from the start of the show in milliseconds.
+     * @throws InterruptedException if a new Show Command preempts the sequence.
+     */
+    protected final void pauseUntil(final long offsetMillis) throws InterruptedException {
+        pauseUntil(offsetMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Pauses the show sequence until the given offset from the start time of the GO command being run, as
+     * {@link #pauseUntil(long)} does.
+     *
+     * @param offset the offset from the start of the show.
+     * @param unit   the unit of the offset.
+     * @throws InterruptedException if a new Show Command preempts the sequence.
+     */
+    protected final void pauseUntil(final long offset, final TimeUnit unit) throws InterruptedException {
+        stepDeadlineNanos = showOriginNanos + unit.toNanos(offset);
+        sleepUntilStep();
+    }
+
+    /**
+     * Pauses the show sequence for the given time after the deadline of the previous pause, or after the start time
+     * of the GO command if this is the first. This is a drop in replacement for {@link #pause(long)} in an existing
+     * sequence: the time spent running the steps in between and the overshoot of each wait are absorbed by the next
+     * wait rather than added to the length of the show.
+     *
+     * @param milliseconds the time from the previous deadline in milliseconds.
+     * @throws InterruptedException if a new Show Command preempts the sequence.
+     */
+    protected final void pauseStep(final long milliseconds) throws InterruptedException {
+        stepDeadlineNanos += TimeUnit.MILLISECONDS.toNanos(milliseconds);
+        sleepUntilStep();
+    }
+
+    /**
+     * Waits for the current step's deadline, recording the overshoot unless the deadline was before the element
+     * joined the show.
+     */
+    private void sleepUntilStep() throws InterruptedException {
+        final long overshootNanos = PreciseSleeper.sleepUntil(stepDeadlineNanos, spinThresholdNanos);
+        if (stepDeadlineNanos - showJoinedNanos >= 0L) {
+            pauseOvershoot.record(overshootNanos);
+        }
+    }
+
+    /**
+     * Plays a {@link Timeline} from the start time of the GO command being run, so every cue runs at an absolute
+     * deadline and the sequence does not drift however long it is. Meant to be called from {@link #showSequence()};
+     * how late each cue ran is recorded in the cue lateness statistics. When the element joined the show late, cues due
+     * more than the join tolerance before the join are skipped.
+     *
+     * @param timeline the timeline to play.
+     * @throws InterruptedException if a new Show Command preempts the sequence.
+     */
+    protected final void play(final Timeline timeline) throws InterruptedException {
+        timeline.join(showOriginNanos, showJoinedNanos, TimeUnit.MILLISECONDS.toNanos(joinToleranceMillis),
+                cueLateness, spinThresholdNanos);
+    }
+
+    /**
+     * A single run of the element for one message. A sequence waits for the sequence it preempted to exit before it
+     * starts, and does not report its own exit until that one has exited, so sequences never overlap even when
+     * several are preempted in quick succession. Each wait is bounded by the exit timeout, so a loop that never exits
+     * holds up the sequences after it by no more than that.
+     * <p>
+     * An idle sequence runs on the engine's tick threads and runs each iteration of its idle loop as a tick; it exits
+     * when the ticks stop. A sequence is also the {@link Future} of the whole run.
+     */
+    private final class Sequence implements Runnable, Future<Void> {
+
+        private static final int NEW = 0;
+        private static final int STARTED = 1;
+        private static final int CANCELLED = 2;
+
+        private static final int NOT_IDLING = 0;
+        private static final int TICK_WAITING = 1;
+        private static final int TICK_RUNNING = 2;
+        private static final int TICKS_STOPPED = 3;
 
         private final SCFJMessage message;
+        private final long deadlineNanos;
+        private final long originNanos;
+        private final long joinedNanos;
+        private final AtomicInteger phase = new AtomicInteger(NEW);
+        private final CountDownLatch exited = new CountDownLatch(1);
+        private final AtomicBoolean armed;
+        private final AtomicInteger idling = new AtomicInteger(NOT_IDLING);
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Sequence previous;
+        private volatile Future loop;
+        private volatile Future tick;
+        private volatile Thread runner;
+        private volatile boolean cancelled;
+        private volatile boolean abandoned;
+        private boolean ticking;
+        private IdleStrategy strategy;
 
-        public MessageTask(final SCFJMessage message) {
+        private Sequence(final SCFJMessage message, final long deadlineNanos, final long originNanos,
+                         final long joinedNanos) {
             this.message = message;
+            this.deadlineNanos = deadlineNanos;
+            this.originNanos = originNanos;
+            this.joinedNanos = joinedNanos;
+            this.armed = new AtomicBoolean(message.getInstruction() == Instruction.GO);
         }
 
         @Override
         public void run() {
-            analyzeMessage(message);
+            if (!phase.compareAndSet(NEW, STARTED)) {
+                return;
+            }
+            runner = Thread.currentThread();
+            try {
+                final Sequence preempted = previous;
+                if (preempted != null && !preempted.exited.await(exitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    abandoned = true;
+                    log.warn("The previous loop of Show Element={} did not exit within {} ms, starting message={} "
+                            + "anyway", ShowElement.this.toString(), exitTimeoutMillis, message);
+                }
+                if (current != this) {
+                    coalescedCount.incrementAndGet();
+                    log.trace("Message={} was superseded before it started on Show Element={}", message,
+                            ShowElement.this.toString());
+                } else if (!state.get().isTerminating()) {
+                    startJitter.record(System.nanoTime() - deadlineNanos);
+                    analyzeMessage(this);
+                }
+            } catch (final InterruptedException e) {
+                coalescedCount.incrementAndGet();
+                log.trace("Message={} was preempted before it started on Show Element={}", message, ShowElement.this.toString());
+            } finally {
+                if (!ticking) {
+                    finish();
+                }
+            }
+        }
+
+        /**
+         * Runs the idle loop from the thread running the sequence, unless the sequence has already been preempted.
+         * From here on the ticks exit the sequence.
+         */
+        private void startIdling(final IdleStrategy idleStrategy) {
+            strategy = idleStrategy;
+            idling.set(TICK_WAITING);
+            if (cancelled && idling.compareAndSet(TICK_WAITING, TICKS_STOPPED)) {
+                return;
+            }
+            ticking = true;
+            tick();
+        }
+
+        /**
+         * Runs iterations of the idle loop for as long as the strategy has no wait between them, then schedules the
+         * next tick and gives the thread back. Exits the sequence once it has been preempted.
+         */
+        private void tick() {
+            if (!idling.compareAndSet(TICK_WAITING, TICK_RUNNING)) {
+                return;
+            }
+            runner = Thread.currentThread();
+            while (true) {
+                try {
+                    idleLoop();
+                } catch (final InterruptedException e) {
+                    log.trace("Thread is complete because a new Show Command was received for Show Element={}",
+                            ShowElement.this.toString());
+                    break;
+                } catch (final RuntimeException e) {
+                    log.error("The idle loop of Show Element={} failed. {}", ShowElement.this.toString(),
+                            e.getMessage());
+                    break;
+                }
+                final long delayNanos = strategy.nextDelayNanos();
+                if (delayNanos > 0L) {
+                    runner = null;
+                    if (idling.compareAndSet(TICK_RUNNING, TICK_WAITING)) {
+                        scheduleTick(delayNanos);
+                        return;
+                    }
+                    break;
+                }
+                if (idling.get() != TICK_RUNNING || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+            runner = null;
+            idling.set(TICKS_STOPPED);
+            finish();
+        }
+
+        private void scheduleTick(final long delayNanos) {
+            try {
+                tick = executionEngine.schedule(this::tick, delayNanos);
+            } catch (final RejectedExecutionException e) {
+                log.error("Unable to run the idle loop of Show Element={}. {}", ShowElement.this.toString(),
+                        e.getMessage());
+                if (idling.compareAndSet(TICK_WAITING, TICKS_STOPPED)) {
+                    finish();
+                }
+            }
+        }
+
+        /**
+         * Stops the ticks of the idle loop. A tick that is waiting is cancelled and the sequence exits straight away; a
+         * tick that is running is interrupted, through its own future or the sequence's, and exits the sequence when
+         * it returns.
+         */
+        private void stopIdling() {
+            while (true) {
+                final int ticks = idling.get();
+                if (ticks == NOT_IDLING || ticks == TICKS_STOPPED) {
+                    return;
+                }
+                if (idling.compareAndSet(ticks, TICKS_STOPPED)) {
+                    final Future scheduled = tick;
+                    if (ticks == TICK_WAITING) {
+                        if (scheduled != null) {
+                            scheduled.cancel(false);
+                        }
+                        finish();
+                    } else if (scheduled != null) {
+                        scheduled.cancel(true);
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Releases the sequence's GO, waits for the sequence it preempted and reports the exit, once.
+         */
+        private void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            release();
+            final Sequence preempted = previous;
+            if (preempted != null) {
+                if (!abandoned) {
+                    preempted.awaitExitUninterruptibly();
+                }
+                previous = null;
+            }
+            runner = null;
+            exited.countDown();
+        }
+
+        /**
+         * Stops the sequence. A sequence that has not started yet never will.
+         *
+         * @return true if the sequence had not started yet.
+         */
+        private boolean preempt() {
+            cancelled = true;
+            final boolean unstarted = phase.compareAndSet(NEW, CANCELLED) || phase.get() == CANCELLED;
+            final Future runningLoop = loop;
+            if (runningLoop != null) {
+                runningLoop.cancel(!unstarted);
+            }
+            stopIdling();
+            return unstarted;
+        }
+
+        /**
+         * Preempts the sequence, interrupting it if it is running whatever the argument.
+         *
+         * @param mayInterruptIfRunning ignored.
+         * @return false if the sequence had already exited.
+         */
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean done = isDone();
+            preempt();
+            return !done;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return phase.get() == CANCELLED || exited.getCount() == 0L;
+        }
+
+        @Override
+        public Void get() throws InterruptedException {
+            if (phase.get() != CANCELLED) {
+                exited.await();
+            }
+            return null;
+        }
+
+        @Override
+        public Void get(final long timeout, final TimeUnit unit) throws InterruptedException, TimeoutException {
+            if (phase.get() != CANCELLED && !exited.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return null;
+        }
+
+        /**
+         * Releases the element from the GO of this sequence, if it armed it and has not released it yet.
+         */
+        private void release() {
+            if (armed.getAndSet(false)) {
+                disarm();
+            }
+        }
+
+        /**
+         * Waits up to the exit timeout for the sequence to exit, keeping the interrupt status of the calling thread.
+         *
+         * @return true if the sequence exited.
+         */
+        private boolean awaitExitUninterruptibly() {
+            final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(exitTimeoutMillis);
+            boolean interrupted = false;
+            boolean exitedInTime = false;
+            while (true) {
+                try {
+                    exitedInTime = exited.await(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return exitedInTime;
         }
     }
 
@@ -157,7 +983,8 @@ public abstract class ShowElement {
 
     /**
      * The abstract show element idle method. Must remain abstract and be implemented at the time
-     * of instantiation.
+     * of instantiation. Each call is one iteration, and the element's {@link IdleStrategy} paces the iterations. An
+     * iteration that returns quickly rather than sleeping lets the element hold no thread while it waits.
      */
     protected abstract void idleLoop() throws InterruptedException;
 
@@ -0,0 +1,65 @@
+package org.showcontrol4j.element.pwm;
+
+/**
+ * Serves as the mapping from the brightness of a {@link PwmChannel} to the duty cycle it is driven at. The eye does
+ * not see light linearly: an LED at half duty looks nearly as bright as one at full, so a linear fade seems to rush
+ * through the bright end and crawl through the dim one. {@link #GAMMA} corrects for that and is what fades should
+ * normally use.
+ *
+ * @author James Hare
+ */
+public enum FadeCurve {
+
+    /**
+     * Duty cycle proportional to brightness.
+     */
+    LINEAR {
+        @Override
+        double apply(final double brightness) {
+            return brightness;
+        }
+    },
+    /**
+     * Duty cycle proportional to brightness raised to the power of 2.2, which looks even to the eye.
+     */
+    GAMMA {
+        @Override
+        double apply(final double brightness) {
+            return Math.pow(brightness, 2.2);
+        }
+    },
+    /**
+     * Duty cycle proportional to the square of brightness, a cheaper and slightly brighter take on {@link #GAMMA}.
+     */
+    QUADRATIC {
+        @Override
+        double apply(final double brightness) {
+            return brightness * brightness;
+        }
+    };
+
+    /**
+     * Maps a brightness to a duty cycle.
+     *
+     * @param brightness the brightness, from 0 to 1.
+     * @return the duty cycle, from 0 to 1.
+     */
+    abstract double apply(double brightness);
+
+    /**
+     * Computes the table of duty cycles for every brightness level, so the engine never evaluates the curve while
+     * it is running.
+     *
+     * @param levels     the number of brightness steps above off.
+     * @param resolution the number of duty cycle steps in a PWM period.
+     * @return the duty cycle in steps for each brightness level from 0 to {@code levels}.
+     */
+    int[] table(final int levels, final int resolution) {
+        final int[] table = new int[levels + 1];
+        for (int level = 0; level <= levels; level++) {
+            table[level] = (int) Math.round(apply((double) level / levels) * resolution);
+        }
+        return table;
+    }
+
+}
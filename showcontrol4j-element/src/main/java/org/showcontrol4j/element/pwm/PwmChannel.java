@@ -0,0 +1,154 @@
+package org.showcontrol4j.element.pwm;
+
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves as one output driven by a {@link SoftPwmEngine}, with a brightness that can be set or faded. Any thread may
+ * set the brightness or start a fade; the engine picks it up at the start of its next period. A fade is a linear
+ * ramp in brightness, and the channel's {@link FadeCurve} turns each brightness into the duty cycle that looks right.
+ *
+ * @author James Hare
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class PwmChannel {
+
+    @ToString.Include
+    private final String name;
+    private final SoftPwmEngine engine;
+    private final PwmOutput output;
+    private final int[] dutyTable;
+    private volatile Ramp ramp = new Ramp(0, 0, 0L, 0L);
+    // guarded by the channel's monitor, which is only ever held for a single write to the output.
+    private boolean removed;
+    private boolean high;
+    private boolean written;
+
+    PwmChannel(final String name, final SoftPwmEngine engine, final PwmOutput output, final int[] dutyTable) {
+        this.name = name;
+        this.engine = engine;
+        this.output = output;
+        this.dutyTable = dutyTable;
+    }
+
+    /**
+     * Sets the brightness straight away, stopping any fade.
+     *
+     * @param brightness the brightness, from 0 for off to 1 for fully on.
+     */
+    public void setBrightness(final double brightness) {
+        final int level = level(brightness);
+        ramp = new Ramp(level, level, 0L, 0L);
+    }
+
+    /**
+     * Fades from the current brightness to the given one over the given time. Returns straight away; a fade started
+     * while another is running carries on from wherever that one had got to.
+     *
+     * @param brightness the brightness to fade to, from 0 for off to 1 for fully on.
+     * @param duration   the length of the fade.
+     * @param unit       the unit of the duration.
+     */
+    public void fadeTo(final double brightness, final long duration, final TimeUnit unit) {
+        final long now = System.nanoTime();
+        ramp = new Ramp(ramp.levelAt(now), level(brightness), now, unit.toNanos(duration));
+    }
+
+    /**
+     * Returns the brightness the channel is at now, partway through a fade if one is running.
+     *
+     * @return the brightness, from 0 to 1.
+     */
+    public double getBrightness() {
+        return (double) ramp.levelAt(System.nanoTime()) / SoftPwmEngine.BRIGHTNESS_LEVELS;
+    }
+
+    /**
+     * Returns true if a fade is running.
+     *
+     * @return true while fading.
+     */
+    public boolean isFading() {
+        return ramp.isRunning(System.nanoTime());
+    }
+
+    /**
+     * Stops driving the output and removes the channel from its engine. The output is left low. Returns straight
+     * away: the engine never writes to the output again once this has returned, so the caller may drive it at once.
+     */
+    public void close() {
+        engine.remove(this);
+    }
+
+    /**
+     * Returns the duty cycle in engine steps for the period starting at the given time.
+     */
+    int dutyAt(final long nanos) {
+        return dutyTable[ramp.levelAt(nanos)];
+    }
+
+    /**
+     * Drives the output, skipping the write if it is already in that state or the channel has been removed. Only
+     * called by the timing thread.
+     */
+    synchronized void drive(final boolean value) {
+        if (removed || (written && high == value)) {
+            return;
+        }
+        output.write(value);
+        high = value;
+        written = true;
+    }
+
+    /**
+     * Marks the channel removed and leaves its output low. Any write the timing thread is making finishes first, and
+     * none follows, even if the engine is partway through a period that still holds the channel.
+     */
+    synchronized void release() {
+        if (removed) {
+            return;
+        }
+        removed = true;
+        output.write(false);
+    }
+
+    private static int level(final double brightness) {
+        if (Double.isNaN(brightness)) {
+            throw new IllegalArgumentException("The brightness must be a number from 0 to 1.");
+        }
+        return (int) Math.round(Math.min(Math.max(brightness, 0d), 1d) * SoftPwmEngine.BRIGHTNESS_LEVELS);
+    }
+
+    /**
+     * A linear ramp between two brightness levels. Replaced as a whole, so the timing thread never sees half of one.
+     */
+    private static final class Ramp {
+
+        private final int fromLevel;
+        private final int toLevel;
+        private final long startNanos;
+        private final long durationNanos;
+
+        private Ramp(final int fromLevel, final int toLevel, final long startNanos, final long durationNanos) {
+            this.fromLevel = fromLevel;
+            this.toLevel = toLevel;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        private int levelAt(final long nanos) {
+            final long elapsed = nanos - startNanos;
+            if (!isRunning(nanos)) {
+                return elapsed < 0L && durationNanos > 0L ? fromLevel : toLevel;
+            }
+            return fromLevel + (int) ((toLevel - fromLevel) * elapsed / durationNanos);
+        }
+
+        private boolean isRunning(final long nanos) {
+            final long elapsed = nanos - startNanos;
+            return durationNanos > 0L && elapsed >= 0L && elapsed < durationNanos;
+        }
+    }
+
+}
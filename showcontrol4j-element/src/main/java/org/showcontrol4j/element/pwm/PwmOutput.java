@@ -0,0 +1,18 @@
+package org.showcontrol4j.element.pwm;
+
+/**
+ * Serves as a digital output driven by a {@link SoftPwmEngine}, such as a GPIO pin wired to an LED or a MOSFET.
+ *
+ * @author James Hare
+ */
+@FunctionalInterface
+public interface PwmOutput {
+
+    /**
+     * Drives the output high or low. Called from the engine's timing thread, so it must return quickly.
+     *
+     * @param high true to drive the output high.
+     */
+    void write(boolean high);
+
+}
@@ -0,0 +1,299 @@
+package org.showcontrol4j.element.pwm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.timing.LatencyStatistics;
+import org.showcontrol4j.timing.PreciseSleeper;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves as a software PWM engine that drives any number of {@link PwmChannel}s from a single timing thread, for
+ * dimming and fading LEDs on pins without hardware PWM. Rather than ticking through every step of every period, the
+ * engine drives every lit channel high at the start of a period and then sleeps from one falling edge to the next, so
+ * it wakes at most once per distinct duty cycle per period and parks in between. Channels with the same duty cycle
+ * share a wake up, and a channel fully on or fully off costs nothing after its first period.
+ * <p>
+ * Duty cycles come from tables computed once per {@link FadeCurve} when the engine is built, so the timing thread
+ * only ever looks a value up. Periods are scheduled against absolute {@link System#nanoTime()} deadlines and the
+ * lateness of each period start is recorded in {@link #getPeriodJitter()}. By default the timing thread only parks,
+ * which keeps it cheap on a Raspberry Pi Zero; the overshoot of a park moves an edge by a fraction of a step, which
+ * cannot be seen at show frequencies. A spin threshold can be set for tighter edges at the cost of CPU.
+ *
+ * @author James Hare
+ */
+@Slf4j
+public class SoftPwmEngine implements AutoCloseable {
+
+    /**
+     * The default PWM frequency in hertz, fast enough not to flicker.
+     */
+    public static final int DEFAULT_FREQUENCY_HZ = 100;
+    /**
+     * The default number of duty cycle steps in a period.
+     */
+    public static final int DEFAULT_RESOLUTION = 100;
+    /**
+     * The number of brightness steps above off that a channel can be set to or faded through.
+     */
+    public static final int BRIGHTNESS_LEVELS = 1024;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final AtomicLong THREAD_COUNTER = new AtomicLong();
+    private static volatile SoftPwmEngine shared;
+
+    private final long periodNanos;
+    private final int resolution;
+    private final long stepNanos;
+    private final Map<FadeCurve, int[]> dutyTables = new EnumMap<>(FadeCurve.class);
+    private final LatencyStatistics periodJitter = new LatencyStatistics();
+    private final Thread timingThread;
+    private volatile PwmChannel[] channels = new PwmChannel[0];
+    private volatile long spinThresholdNanos;
+    private volatile boolean running = true;
+    // only touched by the timing thread.
+    private int[] duties = new int[0];
+    private int[] order = new int[0];
+    private int orderedCount = -1;
+
+    /**
+     * Creates an engine with the default frequency and resolution.
+     */
+    public SoftPwmEngine() {
+        this(DEFAULT_FREQUENCY_HZ, DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param frequencyHz the PWM frequency in hertz.
+     * @param resolution  the number of duty cycle steps in a period.
+     */
+    public SoftPwmEngine(final int frequencyHz, final int resolution) {
+        if (frequencyHz <= 0 || resolution <= 0) {
+            throw new IllegalArgumentException("The PWM frequency and resolution must both be positive.");
+        }
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / frequencyHz;
+        this.resolution = resolution;
+        this.stepNanos = periodNanos / resolution;
+        for (final FadeCurve curve : FadeCurve.values()) {
+            dutyTables.put(curve, curve.table(BRIGHTNESS_LEVELS, resolution));
+        }
+        timingThread = new Thread(this::runEngine, "showcontrol4j-pwm-" + THREAD_COUNTER.incrementAndGet());
+        timingThread.setDaemon(true);
+        timingThread.setPriority(Thread.MAX_PRIORITY);
+        timingThread.start();
+    }
+
+    /**
+     * Returns the engine shared by every element in the JVM that has not been given its own.
+     *
+     * @return the shared {@link SoftPwmEngine}.
+     */
+    public static SoftPwmEngine shared() {
+        SoftPwmEngine engine = shared;
+        if (engine == null) {
+            synchronized (SoftPwmEngine.class) {
+                engine = shared;
+                if (engine == null) {
+                    engine = new SoftPwmEngine();
+                    shared = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Adds a channel with the {@link FadeCurve#GAMMA} curve. It starts off.
+     *
+     * @param name   the name of the channel, for logging.
+     * @param output the output to drive.
+     * @return the {@link PwmChannel}.
+     */
+    public PwmChannel add(final String name, final PwmOutput output) {
+        return add(name, output, FadeCurve.GAMMA);
+    }
+
+    /**
+     * Adds a channel. It starts off.
+     *
+     * @param name   the name of the channel, for logging.
+     * @param output the output to drive.
+     * @param curve  the curve mapping its brightness to a duty cycle.
+     * @return the {@link PwmChannel}.
+     */
+    public PwmChannel add(final String name, final PwmOutput output, final FadeCurve curve) {
+        if (!running) {
+            throw new IllegalStateException("The PWM engine has been closed.");
+        }
+        final PwmChannel channel = new PwmChannel(name, this, output, dutyTables.get(curve));
+        synchronized (this) {
+            final PwmChannel[] current = channels;
+            final PwmChannel[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = channel;
+            channels = next;
+        }
+        LockSupport.unpark(timingThread);
+        return channel;
+    }
+
+    /**
+     * Removes a channel and leaves its output low, without waiting for the period it may be in to finish. The timing
+     * thread lets go of it at the next period boundary and writes nothing to it in the meantime. Does nothing if the
+     * channel has already been removed.
+     *
+     * @param channel the channel to remove.
+     */
+    void remove(final PwmChannel channel) {
+        synchronized (this) {
+            final PwmChannel[] current = channels;
+            final int index = Arrays.asList(current).indexOf(channel);
+            if (index < 0) {
+                return;
+            }
+            final PwmChannel[] next = new PwmChannel[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, next.length - index);
+            channels = next;
+        }
+        channel.release();
+    }
+
+    /**
+     * Returns the number of channels being driven.
+     *
+     * @return the number of channels.
+     */
+    public int getChannelCount() {
+        return channels.length;
+    }
+
+    /**
+     * Returns the statistics of how late each period started.
+     *
+     * @return the period jitter {@link LatencyStatistics}.
+     */
+    public LatencyStatistics getPeriodJitter() {
+        return periodJitter;
+    }
+
+    /**
+     * Returns the time before each edge at which the timing thread stops parking and starts spinning.
+     *
+     * @return the spin threshold in nanoseconds.
+     */
+    public long getSpinThresholdNanos() {
+        return spinThresholdNanos;
+    }
+
+    /**
+     * Sets the time before each edge at which the timing thread stops parking and starts spinning. Zero, the default,
+     * never spins.
+     *
+     * @param spinThresholdNanos the spin threshold in nanoseconds.
+     */
+    public void setSpinThresholdNanos(final long spinThresholdNanos) {
+        this.spinThresholdNanos = spinThresholdNanos;
+    }
+
+    /**
+     * Stops the timing thread and leaves every output low.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(timingThread);
+    }
+
+    private void runEngine() {
+        long periodStart = System.nanoTime();
+        try {
+            while (running) {
+                final PwmChannel[] current = channels;
+                if (current.length == 0) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    periodStart = System.nanoTime();
+                    continue;
+                }
+                PreciseSleeper.sleepUntil(periodStart, spinThresholdNanos);
+                periodJitter.record(System.nanoTime() - periodStart);
+                runPeriod(current, periodStart);
+                periodStart += periodNanos;
+                if (System.nanoTime() - periodStart > periodNanos) {
+                    // the thread fell more than a period behind, so skip the missed periods rather than racing.
+                    periodStart = System.nanoTime();
+                }
+            }
+        } catch (final InterruptedException e) {
+            log.debug("The PWM timing thread was interrupted.");
+        } finally {
+            for (final PwmChannel channel : channels) {
+                channel.drive(false);
+            }
+        }
+    }
+
+    private void runPeriod(final PwmChannel[] current, final long periodStart) throws InterruptedException {
+        final int count = current.length;
+        if (duties.length < count) {
+            duties = new int[count];
+            order = new int[count];
+        }
+        if (orderedCount != count) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            orderedCount = count;
+        }
+        for (int i = 0; i < count; i++) {
+            duties[i] = current[i].dutyAt(periodStart);
+        }
+        sortByDuty(count);
+        for (int i = 0; i < count; i++) {
+            drive(current[i], duties[i] > 0);
+        }
+        for (int k = 0; k < count; k++) {
+            final int i = order[k];
+            final int duty = duties[i];
+            if (duty == 0 || duty >= resolution) {
+                continue;
+            }
+            final long edge = periodStart + duty * stepNanos;
+            if (edge - System.nanoTime() > stepNanos / 2) {
+                PreciseSleeper.sleepUntil(edge, spinThresholdNanos);
+            }
+            drive(current[i], false);
+        }
+    }
+
+    /**
+     * Sorts the channel indices by duty cycle. Duty cycles barely change from one period to the next, so an insertion
+     * sort over the previous order is close to linear.
+     */
+    private void sortByDuty(final int count) {
+        for (int k = 1; k < count; k++) {
+            final int index = order[k];
+            final int duty = duties[index];
+            int j = k - 1;
+            while (j >= 0 && duties[order[j]] > duty) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = index;
+        }
+    }
+
+    private void drive(final PwmChannel channel, final boolean high) {
+        try {
+            channel.drive(high);
+        } catch (final RuntimeException e) {
+            log.error("The PWM engine could not drive channel={}. {}", channel, e.getMessage());
+        }
+    }
+
+}
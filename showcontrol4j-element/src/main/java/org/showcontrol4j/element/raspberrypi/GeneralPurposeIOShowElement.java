@@ -5,13 +5,22 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
 import org.showcontrol4j.element.ShowElement;
+import org.showcontrol4j.element.pwm.PwmChannel;
+import org.showcontrol4j.element.pwm.SoftPwmEngine;
 import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.execution.ExecutionEngine;
+import org.showcontrol4j.transport.Transport;
 
 import java.util.concurrent.TimeUnit;
 
 /**
  * A class for a basic GPIO Show Element for the Raspberry Pi. The loop and idle methods should remain abstract so that
  * they can be implemented at the time of instantiation.
+ * <p>
+ * Besides switching the pin, an element can dim it with {@link #setBrightness(double)} and
+ * {@link #fadeTo(double, long, TimeUnit)}. The pin is then driven by a {@link SoftPwmEngine}, by default the one shared
+ * by every element in the JVM, until it is switched on, off, toggled or pulsed again. The shared engine is only
+ * looked up, and its thread started, the first time the element dims.
  *
  * @author James Hare
  */
@@ -22,10 +31,25 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
     @ToString.Include
     private final GpioPinDigitalOutput pinOutput;
     private final GpioController gpioController;
+    private SoftPwmEngine pwmEngine;
+    private PwmChannel pwmChannel;
 
     public GeneralPurposeIOShowElement(final String name, final long id, final MessageExchange messageExchange,
                                        final BrokerConnectionFactory brokerConnectionFactory, final Pin pin) {
-        super(name, id, messageExchange, brokerConnectionFactory);
+        this(name, id, messageExchange, brokerConnectionFactory, pin, ExecutionEngine.shared());
+    }
+
+    public GeneralPurposeIOShowElement(final String name, final long id, final MessageExchange messageExchange,
+                                       final BrokerConnectionFactory brokerConnectionFactory, final Pin pin,
+                                       final ExecutionEngine executionEngine) {
+        super(name, id, messageExchange, brokerConnectionFactory, executionEngine);
+        gpioController = GpioFactory.getInstance();
+        pinOutput = gpioController.provisionDigitalOutputPin(pin, name, PinState.LOW);
+        pinOutput.setShutdownOptions(true, PinState.LOW);
+    }
+
+    public GeneralPurposeIOShowElement(final String name, final long id, final Transport transport, final Pin pin) {
+        super(name, id, transport);
         gpioController = GpioFactory.getInstance();
         pinOutput = gpioController.provisionDigitalOutputPin(pin, name, PinState.LOW);
         pinOutput.setShutdownOptions(true, PinState.LOW);
@@ -48,6 +72,7 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      */
     @Override
     protected void shutdownProcedure() {
+        stopDimming();
         gpioController.shutdown();
     }
 
@@ -55,6 +80,7 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      * Sets the LED to high.
      */
     protected void turnOn() {
+        stopDimming();
         pinOutput.high();
     }
 
@@ -62,6 +88,7 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      * Sets the LED to low.
      */
     protected void turnOff() {
+        stopDimming();
         pinOutput.low();
     }
 
@@ -70,6 +97,7 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      * low, it will be set to high.
      */
     protected void toggle() {
+        stopDimming();
         if (pinOutput.isHigh()) {
             pinOutput.low();
         } else {
@@ -84,6 +112,7 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      * @param blockThread  if the thread should be blocked from other calls.
      */
     protected void pulse(final long milliseconds, final boolean blockThread) {
+        stopDimming();
         pinOutput.pulse(milliseconds, blockThread);
     }
 
@@ -93,6 +122,7 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      * @param milliseconds the amount of time to pulse in milliseconds.
      */
     protected void pulse(final long milliseconds) {
+        stopDimming();
         pinOutput.pulse(milliseconds);
     }
 
@@ -103,9 +133,86 @@ public abstract class GeneralPurposeIOShowElement extends ShowElement {
      * @param timeUnit the time unit of the duration.
      */
     protected void pulse(final long duration, final TimeUnit timeUnit) {
+        stopDimming();
         pinOutput.pulse(duration, timeUnit);
     }
 
+    /**
+     * Dims the LED to the given brightness straight away.
+     *
+     * @param brightness the brightness, from 0 for off to 1 for fully on.
+     */
+    protected void setBrightness(final double brightness) {
+        dimmer().setBrightness(brightness);
+    }
+
+    /**
+     * Fades the LED from its current brightness to the given one. Returns straight away; the fade runs on the PWM
+     * engine's timing thread.
+     *
+     * @param brightness the brightness to fade to, from 0 for off to 1 for fully on.
+     * @param duration   the length of the fade.
+     * @param timeUnit   the time unit of the duration.
+     */
+    protected void fadeTo(final double brightness, final long duration, final TimeUnit timeUnit) {
+        dimmer().fadeTo(brightness, duration, timeUnit);
+    }
+
+    /**
+     * Returns the brightness of the LED: its dimmed brightness if it is being dimmed, otherwise 1 if the pin is high
+     * and 0 if it is low.
+     *
+     * @return the brightness, from 0 to 1.
+     */
+    protected synchronized double getBrightness() {
+        if (pwmChannel != null) {
+            return pwmChannel.getBrightness();
+        }
+        return pinOutput.isHigh() ? 1d : 0d;
+    }
+
+    /**
+     * Returns the PWM engine the LED is dimmed by.
+     *
+     * @return the {@link SoftPwmEngine}, or null if none was set and the element has not dimmed yet.
+     */
+    public synchronized SoftPwmEngine getPwmEngine() {
+        return pwmEngine;
+    }
+
+    /**
+     * Sets the PWM engine the LED is dimmed by. Takes effect the next time the LED is dimmed.
+     *
+     * @param pwmEngine the {@link SoftPwmEngine}.
+     */
+    public synchronized void setPwmEngine(final SoftPwmEngine pwmEngine) {
+        stopDimming();
+        this.pwmEngine = pwmEngine;
+    }
+
+    private synchronized PwmChannel dimmer() {
+        if (pwmChannel == null) {
+            if (pwmEngine == null) {
+                pwmEngine = SoftPwmEngine.shared();
+            }
+            final boolean wasHigh = pinOutput.isHigh();
+            pwmChannel = pwmEngine.add(name, high -> pinOutput.setState(high));
+            pwmChannel.setBrightness(wasHigh ? 1d : 0d);
+        }
+        return pwmChannel;
+    }
+
+    /**
+     * Stops dimming the LED, if it is being dimmed. Returns without waiting for the PWM period to finish; the engine
+     * writes nothing more to the pin, so the caller can set its state straight away.
+     */
+    private synchronized void stopDimming() {
+        if (pwmChannel != null) {
+            pwmChannel.close();
+            pwmChannel = null;
+        }
+    }
+
     /**
      * Returns the pin state.
      *
@@ -0,0 +1,211 @@
+package org.showcontrol4j.element.raspberrypi;
+
+import com.pi4j.io.gpio.GpioController;
+import com.pi4j.io.gpio.GpioFactory;
+import com.pi4j.io.gpio.GpioPinDigitalOutput;
+import com.pi4j.io.gpio.Pin;
+import com.pi4j.io.gpio.PinState;
+import lombok.ToString;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.element.ShowElement;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.execution.ExecutionEngine;
+import org.showcontrol4j.timing.LatencyStatistics;
+import org.showcontrol4j.transport.Transport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class for a GPIO Show Element for the Raspberry Pi that owns a bank of up to 64 output pins, such as a board of
+ * relays for a chase. The whole bank is set as one frame, a bitmask with bit {@code i} standing for the
+ * {@code i}th pin given to the constructor, rather than with a run of separate calls that land microseconds apart.
+ * <p>
+ * The element keeps a shadow of the state it last wrote. A frame is diffed against the shadow first, and only the pins
+ * that change are written, back to back in one tight loop with nothing computed in between, so a frame lands as close
+ * together as the GPIO driver allows and a pin that stays the same is never touched. The time from the start of the
+ * first write of each frame to the end of its last is recorded in {@link #getFrameSkew()}. The loop and idle methods
+ * should remain abstract so that they can be implemented at the time of instantiation.
+ *
+ * @author James Hare
+ */
+@ToString(onlyExplicitlyIncluded = true, callSuper = true)
+public abstract class GpioBankShowElement extends ShowElement {
+
+    /**
+     * The largest number of pins a bank can hold.
+     */
+    public static final int MAX_PINS = Long.SIZE;
+
+    private final GpioPinDigitalOutput[] pinOutputs;
+    private final GpioController gpioController;
+    @ToString.Include
+    private final int pinCount;
+    private final long allPinsMask;
+    private final LatencyStatistics frameSkew = new LatencyStatistics();
+    private final AtomicLong pinWriteCount = new AtomicLong();
+    private final AtomicLong skippedWriteCount = new AtomicLong();
+    private long shadow;
+
+    public GpioBankShowElement(final String name, final long id, final MessageExchange messageExchange,
+                               final BrokerConnectionFactory brokerConnectionFactory, final Pin... pins) {
+        this(name, id, messageExchange, brokerConnectionFactory, ExecutionEngine.shared(), pins);
+    }
+
+    public GpioBankShowElement(final String name, final long id, final MessageExchange messageExchange,
+                               final BrokerConnectionFactory brokerConnectionFactory,
+                               final ExecutionEngine executionEngine, final Pin... pins) {
+        super(name, id, messageExchange, brokerConnectionFactory, executionEngine);
+        gpioController = GpioFactory.getInstance();
+        pinOutputs = provision(gpioController, name, pins);
+        pinCount = pins.length;
+        allPinsMask = maskOf(pins.length);
+    }
+
+    public GpioBankShowElement(final String name, final long id, final Transport transport, final Pin... pins) {
+        super(name, id, transport);
+        gpioController = GpioFactory.getInstance();
+        pinOutputs = provision(gpioController, name, pins);
+        pinCount = pins.length;
+        allPinsMask = maskOf(pins.length);
+    }
+
+    private static GpioPinDigitalOutput[] provision(final GpioController gpioController, final String name,
+                                                    final Pin[] pins) {
+        if (pins.length == 0 || pins.length > MAX_PINS) {
+            throw new IllegalArgumentException("A GPIO bank must have between 1 and " + MAX_PINS
+                    + " pins, but was given " + pins.length + ".");
+        }
+        final GpioPinDigitalOutput[] outputs = new GpioPinDigitalOutput[pins.length];
+        for (int i = 0; i < pins.length; i++) {
+            outputs[i] = gpioController.provisionDigitalOutputPin(pins[i], name + " " + i, PinState.LOW);
+            outputs[i].setShutdownOptions(true, PinState.LOW);
+        }
+        return outputs;
+    }
+
+    private static long maskOf(final int pinCount) {
+        return pinCount == MAX_PINS ? -1L : (1L << pinCount) - 1L;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected abstract void showSequence() throws InterruptedException;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected abstract void idleLoop() throws InterruptedException;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void shutdownProcedure() {
+        writeFrame(0L);
+        gpioController.shutdown();
+    }
+
+    /**
+     * Sets every pin of the bank at once: pin {@code i} is driven high if bit {@code i} of the frame is set and low
+     * if it is not. Bits above the last pin are ignored.
+     *
+     * @param frame the state of the whole bank.
+     */
+    protected synchronized void writeFrame(final long frame) {
+        apply(frame & allPinsMask);
+    }
+
+    /**
+     * Drives the pins whose bits are set in the mask high and leaves the others as they are.
+     *
+     * @param mask the pins to drive high.
+     */
+    protected synchronized void setPins(final long mask) {
+        apply(shadow | (mask & allPinsMask));
+    }
+
+    /**
+     * Drives the pins whose bits are set in the mask low and leaves the others as they are.
+     *
+     * @param mask the pins to drive low.
+     */
+    protected synchronized void clearPins(final long mask) {
+        apply(shadow & ~mask);
+    }
+
+    /**
+     * Inverts the pins whose bits are set in the mask and leaves the others as they are.
+     *
+     * @param mask the pins to invert.
+     */
+    protected synchronized void togglePins(final long mask) {
+        apply(shadow ^ (mask & allPinsMask));
+    }
+
+    /**
+     * Returns the state of the whole bank as last written.
+     *
+     * @return the frame, with bit {@code i} set if pin {@code i} is high.
+     */
+    protected synchronized long getFrame() {
+        return shadow;
+    }
+
+    /**
+     * Returns the number of pins in the bank.
+     *
+     * @return the pin count.
+     */
+    public int getPinCount() {
+        return pinCount;
+    }
+
+    /**
+     * Returns the statistics of the time from the start of the first pin write of each frame to the end of the last.
+     *
+     * @return the frame skew {@link LatencyStatistics}.
+     */
+    public LatencyStatistics getFrameSkew() {
+        return frameSkew;
+    }
+
+    /**
+     * Returns the number of pin writes made.
+     *
+     * @return the pin write count.
+     */
+    public long getPinWriteCount() {
+        return pinWriteCount.get();
+    }
+
+    /**
+     * Returns the number of pin writes skipped because the pin was already in the state asked for.
+     *
+     * @return the skipped write count.
+     */
+    public long getSkippedWriteCount() {
+        return skippedWriteCount.get();
+    }
+
+    private void apply(final long frame) {
+        final long changed = frame ^ shadow;
+        skippedWriteCount.addAndGet(pinCount - Long.bitCount(changed));
+        if (changed == 0L) {
+            return;
+        }
+        long remaining = changed;
+        final long firstWrite = System.nanoTime();
+        while (remaining != 0L) {
+            final int pin = Long.numberOfTrailingZeros(remaining);
+            pinOutputs[pin].setState((frame & (1L << pin)) != 0L);
+            remaining &= remaining - 1L;
+        }
+        frameSkew.record(System.nanoTime() - firstWrite);
+        pinWriteCount.addAndGet(Long.bitCount(changed));
+        shadow = frame;
+    }
+
+}
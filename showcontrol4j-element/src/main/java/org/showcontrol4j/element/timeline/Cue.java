@@ -0,0 +1,20 @@
+package org.showcontrol4j.element.timeline;
+
+/**
+ * Serves as the action a keyframe of a {@link Timeline} runs, such as switching an output on. Cues run on the thread
+ * playing the timeline and should return quickly; a cue that overruns makes the following cues late but does not
+ * delay the timeline as a whole, since every keyframe has an absolute deadline.
+ *
+ * @author James Hare
+ */
+@FunctionalInterface
+public interface Cue {
+
+    /**
+     * Runs the cue.
+     *
+     * @throws InterruptedException if the thread playing the timeline is interrupted.
+     */
+    void run() throws InterruptedException;
+
+}
@@ -0,0 +1,204 @@
+package org.showcontrol4j.element.timeline;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.showcontrol4j.timing.LatencyStatistics;
+import org.showcontrol4j.timing.PreciseSleeper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves as a declarative show sequence: a list of {@link Cue}s, each at a fixed offset from the start of the show.
+ * Playing a timeline waits for each keyframe's absolute deadline, the origin plus its offset, with a
+ * {@link PreciseSleeper}, so the overshoot of one wait is never carried into the next. A sequence written as calls to
+ * {@code pause} drifts by the overshoot of every sleep; the same sequence as a timeline ends within the overshoot of
+ * its last wait, however long it runs.
+ * <p>
+ * Keyframes at the same offset run in the order they were added. Timelines are immutable and may be played any
+ * number of times, from any number of elements.
+ *
+ * @author James Hare
+ */
+@Getter
+@ToString(exclude = "keyframes")
+public final class Timeline {
+
+    private final List<Keyframe> keyframes;
+    private final long durationNanos;
+
+    private Timeline(final List<Keyframe> keyframes, final long durationNanos) {
+        this.keyframes = keyframes;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * Returns a new {@link Builder}.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Plays the timeline on the calling thread.
+     *
+     * @param originNanos the {@link System#nanoTime()} the show started at, which every offset is measured from.
+     * @throws InterruptedException if the thread is interrupted, in which case no further cues run.
+     */
+    public void play(final long originNanos) throws InterruptedException {
+        play(originNanos, null);
+    }
+
+    /**
+     * Plays the timeline on the calling thread, recording how late each cue ran. Cues whose deadline has already
+     * passed run straight away, in order, so a timeline started late catches up with the show; an element joining a
+     * show that has been running for a while should {@link #join(long, long, long, LatencyStatistics, long)} it
+     * instead.
+     *
+     * @param originNanos the {@link System#nanoTime()} the show started at, which every offset is measured from.
+     * @param lateness    the statistics to record the lateness of every cue in, or null.
+     * @throws InterruptedException if the thread is interrupted, in which case no further cues run.
+     */
+    public void play(final long originNanos, final LatencyStatistics lateness) throws InterruptedException {
+        play(originNanos, lateness, PreciseSleeper.DEFAULT_SPIN_THRESHOLD_NANOS);
+    }
+
+    /**
+     * Plays the timeline as {@link #play(long, LatencyStatistics)} does, spinning for the given time before each
+     * deadline rather than the default.
+     *
+     * @param originNanos        the {@link System#nanoTime()} the show started at, which every offset is measured from.
+     * @param lateness           the statistics to record the lateness of every cue in, or null.
+     * @param spinThresholdNanos the time before each deadline at which parking stops and spinning starts.
+     * @throws InterruptedException if the thread is interrupted, in which case no further cues run.
+     */
+    public void play(final long originNanos, final LatencyStatistics lateness, final long spinThresholdNanos)
+            throws InterruptedException {
+        join(originNanos, originNanos, 0L, lateness, spinThresholdNanos);
+    }
+
+    /**
+     * Plays the timeline as {@link #play(long, LatencyStatistics, long)} does for an element joining a show that has
+     * been running since the origin. A keyframe whose deadline passed more than the tolerance before the join is
+     * skipped, so joining late does not fire every missed cue back to back; one missed within the tolerance runs
+     * straight away. Neither is recorded in the lateness statistics, which only measure the cues that could have run
+     * on time.
+     *
+     * @param originNanos        the {@link System#nanoTime()} the show started at, which every offset is measured from.
+     * @param joinedNanos        the {@link System#nanoTime()} the element joined the show at.
+     * @param toleranceNanos     how long before the join a keyframe's deadline may be and the keyframe still run.
+     * @param lateness           the statistics to record the lateness of every cue after the join in, or null.
+     * @param spinThresholdNanos the time before each deadline at which parking stops and spinning starts.
+     * @throws InterruptedException if the thread is interrupted, in which case no further cues run.
+     */
+    public void join(final long originNanos, final long joinedNanos, final long toleranceNanos,
+                     final LatencyStatistics lateness, final long spinThresholdNanos) throws InterruptedException {
+        for (final Keyframe keyframe : keyframes) {
+            final long deadlineNanos = originNanos + keyframe.offsetNanos;
+            final boolean missed = deadlineNanos - joinedNanos < 0L;
+            if (missed && joinedNanos - deadlineNanos > toleranceNanos) {
+                continue;
+            }
+            PreciseSleeper.sleepUntil(deadlineNanos, spinThresholdNanos);
+            if (lateness != null && !missed) {
+                lateness.record(System.nanoTime() - deadlineNanos);
+            }
+            keyframe.cue.run();
+        }
+        PreciseSleeper.sleepUntil(originNanos + durationNanos, spinThresholdNanos);
+    }
+
+    /**
+     * Serves as a cue at a fixed offset from the start of a {@link Timeline}.
+     */
+    @Getter
+    @ToString(exclude = "cue")
+    public static final class Keyframe {
+
+        private final long offsetNanos;
+        private final Cue cue;
+
+        private Keyframe(final long offsetNanos, final Cue cue) {
+            this.offsetNanos = offsetNanos;
+            this.cue = cue;
+        }
+    }
+
+    /**
+     * Serves as the builder of a {@link Timeline}.
+     */
+    public static final class Builder {
+
+        private final List<Keyframe> keyframes = new ArrayList<>();
+        private long lastOffsetNanos;
+        private long durationNanos;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a cue at the given offset from the start of the show.
+         *
+         * @param offset the offset.
+         * @param unit   the unit of the offset.
+         * @param cue    the cue to run.
+         * @return this builder.
+         */
+        public Builder at(final long offset, final TimeUnit unit, final Cue cue) {
+            if (offset < 0L) {
+                throw new IllegalArgumentException("A keyframe offset may not be negative, but was " + offset + ".");
+            }
+            if (cue == null) {
+                throw new IllegalArgumentException("A keyframe needs a cue.");
+            }
+            lastOffsetNanos = unit.toNanos(offset);
+            keyframes.add(new Keyframe(lastOffsetNanos, cue));
+            return this;
+        }
+
+        /**
+         * Adds a cue at the given delay after the keyframe added last, or after the start of the show if there is
+         * none. The offset is still absolute, so this is a drop in replacement for a {@code pause} between two steps
+         * that does not drift.
+         *
+         * @param delay the delay.
+         * @param unit  the unit of the delay.
+         * @param cue   the cue to run.
+         * @return this builder.
+         */
+        public Builder after(final long delay, final TimeUnit unit, final Cue cue) {
+            return at(lastOffsetNanos + unit.toNanos(delay), TimeUnit.NANOSECONDS, cue);
+        }
+
+        /**
+         * Sets the length of the show. Playing returns no earlier than this, even when the last cue is earlier. By
+         * default a timeline ends with its last cue.
+         *
+         * @param duration the length of the show.
+         * @param unit     the unit of the duration.
+         * @return this builder.
+         */
+        public Builder duration(final long duration, final TimeUnit unit) {
+            durationNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Builds the timeline.
+         *
+         * @return the {@link Timeline}.
+         */
+        public Timeline build() {
+            final List<Keyframe> sorted = new ArrayList<>(keyframes);
+            sorted.sort(Comparator.comparingLong(Keyframe::getOffsetNanos));
+            final long lastNanos = sorted.isEmpty() ? 0L : sorted.get(sorted.size() - 1).offsetNanos;
+            return new Timeline(Collections.unmodifiableList(sorted), Math.max(durationNanos, lastNanos));
+        }
+    }
+
+}
@@ -0,0 +1,346 @@
+package org.showcontrol4j.element;
+
+import com.rabbitmq.client.CancelCallback;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.impl.AMQImpl;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ExpectedSystemExit;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.message.ShowCommand;
+import org.showcontrol4j.transport.InJvmTransport;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link ElementHost} class.
+ *
+ * @author James Hare
+ */
+public class ElementHostTest {
+
+    private final String testHostName = "Test Host Name";
+    private final String testExchangeName = "Test Exchange";
+
+    @Mock
+    private MessageExchange mockMessageExchange;
+    @Mock
+    private BrokerConnectionFactory mockBrokerConnectionFactory;
+    @Mock
+    private Channel mockChannel;
+    @Mock
+    private AMQImpl.Exchange.DeclareOk mockExchangeDeclareOk;
+    @Mock
+    private AMQImpl.Queue.BindOk mockBindOk;
+    @Mock
+    private AMQImpl.Queue.DeclareOk mockQueueDeclareOk;
+    @Rule
+    public final ExpectedSystemExit exit = ExpectedSystemExit.none();
+
+    @Before
+    public void init() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(mockMessageExchange.getName()).thenReturn(testExchangeName);
+        when(mockBrokerConnectionFactory.openChannel()).thenReturn(mockChannel);
+        when(mockChannel.exchangeDeclare(anyString(), anyString())).thenReturn(mockExchangeDeclareOk);
+        when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
+        when(mockQueueDeclareOk.getQueue()).thenReturn("test");
+        when(mockChannel.queueBind(anyString(), anyString(), anyString())).thenReturn(mockBindOk);
+        when(mockChannel.basicConsume(anyString(), anyBoolean(), any(DeliverCallback.class), any(CancelCallback.class)))
+                .thenReturn("tag");
+    }
+
+    @Test
+    public void testInit_declaresOneQueueAndConsumerForAllElements() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final TestElement first = new TestElement("First", 1L);
+        final TestElement second = new TestElement("Second", 2L);
+        elementHost.register(first);
+        elementHost.register(second);
+
+        elementHost.init();
+
+        // one queue and consumer on the show exchange and one on its control lane.
+        verify(mockBrokerConnectionFactory, times(2)).openChannel();
+        verify(mockChannel, times(2)).queueDeclare();
+        verify(mockChannel, times(1)).queueBind("test", testExchangeName, "");
+        verify(mockChannel, times(1)).queueBind("test", testExchangeName + ".control", "");
+        verify(mockChannel, times(2)).basicConsume(eq("test"), eq(true), any(DeliverCallback.class), any(CancelCallback.class));
+        assertEquals(elementHost, first.getHost());
+        assertEquals(elementHost, second.getHost());
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertTrue(first.idleCount.get() > 0);
+        assertTrue(second.idleCount.get() > 0);
+
+        cancelRunningLoop(first);
+        cancelRunningLoop(second);
+    }
+
+    @Test
+    public void testDelivery_dispatchesToEveryElement() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final TestElement first = new TestElement("First", 1L);
+        final TestElement second = new TestElement("Second", 2L);
+        elementHost.register(first);
+        elementHost.register(second);
+        elementHost.init();
+
+        final ArgumentCaptor<DeliverCallback> deliverCallback = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel, times(2)).basicConsume(anyString(), anyBoolean(), deliverCallback.capture(), any(CancelCallback.class));
+        deliverCallback.getAllValues().get(0).handle("tag", new Delivery(null, null, ShowCommand.GO(200L).serialize()));
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(1, first.showCount.get());
+        assertEquals(1, second.showCount.get());
+        assertTrue(elementHost.getDeadlineScheduler().getJitter().getCount() > 0);
+
+        cancelRunningLoop(first);
+        cancelRunningLoop(second);
+    }
+
+    @Test
+    public void testDelivery_inJvmTransport() throws Exception {
+        final InJvmTransport transport = new InJvmTransport("test");
+        final ElementHost elementHost = new ElementHost(testHostName, transport);
+        final TestElement first = new TestElement("First", 1L);
+        final TestElement second = new TestElement("Second", 2L);
+        elementHost.register(first);
+        elementHost.register(second);
+        elementHost.init();
+
+        transport.publish(ShowCommand.GO(0L).serialize());
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(1, first.showCount.get());
+        assertEquals(1, second.showCount.get());
+        assertEquals(1, transport.getSubscriptionCount());
+        elementHost.close();
+        assertEquals(0, transport.getSubscriptionCount());
+
+        cancelRunningLoop(first);
+        cancelRunningLoop(second);
+        transport.close();
+    }
+
+    @Test
+    public void testDelivery_shutdownOnControlTransport() throws Exception {
+        final InJvmTransport transport = new InJvmTransport("test");
+        final InJvmTransport controlTransport = new InJvmTransport("test-control");
+        final ElementHost elementHost = new ElementHost(testHostName, transport, controlTransport);
+        final TestElement north = new TestElement("North", 1L);
+        final TestElement south = new TestElement("South", 2L);
+        north.setZone("north");
+        elementHost.register(north);
+        elementHost.register(south);
+        elementHost.init();
+
+        final SCFJMessage go = ShowCommand.GO(0L);
+        controlTransport.publish(go.serialize());
+        final SCFJMessage shutdown = ShowCommand.SHUTDOWN();
+        shutdown.setZone("north");
+        controlTransport.publish(shutdown.serialize());
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(0, north.showCount.get());
+        assertEquals(1, north.shutdownCount.get());
+        assertEquals(ElementState.SHUTDOWN, north.getState());
+        assertEquals(0, south.shutdownCount.get());
+        assertEquals(1, controlTransport.getSubscriptionCount());
+        elementHost.close();
+        assertEquals(0, controlTransport.getSubscriptionCount());
+
+        cancelRunningLoop(south);
+        transport.close();
+        controlTransport.close();
+    }
+
+    @Test
+    public void testDelivery_onlyToAddressedElements() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final TestElement north = new TestElement("North", 1L);
+        final TestElement south = new TestElement("South", 2L);
+        north.setZone("north");
+        south.setZone("south");
+        elementHost.register(north);
+        elementHost.register(south);
+        elementHost.init();
+
+        final SCFJMessage message = ShowCommand.GO(0L);
+        message.setZone("north");
+        elementHost.handleMessage(message);
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(1, north.showCount.get());
+        assertEquals(0, south.showCount.get());
+
+        cancelRunningLoop(north);
+        cancelRunningLoop(south);
+    }
+
+    @Test
+    public void testHandleMessage_addressedShutdownKeepsHostRunning() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final TestElement north = new TestElement("North", 1L);
+        final TestElement south = new TestElement("South", 2L);
+        north.setZone("north");
+        elementHost.register(north);
+        elementHost.register(south);
+
+        final SCFJMessage message = ShowCommand.SHUTDOWN();
+        message.setZone("north");
+        elementHost.handleMessage(message);
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        assertEquals(1, north.shutdownCount.get());
+        assertEquals(0, south.shutdownCount.get());
+        assertEquals(ElementState.SHUTDOWN, north.getState());
+        assertEquals(1L, north.getStopLatency().getCount());
+        assertEquals(0L, south.getStopLatency().getCount());
+    }
+
+    @Test
+    public void testRegister_afterInitStartsElement() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        elementHost.init();
+
+        final TestElement late = new TestElement("Late", 3L);
+        elementHost.register(late);
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(elementHost, late.getHost());
+        assertTrue(late.idleCount.get() > 0);
+        assertEquals(1, elementHost.getElements().size());
+
+        cancelRunningLoop(late);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegister_alreadyHosted() {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final ElementHost otherHost = new ElementHost("Other", mockMessageExchange, mockBrokerConnectionFactory);
+        final TestElement element = new TestElement("Element", 4L);
+        otherHost.init();
+        otherHost.register(element);
+
+        elementHost.register(element);
+    }
+
+    @Test
+    public void testHandleMessage_shutdownRunsEveryShutdownProcedureAndExitsOnce() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final TestElement first = new TestElement("First", 1L);
+        final TestElement second = new TestElement("Second", 2L);
+        elementHost.register(first);
+        elementHost.register(second);
+
+        exit.expectSystemExitWithStatus(0);
+        exit.checkAssertionAfterwards(() -> {
+            assertEquals(1, first.shutdownCount.get());
+            assertEquals(1, second.shutdownCount.get());
+        });
+        elementHost.handleMessage(ShowCommand.SHUTDOWN());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        elementHost.init();
+
+        elementHost.close();
+        elementHost.close();
+
+        // each of the two subscriptions, on the show exchange and its control lane, is cancelled once.
+        verify(mockChannel, times(2)).basicCancel("tag");
+    }
+
+    @Test
+    public void testHandleMessage_armsElementsAndKeepsOriginOfLateGo() throws Exception {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+        final long[] pausedNanos = {0L};
+        final TestElement element = new TestElement("First", 1L) {
+            @Override
+            protected void showSequence() throws InterruptedException {
+                final long start = System.nanoTime();
+                pauseUntil(400);
+                pausedNanos[0] = System.nanoTime() - start;
+                super.showSequence();
+            }
+        };
+        elementHost.register(element);
+
+        final SCFJMessage late = ShowCommand.GO(0L);
+        late.setStartTime(System.currentTimeMillis() - 300L);
+        elementHost.handleMessage(late);
+        TimeUnit.MILLISECONDS.sleep(1000);
+
+        assertEquals(1, element.showCount.get());
+        // the show started 300 ms ago, so only the last 100 ms of the pause is left to wait.
+        assertTrue(pausedNanos[0] < TimeUnit.MILLISECONDS.toNanos(300));
+
+        elementHost.handleMessage(ShowCommand.GO(200L));
+        assertEquals(ElementState.ARMED, element.getState());
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertEquals(2, element.showCount.get());
+
+        cancelRunningLoop(element);
+    }
+
+    @Test
+    public void testToString() {
+        final ElementHost elementHost = new ElementHost(testHostName, mockMessageExchange, mockBrokerConnectionFactory);
+
+        assertEquals("ElementHost(name=Test Host Name)", elementHost.toString());
+    }
+
+    //------------------------------------ HELPER METHODS ------------------------------------//
+
+    private static void cancelRunningLoop(final ShowElement showElement) throws Exception {
+        final Future runningFuture = showElement.getRunningFuture();
+        if (runningFuture != null) {
+            runningFuture.cancel(true);
+        }
+    }
+
+    private class TestElement extends ShowElement {
+
+        private final AtomicInteger showCount = new AtomicInteger();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final AtomicInteger shutdownCount = new AtomicInteger();
+
+        private TestElement(final String name, final Long id) {
+            super(name, id, mockMessageExchange, mockBrokerConnectionFactory);
+        }
+
+        @Override
+        protected void showSequence() throws InterruptedException {
+            showCount.incrementAndGet();
+        }
+
+        @Override
+        protected void idleLoop() throws InterruptedException {
+            idleCount.incrementAndGet();
+            pause(10);
+        }
+
+        @Override
+        protected void shutdownProcedure() {
+            shutdownCount.incrementAndGet();
+        }
+    }
+
+}
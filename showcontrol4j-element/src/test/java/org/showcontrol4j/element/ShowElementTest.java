@@ -1,7 +1,9 @@
 package org.showcontrol4j.element;
 
+import com.rabbitmq.client.CancelCallback;
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
 import com.rabbitmq.client.impl.AMQImpl;
 import junit.framework.TestCase;
 import org.hamcrest.CoreMatchers;
@@ -10,26 +12,42 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.contrib.java.lang.system.ExpectedSystemExit;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.clock.ClockSyncClient;
+import org.showcontrol4j.clock.SystemShowClock;
+import org.showcontrol4j.element.timeline.Timeline;
 import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.execution.ExecutionEngine;
+import org.showcontrol4j.idle.IdleStrategies;
 import org.showcontrol4j.message.Instruction;
 import org.showcontrol4j.message.SCFJMessage;
 import org.showcontrol4j.message.ShowCommand;
+import org.showcontrol4j.transport.InJvmTransport;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -51,8 +69,6 @@ public class ShowElementTest {
     @Mock
     private BrokerConnectionFactory mockBrokerConnectionFactory;
     @Mock
-    private Connection mockConnection;
-    @Mock
     private Channel mockChannel;
     @Mock
     private AMQImpl.Exchange.DeclareOk mockExchangeDeclareOk;
@@ -170,7 +186,7 @@ public class ShowElementTest {
         assertTrue(ranShowSequence[0]);
         assertTrue(ranIdleLoop[0]);
 
-        shutdownExecutorOnShowElementBase(showElement);
+        cancelRunningLoop(showElement);
     }
 
     @Test
@@ -209,7 +225,7 @@ public class ShowElementTest {
 
         assertEquals(2, showSequenceCounter[0]);
 
-        shutdownExecutorOnShowElementBase(showElement);
+        cancelRunningLoop(showElement);
     }
 
     @Test
@@ -243,7 +259,43 @@ public class ShowElementTest {
         TimeUnit.MILLISECONDS.sleep(5000); // wait for start time
         assertTrue(ranShowSequence[0]);
 
-        shutdownExecutorOnShowElementBase(showElement);
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testHandleMessage_doesNotBlockAndRecordsStartJitter() throws Exception {
+        setupMockRules();
+        final long[] startedAt = {0L};
+        final SCFJMessage testGoSCFJMessageWithStartTime = ShowCommand.GO(500L);
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                startedAt[0] = System.currentTimeMillis();
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        final long beforeHandle = System.currentTimeMillis();
+        getHandleMessageMethod().invoke(showElement, testGoSCFJMessageWithStartTime);
+        assertTrue(System.currentTimeMillis() - beforeHandle < 100);
+
+        TimeUnit.MILLISECONDS.sleep(1000);
+        assertTrue(startedAt[0] >= testGoSCFJMessageWithStartTime.getStartTime());
+        assertTrue(startedAt[0] - testGoSCFJMessageWithStartTime.getStartTime() < 50);
+        assertEquals(1L, showElement.getStartJitter().getCount());
+        assertTrue(showElement.getStartJitter().getMaxNanos() < TimeUnit.MILLISECONDS.toNanos(50));
+
+        cancelRunningLoop(showElement);
     }
 
     @Test
@@ -275,7 +327,48 @@ public class ShowElementTest {
 
         assertTrue(ranIdleLoop[0]);
 
-        shutdownExecutorOnShowElementBase(showElement);
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testHandleMessage_idleMessageWithFixedRateIdleStrategy() throws Exception {
+        setupMockRules();
+        final int[] idleLoopCounter = {0};
+        final long[] showStartedAt = {0L};
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showStartedAt[0] = System.nanoTime();
+                pause(10_000);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                idleLoopCounter[0]++;
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+        showElement.setIdleStrategy(IdleStrategies.fixedRate(20.0));
+
+        getHandleMessageMethod().invoke(showElement, testIdleSCFJMessage);
+        TimeUnit.MILLISECONDS.sleep(500);
+        final int idleIterations = idleLoopCounter[0];
+        assertTrue(idleIterations >= 5);
+        assertTrue(idleIterations <= 12);
+
+        final long goSentAt = System.nanoTime();
+        getHandleMessageMethod().invoke(showElement, testGoSCFJMessage);
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertTrue(showStartedAt[0] - goSentAt < TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(idleLoopCounter[0] <= idleIterations + 1);
+
+        cancelRunningLoop(showElement);
     }
 
     @Test
@@ -308,7 +401,747 @@ public class ShowElementTest {
 
         assertTrue(ranShutdownProcedure[0]);
 
-        shutdownExecutorOnShowElementBase(showElement);
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testDispatch_neverRunsTwoSequencesAtOnce() throws Exception {
+        setupMockRules();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final AtomicInteger started = new AtomicInteger();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                started.incrementAndGet();
+                try {
+                    // ignore the first interrupt, as a slow piece of hardware might, before giving up.
+                    final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                    pause(1000);
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        final Thread[] senders = new Thread[4];
+        for (int i = 0; i < senders.length; i++) {
+            senders[i] = new Thread(() -> {
+                for (int j = 0; j < 25; j++) {
+                    showElement.dispatch(testGoSCFJMessage, System.nanoTime());
+                }
+            });
+            senders[i].start();
+        }
+        for (final Thread sender : senders) {
+            sender.join();
+        }
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertTrue(started.get() >= 1);
+        assertEquals(1, maxActive.get());
+        assertEquals(ElementState.RUNNING, showElement.getState());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testState_transitions() throws Exception {
+        setupMockRules();
+        final boolean[] ranShutdownProcedure = {false};
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                pause(300);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                ranShutdownProcedure[0] = true;
+            }
+        };
+        assertEquals(ElementState.IDLE, showElement.getState());
+
+        getHandleMessageMethod().invoke(showElement, ShowCommand.GO(200L));
+        assertEquals(ElementState.ARMED, showElement.getState());
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(ElementState.RUNNING, showElement.getState());
+
+        TimeUnit.MILLISECONDS.sleep(400);
+        assertEquals(ElementState.IDLE, showElement.getState());
+
+        final Future idleFuture = showElement.getRunningFuture();
+        showElement.shutdown();
+        assertEquals(ElementState.SHUTDOWN, showElement.getState());
+        assertTrue(idleFuture.isDone());
+        assertTrue(ranShutdownProcedure[0]);
+
+        getHandleMessageMethod().invoke(showElement, testGoSCFJMessage);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertEquals(ElementState.SHUTDOWN, showElement.getState());
+        assertSame(idleFuture, showElement.getRunningFuture());
+    }
+
+    @Test
+    public void testState_goThenIdleBeforeStartTime() throws Exception {
+        setupMockRules();
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                pause(1000);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        final SCFJMessage go = ShowCommand.GO(200L);
+        final SCFJMessage idle = ShowCommand.IDLE(200L);
+        // start the IDLE just after the GO, so the GO is either superseded before it starts or preempted straight away.
+        idle.setStartTime(go.getStartTime() + 1L);
+        getHandleMessageMethod().invoke(showElement, go);
+        getHandleMessageMethod().invoke(showElement, idle);
+        assertEquals(ElementState.ARMED, showElement.getState());
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(ElementState.IDLE, showElement.getState());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testShutdown_ignoresLoopThatNeverExits() throws Exception {
+        setupMockRules();
+        final boolean[] ranShutdownProcedure = {false};
+        final AtomicBoolean release = new AtomicBoolean();
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                // ignore interrupts, as a loop stuck in uninterruptible I/O would.
+                while (!release.get()) {
+                    Thread.onSpinWait();
+                }
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                ranShutdownProcedure[0] = true;
+            }
+        };
+        showElement.dispatch(testIdleSCFJMessage, System.nanoTime());
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        final long start = System.nanoTime();
+        showElement.shutdown();
+
+        assertTrue(ranShutdownProcedure[0]);
+        assertEquals(ElementState.SHUTDOWN, showElement.getState());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+        release.set(true);
+    }
+
+    @Test
+    public void testShutdown_leavesSharedExecutionEngineRunning() throws Exception {
+        setupMockRules();
+        final ExecutionEngine executionEngine = ExecutionEngine.platform(4);
+        final int[] idleCounters = {0, 0};
+        final boolean[] ranShutdownProcedure = {false};
+
+        final ShowElement first = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory, executionEngine) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                idleCounters[0]++;
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                ranShutdownProcedure[0] = true;
+            }
+        };
+        final ShowElement second = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory, executionEngine) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                idleCounters[1]++;
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        first.init();
+        second.init();
+        TimeUnit.MILLISECONDS.sleep(500);
+        assertEquals(executionEngine, first.getExecutionEngine());
+        assertEquals(0, executionEngine.getThreadCount());
+        assertTrue(executionEngine.getTickThreadCount() <= ExecutionEngine.DEFAULT_TICK_THREADS);
+
+        first.shutdown();
+        TimeUnit.MILLISECONDS.sleep(100);
+        final int firstStopped = idleCounters[0];
+        final int secondRunning = idleCounters[1];
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        assertTrue(ranShutdownProcedure[0]);
+        assertFalse(executionEngine.isShutdown());
+        assertEquals(firstStopped, idleCounters[0]);
+        assertTrue(idleCounters[1] > secondRunning);
+
+        executionEngine.shutdownNow();
+    }
+
+    @Test
+    public void testIdleElements_holdNoEngineThreads() throws Exception {
+        final ExecutionEngine executionEngine = ExecutionEngine.platform(ExecutionEngine.DEFAULT_MAX_THREADS);
+        final InJvmTransport transport = new InJvmTransport("idle");
+        final int elementCount = 200;
+        final AtomicInteger iterations = new AtomicInteger();
+        final ShowElement[] elements = new ShowElement[elementCount];
+        for (int i = 0; i < elementCount; i++) {
+            elements[i] = new ShowElement(testElementName, (long) i, transport, executionEngine) {
+                @Override
+                public void showSequence() throws InterruptedException {
+                    // do nothing
+                }
+
+                @Override
+                public void idleLoop() throws InterruptedException {
+                    iterations.incrementAndGet();
+                }
+
+                @Override
+                public void shutdownProcedure() {
+                    // do nothing
+                }
+            };
+            elements[i].setIdleStrategy(IdleStrategies.fixedRate(20.0));
+            elements[i].dispatch(ShowCommand.IDLE(0L), System.nanoTime());
+        }
+
+        TimeUnit.MILLISECONDS.sleep(500);
+        final int running = iterations.get();
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        // every element keeps idling on the few shared tick threads without taking a loop thread of its own.
+        assertTrue(running >= elementCount);
+        assertTrue(iterations.get() - running >= elementCount * 5);
+        assertEquals(0, executionEngine.getThreadCount());
+        assertTrue(executionEngine.getTickThreadCount() <= ExecutionEngine.DEFAULT_TICK_THREADS + 2);
+        for (final ShowElement element : elements) {
+            assertEquals(ElementState.IDLE, element.getState());
+            element.shutdown();
+        }
+        executionEngine.shutdownNow();
+    }
+
+    @Test
+    public void testEnableClockSync() throws Exception {
+        setupMockRules();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        assertEquals(SystemShowClock.INSTANCE, showElement.getShowClock());
+        final ClockSyncClient clockSyncClient = showElement.enableClockSync();
+        assertEquals(clockSyncClient, showElement.getShowClock());
+        clockSyncClient.close();
+    }
+
+    @Test
+    public void testInit_inJvmTransport() throws Exception {
+        final InJvmTransport transport = new InJvmTransport("test");
+        final CountDownLatch ranShowSequence = new CountDownLatch(1);
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, transport) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                ranShowSequence.countDown();
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+        showElement.init();
+        transport.publish(ShowCommand.GO(0L).serialize());
+
+        assertTrue(ranShowSequence.await(1, TimeUnit.SECONDS));
+        assertEquals(transport, showElement.getTransport());
+        assertNull(showElement.getBrokerConnectionFactory());
+        cancelRunningLoop(showElement);
+        transport.close();
+    }
+
+    @Test
+    public void testHandleMessage_ignoresMessageAddressedElsewhere() throws Exception {
+        final InJvmTransport transport = new InJvmTransport("test");
+        final AtomicInteger showCount = new AtomicInteger();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, transport) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showCount.incrementAndGet();
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+        showElement.setZone("north");
+        showElement.init();
+        final SCFJMessage south = ShowCommand.GO(0L);
+        south.setZone("south");
+        transport.publish(south.serialize());
+        final SCFJMessage other = ShowCommand.GO(0L);
+        other.setElementId(testElementId + 1);
+        transport.publish(other.serialize());
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(0, showCount.get());
+
+        final SCFJMessage north = ShowCommand.GO(0L);
+        north.setZone("north");
+        transport.publish(north.serialize());
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(1, showCount.get());
+        assertTrue(showElement.getRoutingKeys().contains("zone.north.group.all.element." + testElementId));
+
+        cancelRunningLoop(showElement);
+        transport.close();
+    }
+
+    @Test
+    public void testHandleMessage_shutdownOnControlTransport() throws Exception {
+        final InJvmTransport transport = new InJvmTransport("test");
+        final InJvmTransport controlTransport = new InJvmTransport("test-control");
+        final AtomicInteger showCount = new AtomicInteger();
+        final boolean[] ranShutdownProcedure = {false};
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, transport, controlTransport,
+                ExecutionEngine.shared()) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showCount.incrementAndGet();
+                pause(10000);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                ranShutdownProcedure[0] = true;
+            }
+        };
+        showElement.init();
+        controlTransport.publish(ShowCommand.GO(0L).serialize());
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(0, showCount.get());
+
+        transport.publish(ShowCommand.GO(0L).serialize());
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(1, showCount.get());
+
+        exit.expectSystemExitWithStatus(0);
+        controlTransport.publish(ShowCommand.SHUTDOWN().serialize());
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        assertTrue(ranShutdownProcedure[0]);
+        assertEquals(ElementState.SHUTDOWN, showElement.getState());
+        assertEquals(1L, showElement.getStopLatency().getCount());
+        assertTrue(showElement.getStopLatency().getMaxNanos() < TimeUnit.MILLISECONDS.toNanos(500));
+        transport.close();
+        controlTransport.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEnableClockSync_withoutBroker() throws Exception {
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, new InJvmTransport("test")) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                // do nothing
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        showElement.enableClockSync();
+    }
+
+    @Test
+    public void testHandleMessage_dropsExpiredMessage() throws Exception {
+        setupMockRules();
+        final AtomicInteger showCount = new AtomicInteger();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showCount.incrementAndGet();
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+        showElement.setCommandTtlMillis(1000L);
+
+        final SCFJMessage stale = ShowCommand.GO(0L);
+        stale.setStartTime(System.currentTimeMillis() - 2000L);
+        getHandleMessageMethod().invoke(showElement, stale);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(0, showCount.get());
+        assertEquals(1L, showElement.getExpiredCount());
+
+        final SCFJMessage late = ShowCommand.GO(0L);
+        late.setStartTime(System.currentTimeMillis() - 500L);
+        getHandleMessageMethod().invoke(showElement, late);
+        TimeUnit.MILLISECONDS.sleep(200);
+        assertEquals(1, showCount.get());
+        assertEquals(1L, showElement.getExpiredCount());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testDispatch_coalescesBurstToNewestMessage() throws Exception {
+        setupMockRules();
+        final AtomicBoolean release = new AtomicBoolean();
+        final AtomicInteger showCount = new AtomicInteger();
+        final AtomicInteger idleCount = new AtomicInteger();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showCount.incrementAndGet();
+                // ignore interrupts, as slow hardware might, so the burst piles up behind this sequence.
+                while (!release.get()) {
+                    Thread.onSpinWait();
+                }
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                idleCount.incrementAndGet();
+                pause(1000);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        showElement.dispatch(testGoSCFJMessage, System.nanoTime());
+        TimeUnit.MILLISECONDS.sleep(100);
+        for (int i = 0; i < 10; i++) {
+            showElement.dispatch(testGoSCFJMessage, System.nanoTime());
+        }
+        showElement.dispatch(testIdleSCFJMessage, System.nanoTime());
+        release.set(true);
+        TimeUnit.MILLISECONDS.sleep(300);
+
+        assertEquals(1, showCount.get());
+        assertTrue(idleCount.get() >= 1);
+        assertEquals(10L, showElement.getCoalescedCount());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testHandleMessage_neverExpiresShutdown() throws Exception {
+        setupMockRules();
+        final boolean[] ranShutdownProcedure = {false};
+        final AtomicInteger showCount = new AtomicInteger();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showCount.incrementAndGet();
+                pause(1000);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                pause(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                ranShutdownProcedure[0] = true;
+            }
+        };
+        showElement.setCommandTtlMillis(1L);
+
+        showElement.dispatch(testGoSCFJMessage, System.nanoTime());
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        exit.expectSystemExitWithStatus(0);
+        exit.checkAssertionAfterwards(() -> {
+            assertTrue(ranShutdownProcedure[0]);
+            assertEquals(1, showCount.get());
+            assertEquals(ElementState.SHUTDOWN, showElement.getState());
+        });
+        final SCFJMessage stale = ShowCommand.SHUTDOWN();
+        stale.setStartTime(System.currentTimeMillis() - 2000L);
+        showElement.handleMessage(stale);
+    }
+
+    @Test
+    public void testPlay_timelineFromStartTime() throws Exception {
+        setupMockRules();
+        final long[] firedAt = new long[3];
+        final SCFJMessage testGoSCFJMessageWithStartTime = ShowCommand.GO(300L);
+        final Timeline timeline = Timeline.builder()
+                .at(0, TimeUnit.MILLISECONDS, () -> firedAt[0] = System.currentTimeMillis())
+                .at(50, TimeUnit.MILLISECONDS, () -> firedAt[1] = System.currentTimeMillis())
+                .at(100, TimeUnit.MILLISECONDS, () -> firedAt[2] = System.currentTimeMillis())
+                .build();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                play(timeline);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        getHandleMessageMethod().invoke(showElement, testGoSCFJMessageWithStartTime);
+        TimeUnit.MILLISECONDS.sleep(1000);
+
+        final long startTime = testGoSCFJMessageWithStartTime.getStartTime();
+        for (int i = 0; i < firedAt.length; i++) {
+            assertTrue(firedAt[i] >= startTime + i * 50L);
+            assertTrue(firedAt[i] - (startTime + i * 50L) < 50);
+        }
+        assertEquals(3L, showElement.getCueLateness().getCount());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testPauseStep_doesNotDrift() throws Exception {
+        setupMockRules();
+        final long[] finishedAt = {0L};
+        final SCFJMessage testGoSCFJMessageWithStartTime = ShowCommand.GO(200L);
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                for (int i = 0; i < 40; i++) {
+                    // each step overruns by a millisecond, which pause() would add to the length of the show.
+                    TimeUnit.MILLISECONDS.sleep(1);
+                    pauseStep(5);
+                }
+                pauseUntil(200);
+                finishedAt[0] = System.currentTimeMillis();
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+        showElement.setSpinThresholdNanos(TimeUnit.MICROSECONDS.toNanos(100));
+
+        getHandleMessageMethod().invoke(showElement, testGoSCFJMessageWithStartTime);
+        TimeUnit.MILLISECONDS.sleep(1000);
+
+        final long planned = testGoSCFJMessageWithStartTime.getStartTime() + 200L;
+        assertTrue(finishedAt[0] >= planned);
+        assertTrue(finishedAt[0] - planned < 30);
+        assertEquals(41L, showElement.getPauseOvershoot().getCount());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testJoin_fastForwardsIntoRunningShow() throws Exception {
+        setupMockRules();
+        final long[] firedAt = new long[3];
+        final SCFJMessage runningGo = ShowCommand.GO(-1000L);
+        final Timeline timeline = Timeline.builder()
+                .at(0, TimeUnit.MILLISECONDS, () -> firedAt[0] = System.currentTimeMillis())
+                .at(800, TimeUnit.MILLISECONDS, () -> firedAt[1] = System.currentTimeMillis())
+                .at(1500, TimeUnit.MILLISECONDS, () -> firedAt[2] = System.currentTimeMillis())
+                .build();
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                pauseUntil(0L);
+                play(timeline);
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+        showElement.setCommandTtlMillis(100L);
+
+        final long joinedAt = System.currentTimeMillis();
+        showElement.join(runningGo);
+        TimeUnit.MILLISECONDS.sleep(1000);
+
+        // the first cue was due a second before the join, past the tolerance, and the second only 200 ms before it.
+        assertEquals(0L, firedAt[0]);
+        assertTrue(firedAt[1] - joinedAt < 100);
+        assertTrue(firedAt[2] >= runningGo.getStartTime() + 1500L);
+        assertTrue(firedAt[2] - (runningGo.getStartTime() + 1500L) < 50);
+        assertEquals(0L, showElement.getExpiredCount());
+        assertEquals(1L, showElement.getCueLateness().getCount());
+        assertEquals(0L, showElement.getPauseOvershoot().getCount());
+
+        cancelRunningLoop(showElement);
+    }
+
+    @Test
+    public void testJoinShow_fetchesShowState() throws Exception {
+        setupMockRules();
+        final AtomicInteger showCount = new AtomicInteger();
+        final byte[] snapshot = snapshotOf(ShowCommand.GO(-500L), new SCFJMessage(Instruction.GO, 1L, "south", null, null));
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        when(mockChannel.basicConsume(anyString(), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class)))
+                .thenReturn("consumer");
+        doAnswer(invocation -> {
+            callbackCaptor.getValue().handle("consumer", new Delivery(null, null, snapshot));
+            return null;
+        }).when(mockChannel).basicPublish(eq(""), eq("test.state"), any(), any());
+        when(mockMessageExchange.getName()).thenReturn("test");
+
+        final ShowElement showElement = new ShowElement(testElementName, testElementId, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            public void showSequence() throws InterruptedException {
+                showCount.incrementAndGet();
+            }
+
+            @Override
+            public void idleLoop() throws InterruptedException {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+
+            @Override
+            public void shutdownProcedure() {
+                // do nothing
+            }
+        };
+
+        final SCFJMessage joined = showElement.joinShow();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(Instruction.GO, joined.getInstruction());
+        assertNull(joined.getZone());
+        assertEquals(1, showCount.get());
+        verify(mockChannel).close();
+
+        cancelRunningLoop(showElement);
     }
 
     @Test
@@ -339,14 +1172,23 @@ public class ShowElementTest {
     //------------------------------------ HELPER METHODS ------------------------------------//
 
     private void setupMockRules() throws IOException, TimeoutException {
-        when(mockBrokerConnectionFactory.newConnection()).thenReturn(mockConnection);
-        when(mockConnection.createChannel()).thenReturn(mockChannel);
+        when(mockBrokerConnectionFactory.openChannel()).thenReturn(mockChannel);
         when(mockChannel.exchangeDeclare(anyString(), anyString())).thenReturn(mockExchangeDeclareOk);
         when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
         when(mockQueueDeclareOk.getQueue()).thenReturn("test");
         when(mockChannel.queueBind(anyString(), anyString(), anyString())).thenReturn(mockBindOk);
     }
 
+    private static byte[] snapshotOf(final SCFJMessage... commands) throws IOException {
+        final ByteBuffer snapshot = ByteBuffer.allocate(1024);
+        snapshot.putInt(commands.length);
+        for (final SCFJMessage command : commands) {
+            final byte[] body = command.serialize();
+            snapshot.putInt(body.length).put(body);
+        }
+        return snapshot.array();
+    }
+
     private static Method getHandleMessageMethod() {
         Method handleMessageMethod = null;
         try {
@@ -359,11 +1201,11 @@ public class ShowElementTest {
         return handleMessageMethod;
     }
 
-    private static void shutdownExecutorOnShowElementBase(final ShowElement showElementBase) throws Exception {
-        final Field executorField = ShowElement.class.getDeclaredField("executor");
-        executorField.setAccessible(true);
-        final ExecutorService executorService = (ExecutorService) executorField.get(showElementBase);
-        executorService.shutdownNow();
+    private static void cancelRunningLoop(final ShowElement showElementBase) throws Exception {
+        final Future runningFuture = showElementBase.getRunningFuture();
+        if (runningFuture != null) {
+            runningFuture.cancel(true);
+        }
     }
 
     private static class TestTask implements Runnable {
@@ -0,0 +1,35 @@
+package org.showcontrol4j.element.pwm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link FadeCurve} class.
+ *
+ * @author James Hare
+ */
+public class FadeCurveTest {
+
+    @Test
+    public void testTable_endpointsAndMonotonic() {
+        for (final FadeCurve curve : FadeCurve.values()) {
+            final int[] table = curve.table(1024, 100);
+
+            assertEquals(1025, table.length);
+            assertEquals(0, table[0]);
+            assertEquals(100, table[1024]);
+            for (int level = 1; level < table.length; level++) {
+                assertTrue(curve + " is not monotonic at level " + level, table[level] >= table[level - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testTable_gammaDimmerThanLinear() {
+        assertEquals(50, FadeCurve.LINEAR.table(1024, 100)[512]);
+        assertEquals(22, FadeCurve.GAMMA.table(1024, 100)[512]);
+        assertEquals(25, FadeCurve.QUADRATIC.table(1024, 100)[512]);
+    }
+
+}
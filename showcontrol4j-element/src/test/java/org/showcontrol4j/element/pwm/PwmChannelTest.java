@@ -0,0 +1,79 @@
+package org.showcontrol4j.element.pwm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link PwmChannel} class.
+ *
+ * @author James Hare
+ */
+public class PwmChannelTest {
+
+    private SoftPwmEngine engine;
+
+    @Before
+    public void init() {
+        engine = new SoftPwmEngine();
+    }
+
+    @After
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    public void testSetBrightness_clamped() {
+        final PwmChannel channel = engine.add("channel", high -> {
+        }, FadeCurve.LINEAR);
+
+        channel.setBrightness(0.5);
+        assertEquals(0.5, channel.getBrightness(), 0.001);
+        assertEquals(50, channel.dutyAt(System.nanoTime()));
+        channel.setBrightness(7d);
+        assertEquals(1d, channel.getBrightness(), 0.001);
+        channel.setBrightness(-1d);
+        assertEquals(0d, channel.getBrightness(), 0.001);
+        assertFalse(channel.isFading());
+    }
+
+    @Test
+    public void testFadeTo_rampsLinearly() throws Exception {
+        final PwmChannel channel = engine.add("channel", high -> {
+        }, FadeCurve.LINEAR);
+
+        final long start = System.nanoTime();
+        channel.fadeTo(1d, 1, TimeUnit.SECONDS);
+
+        assertTrue(channel.isFading());
+        assertEquals(0, channel.dutyAt(start - 1L));
+        assertEquals(50, channel.dutyAt(start + TimeUnit.MILLISECONDS.toNanos(500)), 1);
+        assertEquals(100, channel.dutyAt(start + TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    @Test
+    public void testFadeTo_carriesOnFromRunningFade() throws Exception {
+        final PwmChannel channel = engine.add("channel", high -> {
+        }, FadeCurve.LINEAR);
+        channel.fadeTo(1d, 200, TimeUnit.MILLISECONDS);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        channel.fadeTo(0d, 10, TimeUnit.SECONDS);
+
+        final double brightness = channel.getBrightness();
+        assertTrue(brightness > 0.2 && brightness < 0.9);
+        assertTrue(channel.isFading());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetBrightness_notANumber() {
+        engine.add("channel", high -> {
+        }).setBrightness(Double.NaN);
+    }
+
+}
@@ -0,0 +1,171 @@
+package org.showcontrol4j.element.pwm;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link SoftPwmEngine} class.
+ *
+ * @author James Hare
+ */
+public class SoftPwmEngineTest {
+
+    private SoftPwmEngine engine;
+
+    @Before
+    public void init() {
+        engine = new SoftPwmEngine(50, 20);
+    }
+
+    @After
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Test
+    public void testDutyCycle() throws Exception {
+        final RecordingOutput half = new RecordingOutput();
+        final RecordingOutput quarter = new RecordingOutput();
+        engine.add("half", half, FadeCurve.LINEAR).setBrightness(0.5);
+        engine.add("quarter", quarter, FadeCurve.LINEAR).setBrightness(0.25);
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        half.reset();
+        quarter.reset();
+        TimeUnit.MILLISECONDS.sleep(1000);
+
+        assertEquals(0.5, half.highFraction(), 0.15);
+        assertEquals(0.25, quarter.highFraction(), 0.15);
+        assertTrue(half.writes.get() > 40);
+        assertTrue(engine.getPeriodJitter().getCount() > 0);
+    }
+
+    @Test
+    public void testFullyOnAndOff_writeOnce() throws Exception {
+        final RecordingOutput on = new RecordingOutput();
+        final RecordingOutput off = new RecordingOutput();
+        engine.add("on", on).setBrightness(1d);
+        engine.add("off", off).setBrightness(0d);
+
+        TimeUnit.MILLISECONDS.sleep(100);
+        // the engine may drive "on" low once before its brightness is set, but never again after.
+        final int onWrites = on.writes.get();
+        final int offWrites = off.writes.get();
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertTrue(onWrites <= 2);
+        assertEquals(onWrites, on.writes.get());
+        assertTrue(on.high);
+        assertEquals(1, offWrites);
+        assertEquals(offWrites, off.writes.get());
+        assertFalse(off.high);
+    }
+
+    @Test
+    public void testRemove_leavesOutputLow() throws Exception {
+        final RecordingOutput output = new RecordingOutput();
+        final PwmChannel channel = engine.add("channel", output);
+        channel.setBrightness(1d);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue(output.high);
+
+        channel.close();
+        final int writes = output.writes.get();
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertFalse(output.high);
+        assertEquals(writes, output.writes.get());
+        assertEquals(0, engine.getChannelCount());
+    }
+
+    @Test
+    public void testRemove_doesNotWaitForThePeriod() throws Exception {
+        final SoftPwmEngine slowEngine = new SoftPwmEngine(2, 20);
+        try {
+            final RecordingOutput output = new RecordingOutput();
+            final PwmChannel channel = slowEngine.add("channel", output, FadeCurve.LINEAR);
+            channel.setBrightness(0.75);
+            TimeUnit.MILLISECONDS.sleep(700);
+
+            // the engine is partway through a half second period that still holds the channel.
+            final long started = System.nanoTime();
+            channel.close();
+            final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            final int writes = output.writes.get();
+            TimeUnit.MILLISECONDS.sleep(600);
+
+            assertTrue(elapsedMillis < 100);
+            assertFalse(output.high);
+            assertEquals(writes, output.writes.get());
+            assertEquals(0, slowEngine.getChannelCount());
+        } finally {
+            slowEngine.close();
+        }
+    }
+
+    @Test
+    public void testManyChannels() throws Exception {
+        final RecordingOutput[] outputs = new RecordingOutput[50];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = new RecordingOutput();
+            engine.add("channel " + i, outputs[i], FadeCurve.LINEAR).fadeTo(1d, 200, TimeUnit.MILLISECONDS);
+        }
+
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        for (final RecordingOutput output : outputs) {
+            assertTrue(output.high);
+        }
+        assertEquals(50, engine.getChannelCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAdd_closed() {
+        engine.close();
+        engine.add("channel", high -> {
+        });
+    }
+
+    /**
+     * An output that keeps track of how long it has been high.
+     */
+    static final class RecordingOutput implements PwmOutput {
+
+        final AtomicInteger writes = new AtomicInteger();
+        volatile boolean high;
+        private long highSince;
+        private long highNanos;
+        private long startNanos = System.nanoTime();
+
+        @Override
+        public synchronized void write(final boolean value) {
+            writes.incrementAndGet();
+            final long now = System.nanoTime();
+            if (value && !high) {
+                highSince = now;
+            } else if (!value && high) {
+                highNanos += now - highSince;
+            }
+            high = value;
+        }
+
+        synchronized void reset() {
+            startNanos = System.nanoTime();
+            highSince = startNanos;
+            highNanos = 0L;
+        }
+
+        synchronized double highFraction() {
+            final long now = System.nanoTime();
+            final long total = highNanos + (high ? now - highSince : 0L);
+            return (double) total / (now - startNanos);
+        }
+    }
+
+}
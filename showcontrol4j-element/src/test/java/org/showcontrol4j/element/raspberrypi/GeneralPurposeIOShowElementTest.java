@@ -2,7 +2,6 @@ package org.showcontrol4j.element.raspberrypi;
 
 import com.pi4j.io.gpio.*;
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.impl.AMQImpl;
 import org.hamcrest.CoreMatchers;
 import org.junit.*;
@@ -11,6 +10,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
 import org.showcontrol4j.element.ShowElement;
+import org.showcontrol4j.element.pwm.SoftPwmEngine;
 import org.showcontrol4j.exchange.MessageExchange;
 import org.showcontrol4j.message.SCFJMessage;
 import org.showcontrol4j.message.ShowCommand;
@@ -22,6 +22,7 @@ import java.lang.reflect.Modifier;
 import java.util.EnumSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -47,8 +48,6 @@ public class GeneralPurposeIOShowElementTest {
     @Mock
     private BrokerConnectionFactory mockBrokerConnectionFactory;
     @Mock
-    private Connection mockConnection;
-    @Mock
     private Channel mockChannel;
     @Mock
     private AMQImpl.Exchange.DeclareOk mockExchangeDeclareOk;
@@ -72,8 +71,7 @@ public class GeneralPurposeIOShowElementTest {
     public void init() throws Exception {
         MockitoAnnotations.openMocks(this);
         executor = Executors.newFixedThreadPool(5);
-        when(mockBrokerConnectionFactory.newConnection()).thenReturn(mockConnection);
-        when(mockConnection.createChannel()).thenReturn(mockChannel);
+        when(mockBrokerConnectionFactory.openChannel()).thenReturn(mockChannel);
         when(mockChannel.exchangeDeclare(anyString(), anyString())).thenReturn(mockExchangeDeclareOk);
         when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
         when(mockQueueDeclareOk.getQueue()).thenReturn("test");
@@ -135,7 +133,7 @@ public class GeneralPurposeIOShowElementTest {
         TimeUnit.MILLISECONDS.sleep(1000);
         assertTrue(ranShowSequence[0]);
 
-        shutdownExecutorOnShowElement(generalPurposeIOShowElement);
+        cancelRunningLoop(generalPurposeIOShowElement);
     }
 
     @Test
@@ -164,7 +162,7 @@ public class GeneralPurposeIOShowElementTest {
         TimeUnit.MILLISECONDS.sleep(5000);
         assertTrue(ranShowSequence[0]);
 
-        shutdownExecutorOnShowElement(generalPurposeIOShowElement);
+        cancelRunningLoop(generalPurposeIOShowElement);
     }
 
     @Test
@@ -207,7 +205,7 @@ public class GeneralPurposeIOShowElementTest {
         // idleLoop() will have been called twice after receiving the idle message.
         assertEquals(2, idleLoopCounter[0]);
 
-        shutdownExecutorOnShowElement(generalPurposeIOShowElement);
+        cancelRunningLoop(generalPurposeIOShowElement);
     }
 
     @Test
@@ -249,7 +247,7 @@ public class GeneralPurposeIOShowElementTest {
         // idleLoop() will have been called twice after receiving the idle message.
         assertEquals(2, idleLoopCounter[0]);
 
-        shutdownExecutorOnShowElement(generalPurposeIOShowElement);
+        cancelRunningLoop(generalPurposeIOShowElement);
     }
 
     @Test
@@ -307,6 +305,42 @@ public class GeneralPurposeIOShowElementTest {
         assertTrue(generalPurposeIOShowElement.getPinState().isHigh());
     }
 
+    @Test
+    public void testFadeTo_thenTurnOff() throws Exception {
+        final SoftPwmEngine pwmEngine = new SoftPwmEngine();
+        final GeneralPurposeIOShowElement generalPurposeIOShowElement = new GeneralPurposeIOShowElement(name, id,
+                mockMessageExchange, mockBrokerConnectionFactory, mockIOPin) {
+            @Override
+            protected void showSequence() throws InterruptedException {
+                // do nothing.
+            }
+
+            @Override
+            protected void idleLoop() throws InterruptedException {
+                // do nothing.
+            }
+        };
+        // the shared engine is only looked up the first time the element dims.
+        assertNull(generalPurposeIOShowElement.getPwmEngine());
+        generalPurposeIOShowElement.setPwmEngine(pwmEngine);
+
+        generalPurposeIOShowElement.fadeTo(1d, 200, TimeUnit.MILLISECONDS);
+        assertEquals(1, pwmEngine.getChannelCount());
+        TimeUnit.MILLISECONDS.sleep(400);
+        assertEquals(1d, generalPurposeIOShowElement.getBrightness(), 0.001);
+        assertTrue(generalPurposeIOShowElement.getPinState().isHigh());
+
+        generalPurposeIOShowElement.setBrightness(0.5);
+        assertEquals(0.5, generalPurposeIOShowElement.getBrightness(), 0.001);
+        generalPurposeIOShowElement.turnOff();
+        assertEquals(0, pwmEngine.getChannelCount());
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertTrue(generalPurposeIOShowElement.getPinState().isLow());
+        assertEquals(0d, generalPurposeIOShowElement.getBrightness(), 0.001);
+
+        pwmEngine.close();
+    }
+
     @Test
     public void testTurnOff() {
         final GeneralPurposeIOShowElement generalPurposeIOShowElement = new GeneralPurposeIOShowElement(name, id,
@@ -449,11 +483,11 @@ public class GeneralPurposeIOShowElementTest {
         return handleMessageMethod;
     }
 
-    private static void shutdownExecutorOnShowElement(final GeneralPurposeIOShowElement generalPurposeIOShowElement) throws Exception {
-        final Field executorField = ShowElement.class.getDeclaredField("executor");
-        executorField.setAccessible(true);
-        final ExecutorService executorService = (ExecutorService) executorField.get(generalPurposeIOShowElement);
-        executorService.shutdownNow();
+    private static void cancelRunningLoop(final GeneralPurposeIOShowElement generalPurposeIOShowElement) throws Exception {
+        final Future runningFuture = generalPurposeIOShowElement.getRunningFuture();
+        if (runningFuture != null) {
+            runningFuture.cancel(true);
+        }
     }
 
     private static class TestTask implements Runnable {
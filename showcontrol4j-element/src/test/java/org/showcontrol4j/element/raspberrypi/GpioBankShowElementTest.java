@@ -0,0 +1,148 @@
+package org.showcontrol4j.element.raspberrypi;
+
+import com.pi4j.io.gpio.GpioFactory;
+import com.pi4j.io.gpio.Pin;
+import com.pi4j.io.gpio.PinMode;
+import com.pi4j.io.gpio.PinState;
+import com.pi4j.io.gpio.SimulatedGpioProvider;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.transport.Transport;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the {@link GpioBankShowElement} class.
+ *
+ * @author James Hare
+ */
+public class GpioBankShowElementTest {
+
+    private final String name = "Test Bank";
+    private final Long id = 123456L;
+    static final SimulatedGpioProvider simulator = new SimulatedGpioProvider();
+
+    @Mock
+    private Transport mockTransport;
+    @Mock
+    private EnumSet<PinMode> mockPinModeEnumSet;
+
+    @BeforeClass
+    public static void before_all() {
+        GpioFactory.setDefaultProvider(simulator);
+    }
+
+    @Before
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        when(mockPinModeEnumSet.contains(any(PinMode.class))).thenReturn(true);
+    }
+
+    private Pin[] mockPins(final int count) {
+        final Pin[] pins = new Pin[count];
+        for (int i = 0; i < count; i++) {
+            pins[i] = mock(Pin.class);
+            when(pins[i].getProvider()).thenReturn("RaspberryPi GPIO Provider");
+            when(pins[i].getName()).thenReturn("GPIO " + i);
+            when(pins[i].getAddress()).thenReturn(i);
+            when(pins[i].getSupportedPinModes()).thenReturn(mockPinModeEnumSet);
+        }
+        return pins;
+    }
+
+    private GpioBankShowElement newBank(final Pin... pins) {
+        return new GpioBankShowElement(name, id, mockTransport, pins) {
+            @Override
+            protected void showSequence() throws InterruptedException {
+                // do nothing.
+            }
+
+            @Override
+            protected void idleLoop() throws InterruptedException {
+                // do nothing.
+            }
+        };
+    }
+
+    @Test
+    public void testWriteFrame_writesOnlyChangedPins() {
+        final Pin[] pins = mockPins(4);
+        final GpioBankShowElement bank = newBank(pins);
+
+        bank.writeFrame(0b0101L);
+        assertEquals(0b0101L, bank.getFrame());
+        assertEquals(PinState.HIGH, simulator.getState(pins[0]));
+        assertEquals(PinState.LOW, simulator.getState(pins[1]));
+        assertEquals(PinState.HIGH, simulator.getState(pins[2]));
+        assertEquals(2L, bank.getPinWriteCount());
+
+        bank.writeFrame(0b0110L);
+        assertEquals(PinState.LOW, simulator.getState(pins[0]));
+        assertEquals(PinState.HIGH, simulator.getState(pins[1]));
+        assertEquals(PinState.HIGH, simulator.getState(pins[2]));
+        assertEquals(4L, bank.getPinWriteCount());
+        assertEquals(2L + 2L, bank.getSkippedWriteCount());
+        assertEquals(2L, bank.getFrameSkew().getCount());
+
+        bank.writeFrame(0b0110L);
+        assertEquals(4L, bank.getPinWriteCount());
+        assertEquals(2L, bank.getFrameSkew().getCount());
+    }
+
+    @Test
+    public void testSetClearTogglePins() {
+        final Pin[] pins = mockPins(3);
+        final GpioBankShowElement bank = newBank(pins);
+
+        bank.setPins(0b011L);
+        bank.clearPins(0b001L);
+        bank.togglePins(0b110L);
+
+        assertEquals(0b100L, bank.getFrame());
+        assertEquals(PinState.LOW, simulator.getState(pins[1]));
+        assertEquals(PinState.HIGH, simulator.getState(pins[2]));
+    }
+
+    @Test
+    public void testWriteFrame_ignoresBitsAboveBank() {
+        final GpioBankShowElement bank = newBank(mockPins(2));
+
+        bank.writeFrame(-1L);
+
+        assertEquals(0b11L, bank.getFrame());
+        assertEquals(2L, bank.getPinWriteCount());
+    }
+
+    @Test
+    public void testShutdownProcedure_allLow() {
+        final Pin[] pins = mockPins(2);
+        final GpioBankShowElement bank = newBank(pins);
+        bank.writeFrame(0b11L);
+
+        bank.shutdownProcedure();
+
+        assertEquals(0L, bank.getFrame());
+        assertEquals(PinState.LOW, simulator.getState(pins[0]));
+        assertEquals(PinState.LOW, simulator.getState(pins[1]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_noPins() {
+        newBank();
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("GpioBankShowElement(super=ShowElement(name=Test Bank, id=123456), pinCount=16)",
+                newBank(mockPins(16)).toString());
+    }
+
+}
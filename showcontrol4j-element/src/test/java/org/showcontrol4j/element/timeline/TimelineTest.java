@@ -0,0 +1,105 @@
+package org.showcontrol4j.element.timeline;
+
+import org.junit.Test;
+import org.showcontrol4j.timing.LatencyStatistics;
+import org.showcontrol4j.timing.PreciseSleeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link Timeline} class.
+ *
+ * @author James Hare
+ */
+public class TimelineTest {
+
+    @Test
+    public void testBuild_sortsKeyframes() throws Exception {
+        final List<String> ran = new ArrayList<>();
+        final Timeline timeline = Timeline.builder()
+                .at(20, TimeUnit.MILLISECONDS, () -> ran.add("c"))
+                .at(0, TimeUnit.MILLISECONDS, () -> ran.add("a"))
+                .after(10, TimeUnit.MILLISECONDS, () -> ran.add("b"))
+                .at(20, TimeUnit.MILLISECONDS, () -> ran.add("d"))
+                .build();
+
+        assertEquals(4, timeline.getKeyframes().size());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(10), timeline.getKeyframes().get(1).getOffsetNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), timeline.getDurationNanos());
+
+        timeline.play(System.nanoTime());
+        assertEquals(List.of("a", "b", "c", "d"), ran);
+    }
+
+    @Test
+    public void testPlay_doesNotDrift() throws Exception {
+        final Timeline.Builder builder = Timeline.builder();
+        for (int i = 0; i < 50; i++) {
+            // every cue overruns by a millisecond, which a sequence of pauses would carry into the next step.
+            builder.after(4, TimeUnit.MILLISECONDS, () -> TimeUnit.MILLISECONDS.sleep(1));
+        }
+        final Timeline timeline = builder.duration(250, TimeUnit.MILLISECONDS).build();
+        final LatencyStatistics lateness = new LatencyStatistics();
+
+        final long origin = System.nanoTime();
+        timeline.play(origin, lateness);
+        final long elapsed = System.nanoTime() - origin;
+
+        assertEquals(50L, lateness.getCount());
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    public void testPlay_lateOriginCatchesUp() throws Exception {
+        final List<String> ran = new ArrayList<>();
+        final Timeline timeline = Timeline.builder()
+                .at(0, TimeUnit.MILLISECONDS, () -> ran.add("a"))
+                .at(100, TimeUnit.MILLISECONDS, () -> ran.add("b"))
+                .at(5, TimeUnit.SECONDS, () -> ran.add("c"))
+                .build();
+
+        final Thread player = new Thread(() -> {
+            try {
+                timeline.play(System.nanoTime() - TimeUnit.SECONDS.toNanos(1));
+            } catch (final InterruptedException e) {
+                ran.add("interrupted");
+            }
+        });
+        player.start();
+        TimeUnit.MILLISECONDS.sleep(200);
+        player.interrupt();
+        player.join(5000L);
+
+        assertEquals(List.of("a", "b", "interrupted"), ran);
+    }
+
+    @Test
+    public void testJoin_skipsCuesPastTolerance() throws Exception {
+        final List<String> ran = new ArrayList<>();
+        final Timeline timeline = Timeline.builder()
+                .at(0, TimeUnit.MILLISECONDS, () -> ran.add("a"))
+                .at(900, TimeUnit.MILLISECONDS, () -> ran.add("b"))
+                .at(1050, TimeUnit.MILLISECONDS, () -> ran.add("c"))
+                .build();
+        final LatencyStatistics lateness = new LatencyStatistics();
+
+        final long joined = System.nanoTime();
+        timeline.join(joined - TimeUnit.SECONDS.toNanos(1), joined, TimeUnit.MILLISECONDS.toNanos(500), lateness,
+                PreciseSleeper.DEFAULT_SPIN_THRESHOLD_NANOS);
+
+        assertEquals(List.of("b", "c"), ran);
+        assertEquals(1L, lateness.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAt_negativeOffset() throws Exception {
+        Timeline.builder().at(-1, TimeUnit.MILLISECONDS, () -> {
+        });
+    }
+
+}
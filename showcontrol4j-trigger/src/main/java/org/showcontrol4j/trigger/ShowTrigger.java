@@ -1,28 +1,95 @@
 package org.showcontrol4j.trigger;
 
 import com.rabbitmq.client.Channel;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.clock.ClockSyncServer;
+import org.showcontrol4j.clock.ShowClock;
+import org.showcontrol4j.clock.SystemShowClock;
 import org.showcontrol4j.exchange.MessageExchange;
-import org.showcontrol4j.message.ShowCommand;
+import org.showcontrol4j.exchange.RoutingKeys;
+import org.showcontrol4j.message.CommandTemplate;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.message.codec.MessageCodec;
+import org.showcontrol4j.message.codec.MessageCodecs;
+import org.showcontrol4j.state.ShowStateServer;
+import org.showcontrol4j.timing.ExponentialBackoff;
+import org.showcontrol4j.transport.AmqpTransport;
+import org.showcontrol4j.transport.Transport;
+import org.showcontrol4j.trigger.conditioning.InputConditioner;
+import org.showcontrol4j.trigger.conditioning.InputPolicy;
+import org.showcontrol4j.trigger.outbox.MappedOutbox;
+import org.showcontrol4j.trigger.outbox.OutboxEntry;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Serves as the parent class for all Show Triggers. When creating a child class, the {@link ShowTrigger#startListener()}
  * method must be implemented to describe how the trigger will send messages to the message broker to start/ shutdown a Show
  * Element.
+ * <p>
+ * Messages are published through a {@link Transport}. Triggers built with a {@link MessageExchange} and a
+ * {@link BrokerConnectionFactory} publish to the RabbitMQ fanout exchange; a trigger built with any other transport,
+ * such as an {@link org.showcontrol4j.transport.InJvmTransport}, needs no broker at all.
+ * <p>
+ * Commands go to the whole show unless a target zone, group or element id is set, in which case only the elements
+ * at that address act on them. On a routed exchange the other elements never receive them at all.
+ * <p>
+ * SHUTDOWN is sent on a control transport of its own, so it never waits behind show commands. Over RabbitMQ that is
+ * the show exchange's control lane, see {@link AmqpTransport#controlLane(BrokerConnectionFactory, MessageExchange)};
+ * a trigger built with a transport uses the same transport for both unless it is given a control transport too.
+ * <p>
+ * Triggers built with a {@link BrokerConnectionFactory} publish with RabbitMQ publisher confirms. Sending never waits
+ * for the broker; the asynchronous send methods return a {@link CompletableFuture} per command that completes when
+ * the broker confirms it and fails if the broker rejects it or does not confirm it in time. Every command that does
+ * not land is logged.
+ * <p>
+ * GO, IDLE and SHUTDOWN are fired from a {@link CommandTemplate} per instruction, encoded once for the trigger's
+ * target and codec, so a cue only copies the encoded bytes and patches in the start time. A trigger firing cues at
+ * a high rate creates next to no garbage.
+ * <p>
+ * Inputs report raw events through {@link #onInput(Instruction)}. Given an {@link InputPolicy}, those events are
+ * debounced and rate limited by an {@link InputConditioner} first, so a chattering contact cannot flood the broker
+ * with GOs that restart every element's sequence.
+ * <p>
+ * A trigger given a {@link MappedOutbox} keeps working through a broker outage. A command that cannot be published
+ * is journaled in the outbox instead of failing, as is one the transport takes but then loses, rejects or does not
+ * confirm in time, unless a newer command has been sent to the same address since. The outbox is drained in order,
+ * retrying with an {@link ExponentialBackoff}, until the transport reconnects and has confirmed everything in it.
+ * Commands still in the outbox when their start time is more than {@link #getCommandTtlMillis()} in the past are
+ * dropped rather than started late. While the outbox holds anything, new show commands queue behind it so they
+ * never overtake older ones. SHUTDOWN skips the queue: it is always tried on the control transport straight away and
+ * only journaled if that fails.
  *
  * @author James Hare
  */
 @Getter
 @Setter
 @ToString(onlyExplicitlyIncluded = true)
+@Slf4j
 public abstract class ShowTrigger {
 
+    /**
+     * How long after its start time a journaled command is still published, in milliseconds, by default.
+     */
+    public static final long DEFAULT_COMMAND_TTL_MILLIS = 5000L;
+
     @ToString.Include
     protected final String name;
     @ToString.Include
@@ -31,25 +98,161 @@ public abstract class ShowTrigger {
     private final BrokerConnectionFactory brokerConnectionFactory;
     @ToString.Include
     private final Long syncTimeout;
-    private Channel channel;
+    private final Transport transport;
+    private final Transport controlTransport;
+    private MessageCodec messageCodec = MessageCodecs.getDefault();
+    private ShowClock showClock = SystemShowClock.INSTANCE;
+    private ClockSyncServer clockSyncServer;
+    private ShowStateServer showStateServer;
+    private String targetZone;
+    private String targetGroup;
+    private Long targetElementId;
+    private MappedOutbox outbox;
+    private long commandTtlMillis = DEFAULT_COMMAND_TTL_MILLIS;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ExponentialBackoff backoff = new ExponentialBackoff();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong expiredCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private ScheduledExecutorService drainer;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong sentCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, Long> latestSent = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean draining;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final CommandTemplate[] templates = new CommandTemplate[Instruction.values().length];
+    @Setter(AccessLevel.NONE)
+    private volatile InputConditioner inputConditioner;
 
     public ShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
                        final MessageExchange messageExchange, final BrokerConnectionFactory brokerConnectionFactory) {
+        this(showTriggerName, showTriggerId, syncTimeout, messageExchange, brokerConnectionFactory,
+                new AmqpTransport(brokerConnectionFactory, messageExchange),
+                AmqpTransport.controlLane(brokerConnectionFactory, messageExchange));
+        ((AmqpTransport) transport).setPublisherConfirms(true);
+        ((AmqpTransport) controlTransport).setPublisherConfirms(true);
+        try {
+            registerShowTrigger();
+        } catch (final IOException | TimeoutException e) {
+            log.warn("Show Trigger={} could not declare the exchange, it will be declared on the first publish. {}",
+                    this.toString(), e.getMessage());
+        }
+    }
+
+    public ShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                       final Transport transport) {
+        this(showTriggerName, showTriggerId, syncTimeout, transport, transport);
+    }
+
+    public ShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                       final Transport transport, final Transport controlTransport) {
+        this(showTriggerName, showTriggerId, syncTimeout, null, null, transport, controlTransport);
+    }
+
+    private ShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                        final MessageExchange messageExchange, final BrokerConnectionFactory brokerConnectionFactory,
+                        final Transport transport, final Transport controlTransport) {
         this.name = showTriggerName;
         this.id = showTriggerId;
         this.messageExchange = messageExchange;
         this.brokerConnectionFactory = brokerConnectionFactory;
         this.syncTimeout = syncTimeout;
-        try {
-            registerShowTrigger();
-        } catch (final IOException | TimeoutException e) {
-            System.out.println("An error occurred while registering the show element. " + e.getCause());
-        }
+        this.transport = transport;
+        this.controlTransport = controlTransport;
     }
 
     private void registerShowTrigger() throws IOException, TimeoutException {
-        channel = brokerConnectionFactory.newConnection().createChannel();
-        channel.exchangeDeclare(messageExchange.getName(), "fanout");
+        ((AmqpTransport) transport).declare();
+    }
+
+    /**
+     * Returns the channel messages are published on, if the trigger publishes to a RabbitMQ exchange.
+     *
+     * @return the publishing {@link Channel}, or null if the transport is not AMQP or is not connected yet.
+     */
+    public Channel getChannel() {
+        return transport instanceof AmqpTransport ? ((AmqpTransport) transport).getChannel() : null;
+    }
+
+    /**
+     * Replaces the channel messages are published on. Only applies when the trigger publishes to a RabbitMQ exchange.
+     *
+     * @param channel the publishing {@link Channel}.
+     */
+    public void setChannel(final Channel channel) {
+        if (!(transport instanceof AmqpTransport)) {
+            throw new IllegalStateException("Show Trigger=" + this + " does not publish through a RabbitMQ channel.");
+        }
+        ((AmqpTransport) transport).setChannel(channel);
+    }
+
+    /**
+     * Sets the outbox commands are journaled in while they cannot be published, or null to fail them instead. Any
+     * commands already in the outbox, such as those left from before a restart, start draining straight away.
+     *
+     * @param outbox the {@link MappedOutbox}.
+     */
+    public void setOutbox(final MappedOutbox outbox) {
+        this.outbox = outbox;
+        if (outbox != null && !outbox.isEmpty()) {
+            scheduleDrain(0L);
+        }
+    }
+
+    /**
+     * Returns the number of journaled commands dropped because their start time had passed by the time they could be
+     * published.
+     *
+     * @return the number of expired commands.
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * Starts answering clock probes from Show Elements with this trigger's {@link ShowClock}, making it the clock
+     * reference for the exchange. Only one node per show should be the clock reference. Clock sync runs over the
+     * broker, so it needs a trigger built with a {@link BrokerConnectionFactory}.
+     *
+     * @throws IOException      if the probe queue could not be declared.
+     * @throws TimeoutException if a connection to the broker could not be made in time.
+     */
+    public void startClockReference() throws IOException, TimeoutException {
+        if (brokerConnectionFactory == null) {
+            throw new IllegalStateException("Clock sync needs a broker, but Show Trigger=" + this + " has none.");
+        }
+        if (clockSyncServer == null) {
+            clockSyncServer = new ClockSyncServer(brokerConnectionFactory.openChannel(), messageExchange, showClock);
+            clockSyncServer.start();
+        }
+    }
+
+    /**
+     * Starts keeping the show state, answering the requests of Show Elements that join mid-show with the last GO or
+     * IDLE this trigger published to each routing key that the broker confirmed or that was journaled in the outbox.
+     * Only one node per show should keep the show state. It runs over the broker, so it needs a trigger built with a
+     * {@link BrokerConnectionFactory}.
+     *
+     * @throws IOException      if the request queue could not be declared.
+     * @throws TimeoutException if a connection to the broker could not be made in time.
+     */
+    public void startShowState() throws IOException, TimeoutException {
+        if (brokerConnectionFactory == null) {
+            throw new IllegalStateException("Show state needs a broker, but Show Trigger=" + this + " has none.");
+        }
+        if (showStateServer == null) {
+            showStateServer = new ShowStateServer(brokerConnectionFactory.openChannel(), messageExchange);
+            showStateServer.start();
+        }
     }
 
     /**
@@ -57,17 +260,394 @@ public abstract class ShowTrigger {
      */
     protected abstract void startListener();
 
+    /**
+     * Conditions the input with the policy given, debouncing and rate limiting the raw events passed to
+     * {@link #onInput(Instruction)} before they are published. Null publishes every event as it comes.
+     *
+     * @param policy the {@link InputPolicy}, or null to stop conditioning.
+     */
+    public void setInputPolicy(final InputPolicy policy) {
+        final InputConditioner previous = inputConditioner;
+        inputConditioner = policy != null ? new InputConditioner(name, policy, this::fire) : null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Reports a raw event from the trigger's input, such as a key press or a contact closing. With an
+     * {@link InputPolicy} set the event goes through the {@link InputConditioner} and may be debounced, rate limited
+     * or dropped; without one the command is published straight away. Never blocks on the conditioner.
+     *
+     * @param instruction the instruction the input asks for.
+     * @throws IOException if the command was published straight away and could not be.
+     */
+    protected void onInput(final Instruction instruction) throws IOException {
+        final InputConditioner conditioner = inputConditioner;
+        if (conditioner == null) {
+            fire(instruction);
+        } else {
+            conditioner.offer(instruction);
+        }
+    }
+
+    private void fire(final Instruction instruction) throws IOException {
+        sendCommand(instruction, startTimeFor(instruction));
+    }
+
+    private long startTimeFor(final Instruction instruction) {
+        final long now = showClock.currentTimeMillis();
+        return instruction == Instruction.SHUTDOWN ? now : now + (syncTimeout != null ? syncTimeout : 0L);
+    }
+
     protected void sendGoMessage() throws IOException {
-        channel.basicPublish(messageExchange.getName(), "", null,
-                ShowCommand.GO(syncTimeout != null ? syncTimeout : 0L).serialize());
+        sendCommand(Instruction.GO, startTimeFor(Instruction.GO));
     }
 
     protected void sendIdleMessage() throws IOException {
-        channel.basicPublish(messageExchange.getName(), "", null,
-                ShowCommand.IDLE(syncTimeout != null ? syncTimeout : 0L).serialize());
+        sendCommand(Instruction.IDLE, startTimeFor(Instruction.IDLE));
     }
 
     protected void sendShutdownMessage() throws IOException {
-        channel.basicPublish(messageExchange.getName(), "", null, ShowCommand.SHUTDOWN().serialize());
+        sendCommand(Instruction.SHUTDOWN, startTimeFor(Instruction.SHUTDOWN));
+    }
+
+    protected CompletableFuture<Void> sendGoMessageAsync() {
+        return sendCommandAsync(Instruction.GO, startTimeFor(Instruction.GO));
+    }
+
+    protected CompletableFuture<Void> sendIdleMessageAsync() {
+        return sendCommandAsync(Instruction.IDLE, startTimeFor(Instruction.IDLE));
+    }
+
+    protected CompletableFuture<Void> sendShutdownMessageAsync() {
+        return sendCommandAsync(Instruction.SHUTDOWN, startTimeFor(Instruction.SHUTDOWN));
+    }
+
+    /**
+     * Publishes a message, addressed to the trigger's target unless the message already carries an address of its
+     * own. SHUTDOWN goes out on the control transport, everything else on the show transport.
+     *
+     * @param message the message to send.
+     * @throws IOException if the message could not be encoded or published.
+     */
+    protected void send(final SCFJMessage message) throws IOException {
+        address(message);
+        publish(message.getInstruction(), RoutingKeys.forMessage(message), message.getStartTime(),
+                message.serialize(messageCodec));
+    }
+
+    /**
+     * Publishes a command to the trigger's target from its {@link CommandTemplate}, as {@link #send(SCFJMessage)}
+     * would publish the same command built as a message. Falls back to building the message when the codec cannot
+     * patch templates.
+     *
+     * @param instruction the instruction of the command.
+     * @param startTime   the start time in show time epoch milliseconds.
+     * @throws IOException if the command could not be encoded or published.
+     */
+    protected void sendCommand(final Instruction instruction, final long startTime) throws IOException {
+        final CommandTemplate template = templateFor(instruction);
+        if (template == null) {
+            send(new SCFJMessage(instruction, startTime));
+        } else {
+            publish(instruction, template.getRoutingKey(), startTime, template.stamp(startTime));
+        }
+    }
+
+    /**
+     * Hands a command over as {@link #handOff(Instruction, String, long, byte[])} does and throws if that failed
+     * straight away. A command the transport loses after taking it is only logged, or journaled if there is an outbox.
+     */
+    private void publish(final Instruction instruction, final String routingKey, final long startTime,
+                         final byte[] body) throws IOException {
+        final CompletableFuture<Void> landed = handOff(instruction, routingKey, startTime, body);
+        if (landed.isCompletedExceptionally()) {
+            final Throwable failure = failureOf(landed);
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new IOException("Timed out connecting to publish from Show Trigger=" + this, failure);
+        }
+        reportLoss(instruction, landed);
+    }
+
+    /**
+     * Publishes a message as {@link #send(SCFJMessage)} does, without waiting to learn whether it landed. The
+     * returned future completes when the transport confirms the message, and fails if it was not accepted, in which
+     * case the lost command is also logged. If the trigger has an outbox, a message that could not be handed to the
+     * transport, or that the transport lost afterwards, is journaled instead and the future completes once it is in
+     * the outbox.
+     *
+     * @param message the message to send.
+     * @return a future completed when the message is confirmed.
+     */
+    protected CompletableFuture<Void> sendAsync(final SCFJMessage message) {
+        address(message);
+        final byte[] body;
+        try {
+            body = message.serialize(messageCodec);
+        } catch (final IOException e) {
+            return lost(message.getInstruction(), e);
+        }
+        return reportLoss(message.getInstruction(),
+                handOff(message.getInstruction(), RoutingKeys.forMessage(message), message.getStartTime(), body));
+    }
+
+    /**
+     * Publishes a command from its {@link CommandTemplate} as {@link #sendCommand(Instruction, long)} does, without
+     * waiting to learn whether it landed, as {@link #sendAsync(SCFJMessage)} does.
+     *
+     * @param instruction the instruction of the command.
+     * @param startTime   the start time in show time epoch milliseconds.
+     * @return a future completed when the command is confirmed.
+     */
+    protected CompletableFuture<Void> sendCommandAsync(final Instruction instruction, final long startTime) {
+        final CommandTemplate template;
+        try {
+            template = templateFor(instruction);
+        } catch (final IOException e) {
+            return lost(instruction, e);
+        }
+        if (template == null) {
+            return sendAsync(new SCFJMessage(instruction, startTime));
+        }
+        return reportLoss(instruction,
+                handOff(instruction, template.getRoutingKey(), startTime, template.stamp(startTime)));
+    }
+
+    /**
+     * Hands a command to its lane, or to the outbox, and returns a future completed once the transport confirms it
+     * or it is in the outbox. With an outbox, a command the transport fails, straight away or after taking it, is
+     * journaled; a show command the transport loses after a newer command was sent to the same routing key is dropped
+     * instead, so it never overtakes the command that superseded it. The command is only recorded in the show state
+     * once it is confirmed or journaled, so elements joining the show are never told about a command that did not land.
+     */
+    private CompletableFuture<Void> handOff(final Instruction instruction, final String routingKey,
+                                            final long startTime, final byte[] body) {
+        final boolean control = instruction == Instruction.SHUTDOWN;
+        final Transport lane = control ? controlTransport : transport;
+        final MappedOutbox journal = outbox;
+        if (journal == null) {
+            return lane.publishAsync(routingKey, body).whenComplete((confirmed, failure) -> {
+                if (failure == null) {
+                    record(control, routingKey, body);
+                }
+            });
+        }
+        final long sent = sentCount.incrementAndGet();
+        latestSent.put(routingKey, sent);
+        // SHUTDOWN is handed to the control lane straight away rather than waiting for the journal's lock.
+        CompletableFuture<Void> confirmation = control ? lane.publishAsync(routingKey, body) : null;
+        synchronized (journal) {
+            if (!control && journal.isEmpty()) {
+                confirmation = lane.publishAsync(routingKey, body);
+            }
+            if (confirmation == null || confirmation.isCompletedExceptionally()) {
+                if (confirmation != null) {
+                    log.warn("Journaling a command from Show Trigger={} until it can be published. {}",
+                            this.toString(), failureOf(confirmation).getMessage());
+                }
+                try {
+                    journal(journal, new OutboxEntry(control, routingKey, startTime, body));
+                } catch (final IOException e) {
+                    return failed(e);
+                }
+                record(control, routingKey, body);
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        return confirmation.handle((confirmed, failure) -> {
+            if (failure == null) {
+                record(control, routingKey, body);
+                return null;
+            }
+            final Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+            synchronized (journal) {
+                if (!control && latestSent.get(routingKey) != sent) {
+                    log.warn("Dropping a lost command from Show Trigger={}, a newer command has been sent. {}",
+                            this.toString(), cause.getMessage());
+                    throw new CompletionException(cause);
+                }
+                log.warn("Journaling a command from Show Trigger={} until it can be published. {}",
+                        this.toString(), cause.getMessage());
+                try {
+                    journal(journal, new OutboxEntry(control, routingKey, startTime, body));
+                } catch (final IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+            record(control, routingKey, body);
+            return null;
+        });
+    }
+
+    /**
+     * Logs the command as lost if the future fails.
+     */
+    private CompletableFuture<Void> reportLoss(final Instruction instruction, final CompletableFuture<Void> landed) {
+        return landed.whenComplete((confirmed, failure) -> {
+            if (failure != null) {
+                log.error("The {} command from Show Trigger={} did not land. {}", instruction, this.toString(),
+                        failureOf(landed).getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns the failure of a future that has completed exceptionally.
+     */
+    private static Throwable failureOf(final CompletableFuture<Void> future) {
+        try {
+            future.getNow(null);
+            return new IllegalStateException("The future did not fail.");
+        } catch (final CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (final CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Records a show command in the show state, or clears the state a SHUTDOWN ends.
+     */
+    private void record(final boolean control, final String routingKey, final byte[] body) {
+        final ShowStateServer state = showStateServer;
+        if (state == null) {
+            return;
+        }
+        if (control) {
+            state.clear(routingKey);
+        } else {
+            state.record(routingKey, body);
+        }
+    }
+
+    private CompletableFuture<Void> lost(final Instruction instruction, final IOException cause) {
+        log.error("The {} command from Show Trigger={} did not land. {}", instruction, this.toString(),
+                cause.getMessage());
+        return failed(cause);
+    }
+
+    private static CompletableFuture<Void> failed(final Throwable cause) {
+        final CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(cause);
+        return failed;
+    }
+
+    /**
+     * Returns the template of the command to the trigger's current target with its current codec, encoding it again
+     * if the target or codec changed since it was last fired.
+     */
+    private CommandTemplate templateFor(final Instruction instruction) throws IOException {
+        CommandTemplate template = templates[instruction.ordinal()];
+        if (template == null || !template.matches(messageCodec, targetZone, targetGroup, targetElementId)) {
+            template = CommandTemplate.of(messageCodec, instruction, targetZone, targetGroup, targetElementId);
+            templates[instruction.ordinal()] = template;
+        }
+        return template;
+    }
+
+    private void address(final SCFJMessage message) {
+        if (!message.hasAddress()) {
+            message.setZone(targetZone);
+            message.setGroup(targetGroup);
+            message.setElementId(targetElementId);
+        }
+    }
+
+    private void journal(final MappedOutbox journal, final OutboxEntry entry) throws IOException {
+        journal.append(entry);
+        scheduleDrain(0L);
+    }
+
+    /**
+     * Starts the drain of the outbox after the delay, unless it is already draining.
+     *
+     * @param delayMillis the delay in milliseconds.
+     */
+    private synchronized void scheduleDrain(final long delayMillis) {
+        if (draining) {
+            return;
+        }
+        draining = true;
+        if (drainer == null) {
+            drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "showcontrol4j-outbox-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        drainer.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Publishes the outbox oldest first, dropping the commands that have gone stale. Stops at the first command that
+     * still cannot be published, or that the transport does not confirm, and tries again after the next backoff delay.
+     * The journal's lock is only held to peek and remove, never while publishing, so commands being sent are never
+     * held up by a slow reconnect. The command being published stays at the head of the journal until the transport
+     * has confirmed it, so new show commands still queue behind it and a command lost on the way is never removed.
+     */
+    private void drain() {
+        final MappedOutbox journal = outbox;
+        long retryMillis = -1L;
+        if (journal != null) {
+            while (true) {
+                final OutboxEntry entry;
+                synchronized (journal) {
+                    entry = journal.peek();
+                }
+                if (entry == null) {
+                    break;
+                }
+                if (isExpired(entry)) {
+                    expiredCount.incrementAndGet();
+                    log.warn("Dropping the journaled command {} from Show Trigger={}, its start time has passed.",
+                            entry, this.toString());
+                } else {
+                    try {
+                        laneFor(entry).publishAsync(entry.getRoutingKey(), entry.getBody()).get();
+                    } catch (final ExecutionException | InterruptedException | RuntimeException e) {
+                        if (e instanceof InterruptedException) {
+                            Thread.currentThread().interrupt();
+                        }
+                        synchronized (this) {
+                            retryMillis = backoff.nextDelayMillis();
+                        }
+                        log.debug("Show Trigger={} still cannot publish, retrying in {} ms. {}", this.toString(),
+                                retryMillis, e.getMessage());
+                        break;
+                    }
+                }
+                synchronized (journal) {
+                    journal.remove();
+                }
+            }
+        }
+        synchronized (this) {
+            draining = false;
+            if (retryMillis < 0) {
+                backoff.reset();
+            }
+        }
+        if (retryMillis >= 0) {
+            scheduleDrain(retryMillis);
+        } else if (journal != null && !journal.isEmpty()) {
+            // a command was journaled after the loop emptied the outbox but before draining was cleared.
+            scheduleDrain(0L);
+        }
+    }
+
+    private boolean isExpired(final OutboxEntry entry) {
+        return !entry.isControl() && entry.getStartTime() > 0 && commandTtlMillis > 0
+                && showClock.currentTimeMillis() - entry.getStartTime() > commandTtlMillis;
+    }
+
+    private Transport laneFor(final OutboxEntry entry) {
+        return entry.isControl() ? controlTransport : transport;
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package org.showcontrol4j.trigger.conditioning;
+
+import org.showcontrol4j.message.Instruction;
+
+import java.io.IOException;
+
+/**
+ * Receives the commands an {@link InputConditioner} lets through, typically to publish them from a Show Trigger.
+ *
+ * @author James Hare
+ */
+@FunctionalInterface
+public interface CommandSink {
+
+    /**
+     * Fires a command. Called from the conditioner's thread, one command at a time.
+     *
+     * @param instruction the instruction of the command.
+     * @throws IOException if the command could not be fired.
+     */
+    void fire(Instruction instruction) throws IOException;
+
+}
@@ -0,0 +1,78 @@
+package org.showcontrol4j.trigger.conditioning;
+
+/**
+ * Serves as the debounce state of one input. Events less than the window apart form a single burst, and only the
+ * {@link Edge} the debouncer was made with fires. A chattering contact therefore fires once, however many times it
+ * bounces. Not safe for use from more than one thread; times are in {@link System#nanoTime()} nanoseconds.
+ *
+ * @author James Hare
+ */
+public class Debouncer {
+
+    private final long windowNanos;
+    private final Edge edge;
+    private boolean inBurst;
+    private boolean trailingPending;
+    private long lastEventNanos;
+
+    /**
+     * Creates a debouncer.
+     *
+     * @param windowNanos the debounce window in nanoseconds. Zero lets every event through.
+     * @param edge        the edge of each burst to fire on.
+     */
+    public Debouncer(final long windowNanos, final Edge edge) {
+        if (windowNanos < 0) {
+            throw new IllegalArgumentException("The debounce window cannot be negative.");
+        }
+        this.windowNanos = windowNanos;
+        this.edge = edge;
+    }
+
+    /**
+     * Records an event. Callers must call {@link #poll(long)} first, so a burst that has already settled fires its
+     * trailing edge before the next one starts.
+     *
+     * @param nowNanos the time of the event.
+     * @return true if the event fires straight away.
+     */
+    public boolean onEvent(final long nowNanos) {
+        if (windowNanos == 0) {
+            return true;
+        }
+        final boolean leading = !inBurst;
+        inBurst = true;
+        lastEventNanos = nowNanos;
+        if (leading && edge != Edge.TRAILING) {
+            return true;
+        }
+        trailingPending = edge != Edge.LEADING;
+        return false;
+    }
+
+    /**
+     * Ends the current burst if the input has been quiet for the window.
+     *
+     * @param nowNanos the current time.
+     * @return true if the burst ended and its trailing edge fires.
+     */
+    public boolean poll(final long nowNanos) {
+        if (!inBurst || nowNanos - lastEventNanos < windowNanos) {
+            return false;
+        }
+        inBurst = false;
+        final boolean fire = trailingPending;
+        trailingPending = false;
+        return fire;
+    }
+
+    /**
+     * Returns when the current burst settles, the earliest time {@link #poll(long)} can return true.
+     *
+     * @return the deadline in nanoseconds, or {@link Long#MAX_VALUE} if no burst is in progress.
+     */
+    public long getDeadlineNanos() {
+        return inBurst ? lastEventNanos + windowNanos : Long.MAX_VALUE;
+    }
+
+}
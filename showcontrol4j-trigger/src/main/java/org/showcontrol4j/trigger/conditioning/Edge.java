@@ -0,0 +1,22 @@
+package org.showcontrol4j.trigger.conditioning;
+
+/**
+ * Which end of a burst of input events a {@link Debouncer} lets through.
+ *
+ * @author James Hare
+ */
+public enum Edge {
+    /**
+     * Fire on the first event of a burst and ignore the rest. The cue goes out with no added latency.
+     */
+    LEADING,
+    /**
+     * Fire once the input has been quiet for the debounce window after the last event of a burst. The cue goes out
+     * a window late, but only once the input has settled.
+     */
+    TRAILING,
+    /**
+     * Fire on the first event of a burst, and once more when it settles if there was more than one event in it.
+     */
+    BOTH
+}
@@ -0,0 +1,223 @@
+package org.showcontrol4j.trigger.conditioning;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.concurrent.MpscRingBuffer;
+import org.showcontrol4j.message.Instruction;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Serves as the input conditioning stage between a trigger's input and the commands it publishes. Input threads
+ * {@link #offer(Instruction)} raw events to an {@link MpscRingBuffer} without taking a lock, and a single
+ * conditioning thread drains it, debounces each instruction with a {@link Debouncer}, rate limits what is left with a
+ * {@link TokenBucket} and hands the surviving commands to a {@link CommandSink}, as the {@link InputPolicy} describes.
+ * <p>
+ * A noisy input cannot flood the show: bounces collapse into one command per burst, commands beyond the rate are
+ * dropped, and once the ring buffer is full further raw events are dropped before they cost anything at all. SHUTDOWN
+ * bypasses debouncing and rate limiting, and is never dropped from a full ring buffer.
+ *
+ * @author James Hare
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public class InputConditioner implements AutoCloseable {
+
+    /**
+     * The longest the conditioning thread parks before checking its ring buffer again, as a guard against a missed
+     * wakeup.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
+    private static final Instruction[] INSTRUCTIONS = Instruction.values();
+
+    @ToString.Include
+    @Getter
+    private final String name;
+    @Getter
+    private final InputPolicy policy;
+    private final CommandSink sink;
+    private final MpscRingBuffer<RawEvent> ringBuffer;
+    private final Debouncer[] debouncers = new Debouncer[INSTRUCTIONS.length];
+    private final TokenBucket tokenBucket;
+    private final Thread thread;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong receivedCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong droppedCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong firedCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+    private volatile boolean waiting;
+    private volatile boolean open = true;
+
+    /**
+     * Creates the conditioner and starts its thread.
+     *
+     * @param name   the name of the input, used to name the thread.
+     * @param policy the {@link InputPolicy} to condition the input with.
+     * @param sink   the {@link CommandSink} to fire the commands let through at.
+     */
+    public InputConditioner(final String name, final InputPolicy policy, final CommandSink sink) {
+        if (policy.getDebounceMillis() < 0 || policy.getRatePerSecond() < 0) {
+            throw new IllegalArgumentException("The debounce window and the rate cannot be negative.");
+        }
+        this.name = name;
+        this.policy = policy;
+        this.sink = sink;
+        this.ringBuffer = new MpscRingBuffer<>(policy.getCapacity());
+        final long windowNanos = TimeUnit.MILLISECONDS.toNanos(policy.getDebounceMillis());
+        for (int i = 0; i < debouncers.length; i++) {
+            debouncers[i] = new Debouncer(windowNanos, policy.getEdge());
+        }
+        this.tokenBucket = policy.getRatePerSecond() > 0
+                ? new TokenBucket(policy.getRatePerSecond(), policy.getBurst(), System.nanoTime()) : null;
+        this.thread = new Thread(this::run, "showcontrol4j-input-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Offers a raw input event. Never blocks, except for a SHUTDOWN meeting a full ring buffer, which waits for room.
+     *
+     * @param instruction the instruction the input asks for.
+     * @return true if the event was accepted, false if the ring buffer was full and it was dropped.
+     */
+    public boolean offer(final Instruction instruction) {
+        final RawEvent event = new RawEvent(instruction, System.nanoTime());
+        while (!ringBuffer.offer(event)) {
+            if (instruction != Instruction.SHUTDOWN || !open) {
+                droppedCount.incrementAndGet();
+                return false;
+            }
+            Thread.yield();
+        }
+        receivedCount.incrementAndGet();
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of raw events accepted.
+     *
+     * @return the number of events received.
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * Returns the number of raw events dropped because the ring buffer was full.
+     *
+     * @return the number of events dropped.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the number of commands handed to the sink.
+     *
+     * @return the number of commands fired.
+     */
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    /**
+     * Returns the number of commands that survived debouncing but were dropped by the rate limit.
+     *
+     * @return the number of commands rate limited.
+     */
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    /**
+     * Stops the conditioning thread. Events still buffered and trailing edges still pending are not fired.
+     */
+    @Override
+    public void close() {
+        if (open) {
+            open = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        while (open) {
+            final RawEvent event = ringBuffer.poll();
+            if (event != null) {
+                condition(event);
+                continue;
+            }
+            final long now = System.nanoTime();
+            long deadline = Long.MAX_VALUE;
+            for (int i = 0; i < debouncers.length; i++) {
+                if (debouncers[i].poll(now)) {
+                    fire(INSTRUCTIONS[i], now);
+                }
+                deadline = Math.min(deadline, debouncers[i].getDeadlineNanos());
+            }
+            waiting = true;
+            if (ringBuffer.isEmpty() && open) {
+                LockSupport.parkNanos(this, Math.max(1L, Math.min(MAX_PARK_NANOS, deadline - now)));
+            }
+            waiting = false;
+        }
+    }
+
+    private void condition(final RawEvent event) {
+        if (event.instruction == Instruction.SHUTDOWN) {
+            deliver(event.instruction);
+            return;
+        }
+        final Debouncer debouncer = debouncers[event.instruction.ordinal()];
+        if (debouncer.poll(event.nanos)) {
+            fire(event.instruction, event.nanos);
+        }
+        if (debouncer.onEvent(event.nanos)) {
+            fire(event.instruction, event.nanos);
+        }
+    }
+
+    private void fire(final Instruction instruction, final long nowNanos) {
+        if (tokenBucket != null && !tokenBucket.tryAcquire(nowNanos)) {
+            rateLimitedCount.incrementAndGet();
+            log.debug("Input={} is over its rate limit, dropping a {} command.", name, instruction);
+            return;
+        }
+        deliver(instruction);
+    }
+
+    private void deliver(final Instruction instruction) {
+        try {
+            sink.fire(instruction);
+            firedCount.incrementAndGet();
+        } catch (final IOException | RuntimeException e) {
+            log.error("Input={} could not fire a {} command. {}", name, instruction, e.getMessage());
+        }
+    }
+
+    /**
+     * A raw input event and the time it happened.
+     */
+    private static final class RawEvent {
+
+        private final Instruction instruction;
+        private final long nanos;
+
+        private RawEvent(final Instruction instruction, final long nanos) {
+            this.instruction = instruction;
+            this.nanos = nanos;
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.showcontrol4j.trigger.conditioning;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Describes how an {@link InputConditioner} conditions the raw events of a trigger's input before they become Show
+ * Commands. Events closer together than the debounce window form a burst, of which only the {@link Edge} chosen is
+ * let through, and the commands that remain are rate limited by a token bucket that refills at the given rate and
+ * holds up to the given burst. A debounce window or rate of zero turns that stage off.
+ * <p>
+ * SHUTDOWN is never debounced or rate limited.
+ *
+ * @author James Hare
+ */
+@Builder
+@Data
+public class InputPolicy {
+
+    /**
+     * The number of raw events the conditioner buffers by default.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final long debounceMillis;
+    @Builder.Default
+    private final Edge edge = Edge.LEADING;
+    private final double ratePerSecond;
+    @Builder.Default
+    private final int burst = 1;
+    @Builder.Default
+    private final int capacity = DEFAULT_CAPACITY;
+
+}
@@ -0,0 +1,52 @@
+package org.showcontrol4j.trigger.conditioning;
+
+/**
+ * Serves as a token bucket rate limiter. The bucket holds up to a burst of tokens and refills at a steady rate, and
+ * every command let through takes one. A source can fire a burst of commands at once, but over time never more than
+ * the rate. Not safe for use from more than one thread; times are in {@link System#nanoTime()} nanoseconds.
+ *
+ * @author James Hare
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final int burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param ratePerSecond the tokens added per second.
+     * @param burst         the most tokens the bucket holds.
+     * @param nowNanos      the current time.
+     */
+    public TokenBucket(final double ratePerSecond, final int burst, final long nowNanos) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("The rate must be positive and the burst at least one.");
+        }
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param nowNanos the current time.
+     * @return true if a token was taken.
+     */
+    public boolean tryAcquire(final long nowNanos) {
+        if (nowNanos > lastRefillNanos) {
+            tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens < 1d) {
+            return false;
+        }
+        tokens -= 1d;
+        return true;
+    }
+
+}
@@ -6,6 +6,8 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
 import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.transport.Transport;
 import org.showcontrol4j.trigger.ShowTrigger;
 
 import java.io.IOException;
@@ -33,6 +35,13 @@ public class KeyboardShowTrigger extends ShowTrigger {
         scanner = new Scanner(System.in);
     }
 
+    public KeyboardShowTrigger(final String triggerKey, final String showTriggerName, final Long showTriggerId,
+                               final Long syncTimeout, final Transport transport) {
+        super(showTriggerName, showTriggerId, syncTimeout, transport);
+        this.triggerKey = triggerKey;
+        scanner = new Scanner(System.in);
+    }
+
     @Override
     public void startListener() {
         log.info("Starting listener for Show Trigger={}", this.toString());
@@ -41,13 +50,13 @@ public class KeyboardShowTrigger extends ShowTrigger {
                 final String entry = scanner.next();
                 if (entry.equalsIgnoreCase(triggerKey)) {
                     log.info("Trigger key has been pressed. Sending the GO Instruction to all listening Show Elements.");
-                    sendGoMessage();
+                    onInput(Instruction.GO);
                 } else if (entry.equalsIgnoreCase("IDLE")) {
                     log.info("IDLE has been pressed. Sending the IDLE Instruction to all listening Show Elements.");
-                    sendIdleMessage();
+                    onInput(Instruction.IDLE);
                 } else if (entry.equalsIgnoreCase("SHUTDOWN")) {
                     log.info("SHUTDOWN has been pressed. Sending the SHUTDOWN Instruction to all listening Show Elements.");
-                    sendShutdownMessage();
+                    onInput(Instruction.SHUTDOWN);
                 } else if (entry.equalsIgnoreCase("EXIT")) {
                     log.info("EXIT has been pressed. Shutting down this Show Trigger={}", this.toString());
                     System.exit(0);
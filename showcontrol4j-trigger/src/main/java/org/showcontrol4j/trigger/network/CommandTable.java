@@ -0,0 +1,73 @@
+package org.showcontrol4j.trigger.network;
+
+import org.showcontrol4j.message.Instruction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Serves as the lookup from the bytes of an inbound word or OSC address to the {@link Instruction} it stands for. The
+ * keys are encoded once, so a lookup compares bytes in place in the receive buffer and never builds a String.
+ *
+ * @author James Hare
+ */
+final class CommandTable {
+
+    private final byte[][] keys;
+    private final Instruction[] instructions;
+    private final boolean ignoreCase;
+
+    /**
+     * Creates the table.
+     *
+     * @param commands   the words or addresses and the instruction each stands for. Keys must be ASCII.
+     * @param ignoreCase true to match keys regardless of case.
+     */
+    CommandTable(final Map<String, Instruction> commands, final boolean ignoreCase) {
+        this.keys = new byte[commands.size()][];
+        this.instructions = new Instruction[commands.size()];
+        this.ignoreCase = ignoreCase;
+        int i = 0;
+        for (final Map.Entry<String, Instruction> command : commands.entrySet()) {
+            keys[i] = command.getKey().getBytes(StandardCharsets.US_ASCII);
+            instructions[i] = command.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Returns the instruction whose key is exactly the bytes of the buffer between the two positions.
+     *
+     * @param buffer the buffer holding the word.
+     * @param from   the position of the first byte of the word.
+     * @param to     the position after the last byte of the word.
+     * @return the instruction, or null if nothing matches.
+     */
+    Instruction lookup(final ByteBuffer buffer, final int from, final int to) {
+        for (int i = 0; i < keys.length; i++) {
+            if (matches(keys[i], buffer, from, to)) {
+                return instructions[i];
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(final byte[] key, final ByteBuffer buffer, final int from, final int to) {
+        if (key.length != to - from) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            final byte actual = buffer.get(from + i);
+            if (actual != key[i] && !(ignoreCase && toUpper(actual) == toUpper(key[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toUpper(final byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+}
@@ -0,0 +1,404 @@
+package org.showcontrol4j.trigger.network;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.transport.Transport;
+import org.showcontrol4j.trigger.ShowTrigger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves as a Show Trigger for commands sent over the network by lighting consoles, PLCs and other show control gear.
+ * Any number of inputs can be bound to one trigger, and every one of them is served by a single {@link Selector}
+ * thread, the one that calls {@link #startListener()}:
+ * <ul>
+ * <li>{@link #bindUdp(InetSocketAddress)} takes UDP datagrams holding a command word, such as {@code GO}.</li>
+ * <li>{@link #bindTcp(InetSocketAddress)} takes TCP connections sending one command word per line.</li>
+ * <li>{@link #bindOsc(InetSocketAddress)} takes Open Sound Control messages over UDP, such as {@code /showcontrol4j/go},
+ * including messages in bundles.</li>
+ * </ul>
+ * Command words are matched regardless of case and surrounding whitespace; OSC addresses are matched exactly. Both
+ * can be changed with {@link #setWords(Map)} and {@link #setOscAddresses(Map)}. Anything that matches nothing is
+ * counted in {@link #getUnrecognisedCount()} and otherwise ignored.
+ * <p>
+ * None of the inputs are authenticated, so only GO and IDLE are recognised by default: a single stray datagram must
+ * not be able to stop every element in the show. SHUTDOWN is opt-in; map a word or address to it with
+ * {@link #setWords(Map)} or {@link #setOscAddresses(Map)} on a network that only trusted gear can reach.
+ * <p>
+ * Inbound data is read into buffers that are allocated once, one for every datagram and one for each TCP connection,
+ * and matched in place, so a console sending hundreds of messages a second does not churn the heap. Every command is
+ * fired through {@link #onInput(Instruction)}; setting an {@link org.showcontrol4j.trigger.conditioning.InputPolicy}
+ * is recommended for chatty sources, and also keeps a slow publish from holding up the selector thread.
+ *
+ * @author James Hare
+ */
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true, callSuper = true)
+@Slf4j
+public class NetworkShowTrigger extends ShowTrigger implements Closeable {
+
+    /**
+     * The largest payload a UDP datagram can carry.
+     */
+    public static final int MAX_DATAGRAM_SIZE = 65507;
+    /**
+     * The longest line a TCP connection may send. Longer lines are discarded.
+     */
+    public static final int MAX_LINE_LENGTH = 1024;
+    /**
+     * The command words recognised by default, {@code go} and {@code idle}. SHUTDOWN has no default word.
+     */
+    public static final Map<String, Instruction> DEFAULT_WORDS = commands("");
+    /**
+     * The OSC addresses recognised by default, {@code /showcontrol4j/go} and {@code /showcontrol4j/idle}. SHUTDOWN has
+     * no default address.
+     */
+    public static final Map<String, Instruction> DEFAULT_OSC_ADDRESSES = commands("/showcontrol4j/");
+
+    private enum Input {
+        UDP, OSC, TCP
+    }
+
+    @Setter(AccessLevel.NONE)
+    private volatile Map<String, Instruction> words = DEFAULT_WORDS;
+    @Setter(AccessLevel.NONE)
+    private volatile Map<String, Instruction> oscAddresses = DEFAULT_OSC_ADDRESSES;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CommandTable wordTable = new CommandTable(DEFAULT_WORDS, true);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile CommandTable oscTable = new CommandTable(DEFAULT_OSC_ADDRESSES, false);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Selector selector;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Queue<Registration> pending = new ConcurrentLinkedQueue<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ByteBuffer datagramBuffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final OscParser.Listener oscListener = new OscParser.Listener() {
+        @Override
+        public void onInstruction(final Instruction instruction) {
+            fire(instruction);
+        }
+
+        @Override
+        public void onUnrecognised() {
+            unrecognisedCount.incrementAndGet();
+        }
+    };
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong receivedCount = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicLong unrecognisedCount = new AtomicLong();
+
+    public NetworkShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                              final MessageExchange messageExchange,
+                              final BrokerConnectionFactory brokerConnectionFactory) throws IOException {
+        super(showTriggerName, showTriggerId, syncTimeout, messageExchange, brokerConnectionFactory);
+        this.selector = Selector.open();
+    }
+
+    public NetworkShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                              final Transport transport) throws IOException {
+        super(showTriggerName, showTriggerId, syncTimeout, transport);
+        this.selector = Selector.open();
+    }
+
+    private static Map<String, Instruction> commands(final String prefix) {
+        final Map<String, Instruction> commands = new LinkedHashMap<>();
+        commands.put(prefix + "go", Instruction.GO);
+        commands.put(prefix + "idle", Instruction.IDLE);
+        return Collections.unmodifiableMap(commands);
+    }
+
+    /**
+     * Sets the command words recognised from UDP datagrams and TCP lines. Words are matched regardless of case.
+     *
+     * @param words the ASCII words and the instruction each fires.
+     */
+    public void setWords(final Map<String, Instruction> words) {
+        this.words = Collections.unmodifiableMap(new LinkedHashMap<>(words));
+        this.wordTable = new CommandTable(this.words, true);
+    }
+
+    /**
+     * Sets the OSC addresses recognised from OSC messages. Addresses are matched exactly.
+     *
+     * @param oscAddresses the ASCII addresses and the instruction each fires.
+     */
+    public void setOscAddresses(final Map<String, Instruction> oscAddresses) {
+        this.oscAddresses = Collections.unmodifiableMap(new LinkedHashMap<>(oscAddresses));
+        this.oscTable = new CommandTable(this.oscAddresses, false);
+    }
+
+    /**
+     * Returns the number of datagrams and lines received from every input.
+     *
+     * @return the number of datagrams and lines received.
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * Returns the number of datagrams, lines and OSC messages that matched no command.
+     *
+     * @return the number of unrecognised inputs.
+     */
+    public long getUnrecognisedCount() {
+        return unrecognisedCount.get();
+    }
+
+    /**
+     * Listens for datagrams holding a command word. May be called before or after {@link #startListener()}.
+     *
+     * @param address the address to bind to. A port of 0 picks a free port.
+     * @return the address bound to.
+     * @throws IOException if the address could not be bound.
+     */
+    public InetSocketAddress bindUdp(final InetSocketAddress address) throws IOException {
+        return register(DatagramChannel.open().bind(address), Input.UDP);
+    }
+
+    /**
+     * Listens for OSC packets over UDP. May be called before or after {@link #startListener()}.
+     *
+     * @param address the address to bind to. A port of 0 picks a free port.
+     * @return the address bound to.
+     * @throws IOException if the address could not be bound.
+     */
+    public InetSocketAddress bindOsc(final InetSocketAddress address) throws IOException {
+        return register(DatagramChannel.open().bind(address), Input.OSC);
+    }
+
+    /**
+     * Listens for TCP connections sending one command word per line. May be called before or after
+     * {@link #startListener()}.
+     *
+     * @param address the address to bind to. A port of 0 picks a free port.
+     * @return the address bound to.
+     * @throws IOException if the address could not be bound.
+     */
+    public InetSocketAddress bindTcp(final InetSocketAddress address) throws IOException {
+        return register(ServerSocketChannel.open().bind(address), Input.TCP);
+    }
+
+    private InetSocketAddress register(final SelectableChannel channel, final Input input) throws IOException {
+        final InetSocketAddress local;
+        try {
+            channel.configureBlocking(false);
+            local = (InetSocketAddress) (channel instanceof DatagramChannel
+                    ? ((DatagramChannel) channel).getLocalAddress()
+                    : ((ServerSocketChannel) channel).getLocalAddress());
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        pending.add(new Registration(channel, input));
+        selector.wakeup();
+        log.info("Show Trigger={} listening for {} on {}", this.toString(), input, local);
+        return local;
+    }
+
+    /**
+     * Serves every bound input on the calling thread until {@link #close()} is called.
+     */
+    @Override
+    public void startListener() {
+        log.info("Starting listener for Show Trigger={}", this.toString());
+        try {
+            while (selector.isOpen()) {
+                registerPending();
+                selector.select();
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (final ClosedSelectorException e) {
+            log.debug("Show Trigger={} selector closed.", this.toString());
+        } catch (final IOException e) {
+            log.error("Show Trigger={} stopped listening. {}", this.toString(), e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the listener and closes every bound input and open connection.
+     */
+    @Override
+    public void close() throws IOException {
+        for (final Registration registration : pending) {
+            registration.channel.close();
+        }
+        pending.clear();
+        if (selector.isOpen()) {
+            for (final SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        }
+        selector.close();
+    }
+
+    private void registerPending() throws IOException {
+        Registration registration;
+        while ((registration = pending.poll()) != null) {
+            final int ops = registration.input == Input.TCP ? SelectionKey.OP_ACCEPT : SelectionKey.OP_READ;
+            registration.channel.register(selector, ops, registration.input);
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept((ServerSocketChannel) key.channel());
+            } else if (key.attachment() instanceof ByteBuffer) {
+                readLines(key);
+            } else {
+                readDatagrams((DatagramChannel) key.channel(), (Input) key.attachment());
+            }
+        } catch (final IOException e) {
+            log.warn("Show Trigger={} closing input {}. {}", this.toString(), key.channel(), e.getMessage());
+            closeQuietly(key);
+        }
+    }
+
+    private void accept(final ServerSocketChannel server) throws IOException {
+        SocketChannel connection;
+        while ((connection = server.accept()) != null) {
+            connection.configureBlocking(false);
+            connection.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(MAX_LINE_LENGTH));
+            log.info("Show Trigger={} accepted connection from {}", this.toString(), connection.getRemoteAddress());
+        }
+    }
+
+    private void readDatagrams(final DatagramChannel channel, final Input input) throws IOException {
+        final ByteBuffer buffer = datagramBuffer;
+        while (true) {
+            buffer.clear();
+            if (channel.receive(buffer) == null) {
+                return;
+            }
+            buffer.flip();
+            receivedCount.incrementAndGet();
+            if (input == Input.OSC) {
+                OscParser.parse(buffer, oscTable, oscListener);
+            } else {
+                dispatchWord(buffer, 0, buffer.limit());
+            }
+        }
+    }
+
+    private void readLines(final SelectionKey key) throws IOException {
+        final SocketChannel connection = (SocketChannel) key.channel();
+        final ByteBuffer buffer = (ByteBuffer) key.attachment();
+        final int read = connection.read(buffer);
+        if (read < 0) {
+            log.info("Show Trigger={} connection closed by {}", this.toString(), connection.getRemoteAddress());
+            closeQuietly(key);
+            return;
+        }
+        int lineStart = 0;
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == '\n') {
+                receivedCount.incrementAndGet();
+                dispatchWord(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart > 0) {
+            buffer.flip().position(lineStart);
+            buffer.compact();
+        } else if (!buffer.hasRemaining()) {
+            log.warn("Show Trigger={} discarding a line longer than {} bytes from {}", this.toString(),
+                    MAX_LINE_LENGTH, connection.getRemoteAddress());
+            unrecognisedCount.incrementAndGet();
+            buffer.clear();
+        }
+    }
+
+    private void dispatchWord(final ByteBuffer buffer, final int from, final int to) {
+        int start = from;
+        int end = to;
+        while (start < end && isWhitespace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isWhitespace(buffer.get(end - 1))) {
+            end--;
+        }
+        final Instruction instruction = wordTable.lookup(buffer, start, end);
+        if (instruction == null) {
+            unrecognisedCount.incrementAndGet();
+        } else {
+            fire(instruction);
+        }
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == 0;
+    }
+
+    private void fire(final Instruction instruction) {
+        try {
+            onInput(instruction);
+        } catch (final IOException | RuntimeException e) {
+            log.error("Show Trigger={} could not fire {}. {}", this.toString(), instruction, e.getMessage());
+        }
+    }
+
+    private void closeQuietly(final SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (final IOException e) {
+            log.debug("Show Trigger={} could not close {}. {}", this.toString(), key.channel(), e.getMessage());
+        }
+    }
+
+    private static final class Registration {
+
+        private final SelectableChannel channel;
+        private final Input input;
+
+        private Registration(final SelectableChannel channel, final Input input) {
+            this.channel = channel;
+            this.input = input;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.showcontrol4j.trigger.network;
+
+import org.showcontrol4j.message.Instruction;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serves as a reader for Open Sound Control packets, as lighting and show consoles send them over UDP. It walks a
+ * packet in place, including the messages nested in bundles, and reports the instruction each message's address
+ * stands for. Bundle time tags are ignored: every command fires as it arrives.
+ * <p>
+ * Buttons on most OSC surfaces send a message with an argument of 1 when pressed and 0 when released. A message whose
+ * first argument is an int or float of zero is therefore taken as a release and fires nothing.
+ *
+ * @author James Hare
+ */
+final class OscParser {
+
+    private static final byte[] BUNDLE = {'#', 'b', 'u', 'n', 'd', 'l', 'e', 0};
+    private static final int BUNDLE_HEADER_LENGTH = 16;
+
+    /**
+     * Receives the instructions found in a packet.
+     */
+    interface Listener {
+
+        /**
+         * Called for every message whose address matched an instruction.
+         *
+         * @param instruction the instruction.
+         */
+        void onInstruction(Instruction instruction);
+
+        /**
+         * Called for every message whose address matched nothing, or that could not be read.
+         */
+        void onUnrecognised();
+    }
+
+    // private constructor so that the class cannot be instantiated.
+    private OscParser() {
+    }
+
+    /**
+     * Reads the packet between the buffer's position and limit. The buffer's position and limit are left as they were.
+     *
+     * @param packet    the buffer holding the packet.
+     * @param addresses the OSC addresses to look up.
+     * @param listener  the {@link Listener} to report to.
+     */
+    static void parse(final ByteBuffer packet, final CommandTable addresses, final Listener listener) {
+        parse(packet, packet.position(), packet.limit(), addresses, listener);
+    }
+
+    private static void parse(final ByteBuffer packet, final int start, final int end, final CommandTable addresses,
+                              final Listener listener) {
+        if (isBundle(packet, start, end)) {
+            int position = start + BUNDLE_HEADER_LENGTH;
+            while (position + 4 <= end) {
+                final int size = packet.getInt(position);
+                position += 4;
+                if (size < 0 || position + size > end) {
+                    listener.onUnrecognised();
+                    return;
+                }
+                parse(packet, position, position + size, addresses, listener);
+                position += size;
+            }
+        } else {
+            parseMessage(packet, start, end, addresses, listener);
+        }
+    }
+
+    private static void parseMessage(final ByteBuffer packet, final int start, final int end,
+                                     final CommandTable addresses, final Listener listener) {
+        final int addressEnd = indexOfNul(packet, start, end);
+        if (addressEnd <= start || packet.get(start) != '/') {
+            listener.onUnrecognised();
+            return;
+        }
+        final Instruction instruction = addresses.lookup(packet, start, addressEnd);
+        if (instruction == null) {
+            listener.onUnrecognised();
+        } else if (!isRelease(packet, padded(addressEnd + 1 - start) + start, end)) {
+            listener.onInstruction(instruction);
+        }
+    }
+
+    /**
+     * Returns true if the message's first argument is an int or float of zero.
+     */
+    private static boolean isRelease(final ByteBuffer packet, final int typeTagStart, final int end) {
+        if (typeTagStart + 2 > end || packet.get(typeTagStart) != ',') {
+            return false;
+        }
+        final int typeTagEnd = indexOfNul(packet, typeTagStart, end);
+        if (typeTagEnd < 0) {
+            return false;
+        }
+        final int argument = typeTagStart + padded(typeTagEnd + 1 - typeTagStart);
+        if (argument + 4 > end) {
+            return false;
+        }
+        final byte type = packet.get(typeTagStart + 1);
+        return (type == 'i' && packet.getInt(argument) == 0) || (type == 'f' && packet.getFloat(argument) == 0f);
+    }
+
+    private static boolean isBundle(final ByteBuffer packet, final int start, final int end) {
+        if (end - start < BUNDLE_HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < BUNDLE.length; i++) {
+            if (packet.get(start + i) != BUNDLE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfNul(final ByteBuffer packet, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (packet.get(i) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int padded(final int length) {
+        return (length + 3) & ~3;
+    }
+
+}
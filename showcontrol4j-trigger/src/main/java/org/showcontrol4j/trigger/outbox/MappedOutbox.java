@@ -0,0 +1,269 @@
+package org.showcontrol4j.trigger.outbox;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Serves as a durable first-in, first-out journal of {@link OutboxEntry}s in a memory-mapped file. A Show Trigger
+ * appends the commands it cannot publish while the broker is unreachable and drains them, oldest first, once it is
+ * back. The journal survives a restart of the JVM: entries appended and not yet removed are found again when the same
+ * file is reopened.
+ * <p>
+ * The file starts with a header holding the read and write positions, packed into a single aligned long so both
+ * always change together, followed by the records. Each record carries a CRC32 of its contents, so a record torn by a
+ * crash mid-append is detected when the file is reopened and the journal is cut short before it. Every append and
+ * removal is forced to the file. Space freed by removed records is reclaimed when the journal empties, or when an
+ * append would not otherwise fit and the unread records can be moved to the start of the file without overwriting
+ * themselves, so a crash mid-move never damages a record the header still points at.
+ * <p>
+ * Record layout: length (4 bytes), CRC32 (4 bytes), flags (1 byte), start time (8 bytes), routing key length
+ * (2 bytes), routing key (UTF-8), body.
+ *
+ * @author James Hare
+ */
+@ToString(onlyExplicitlyIncluded = true)
+@Slf4j
+public class MappedOutbox implements AutoCloseable {
+
+    /**
+     * The number of bytes of records the journal holds by default.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private static final int MAGIC = 0x53434F42;
+    private static final int VERSION = 1;
+    private static final int POSITIONS_OFFSET = 8;
+    private static final int HEADER_LENGTH = 16;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int FIXED_CONTENT_LENGTH = 11;
+    private static final byte CONTROL_FLAG = 0x01;
+
+    @Getter
+    @ToString.Include
+    private final Path file;
+    @Getter
+    private final int capacity;
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer buffer;
+    private int readPosition;
+    private int writePosition;
+    private int size;
+
+    /**
+     * Opens the journal in the file with the default capacity, creating it if it does not exist.
+     *
+     * @param file the journal file.
+     * @throws IOException if the file could not be opened or mapped.
+     */
+    public MappedOutbox(final Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the journal in the file, creating it if it does not exist. A file made with a larger capacity keeps it.
+     *
+     * @param file     the journal file.
+     * @param capacity the number of bytes of records the journal holds.
+     * @throws IOException if the file could not be opened or mapped.
+     */
+    public MappedOutbox(final Path file, final int capacity) throws IOException {
+        if (capacity < RECORD_HEADER_LENGTH + FIXED_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("The capacity is too small to hold a single entry.");
+        }
+        this.file = file;
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        final long length = Math.max(fileChannel.size(), (long) HEADER_LENGTH + capacity);
+        if (length > Integer.MAX_VALUE) {
+            fileChannel.close();
+            throw new IOException("The outbox file=" + file + " is too large to map.");
+        }
+        this.capacity = (int) length - HEADER_LENGTH;
+        this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0L, length);
+        recover();
+    }
+
+    /**
+     * Appends an entry to the end of the journal.
+     *
+     * @param entry the entry to append.
+     * @throws IOException if the journal is full.
+     */
+    public synchronized void append(final OutboxEntry entry) throws IOException {
+        final byte[] routingKey = entry.getRoutingKey().getBytes(StandardCharsets.UTF_8);
+        if (routingKey.length > 0xFFFF) {
+            throw new IllegalArgumentException("The routing key is too long to journal.");
+        }
+        final int contentLength = FIXED_CONTENT_LENGTH + routingKey.length + entry.getBody().length;
+        final int recordLength = RECORD_HEADER_LENGTH + contentLength;
+        if (writePosition + recordLength > capacity) {
+            compact();
+            if (writePosition + recordLength > capacity) {
+                throw new IOException("The outbox file=" + file + " is full.");
+            }
+        }
+        final int start = HEADER_LENGTH + writePosition;
+        final ByteBuffer record = buffer.duplicate();
+        record.position(start + RECORD_HEADER_LENGTH);
+        record.put(entry.isControl() ? CONTROL_FLAG : 0);
+        record.putLong(entry.getStartTime());
+        record.putShort((short) routingKey.length);
+        record.put(routingKey);
+        record.put(entry.getBody());
+        buffer.putInt(start, contentLength);
+        buffer.putInt(start + 4, checksum(start + RECORD_HEADER_LENGTH, contentLength));
+        writeHeader(readPosition, writePosition + recordLength);
+        buffer.force();
+        size++;
+    }
+
+    /**
+     * Returns the oldest entry without removing it.
+     *
+     * @return the oldest entry, or null if the journal is empty.
+     */
+    public synchronized OutboxEntry peek() {
+        if (size == 0) {
+            return null;
+        }
+        final int start = HEADER_LENGTH + readPosition;
+        final int contentLength = buffer.getInt(start);
+        final ByteBuffer record = buffer.duplicate();
+        record.position(start + RECORD_HEADER_LENGTH);
+        final boolean control = (record.get() & CONTROL_FLAG) != 0;
+        final long startTime = record.getLong();
+        final byte[] routingKey = new byte[record.getShort() & 0xFFFF];
+        record.get(routingKey);
+        final byte[] body = new byte[contentLength - FIXED_CONTENT_LENGTH - routingKey.length];
+        record.get(body);
+        return new OutboxEntry(control, new String(routingKey, StandardCharsets.UTF_8), startTime, body);
+    }
+
+    /**
+     * Removes the oldest entry. Does nothing if the journal is empty.
+     */
+    public synchronized void remove() {
+        if (size == 0) {
+            return;
+        }
+        size--;
+        if (size == 0) {
+            writeHeader(0, 0);
+        } else {
+            writeHeader(readPosition + RECORD_HEADER_LENGTH + buffer.getInt(HEADER_LENGTH + readPosition), writePosition);
+        }
+        buffer.force();
+    }
+
+    /**
+     * Returns the number of entries in the journal.
+     *
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the journal holds no entries.
+     *
+     * @return true if the journal is empty.
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Closes the file. Entries still in the journal are kept for the next time it is opened.
+     *
+     * @throws IOException if the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        fileChannel.close();
+    }
+
+    /**
+     * Reads the header and walks the records to count them, cutting the journal short at the first record that is
+     * incomplete or fails its checksum.
+     */
+    private void recover() {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            writeHeader(0, 0);
+            return;
+        }
+        final long positions = buffer.getLong(POSITIONS_OFFSET);
+        final int read = (int) (positions >>> 32);
+        final int write = (int) positions;
+        if (read < 0 || write > capacity || read >= write) {
+            writeHeader(0, 0);
+            return;
+        }
+        readPosition = read;
+        int position = readPosition;
+        while (position < write) {
+            final int contentLength = position + RECORD_HEADER_LENGTH <= write
+                    ? buffer.getInt(HEADER_LENGTH + position) : -1;
+            if (contentLength < FIXED_CONTENT_LENGTH || position + RECORD_HEADER_LENGTH + contentLength > write
+                    || buffer.getInt(HEADER_LENGTH + position + 4)
+                    != checksum(HEADER_LENGTH + position + RECORD_HEADER_LENGTH, contentLength)) {
+                log.warn("Discarding a damaged record at position={} of the outbox file={}", position, file);
+                break;
+            }
+            position += RECORD_HEADER_LENGTH + contentLength;
+            size++;
+        }
+        if (size == 0) {
+            writeHeader(0, 0);
+        } else {
+            writeHeader(readPosition, position);
+        }
+    }
+
+    /**
+     * Moves the unread records to the start of the journal to make room at the end. The records are only moved when
+     * the space before them is at least as large as they are, so the copy never overwrites them and they stay intact
+     * until the header is rewritten to point at the copy.
+     */
+    private void compact() {
+        if (readPosition == 0 || writePosition - readPosition > readPosition) {
+            return;
+        }
+        final byte[] unread = new byte[writePosition - readPosition];
+        final ByteBuffer records = buffer.duplicate();
+        records.position(HEADER_LENGTH + readPosition);
+        records.get(unread);
+        records.position(HEADER_LENGTH);
+        records.put(unread);
+        writeHeader(0, unread.length);
+        buffer.force();
+    }
+
+    private void writeHeader(final int read, final int write) {
+        readPosition = read;
+        writePosition = write;
+        buffer.putLong(POSITIONS_OFFSET, ((long) read << 32) | (write & 0xFFFFFFFFL));
+    }
+
+    private int checksum(final int start, final int length) {
+        final ByteBuffer content = buffer.duplicate();
+        content.position(start).limit(start + length);
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+
+}
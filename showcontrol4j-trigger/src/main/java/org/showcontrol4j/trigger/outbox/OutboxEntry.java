@@ -0,0 +1,23 @@
+package org.showcontrol4j.trigger.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Serves as a command held in a {@link MappedOutbox} until it can be published: the encoded message, the routing key
+ * and lane it is published with, and its start time, by which stale commands are dropped.
+ *
+ * @author James Hare
+ */
+@Getter
+@AllArgsConstructor
+@ToString(exclude = "body")
+public class OutboxEntry {
+
+    private final boolean control;
+    private final String routingKey;
+    private final long startTime;
+    private final byte[] body;
+
+}
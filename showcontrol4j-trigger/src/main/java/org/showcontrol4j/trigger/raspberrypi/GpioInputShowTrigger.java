@@ -0,0 +1,119 @@
+package org.showcontrol4j.trigger.raspberrypi;
+
+import com.pi4j.io.gpio.GpioController;
+import com.pi4j.io.gpio.GpioFactory;
+import com.pi4j.io.gpio.GpioPinDigitalInput;
+import com.pi4j.io.gpio.Pin;
+import com.pi4j.io.gpio.PinEdge;
+import com.pi4j.io.gpio.PinPullResistance;
+import com.pi4j.io.gpio.event.GpioPinDigitalStateChangeEvent;
+import com.pi4j.io.gpio.event.GpioPinListenerDigital;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.showcontrol4j.broker.BrokerConnectionFactory;
+import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.timing.LatencyStatistics;
+import org.showcontrol4j.transport.Transport;
+import org.showcontrol4j.trigger.ShowTrigger;
+
+import java.io.IOException;
+
+/**
+ * Serves as a Show Trigger for a button, contact or beam sensor wired to a GPIO input of the Raspberry Pi. The pin is
+ * provisioned as a digital input with the given pull resistance, and every edge of the chosen kind fires the trigger's
+ * instruction, GO unless set otherwise. There is no polling thread: the command is published from Pi4J's edge
+ * callback, through {@link #onInput(Instruction)}, so an {@link org.showcontrol4j.trigger.conditioning.InputPolicy}
+ * set on the trigger debounces a bouncing contact as usual.
+ * <p>
+ * Pi4J reports edges without a kernel timestamp, so each edge is stamped with {@link System#nanoTime()} the moment its
+ * callback runs. The time from that stamp until the command has been handed to the transport is kept in
+ * {@link #getEdgeToPublishLatency()}.
+ *
+ * @author James Hare
+ */
+@Getter
+@Setter
+@ToString(onlyExplicitlyIncluded = true, callSuper = true)
+@Slf4j
+public class GpioInputShowTrigger extends ShowTrigger {
+
+    @ToString.Include
+    @Setter(AccessLevel.NONE)
+    private final GpioPinDigitalInput pinInput;
+    @ToString.Include
+    @Setter(AccessLevel.NONE)
+    private final PinEdge edge;
+    private volatile Instruction instruction = Instruction.GO;
+    @Setter(AccessLevel.NONE)
+    private final LatencyStatistics edgeToPublishLatency = new LatencyStatistics();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final GpioController gpioController;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final GpioPinListenerDigital listener = this::onEdge;
+
+    public GpioInputShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                                final MessageExchange messageExchange,
+                                final BrokerConnectionFactory brokerConnectionFactory, final Pin pin,
+                                final PinPullResistance pullResistance, final PinEdge edge) {
+        super(showTriggerName, showTriggerId, syncTimeout, messageExchange, brokerConnectionFactory);
+        this.edge = checkEdge(edge);
+        this.gpioController = GpioFactory.getInstance();
+        this.pinInput = gpioController.provisionDigitalInputPin(pin, showTriggerName, pullResistance);
+    }
+
+    public GpioInputShowTrigger(final String showTriggerName, final Long showTriggerId, final Long syncTimeout,
+                                final Transport transport, final Pin pin, final PinPullResistance pullResistance,
+                                final PinEdge edge) {
+        super(showTriggerName, showTriggerId, syncTimeout, transport);
+        this.edge = checkEdge(edge);
+        this.gpioController = GpioFactory.getInstance();
+        this.pinInput = gpioController.provisionDigitalInputPin(pin, showTriggerName, pullResistance);
+    }
+
+    private static PinEdge checkEdge(final PinEdge edge) {
+        if (edge == null || edge == PinEdge.NONE) {
+            throw new IllegalArgumentException("A GPIO trigger must fire on a rising edge, a falling edge or both.");
+        }
+        return edge;
+    }
+
+    /**
+     * Starts listening for edges on the pin. Returns straight away; commands are published from the edge callback.
+     */
+    @Override
+    public void startListener() {
+        log.info("Starting listener for Show Trigger={}", this.toString());
+        if (!pinInput.hasListener(listener)) {
+            pinInput.addListener(listener);
+        }
+    }
+
+    /**
+     * Stops listening for edges and releases the pin.
+     */
+    public void stopListener() {
+        pinInput.removeListener(listener);
+        gpioController.unprovisionPin(pinInput);
+    }
+
+    private void onEdge(final GpioPinDigitalStateChangeEvent event) {
+        final long edgeNanos = System.nanoTime();
+        if (edge != PinEdge.BOTH && edge != event.getEdge()) {
+            return;
+        }
+        try {
+            onInput(instruction);
+            edgeToPublishLatency.record(System.nanoTime() - edgeNanos);
+        } catch (final IOException | RuntimeException e) {
+            log.error("Show Trigger={} could not fire on a {} edge. {}", this.toString(), event.getEdge(),
+                    e.getMessage());
+        }
+    }
+
+}
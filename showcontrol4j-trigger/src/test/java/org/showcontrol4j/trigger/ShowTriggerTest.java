@@ -1,18 +1,46 @@
 package org.showcontrol4j.trigger;
 
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.CancelCallback;
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConfirmCallback;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
 import com.rabbitmq.client.impl.AMQImpl;
 import org.hamcrest.CoreMatchers;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.showcontrol4j.broker.BrokerConnectionFactory;
 import org.showcontrol4j.exchange.MessageExchange;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.message.codec.MessageCodecs;
+import org.showcontrol4j.transport.Transport;
+import org.showcontrol4j.trigger.conditioning.InputPolicy;
+import org.showcontrol4j.trigger.outbox.MappedOutbox;
+import org.showcontrol4j.trigger.outbox.OutboxEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -27,13 +55,13 @@ public class ShowTriggerTest {
     private final Long id = 123456L;
     private final Long syncTimeout = 5000L;
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
     @Mock
     private MessageExchange mockMessageExchange;
     @Mock
     private BrokerConnectionFactory mockBrokerConnectionFactory;
     @Mock
-    private Connection mockConnection;
-    @Mock
     private Channel mockChannel;
     @Mock
     private AMQImpl.Exchange.DeclareOk mockExchangeDeclareOk;
@@ -56,7 +84,7 @@ public class ShowTriggerTest {
         };
 
         assertThat(showTrigger, CoreMatchers.instanceOf(ShowTrigger.class));
-        verify(mockBrokerConnectionFactory, times(1)).newConnection();
+        verify(mockBrokerConnectionFactory, times(1)).openChannel();
         verify(mockChannel, times(1)).exchangeDeclare("test", "fanout");
         verify(mockMessageExchange, times(1)).getName();
         assertEquals(name, showTrigger.getName());
@@ -117,7 +145,452 @@ public class ShowTriggerTest {
         };
 
         showTrigger.sendShutdownMessage();
+        verify(mockChannel, times(1)).exchangeDeclare("test.control", "fanout");
+        verify(mockChannel, times(1)).basicPublish(eq("test.control"), eq(""), eq(null), any());
+        verify(mockChannel, never()).basicPublish(eq("test"), anyString(), any(), any());
+    }
+
+    @Test
+    public void testStartClockReference() throws Exception {
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        showTrigger.startClockReference();
+        showTrigger.startClockReference();
+        verify(mockChannel, times(1)).queueDeclare("test.clock", false, false, true, null);
+        assertNotNull(showTrigger.getClockSyncServer());
+    }
+
+    @Test
+    public void testStartShowState_recordsShowCommands() throws Exception {
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        showTrigger.startShowState();
+        showTrigger.startShowState();
+        verify(mockChannel, times(1)).queueDeclare("test.state", false, false, true, null);
+        final ArgumentCaptor<DeliverCallback> callbackCaptor = ArgumentCaptor.forClass(DeliverCallback.class);
+        verify(mockChannel).basicConsume(eq("test.state"), anyBoolean(), callbackCaptor.capture(), any(CancelCallback.class));
+
+        when(mockChannel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L, 4L);
+        showTrigger.setTargetZone("south");
+        showTrigger.sendGoMessage();
+        showTrigger.setTargetZone("north");
+        showTrigger.sendGoMessage();
+        showTrigger.setTargetZone("east");
+        showTrigger.sendIdleMessage();
+        showTrigger.setTargetZone("south");
+        showTrigger.sendShutdownMessage();
+        final ArgumentCaptor<ConfirmCallback> ackCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        final ArgumentCaptor<ConfirmCallback> nackCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        verify(mockChannel, times(2)).addConfirmListener(ackCallback.capture(), nackCallback.capture());
+        // the IDLE to the east was rejected, so it never made it into the show state.
+        ackCallback.getAllValues().get(0).handle(2L, true);
+        nackCallback.getAllValues().get(0).handle(3L, false);
+        ackCallback.getAllValues().get(1).handle(4L, false);
+        callbackCaptor.getValue().handle("tag", new Delivery(null,
+                new AMQP.BasicProperties.Builder().replyTo("reply").build(), new byte[0]));
+
+        final ArgumentCaptor<byte[]> responseCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockChannel).basicPublish(eq(""), eq("reply"), any(), responseCaptor.capture());
+        final ByteBuffer response = ByteBuffer.wrap(responseCaptor.getValue());
+        assertEquals(1, response.getInt());
+        final byte[] command = new byte[response.getInt()];
+        response.get(command);
+        final SCFJMessage go = SCFJMessage.deserialize(command);
+        assertEquals(Instruction.GO, go.getInstruction());
+        assertEquals("north", go.getZone());
+        assertNotNull(showTrigger.getShowStateServer());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartShowState_withoutBroker() throws Exception {
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport()) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        showTrigger.startShowState();
+    }
+
+    @Test
+    public void testSendGoMessage_transport() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        showTrigger.sendGoMessage();
+        verify(mockTransport, times(1)).publish(eq("zone.all.group.all.element.all"), any());
+        assertNull(showTrigger.getChannel());
+        assertNull(showTrigger.getBrokerConnectionFactory());
+    }
+
+    @Test
+    public void testSendGoMessage_target() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        showTrigger.setTargetZone("north");
+        showTrigger.setTargetElementId(7L);
+
+        showTrigger.sendGoMessage();
+        verify(mockTransport, times(1)).publish(eq("zone.north.group.all.element.7"), any());
+    }
+
+    @Test
+    public void testSendGoMessage_templateFollowsTarget() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, 0L, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        showTrigger.sendGoMessage();
+        showTrigger.sendGoMessage();
+        showTrigger.setTargetZone("north");
+        showTrigger.sendGoMessage();
+
+        final ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+        verify(mockTransport, times(2)).publish(eq("zone.all.group.all.element.all"), bodies.capture());
+        verify(mockTransport, times(1)).publish(eq("zone.north.group.all.element.all"), bodies.capture());
+        assertNotSame(bodies.getAllValues().get(0), bodies.getAllValues().get(1));
+        final SCFJMessage first = SCFJMessage.deserialize(bodies.getAllValues().get(0));
+        final SCFJMessage second = SCFJMessage.deserialize(bodies.getAllValues().get(1));
+        final SCFJMessage third = SCFJMessage.deserialize(bodies.getAllValues().get(2));
+        assertEquals(Instruction.GO, first.getInstruction());
+        assertNull(first.getZone());
+        assertTrue(second.getStartTime() >= first.getStartTime());
+        assertEquals("north", third.getZone());
+    }
+
+    @Test
+    public void testSendIdleMessage_codecWithoutTemplates() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        showTrigger.setMessageCodec(MessageCodecs.JSON);
+
+        showTrigger.sendIdleMessage();
+        final ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(mockTransport, times(1)).publish(eq("zone.all.group.all.element.all"), body.capture());
+        assertEquals(Instruction.IDLE, MessageCodecs.JSON.decode(body.getValue()).getInstruction());
+    }
+
+    @Test
+    public void testOnInput_conditioned() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        showTrigger.setInputPolicy(InputPolicy.builder().debounceMillis(1000L).build());
+
+        for (int i = 0; i < 20; i++) {
+            showTrigger.onInput(Instruction.GO);
+        }
+        verify(mockTransport, timeout(5000L).times(1)).publish(eq("zone.all.group.all.element.all"), any());
+        Thread.sleep(100L);
+        verify(mockTransport, times(1)).publish(anyString(), any());
+        assertEquals(20L, showTrigger.getInputConditioner().getReceivedCount());
+
+        showTrigger.setInputPolicy(null);
+        showTrigger.onInput(Instruction.GO);
+        verify(mockTransport, times(2)).publish(anyString(), any());
+    }
+
+    @Test
+    public void testSendShutdownMessage_controlTransport() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final Transport mockControlTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport, mockControlTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        showTrigger.sendGoMessage();
+        showTrigger.sendShutdownMessage();
+        verify(mockTransport, times(1)).publish(eq("zone.all.group.all.element.all"), any());
+        verify(mockControlTransport, times(1)).publish(eq("zone.all.group.all.element.all"), any());
+    }
+
+    @Test
+    public void testSendGoMessageAsync_publisherConfirms() throws Exception {
+        when(mockChannel.getNextPublishSeqNo()).thenReturn(1L);
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockMessageExchange, mockBrokerConnectionFactory) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        final CompletableFuture<Void> confirmation = showTrigger.sendGoMessageAsync();
+        final ArgumentCaptor<ConfirmCallback> ackCallback = ArgumentCaptor.forClass(ConfirmCallback.class);
+        verify(mockChannel, times(1)).confirmSelect();
+        verify(mockChannel).addConfirmListener(ackCallback.capture(), any(ConfirmCallback.class));
         verify(mockChannel, times(1)).basicPublish(eq("test"), eq(""), eq(null), any());
+        assertFalse(confirmation.isDone());
+
+        ackCallback.getValue().handle(1L, false);
+        assertTrue(confirmation.isDone() && !confirmation.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testSendGoMessageAsync_notConfirmed() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final CompletableFuture<Void> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new IOException("rejected"));
+        doReturn(rejected).when(mockTransport).publishAsync(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        final CompletableFuture<Void> confirmation = showTrigger.sendGoMessageAsync();
+        assertTrue(confirmation.isCompletedExceptionally());
+        verify(mockTransport, times(1)).publishAsync(eq("zone.all.group.all.element.all"), any());
+    }
+
+    @Test
+    public void testSendGoMessage_journaledWhileDisconnected() throws Exception {
+        final Transport mockTransport = mockTransport();
+        doThrow(new IOException("connection refused")).doNothing().when(mockTransport).publish(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        showTrigger.setOutbox(outbox);
+
+        showTrigger.sendGoMessage();
+        awaitEmpty(outbox);
+        verify(mockTransport, times(2)).publish(eq("zone.all.group.all.element.all"), any());
+        assertEquals(0L, showTrigger.getExpiredCount());
+        outbox.close();
+    }
+
+    @Test
+    public void testSendGoMessage_journaledWhenNotConfirmed() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final CompletableFuture<Void> unconfirmed = new CompletableFuture<>();
+        doReturn(unconfirmed, CompletableFuture.completedFuture(null))
+                .when(mockTransport).publishAsync(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        showTrigger.setOutbox(outbox);
+
+        showTrigger.sendGoMessage();
+        assertTrue(outbox.isEmpty());
+        unconfirmed.completeExceptionally(new IOException("not confirmed"));
+
+        awaitEmpty(outbox);
+        verify(mockTransport, times(2)).publishAsync(eq("zone.all.group.all.element.all"), any());
+        outbox.close();
+    }
+
+    @Test
+    public void testSendGoMessageAsync_lostAfterNewerCommandIsDropped() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final CompletableFuture<Void> unconfirmed = new CompletableFuture<>();
+        doReturn(unconfirmed, CompletableFuture.completedFuture(null))
+                .when(mockTransport).publishAsync(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        showTrigger.setOutbox(outbox);
+
+        final CompletableFuture<Void> go = showTrigger.sendGoMessageAsync();
+        final CompletableFuture<Void> idle = showTrigger.sendIdleMessageAsync();
+        unconfirmed.completeExceptionally(new IOException("not confirmed"));
+
+        assertTrue(go.isCompletedExceptionally());
+        assertTrue(idle.isDone() && !idle.isCompletedExceptionally());
+        assertTrue(outbox.isEmpty());
+        verify(mockTransport, times(2)).publishAsync(anyString(), any());
+        outbox.close();
+    }
+
+    @Test
+    public void testSendGoMessageAsync_lostBeforeCommandToAnotherZoneIsJournaled() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final CompletableFuture<Void> unconfirmed = new CompletableFuture<>();
+        doReturn(unconfirmed, CompletableFuture.completedFuture(null))
+                .when(mockTransport).publishAsync(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        showTrigger.setOutbox(outbox);
+
+        showTrigger.setTargetZone("north");
+        final CompletableFuture<Void> north = showTrigger.sendGoMessageAsync();
+        showTrigger.setTargetZone("south");
+        showTrigger.sendGoMessageAsync();
+        unconfirmed.completeExceptionally(new IOException("not confirmed"));
+
+        assertTrue(north.isDone() && !north.isCompletedExceptionally());
+        awaitEmpty(outbox);
+        verify(mockTransport, times(2)).publishAsync(eq("zone.north.group.all.element.all"), any());
+        outbox.close();
+    }
+
+    @Test
+    public void testSetOutbox_removesOnlyConfirmedCommands() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final CompletableFuture<Void> unconfirmed = new CompletableFuture<>();
+        doReturn(unconfirmed, CompletableFuture.completedFuture(null))
+                .when(mockTransport).publishAsync(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        outbox.append(new OutboxEntry(false, "zone.all.group.all.element.all", 0L, new byte[]{1}));
+
+        showTrigger.setOutbox(outbox);
+        verify(mockTransport, timeout(1000L).times(1)).publishAsync(anyString(), any());
+        assertEquals(1, outbox.size());
+        unconfirmed.completeExceptionally(new IOException("not confirmed"));
+
+        awaitEmpty(outbox);
+        verify(mockTransport, times(2)).publishAsync(eq("zone.all.group.all.element.all"), eq(new byte[]{1}));
+        outbox.close();
+    }
+
+    @Test
+    public void testSendShutdownMessage_skipsJournal() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final Transport mockControlTransport = mockTransport();
+        doThrow(new IOException("connection refused")).when(mockTransport).publish(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport, mockControlTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        showTrigger.setOutbox(outbox);
+
+        showTrigger.sendGoMessage();
+        showTrigger.sendShutdownMessage();
+
+        verify(mockControlTransport, times(1)).publish(eq("zone.all.group.all.element.all"), any());
+        assertEquals(1, outbox.size());
+        assertFalse(outbox.peek().isControl());
+        outbox.close();
+    }
+
+    @Test
+    public void testSendIdleMessage_notHeldUpByDrain() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final CountDownLatch draining = new CountDownLatch(1);
+        final CountDownLatch reconnected = new CountDownLatch(1);
+        doThrow(new IOException("connection refused")).doAnswer(invocation -> {
+            // the drain is stuck reconnecting.
+            draining.countDown();
+            reconnected.await();
+            return null;
+        }).doNothing().when(mockTransport).publish(anyString(), any());
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        showTrigger.setOutbox(outbox);
+
+        showTrigger.sendGoMessage();
+        assertTrue(draining.await(1, TimeUnit.SECONDS));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                showTrigger.sendIdleMessage();
+                return null;
+            }).get(1, TimeUnit.SECONDS);
+            assertEquals(2, outbox.size());
+        } finally {
+            reconnected.countDown();
+            executor.shutdownNow();
+        }
+        awaitEmpty(outbox);
+        outbox.close();
+    }
+
+    @Test
+    public void testSetOutbox_dropsStaleCommands() throws Exception {
+        final Transport mockTransport = mockTransport();
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+        final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 4096);
+        outbox.append(new OutboxEntry(false, "zone.all.group.all.element.all", 1L, new byte[]{1}));
+        outbox.append(new OutboxEntry(true, "zone.all.group.all.element.all", 1L, new byte[]{2}));
+
+        showTrigger.setOutbox(outbox);
+        awaitEmpty(outbox);
+        verify(mockTransport, times(1)).publish(eq("zone.all.group.all.element.all"), eq(new byte[]{2}));
+        assertEquals(1L, showTrigger.getExpiredCount());
+        outbox.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStartClockReference_withoutBroker() throws Exception {
+        final ShowTrigger showTrigger = new ShowTrigger(name, id, syncTimeout, mockTransport()) {
+            @Override
+            protected void startListener() {
+                // do nothing
+            }
+        };
+
+        showTrigger.startClockReference();
     }
 
     @Test
@@ -135,9 +608,24 @@ public class ShowTriggerTest {
 
     //------------------------------------ HELPER METHODS ------------------------------------//
 
+    private static Transport mockTransport() {
+        final Transport mockTransport = mock(Transport.class);
+        when(mockTransport.publishAsync(anyString(), any())).thenCallRealMethod();
+        return mockTransport;
+    }
+
+    private void awaitEmpty(final MappedOutbox outbox) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (!outbox.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertTrue(outbox.isEmpty());
+        // the drain publishes before it removes, give it a moment to return.
+        Thread.sleep(50L);
+    }
+
     private void setupMockRules() throws Exception {
-        when(mockBrokerConnectionFactory.newConnection()).thenReturn(mockConnection);
-        when(mockConnection.createChannel()).thenReturn(mockChannel);
+        when(mockBrokerConnectionFactory.openChannel()).thenReturn(mockChannel);
         when(mockChannel.exchangeDeclare(anyString(), anyString())).thenReturn(mockExchangeDeclareOk);
         when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
         when(mockMessageExchange.getName()).thenReturn("test");
@@ -0,0 +1,64 @@
+package org.showcontrol4j.trigger.conditioning;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link Debouncer} class.
+ *
+ * @author James Hare
+ */
+public class DebouncerTest {
+
+    private static final long WINDOW = 100L;
+
+    @Test
+    public void testLeading_firesOncePerBurst() {
+        final Debouncer debouncer = new Debouncer(WINDOW, Edge.LEADING);
+
+        assertTrue(debouncer.onEvent(0L));
+        assertFalse(debouncer.onEvent(50L));
+        assertFalse(debouncer.poll(120L));
+        // every bounce extends the burst.
+        assertFalse(debouncer.onEvent(120L));
+        assertFalse(debouncer.poll(219L));
+        assertFalse(debouncer.poll(220L));
+        assertEquals(Long.MAX_VALUE, debouncer.getDeadlineNanos());
+        assertTrue(debouncer.onEvent(400L));
+    }
+
+    @Test
+    public void testTrailing_firesWhenSettled() {
+        final Debouncer debouncer = new Debouncer(WINDOW, Edge.TRAILING);
+
+        assertFalse(debouncer.onEvent(0L));
+        assertFalse(debouncer.onEvent(60L));
+        assertEquals(160L, debouncer.getDeadlineNanos());
+        assertFalse(debouncer.poll(159L));
+        assertTrue(debouncer.poll(160L));
+        assertFalse(debouncer.poll(500L));
+    }
+
+    @Test
+    public void testBoth_firesTrailingOnlyAfterBounces() {
+        final Debouncer debouncer = new Debouncer(WINDOW, Edge.BOTH);
+
+        assertTrue(debouncer.onEvent(0L));
+        assertFalse(debouncer.poll(100L));
+
+        assertTrue(debouncer.onEvent(200L));
+        assertFalse(debouncer.onEvent(250L));
+        assertTrue(debouncer.poll(350L));
+    }
+
+    @Test
+    public void testZeroWindow_passesEveryEvent() {
+        final Debouncer debouncer = new Debouncer(0L, Edge.TRAILING);
+
+        assertTrue(debouncer.onEvent(0L));
+        assertTrue(debouncer.onEvent(0L));
+        assertFalse(debouncer.poll(10L));
+    }
+
+}
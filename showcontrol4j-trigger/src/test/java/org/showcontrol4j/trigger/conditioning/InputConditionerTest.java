@@ -0,0 +1,137 @@
+package org.showcontrol4j.trigger.conditioning;
+
+import org.junit.After;
+import org.junit.Test;
+import org.showcontrol4j.message.Instruction;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link InputConditioner} class.
+ *
+ * @author James Hare
+ */
+public class InputConditionerTest {
+
+    private final List<Instruction> fired = new CopyOnWriteArrayList<>();
+    private InputConditioner conditioner;
+
+    @After
+    public void tearDown() {
+        if (conditioner != null) {
+            conditioner.close();
+        }
+    }
+
+    @Test
+    public void testOffer_chatterFiresOnce() throws Exception {
+        conditioner = new InputConditioner("test", InputPolicy.builder().debounceMillis(200L).build(), fired::add);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(conditioner.offer(Instruction.GO));
+        }
+        await(1);
+        Thread.sleep(300L);
+
+        assertEquals(1, fired.size());
+        assertEquals(Instruction.GO, fired.get(0));
+        assertEquals(50L, conditioner.getReceivedCount());
+        assertEquals(1L, conditioner.getFiredCount());
+    }
+
+    @Test
+    public void testOffer_trailingEdgeFiresAfterQuiet() throws Exception {
+        conditioner = new InputConditioner("test",
+                InputPolicy.builder().debounceMillis(50L).edge(Edge.TRAILING).build(), fired::add);
+
+        conditioner.offer(Instruction.IDLE);
+        conditioner.offer(Instruction.IDLE);
+        assertTrue(fired.isEmpty());
+
+        await(1);
+        assertEquals(Instruction.IDLE, fired.get(0));
+    }
+
+    @Test
+    public void testOffer_rateLimited() throws Exception {
+        conditioner = new InputConditioner("test",
+                InputPolicy.builder().ratePerSecond(0.001d).burst(2).build(), fired::add);
+
+        for (int i = 0; i < 10; i++) {
+            conditioner.offer(Instruction.GO);
+        }
+        awaitCount(() -> conditioner.getFiredCount() + conditioner.getRateLimitedCount() == 10L);
+
+        assertEquals(2, fired.size());
+        assertEquals(8L, conditioner.getRateLimitedCount());
+    }
+
+    @Test
+    public void testOffer_shutdownBypassesConditioning() throws Exception {
+        conditioner = new InputConditioner("test",
+                InputPolicy.builder().debounceMillis(10_000L).ratePerSecond(0.001d).build(), fired::add);
+
+        conditioner.offer(Instruction.GO);
+        conditioner.offer(Instruction.GO);
+        conditioner.offer(Instruction.SHUTDOWN);
+        conditioner.offer(Instruction.SHUTDOWN);
+
+        await(3);
+        assertEquals(Instruction.GO, fired.get(0));
+        assertEquals(Instruction.SHUTDOWN, fired.get(1));
+        assertEquals(Instruction.SHUTDOWN, fired.get(2));
+    }
+
+    @Test
+    public void testOffer_fullRingDropsEvents() throws Exception {
+        final Object gate = new Object();
+        conditioner = new InputConditioner("test", InputPolicy.builder().capacity(4).build(), instruction -> {
+            synchronized (gate) {
+                fired.add(instruction);
+            }
+        });
+
+        synchronized (gate) {
+            conditioner.offer(Instruction.GO);
+            // wait for the conditioning thread to block in the sink holding the first event.
+            awaitCount(() -> conditioner.getReceivedCount() == 1L && conditionerBusy());
+            for (int i = 0; i < 10; i++) {
+                conditioner.offer(Instruction.GO);
+            }
+        }
+
+        assertEquals(6L, conditioner.getDroppedCount());
+        awaitCount(() -> fired.size() == 5);
+    }
+
+    //------------------------------------ HELPER METHODS ------------------------------------//
+
+    private boolean conditionerBusy() {
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("showcontrol4j-input-test") && thread.getState() == Thread.State.BLOCKED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void await(final int count) throws InterruptedException {
+        awaitCount(() -> fired.size() >= count);
+    }
+
+    private void awaitCount(final Condition condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.holds() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5L);
+        }
+        assertTrue(condition.holds());
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+}
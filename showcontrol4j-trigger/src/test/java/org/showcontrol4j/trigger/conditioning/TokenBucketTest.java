@@ -0,0 +1,53 @@
+package org.showcontrol4j.trigger.conditioning;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link TokenBucket} class.
+ *
+ * @author James Hare
+ */
+public class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testTryAcquire_burstThenRate() {
+        final TokenBucket bucket = new TokenBucket(2d, 3, 0L);
+
+        assertTrue(bucket.tryAcquire(0L));
+        assertTrue(bucket.tryAcquire(0L));
+        assertTrue(bucket.tryAcquire(0L));
+        assertFalse(bucket.tryAcquire(0L));
+
+        assertFalse(bucket.tryAcquire(SECOND / 4));
+        assertTrue(bucket.tryAcquire(SECOND / 2));
+        assertFalse(bucket.tryAcquire(SECOND / 2));
+    }
+
+    @Test
+    public void testTryAcquire_neverAboveBurst() {
+        final TokenBucket bucket = new TokenBucket(10d, 2, 0L);
+
+        assertTrue(bucket.tryAcquire(100 * SECOND));
+        assertTrue(bucket.tryAcquire(100 * SECOND));
+        assertFalse(bucket.tryAcquire(100 * SECOND));
+    }
+
+    @Test
+    public void testTryAcquire_ignoresEarlierTimes() {
+        final TokenBucket bucket = new TokenBucket(1d, 1, SECOND);
+
+        assertTrue(bucket.tryAcquire(SECOND));
+        assertFalse(bucket.tryAcquire(0L));
+        assertTrue(bucket.tryAcquire(2 * SECOND));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidRate() {
+        new TokenBucket(0d, 1, 0L);
+    }
+
+}
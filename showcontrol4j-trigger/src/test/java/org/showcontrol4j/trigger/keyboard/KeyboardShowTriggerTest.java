@@ -1,7 +1,6 @@
 package org.showcontrol4j.trigger.keyboard;
 
 import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.impl.AMQImpl;
 import org.hamcrest.CoreMatchers;
 import org.junit.After;
@@ -15,6 +14,7 @@ import org.showcontrol4j.broker.BrokerConnectionFactory;
 import org.showcontrol4j.exchange.MessageExchange;
 
 import java.lang.reflect.Field;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,8 +42,6 @@ public class KeyboardShowTriggerTest {
     @Mock
     private BrokerConnectionFactory mockBrokerConnectionFactory;
     @Mock
-    private Connection mockConnection;
-    @Mock
     private Channel mockChannel;
     @Mock
     private AMQImpl.Exchange.DeclareOk mockExchangeDeclareOk;
@@ -85,7 +83,7 @@ public class KeyboardShowTriggerTest {
         final KeyboardShowTrigger keyboardShowTrigger = new KeyboardShowTrigger(triggerKey, name, id, syncTimeout,
                 mockMessageExchange, mockBrokerConnectionFactory);
         final Scanner mockScanner = mock(Scanner.class);
-        when(mockScanner.next()).thenReturn(triggerKey);
+        when(mockScanner.next()).thenReturn(triggerKey).thenThrow(new NoSuchElementException());
 
         final Field scannerField = keyboardShowTrigger.getClass().getDeclaredField("scanner");
         scannerField.setAccessible(true);
@@ -101,7 +99,7 @@ public class KeyboardShowTriggerTest {
         final KeyboardShowTrigger keyboardShowTrigger = new KeyboardShowTrigger(triggerKey, name, id, syncTimeout,
                 mockMessageExchange, mockBrokerConnectionFactory);
         final Scanner mockScanner = mock(Scanner.class);
-        when(mockScanner.next()).thenReturn("IDLE");
+        when(mockScanner.next()).thenReturn("IDLE").thenThrow(new NoSuchElementException());
 
         final Field scannerField = keyboardShowTrigger.getClass().getDeclaredField("scanner");
         scannerField.setAccessible(true);
@@ -117,7 +115,7 @@ public class KeyboardShowTriggerTest {
         final KeyboardShowTrigger keyboardShowTrigger = new KeyboardShowTrigger(triggerKey, name, id, syncTimeout,
                 mockMessageExchange, mockBrokerConnectionFactory);
         final Scanner mockScanner = mock(Scanner.class);
-        when(mockScanner.next()).thenReturn("SHUTDOWN");
+        when(mockScanner.next()).thenReturn("SHUTDOWN").thenThrow(new NoSuchElementException());
 
         final Field scannerField = keyboardShowTrigger.getClass().getDeclaredField("scanner");
         scannerField.setAccessible(true);
@@ -125,7 +123,7 @@ public class KeyboardShowTriggerTest {
 
         executor.submit(new TestTask(keyboardShowTrigger));
         Thread.sleep(1000);
-        verify(mockChannel, atLeast(1)).basicPublish(eq("test"), eq(""), eq(null), any());
+        verify(mockChannel, atLeast(1)).basicPublish(eq("test.control"), eq(""), eq(null), any());
     }
 
     @Test
@@ -157,8 +155,7 @@ public class KeyboardShowTriggerTest {
     //------------------------------------ HELPER METHODS ------------------------------------//
 
     private void setupMockRules() throws Exception {
-        when(mockBrokerConnectionFactory.newConnection()).thenReturn(mockConnection);
-        when(mockConnection.createChannel()).thenReturn(mockChannel);
+        when(mockBrokerConnectionFactory.openChannel()).thenReturn(mockChannel);
         when(mockChannel.exchangeDeclare(anyString(), anyString())).thenReturn(mockExchangeDeclareOk);
         when(mockChannel.queueDeclare()).thenReturn(mockQueueDeclareOk);
         when(mockMessageExchange.getName()).thenReturn("test");
@@ -0,0 +1,180 @@
+package org.showcontrol4j.trigger.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.transport.Transport;
+
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link NetworkShowTrigger} class.
+ *
+ * @author James Hare
+ */
+public class NetworkShowTriggerTest {
+
+    private final String name = "Test Trigger";
+    private final Long id = 123456L;
+    private final InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    @Mock
+    private Transport mockTransport;
+
+    private NetworkShowTrigger trigger;
+    private ExecutorService executor;
+
+    @Before
+    public void init() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(mockTransport.publishAsync(anyString(), any())).thenCallRealMethod();
+        trigger = new NetworkShowTrigger(name, id, 0L, mockTransport);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        trigger.close();
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(5L, TimeUnit.SECONDS));
+    }
+
+    private Instruction[] published(final int count) throws Exception {
+        final ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(mockTransport, timeout(5000L).times(count)).publish(anyString(), body.capture());
+        final Instruction[] instructions = new Instruction[count];
+        for (int i = 0; i < count; i++) {
+            instructions[i] = SCFJMessage.deserialize(body.getAllValues().get(i)).getInstruction();
+        }
+        return instructions;
+    }
+
+    private static Map<String, Instruction> withShutdown(final Map<String, Instruction> commands, final String key) {
+        final Map<String, Instruction> withShutdown = new HashMap<>(commands);
+        withShutdown.put(key, Instruction.SHUTDOWN);
+        return withShutdown;
+    }
+
+    private static void sendDatagram(final InetSocketAddress address, final byte[] payload) throws Exception {
+        try (final DatagramSocket socket = new DatagramSocket()) {
+            socket.send(new DatagramPacket(payload, payload.length, address));
+        }
+    }
+
+    @Test
+    public void testUdp_commandWords() throws Exception {
+        final InetSocketAddress address = trigger.bindUdp(loopback);
+        executor.submit(trigger::startListener);
+
+        sendDatagram(address, "go\r\n".getBytes(StandardCharsets.US_ASCII));
+        published(1);
+        sendDatagram(address, " Idle ".getBytes(StandardCharsets.US_ASCII));
+        sendDatagram(address, "jump".getBytes(StandardCharsets.US_ASCII));
+
+        assertArrayEquals(new Instruction[]{Instruction.GO, Instruction.IDLE}, published(2));
+        verify(mockTransport, after(200L).times(2)).publish(anyString(), any(byte[].class));
+        assertEquals(3L, trigger.getReceivedCount());
+        assertEquals(1L, trigger.getUnrecognisedCount());
+    }
+
+    @Test
+    public void testUdp_shutdownNotRecognisedByDefault() throws Exception {
+        final InetSocketAddress address = trigger.bindUdp(loopback);
+        executor.submit(trigger::startListener);
+
+        sendDatagram(address, "shutdown".getBytes(StandardCharsets.US_ASCII));
+        sendDatagram(address, "go".getBytes(StandardCharsets.US_ASCII));
+
+        assertArrayEquals(new Instruction[]{Instruction.GO}, published(1));
+        assertEquals(1L, trigger.getUnrecognisedCount());
+    }
+
+    @Test
+    public void testOsc_boundAfterStart() throws Exception {
+        trigger.setOscAddresses(withShutdown(NetworkShowTrigger.DEFAULT_OSC_ADDRESSES, "/showcontrol4j/shutdown"));
+        executor.submit(trigger::startListener);
+        final InetSocketAddress address = trigger.bindOsc(loopback);
+
+        sendDatagram(address, OscParserTest.message("/showcontrol4j/go", 0f));
+        sendDatagram(address, OscParserTest.message("/showcontrol4j/shutdown", 1f));
+
+        assertArrayEquals(new Instruction[]{Instruction.SHUTDOWN}, published(1));
+    }
+
+    @Test
+    public void testTcp_linesSplitAcrossReads() throws Exception {
+        trigger.setWords(withShutdown(NetworkShowTrigger.DEFAULT_WORDS, "shutdown"));
+        final InetSocketAddress address = trigger.bindTcp(loopback);
+        executor.submit(trigger::startListener);
+
+        try (final Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            final OutputStream output = socket.getOutputStream();
+            output.write("IDLE\r\nGO\nSHUT".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            published(2);
+            output.write("DOWN\n".getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+
+            assertArrayEquals(new Instruction[]{Instruction.IDLE, Instruction.GO, Instruction.SHUTDOWN},
+                    published(3));
+        }
+    }
+
+    @Test
+    public void testTcp_manyConnectionsOneThread() throws Exception {
+        final InetSocketAddress address = trigger.bindTcp(loopback);
+        trigger.setWords(Map.of("cue", Instruction.GO));
+        executor.submit(trigger::startListener);
+
+        final Socket[] sockets = new Socket[8];
+        try {
+            for (int i = 0; i < sockets.length; i++) {
+                sockets[i] = new Socket(address.getAddress(), address.getPort());
+                sockets[i].getOutputStream().write("go\nCUE\n".getBytes(StandardCharsets.US_ASCII));
+            }
+
+            published(sockets.length);
+            assertEquals(sockets.length, trigger.getUnrecognisedCount());
+        } finally {
+            for (final Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testClose_stopsListener() throws Exception {
+        trigger.bindUdp(loopback);
+        trigger.bindTcp(loopback);
+        final Future<?> listener = executor.submit(trigger::startListener);
+
+        trigger.close();
+
+        listener.get(5L, TimeUnit.SECONDS);
+    }
+
+}
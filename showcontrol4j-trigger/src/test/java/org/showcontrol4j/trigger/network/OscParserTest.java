@@ -0,0 +1,102 @@
+package org.showcontrol4j.trigger.network;
+
+import org.junit.Test;
+import org.showcontrol4j.message.Instruction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link OscParser} class.
+ *
+ * @author James Hare
+ */
+public class OscParserTest {
+
+    private final CommandTable addresses = new CommandTable(NetworkShowTrigger.DEFAULT_OSC_ADDRESSES, false);
+    private final List<Instruction> fired = new ArrayList<>();
+    private int unrecognised;
+    private final OscParser.Listener listener = new OscParser.Listener() {
+        @Override
+        public void onInstruction(final Instruction instruction) {
+            fired.add(instruction);
+        }
+
+        @Override
+        public void onUnrecognised() {
+            unrecognised++;
+        }
+    };
+
+    /**
+     * Encodes an OSC message with no argument, or with a single float argument.
+     */
+    static byte[] message(final String address, final Float argument) {
+        final byte[] addressBytes = address.getBytes(StandardCharsets.US_ASCII);
+        final int addressLength = (addressBytes.length + 4) & ~3;
+        final ByteBuffer buffer = ByteBuffer.allocate(addressLength + 4 + (argument != null ? 4 : 0));
+        buffer.put(addressBytes).position(addressLength);
+        buffer.put((byte) ',').put((byte) (argument != null ? 'f' : 0)).put((byte) 0).put((byte) 0);
+        if (argument != null) {
+            buffer.putFloat(argument);
+        }
+        return buffer.array();
+    }
+
+    static byte[] bundle(final byte[]... elements) {
+        int length = 16;
+        for (final byte[] element : elements) {
+            length += 4 + element.length;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put("#bundle".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).putLong(1L);
+        for (final byte[] element : elements) {
+            buffer.putInt(element.length).put(element);
+        }
+        return buffer.array();
+    }
+
+    private void parse(final byte[] packet) {
+        OscParser.parse(ByteBuffer.wrap(packet), addresses, listener);
+    }
+
+    @Test
+    public void testParse_message() throws Exception {
+        parse(message("/showcontrol4j/go", null));
+        parse(message("/showcontrol4j/idle", 1f));
+
+        assertEquals(List.of(Instruction.GO, Instruction.IDLE), fired);
+        assertEquals(0, unrecognised);
+    }
+
+    @Test
+    public void testParse_releaseIgnored() throws Exception {
+        parse(message("/showcontrol4j/go", 0f));
+
+        assertTrue(fired.isEmpty());
+        assertEquals(0, unrecognised);
+    }
+
+    @Test
+    public void testParse_nestedBundle() throws Exception {
+        parse(bundle(message("/showcontrol4j/go", 1f),
+                bundle(message("/showcontrol4j/idle", null), message("/other", null))));
+
+        assertEquals(List.of(Instruction.GO, Instruction.IDLE), fired);
+        assertEquals(1, unrecognised);
+    }
+
+    @Test
+    public void testParse_malformed() throws Exception {
+        parse("go".getBytes(StandardCharsets.US_ASCII));
+        parse(new byte[]{'/', 'g', 'o'});
+
+        assertTrue(fired.isEmpty());
+        assertEquals(2, unrecognised);
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.showcontrol4j.trigger.outbox;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the {@link MappedOutbox} class.
+ *
+ * @author James Hare
+ */
+public class MappedOutboxTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendPeekRemove_firstInFirstOut() throws Exception {
+        try (final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 1024)) {
+            assertTrue(outbox.isEmpty());
+            assertNull(outbox.peek());
+
+            outbox.append(new OutboxEntry(false, "zone.all.group.all.element.all", 100L, new byte[]{1, 2}));
+            outbox.append(new OutboxEntry(true, "", 200L, new byte[]{3}));
+            assertEquals(2, outbox.size());
+
+            final OutboxEntry first = outbox.peek();
+            assertFalse(first.isControl());
+            assertEquals("zone.all.group.all.element.all", first.getRoutingKey());
+            assertEquals(100L, first.getStartTime());
+            assertArrayEquals(new byte[]{1, 2}, first.getBody());
+            outbox.remove();
+
+            final OutboxEntry second = outbox.peek();
+            assertTrue(second.isControl());
+            assertEquals("", second.getRoutingKey());
+            assertEquals(200L, second.getStartTime());
+            assertArrayEquals(new byte[]{3}, second.getBody());
+            outbox.remove();
+
+            assertTrue(outbox.isEmpty());
+            outbox.remove();
+            assertEquals(0, outbox.size());
+        }
+    }
+
+    @Test
+    public void testReopen_keepsEntries() throws Exception {
+        final Path file = folder.newFile().toPath();
+        try (final MappedOutbox outbox = new MappedOutbox(file, 1024)) {
+            outbox.append(new OutboxEntry(false, "a", 1L, new byte[]{1}));
+            outbox.append(new OutboxEntry(false, "b", 2L, new byte[]{2}));
+            outbox.append(new OutboxEntry(false, "c", 3L, new byte[]{3}));
+            outbox.remove();
+        }
+
+        try (final MappedOutbox outbox = new MappedOutbox(file, 1024)) {
+            assertEquals(2, outbox.size());
+            assertEquals("b", outbox.peek().getRoutingKey());
+            outbox.remove();
+            assertEquals("c", outbox.peek().getRoutingKey());
+        }
+    }
+
+    @Test
+    public void testReopen_discardsDamagedRecord() throws Exception {
+        final Path file = folder.newFile().toPath();
+        try (final MappedOutbox outbox = new MappedOutbox(file, 1024)) {
+            outbox.append(new OutboxEntry(false, "a", 1L, new byte[]{1}));
+            outbox.append(new OutboxEntry(false, "b", 2L, new byte[]{2}));
+        }
+        try (final RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // the body of the second record is the last byte written.
+            raw.seek(16 + 2 * (8 + 11 + 1 + 1) - 1);
+            raw.write(42);
+        }
+
+        try (final MappedOutbox outbox = new MappedOutbox(file, 1024)) {
+            assertEquals(1, outbox.size());
+            assertEquals("a", outbox.peek().getRoutingKey());
+            outbox.append(new OutboxEntry(false, "c", 3L, new byte[]{3}));
+            outbox.remove();
+            assertEquals("c", outbox.peek().getRoutingKey());
+        }
+    }
+
+    @Test
+    public void testAppend_reclaimsRemovedSpace() throws Exception {
+        try (final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 100)) {
+            for (int i = 0; i < 50; i++) {
+                outbox.append(new OutboxEntry(false, "a", i, new byte[20]));
+                outbox.append(new OutboxEntry(false, "b", i, new byte[20]));
+                outbox.remove();
+                assertEquals("b", outbox.peek().getRoutingKey());
+                outbox.remove();
+            }
+            outbox.append(new OutboxEntry(false, "a", 1L, new byte[20]));
+            outbox.append(new OutboxEntry(false, "b", 2L, new byte[20]));
+            outbox.remove();
+            outbox.append(new OutboxEntry(false, "c", 3L, new byte[20]));
+            assertEquals("b", outbox.peek().getRoutingKey());
+            assertEquals(2, outbox.size());
+        }
+    }
+
+    @Test
+    public void testAppend_neverCompactsOverUnreadRecords() throws Exception {
+        final Path file = folder.newFile().toPath();
+        try (final MappedOutbox outbox = new MappedOutbox(file, 100)) {
+            outbox.append(new OutboxEntry(false, "a", 1L, new byte[10]));
+            outbox.append(new OutboxEntry(false, "b", 2L, new byte[10]));
+            outbox.append(new OutboxEntry(false, "c", 3L, new byte[10]));
+            outbox.remove();
+            try {
+                // the two unread records are larger than the space freed before them.
+                outbox.append(new OutboxEntry(false, "d", 4L, new byte[10]));
+                fail("Expected the outbox to be full.");
+            } catch (final IOException e) {
+                // expected
+            }
+        }
+
+        try (final MappedOutbox outbox = new MappedOutbox(file, 100)) {
+            assertEquals(2, outbox.size());
+            assertEquals("b", outbox.peek().getRoutingKey());
+            outbox.remove();
+            assertEquals("c", outbox.peek().getRoutingKey());
+            outbox.append(new OutboxEntry(false, "d", 4L, new byte[10]));
+            assertEquals(2, outbox.size());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testAppend_full() throws Exception {
+        try (final MappedOutbox outbox = new MappedOutbox(folder.newFile().toPath(), 64)) {
+            outbox.append(new OutboxEntry(false, "a", 1L, new byte[32]));
+            outbox.append(new OutboxEntry(false, "b", 2L, new byte[32]));
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.showcontrol4j.trigger.raspberrypi;
+
+import com.pi4j.io.gpio.GpioFactory;
+import com.pi4j.io.gpio.Pin;
+import com.pi4j.io.gpio.PinEdge;
+import com.pi4j.io.gpio.PinMode;
+import com.pi4j.io.gpio.PinPullResistance;
+import com.pi4j.io.gpio.PinState;
+import com.pi4j.io.gpio.SimulatedGpioProvider;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.showcontrol4j.message.Instruction;
+import org.showcontrol4j.message.SCFJMessage;
+import org.showcontrol4j.transport.Transport;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the {@link GpioInputShowTrigger} class.
+ *
+ * @author James Hare
+ */
+public class GpioInputShowTriggerTest {
+
+    private final String name = "Test Trigger";
+    private final Long id = 123456L;
+    static final SimulatedGpioProvider simulator = new SimulatedGpioProvider();
+
+    @Mock
+    private Transport mockTransport;
+    @Mock
+    private Pin mockIOPin;
+    @Mock
+    private EnumSet<PinMode> mockPinModeEnumSet;
+    @Mock
+    private EnumSet<PinPullResistance> mockPullResistanceEnumSet;
+
+    @BeforeClass
+    public static void before_all() {
+        GpioFactory.setDefaultProvider(simulator);
+    }
+
+    @Before
+    public void init() {
+        MockitoAnnotations.openMocks(this);
+        when(mockTransport.publishAsync(anyString(), any())).thenCallRealMethod();
+        when(mockIOPin.getProvider()).thenReturn(SimulatedGpioProvider.NAME);
+        when(mockIOPin.getName()).thenReturn("GPIO 7");
+        when(mockIOPin.getSupportedPinModes()).thenReturn(mockPinModeEnumSet);
+        when(mockPinModeEnumSet.contains(any(PinMode.class))).thenReturn(true);
+        when(mockIOPin.getSupportedPinPullResistance()).thenReturn(mockPullResistanceEnumSet);
+        when(mockPullResistanceEnumSet.contains(any(PinPullResistance.class))).thenReturn(true);
+        simulator.setState(mockIOPin, PinState.LOW);
+    }
+
+    @Test
+    public void testEdge_publishesFromCallback() throws Exception {
+        final GpioInputShowTrigger trigger = new GpioInputShowTrigger(name, id, 0L, mockTransport, mockIOPin,
+                PinPullResistance.PULL_DOWN, PinEdge.RISING);
+        trigger.startListener();
+
+        simulator.setState(mockIOPin, PinState.HIGH);
+        final ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(mockTransport, timeout(5000L).times(1)).publish(eq("zone.all.group.all.element.all"), body.capture());
+        assertEquals(Instruction.GO, SCFJMessage.deserialize(body.getValue()).getInstruction());
+        assertEquals(1L, trigger.getEdgeToPublishLatency().getCount());
+
+        trigger.stopListener();
+    }
+
+    @Test
+    public void testEdge_ignoresOtherEdge() throws Exception {
+        final GpioInputShowTrigger trigger = new GpioInputShowTrigger(name, id, 0L, mockTransport, mockIOPin,
+                PinPullResistance.PULL_UP, PinEdge.FALLING);
+        trigger.setInstruction(Instruction.IDLE);
+        trigger.startListener();
+
+        simulator.setState(mockIOPin, PinState.HIGH);
+        simulator.setState(mockIOPin, PinState.LOW);
+        final ArgumentCaptor<byte[]> body = ArgumentCaptor.forClass(byte[].class);
+        verify(mockTransport, timeout(5000L).times(1)).publish(anyString(), body.capture());
+        Thread.sleep(100L);
+        verify(mockTransport, times(1)).publish(anyString(), any());
+        assertEquals(Instruction.IDLE, SCFJMessage.deserialize(body.getValue()).getInstruction());
+
+        trigger.stopListener();
+    }
+
+    @Test
+    public void testEdge_both() throws Exception {
+        final GpioInputShowTrigger trigger = new GpioInputShowTrigger(name, id, 0L, mockTransport, mockIOPin,
+                PinPullResistance.OFF, PinEdge.BOTH);
+        trigger.startListener();
+        trigger.startListener();
+
+        simulator.setState(mockIOPin, PinState.HIGH);
+        simulator.setState(mockIOPin, PinState.LOW);
+        verify(mockTransport, timeout(5000L).times(2)).publish(anyString(), any());
+
+        trigger.stopListener();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_noEdge() {
+        new GpioInputShowTrigger(name, id, 0L, mockTransport, mockIOPin, PinPullResistance.OFF, PinEdge.NONE);
+    }
+
+    @Test
+    public void testToString() {
+        final GpioInputShowTrigger trigger = new GpioInputShowTrigger(name, id, 0L, mockTransport, mockIOPin,
+                PinPullResistance.OFF, PinEdge.RISING);
+
+        assertTrue(trigger.toString().startsWith("GpioInputShowTrigger(super=ShowTrigger(name=Test Trigger"));
+        assertTrue(trigger.toString().endsWith("edge=rising)"));
+        trigger.stopListener();
+    }
+
+}